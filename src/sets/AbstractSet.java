@@ -1,6 +1,11 @@
 package sets;
 
-import java.util.Iterator;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
 
 /**
  * Partial implementation of {@link Set}.
@@ -24,10 +29,28 @@ public abstract class AbstractSet<E> implements Set<E>
 	@Override
 	public abstract Object clone();
 
+	/**
+	 * Number of elements up to which {@link #equals(Object)} searches the
+	 * elements of the other set with {@link #contains(Object)} even when
+	 * this set's lookups are linear: at most 16² = 256 element comparisons
+	 * are cheaper than allocating and filling a temporary {@link HashSet} of
+	 * the elements of this set.
+	 */
+	private static final int LinearEqualsThreshold = 16;
+
 	/**
 	 * Comparison with another object
 	 * @return true if object o is also a Set which contains the same elements
 	 * not necessarily in the same order.
+	 * @implNote Sets of different sizes, or of different hashcodes when both
+	 * sets have {@link SetCapability#KNOWN_HASH}, are rejected without
+	 * comparing their elements. Otherwise, elements of one set are searched in
+	 * the other one in a single pass, either directly with
+	 * {@link #contains(Object)} on small sets (up to
+	 * {@link #LinearEqualsThreshold} elements) or on the set with
+	 * {@link SetCapability#FAST_CONTAINS}, or within a temporary
+	 * {@link HashSet} of the elements of this set, so that comparing two sets
+	 * with linear lookups costs O(n) instead of O(n²).
 	 */
 	@Override
 	public boolean equals(Object o)
@@ -44,12 +67,28 @@ public abstract class AbstractSet<E> implements Set<E>
 		if (o instanceof Set)
 		{
 			Set<?> obj = (Set<?>) o;
-			boolean output = true;
-			for (Object elt : obj)
+			int size = size();
+			if (obj.size() != size)
+			{
+				return false;
+			}
+			if (hasCapability(SetCapability.KNOWN_HASH) &&
+				obj.hasCapability(SetCapability.KNOWN_HASH) &&
+				obj.hashCode() != hashCode())
+			{
+				return false;
+			}
+			if (size <= LinearEqualsThreshold || hasCapability(SetCapability.FAST_CONTAINS))
 			{
-				if (!this.contains(elt)) return false;
+				return !obj.forEachUntil(elt -> !this.contains(elt));
 			}
-			return this.containsAll(obj);
+			if (obj.hasCapability(SetCapability.FAST_CONTAINS))
+			{
+				return !forEachUntil(elt -> !obj.contains(elt));
+			}
+			HashSet<Object> index = new HashSet<Object>((int) (size / 0.75f) + 1);
+			forEach(index::add);
+			return !obj.forEachUntil(elt -> !index.contains(elt));
 		}
 		return false;
 	}
@@ -62,39 +101,336 @@ public abstract class AbstractSet<E> implements Set<E>
 	@Override
 	public int hashCode()
 	{
-		int hash = 0;
+		int[] hash = new int[1];
 		// DONE 101 AbstractSet#hashCode(): replace with implementation ...
-		for (Iterator<E> it = iterator(); it.hasNext();)
-		{
-			hash += it.next().hashCode();
-		}
-		return hash;
+		forEach(elt -> hash[0] += elt.hashCode());
+		return hash[0];
 	}
 
 	/**
 	 * String representation of this set.
 	 * @return a new String representing the elements of this set with the
 	 * following format: {elt1, elt2, ..., eltn}
+	 * @implNote Large sets should rather be rendered with
+	 * {@link Set#writeTo(Appendable)} or {@link Set#toString(int)} which don't
+	 * need contiguous memory for all elements.
 	 */
 	@Override
 	public String toString()
 	{
-		StringBuilder builder = new StringBuilder();
-		builder.append('{');
-
 		// DONE 102 AbstractSet#toString(): replace with implementation ...
-		
-		for (Iterator<E> it = iterator(); it.hasNext();)
+		return toString(Integer.MAX_VALUE);
+	}
+
+	// -------------------------------------------------------------------------
+	// Elements type
+	// -------------------------------------------------------------------------
+	/**
+	 * The explicit class of elements of this set provided at construction, or
+	 * null if this set is untyped, in which case the class of its elements is
+	 * discovered from its content by {@link Set#elementsType()}.
+	 */
+	private Class<E> elementsClass = null;
+
+	/**
+	 * The explicit class of elements of this set
+	 * @return the class of elements provided at construction or null if this
+	 * set is untyped
+	 */
+	@Override
+	public Class<E> elementsClass()
+	{
+		return elementsClass;
+	}
+
+	/**
+	 * Sets the explicit class of elements of this set.
+	 * Intended to be used by constructors of typed sets.
+	 * @param elementsClass the class of elements of this set
+	 * @throws NullPointerException if the provided class is null
+	 */
+	protected void setElementsClass(Class<E> elementsClass) throws NullPointerException
+	{
+		if (elementsClass == null) throw new NullPointerException();
+		this.elementsClass = elementsClass;
+	}
+
+	/**
+	 * Gives a new set (such as a clone or the result of an operation) the
+	 * same explicit class of elements as this set
+	 * @param <S> the type of the new set
+	 * @param set the new set
+	 * @return the provided set
+	 */
+	protected <S extends AbstractSet<E>> S sameElementsClass(S set)
+	{
+		((AbstractSet<E>) set).elementsClass = elementsClass;
+		return set;
+	}
+
+	/**
+	 * Checks that all non null elements of a collection are compatible with
+	 * the type of elements of this set.
+	 * @param c the collection to check
+	 * @throws ClassCastException if one non null element of c is not an
+	 * instance of {@link #elementsType()}
+	 * @implNote The per element reflective check is skipped when this set is
+	 * empty and untyped, or when c is a typed {@link Set} whose class of
+	 * elements is a subtype of {@link #elementsType()}.
+	 */
+	protected void checkElementsType(Collection<?> c) throws ClassCastException
+	{
+		Class<? extends E> type = elementsType();
+		if (type == null)
 		{
-			builder.append(it.next().toString());
-			if (it.hasNext())
+			return;
+		}
+		Class<?> cType = c instanceof Set ? ((Set<?>) c).elementsClass() : null;
+		if (cType != null && type.isAssignableFrom(cType))
+		{
+			return;
+		}
+		for (Object elt : c)
+		{
+			if (elt != null && !type.isInstance(elt))
 			{
-				builder.append(", ");
+				throw new ClassCastException();
 			}
 		}
+	}
 
-		builder.append('}');
-		return builder.toString();
+	// -------------------------------------------------------------------------
+	// Bulk construction
+	// -------------------------------------------------------------------------
+	/**
+	 * Number of elements under which duplicates are searched with a linear
+	 * scan rather than with a temporary hash index
+	 */
+	private static final int LinearDistinctThreshold = 16;
+
+	/**
+	 * Number of elements up to which a batch of elements added to a set is
+	 * searched in this set with its own lookup rather than within a
+	 * temporary hash index of all its elements
+	 */
+	private static final int SmallBatchThreshold = 32;
+
+	/**
+	 * Moves the first occurrence of each distinct and non null element of an
+	 * array to the beginning of this array (preserving their order) and sets
+	 * the remaining slots to null.
+	 * @param elements the array to process
+	 * @param alreadyDistinct true if the non null elements of the array are
+	 * already known to be distinct, in which case only null elements are
+	 * removed
+	 * @return the number of distinct and non null elements now at the
+	 * beginning of the array
+	 * @see #distinct(Object[], boolean, Collection)
+	 */
+	protected static int distinct(Object[] elements, boolean alreadyDistinct)
+	{
+		return distinct(elements, alreadyDistinct, Collections.emptyList());
+	}
+
+	/**
+	 * Moves the first occurrence of each distinct and non null element of an
+	 * array which is not part of an existing collection to the beginning of
+	 * this array (preserving their order) and sets the remaining slots to
+	 * null.
+	 * @param elements the array to process
+	 * @param alreadyDistinct true if the non null elements of the array are
+	 * already known to be distinct, in which case they are only searched in
+	 * the existing collection
+	 * @param existing the existing elements which should be removed from the
+	 * array (e.g. the current content of a set to add elements to)
+	 * @return the number of distinct and non null elements now at the
+	 * beginning of the array
+	 * @implNote Small arrays (up to {@link #SmallBatchThreshold} elements) are
+	 * searched in the existing collection with its own
+	 * {@link Collection#contains(Object)} (so the receiver of a bulk addition
+	 * should provide itself in order to use its own lookup) and among
+	 * themselves with a linear scan, so that adding a few elements to a large
+	 * set doesn't copy the whole set. Larger arrays are processed using a
+	 * single temporary {@link HashSet} (filled with existing elements and then
+	 * with the elements of the array) so that bulk construction of a set from
+	 * a collection of n elements is O(n) instead of O(n²) with successive
+	 * calls to {@link Set#contains(Object)}.
+	 */
+	protected static int distinct(Object[] elements,
+	                              boolean alreadyDistinct,
+	                              Collection<?> existing)
+	{
+		int length = elements.length;
+		int existingSize = existing.size();
+		int count = 0;
+		if (alreadyDistinct && existingSize == 0)
+		{
+			for (int i = 0; i < length; i++)
+			{
+				if (elements[i] != null)
+				{
+					elements[count++] = elements[i];
+				}
+			}
+		}
+		else if (length <= SmallBatchThreshold)
+		{
+			for (int i = 0; i < length; i++)
+			{
+				Object elt = elements[i];
+				if (elt == null || (existingSize > 0 && existing.contains(elt)))
+				{
+					continue;
+				}
+				boolean duplicate = false;
+				for (int j = 0; j < count && !alreadyDistinct && !duplicate; j++)
+				{
+					duplicate = elements[j].equals(elt);
+				}
+				if (!duplicate)
+				{
+					elements[count++] = elt;
+				}
+			}
+		}
+		else
+		{
+			HashSet<Object> seen = new HashSet<Object>((int) ((existingSize + length) / 0.75f) + 1);
+			seen.addAll(existing);
+			for (int i = 0; i < length; i++)
+			{
+				Object elt = elements[i];
+				if (elt != null && seen.add(elt))
+				{
+					elements[count++] = elt;
+				}
+			}
+		}
+		for (int i = count; i < length; i++)
+		{
+			elements[i] = null;
+		}
+		return count;
+	}
+
+	/**
+	 * Provides a collection with fast membership test for bulk operations
+	 * probing a collection many times (such as
+	 * {@link Collection#removeAll(Collection)} or
+	 * {@link Collection#retainAll(Collection)})
+	 * @param c the collection to probe
+	 * @param probes the expected number of probes in c
+	 * @return c itself if it is a {@link java.util.Set} or if it is small
+	 * enough to be probed with a linear scan, or a new temporary
+	 * {@link HashSet} containing the elements of c otherwise
+	 */
+	protected static Collection<?> lookup(Collection<?> c, int probes)
+	{
+		if (c instanceof java.util.Set ||
+			(long) probes * c.size() <= LinearDistinctThreshold * LinearDistinctThreshold)
+		{
+			return c;
+		}
+		return new HashSet<Object>(c);
+	}
+
+	// -------------------------------------------------------------------------
+	// Spliterators
+	// -------------------------------------------------------------------------
+	/**
+	 * Characteristics of spliterators over indexed sets
+	 */
+	protected static final int IndexedCharacteristics = Spliterator.DISTINCT |
+		Spliterator.NONNULL | Spliterator.ORDERED | Spliterator.SIZED |
+		Spliterator.SUBSIZED;
+
+	/**
+	 * Spliterator over a range of indices of an indexed set which splits its
+	 * range in halves, so that parallel streams are balanced across cores.
+	 * @param <F> the type of elements to traverse
+	 * @implNote Elements are accessed through an {@link IntFunction} so the
+	 * same spliterator can be used over any indexed storage. The range is
+	 * bound on creation, so the set should not be structurally modified
+	 * during traversal.
+	 */
+	protected static class IndexSpliterator<F> implements Spliterator<F>
+	{
+		/**
+		 * Element accessor by index
+		 */
+		private final IntFunction<F> accessor;
+
+		/**
+		 * Current index (inclusive)
+		 */
+		private int index;
+
+		/**
+		 * Last index (exclusive)
+		 */
+		private final int fence;
+
+		/**
+		 * Constructor
+		 * @param accessor element accessor by index
+		 * @param from the first index of the range (inclusive)
+		 * @param to the last index of the range (exclusive)
+		 */
+		public IndexSpliterator(IntFunction<F> accessor, int from, int to)
+		{
+			this.accessor = accessor;
+			index = from;
+			fence = to;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super F> action)
+		{
+			if (action == null) throw new NullPointerException();
+			if (index < fence)
+			{
+				action.accept(accessor.apply(index++));
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super F> action)
+		{
+			if (action == null) throw new NullPointerException();
+			int i = index;
+			index = fence;
+			for (; i < fence; i++)
+			{
+				action.accept(accessor.apply(i));
+			}
+		}
+
+		@Override
+		public Spliterator<F> trySplit()
+		{
+			int mid = (index + fence) >>> 1;
+			if (mid <= index)
+			{
+				return null;
+			}
+			Spliterator<F> prefix = new IndexSpliterator<F>(accessor, index, mid);
+			index = mid;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize()
+		{
+			return fence - index;
+		}
+
+		@Override
+		public int characteristics()
+		{
+			return IndexedCharacteristics;
+		}
 	}
 
 	// -------------------------------------------------------------------------
@@ -4,7 +4,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.Spliterator;
 import java.util.Vector;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * A Concrete implementation of {@link Set} based on partial implementation from
@@ -19,6 +22,12 @@ public class ArrayListSet<E> extends AbstractSet<E>
 	 */
 	private ArrayList<E> list;
 
+	/**
+	 * Sum of the hash codes of the elements of {@link #list}, maintained on
+	 * every addition and removal so that {@link #hashCode()} is O(1).
+	 */
+	private int hashSum;
+
 	/**
 	 * Default constructor.
 	 * Creates an empty set
@@ -36,17 +45,52 @@ public class ArrayListSet<E> extends AbstractSet<E>
 	 * this set.
 	 * @param c the collection to copy in this set
 	 * @post All non duplicates elements of c have been added to this set
+	 * @implNote duplicates are removed in O(n) with
+	 * {@link AbstractSet#distinct(Object[], boolean)} (which is skipped when c
+	 * is already a {@link Set}), so the first occurrence order of elements in c
+	 * is preserved.
 	 */
+	@SuppressWarnings("unchecked")
 	public ArrayListSet(Collection<? extends E> c)
 	{
 		// DONE 201 ArrayListSet#ArrayListSet(Collection): replace with implementation
-		list = new ArrayList<E>();
-		for (E elt : c)
+		Object[] content = c.toArray();
+		int count = distinct(content, c instanceof Set);
+		list = new ArrayList<E>(count);
+		for (int i = 0; i < count; i++)
 		{
-			if (elt != null && !this.contains(elt)) list.add(elt);
+			list.add((E) content[i]);
+			hashSum += content[i].hashCode();
 		}
 	}
 
+	/**
+	 * Typed constructor.
+	 * Creates an empty set whose elements are instances of elementsClass.
+	 * @param elementsClass the class of elements of this set
+	 * @throws NullPointerException if provided elementsClass is null
+	 * @see Set#elementsClass()
+	 */
+	public ArrayListSet(Class<E> elementsClass) throws NullPointerException
+	{
+		this();
+		setElementsClass(elementsClass);
+	}
+
+	/**
+	 * Typed copy constructor from collection.
+	 * @param elementsClass the class of elements of this set
+	 * @param c the collection to copy in this set
+	 * @throws NullPointerException if provided elementsClass is null
+	 * @see #ArrayListSet(Collection)
+	 * @see Set#elementsClass()
+	 */
+	public ArrayListSet(Class<E> elementsClass, Collection<? extends E> c) throws NullPointerException
+	{
+		this(c);
+		setElementsClass(elementsClass);
+	}
+
 	// -------------------------------------------------------------------------
 	// Collection<E> overrides
 	// -------------------------------------------------------------------------
@@ -63,10 +107,62 @@ public class ArrayListSet<E> extends AbstractSet<E>
 	{
 		// DONE 202 ArrayListSet#add(E): replace with implementation
 		if (e == null) throw new NullPointerException();
-		if (!list.contains(e))	return list.add(e);
+		if (!list.contains(e))
+		{
+			hashSum += e.hashCode();
+			return list.add(e);
+		}
 		return false;
 	}
 
+	/**
+	 * Adds to this set all elements in c, regardless of the fact that
+	 * collection c might contain multiple instances of elements.
+	 * @return true if this set has been modified by adding (at least) one
+	 * element from c, false otherwise.
+	 * @throws NullPointerException if the specified collection is null
+	 * @throws NullPointerException if one element in specified collection is
+	 * null, in which case this set is left unmodified.
+	 * @implNote Potentially Faster implementation than
+	 * {@link Set#addAll(Collection)}: elements are deduplicated against the
+	 * current content and the batch itself in one pass, the internal list
+	 * grows at most once and new elements are appended contiguously.
+	 * @see #addAll(Object[], int, int)
+	 */
+	@Override
+	public boolean addAll(Collection<? extends E> c) throws NullPointerException
+	{
+		if (c == null) throw new NullPointerException();
+		if (c == this)
+		{
+			return false;
+		}
+		return addBatch(c.toArray(), c instanceof Set);
+	}
+
+	/**
+	 * Adds to this set all elements of an array range, regardless of the fact
+	 * that this range might contain multiple instances of elements.
+	 * @param array the array containing the elements to add
+	 * @param from the first index of the range to add (inclusive)
+	 * @param to the last index of the range to add (exclusive)
+	 * @return true if this set has been modified by adding (at least) one
+	 * element from the array range, false otherwise.
+	 * @throws NullPointerException if the specified array is null or if one
+	 * element in the range is null, in which case this set is left unmodified
+	 * @throws IndexOutOfBoundsException if from is negative, to is greater
+	 * than the array length or from is greater than to
+	 * @see #addAll(Collection)
+	 */
+	@Override
+	public boolean addAll(E[] array, int from, int to) throws
+		NullPointerException, IndexOutOfBoundsException
+	{
+		if (array == null) throw new NullPointerException();
+		if (from < 0 || to > array.length || from > to) throw new IndexOutOfBoundsException();
+		return addBatch(Arrays.copyOfRange(array, from, to, Object[].class), false);
+	}
+
 	/**
 	 * Clears all elements in this set.
 	 * @implNote Potentially Faster implementation than {@link Set#clear()}
@@ -76,6 +172,7 @@ public class ArrayListSet<E> extends AbstractSet<E>
 	{
 		// DONE 203 ArrayListSet#clear(): replace with implementation
 		list.clear();
+		hashSum = 0;
 	}
 
 	/**
@@ -111,13 +208,70 @@ public class ArrayListSet<E> extends AbstractSet<E>
 	/**
 	 * Iterator factory method
 	 * @return an iterator to the elements of this set
+	 * @implNote The iterator of {@link #list} is wrapped so that removals
+	 * through the iterator also update {@link #hashSum}
 	 */
 	@Override
 	public Iterator<E> iterator()
 	{
 		// DONE 206 ArrayListSet#iterator(): replace with implementation
 		// Hint: does #list have an iterator ?
-		return list.iterator();
+		return new ArrayListSetIterator();
+	}
+
+	/**
+	 * Creates a {@link Spliterator} over the indices of {@link #list}
+	 * @return a new {@link AbstractSet.IndexSpliterator} reporting
+	 * {@link Spliterator#DISTINCT}, {@link Spliterator#NONNULL},
+	 * {@link Spliterator#ORDERED}, {@link Spliterator#SIZED} and
+	 * {@link Spliterator#SUBSIZED}
+	 * @implNote Faster implementation than {@link Set#spliterator()} since
+	 * the index range is split in halves, so parallel streams scale across
+	 * cores.
+	 */
+	@Override
+	public Spliterator<E> spliterator()
+	{
+		return new IndexSpliterator<E>(list::get, 0, list.size());
+	}
+
+	/**
+	 * Performs the given action for each element of this set
+	 * @param action the action to be performed for each element
+	 * @throws NullPointerException if the specified action is null
+	 * @implNote Faster implementation than {@link Set#forEach(Consumer)}
+	 * since it loops over {@link #list} with
+	 * {@link ArrayList#forEach(Consumer)} without allocating an iterator.
+	 */
+	@Override
+	public void forEach(Consumer<? super E> action) throws NullPointerException
+	{
+		list.forEach(action);
+	}
+
+	/**
+	 * Performs the given action for each element of this set until the
+	 * action returns true for one element
+	 * @param action the action to be performed for each element which
+	 * returns true to stop the iteration
+	 * @return true if the iteration has been stopped by the action
+	 * @throws NullPointerException if the specified action is null
+	 * @implNote Faster implementation than {@link Set#forEachUntil(Predicate)}
+	 * since it loops over the indices of {@link #list} without allocating an iterator.
+	 */
+	@Override
+	public boolean forEachUntil(Predicate<? super E> action) throws NullPointerException
+	{
+		if (action == null) throw new NullPointerException();
+		final int count = list.size();
+		for (int i = 0; i < count; i++)
+		{
+			if (action.test(list.get(i)))
+			{
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
@@ -132,7 +286,12 @@ public class ArrayListSet<E> extends AbstractSet<E>
 	{
 		// DONE 207 ArrayListSet#remove(Object): replace with implementation
 		if (o == null) throw new NullPointerException();
-		return list.remove(o);
+		if (list.remove(o))
+		{
+			hashSum -= o.hashCode();
+			return true;
+		}
+		return false;
 	}
 
 	/**
@@ -147,6 +306,18 @@ public class ArrayListSet<E> extends AbstractSet<E>
 		return list.size();
 	}
 
+	/**
+	 * Checks if this set has a performance capability
+	 * @param capability the capability to check
+	 * @return true for {@link SetCapability#KNOWN_SIZE} and
+	 * {@link SetCapability#KNOWN_HASH}
+	 */
+	@Override
+	public boolean hasCapability(SetCapability capability)
+	{
+		return capability == SetCapability.KNOWN_SIZE || capability == SetCapability.KNOWN_HASH;
+	}
+
 	/**
 	 * Conversion to array of objects
 	 * @return an new Object[] array containing all the elements of this set
@@ -213,7 +384,23 @@ public class ArrayListSet<E> extends AbstractSet<E>
 	public Object clone()
 	{
 		// DONE 211 ArrayListSet#clone(): replace with implementation
-		return new ArrayListSet((Collection<? extends E>)list.clone());
+		ArrayListSet<E> newSet = sameElementsClass(new ArrayListSet<E>());
+		newSet.list = new ArrayList<E>(list);
+		newSet.hashSum = hashSum;
+		return newSet;
+	}
+
+	/**
+	 * Hashcode of this set: defined as the sum of all elements hashcodes
+	 * @return the hashcode of this set
+	 * @implNote Faster implementation than {@link AbstractSet#hashCode()}
+	 * since the sum is maintained by every addition and removal, so it is
+	 * returned in O(1).
+	 */
+	@Override
+	public int hashCode()
+	{
+		return hashSum;
 	}
 
 	// -------------------------------------------------------------------------
@@ -231,7 +418,7 @@ public class ArrayListSet<E> extends AbstractSet<E>
 	public Set<E> union(Set<E> other)
 	{
 		// DONE 212 ArrayListSet#union(Set): replace with implementation
-		Set<E> result = new ArrayListSet<E>(this);
+		Set<E> result = sameElementsClass(new ArrayListSet<E>(this));
 		for (E elt : other)
 		{
 			result.add(elt);
@@ -250,7 +437,7 @@ public class ArrayListSet<E> extends AbstractSet<E>
 	public Set<E> intersection(Set<E> other)
 	{
 		// DONE 213 ArrayListSet#intersection(Set): replace with implementation
-		Set<E> result = new ArrayListSet<E>();
+		Set<E> result = sameElementsClass(new ArrayListSet<E>());
 		for (E elt : this)
 		{
 			if (other.contains(elt))
@@ -272,9 +459,7 @@ public class ArrayListSet<E> extends AbstractSet<E>
 	public Set<E> difference(Set<E> other)
 	{
 		// DONE 214 ArrayListSet#difference(Set): replace with implementation
-		System.out.println(this);
-		System.out.println(other);
-		Set<E> result = new ArrayListSet<E>();
+		Set<E> result = sameElementsClass(new ArrayListSet<E>());
 		for (E elt : this)
 		{
 			if (!other.contains(elt))
@@ -282,7 +467,233 @@ public class ArrayListSet<E> extends AbstractSet<E>
 				result.add(elt);
 			}
 		}
-		System.out.println(result);
 		return result;
 	}
+
+	/**
+	 * Symmetric difference of this set with another set: this Δ other
+	 * @param other the other set to compute symmetric difference with
+	 * @return a new {@link ArrayListSet} containing all elements which are
+	 * part of this set but not part of the other set + the elements of the
+	 * other set which are not part of this set
+	 * @throws NullPointerException if the provided set is null
+	 * @implNote Potentially Faster implementation than
+	 * {@link Set#symmetricDifference(Set)} since each operand is traversed only
+	 * once and elements are directly appended to the result's internal list.
+	 */
+	@Override
+	public Set<E> symmetricDifference(Set<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		ArrayListSet<E> result = sameElementsClass(new ArrayListSet<E>());
+		result.list.ensureCapacity(list.size() + other.size());
+		for (E elt : list)
+		{
+			if (!other.contains(elt))
+			{
+				result.list.add(elt);
+				result.hashSum += elt.hashCode();
+			}
+		}
+		for (E elt : other)
+		{
+			if (!list.contains(elt))
+			{
+				result.list.add(elt);
+				result.hashSum += elt.hashCode();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * In place symmetric difference of this set with another set:
+	 * this = this Δ other
+	 * @param other the other set to compute symmetric difference with
+	 * @return true if this set has been modified
+	 * @throws NullPointerException if the provided set is null
+	 * @implNote Potentially Faster implementation than
+	 * {@link Set#symmetricDifferenceWith(Set)}: elements of other which are not
+	 * part of this set are first appended after the current elements, then the
+	 * current elements which are part of other are removed in a single pass.
+	 */
+	@Override
+	public boolean symmetricDifferenceWith(Set<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		if (other == this)
+		{
+			boolean modified = !list.isEmpty();
+			clear();
+			return modified;
+		}
+		if (other.isEmpty())
+		{
+			return false;
+		}
+		int initialSize = list.size();
+		for (E elt : other)
+		{
+			if (indexOf(elt, initialSize) < 0)
+			{
+				list.add(elt);
+				hashSum += elt.hashCode();
+			}
+		}
+		list.subList(0, initialSize).removeIf(elt -> {
+			if (other.contains(elt))
+			{
+				hashSum -= elt.hashCode();
+				return true;
+			}
+			return false;
+		});
+		return true;
+	}
+
+	/**
+	 * Number of elements of the intersection of this set with another set:
+	 * |this ⋂ other|, without building the intersection
+	 * @param other the other set
+	 * @return the number of elements common to this set and the other set
+	 * @throws NullPointerException if the provided set is null
+	 * @implNote Potentially Faster implementation than
+	 * {@link Set#intersectionSize(Set)} when this set should be iterated (see
+	 * {@link SetCapability#iterateFirst(Set, Set)})
+	 */
+	@Override
+	public int intersectionSize(Set<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		int size = list.size();
+		if (!SetCapability.iterateFirst(this, other))
+		{
+			return other.intersectionSize(this);
+		}
+		int count = 0;
+		for (int i = 0; i < size; i++)
+		{
+			if (other.contains(list.get(i)))
+			{
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Checks if this set has no element in common with another set
+	 * @param other the other set
+	 * @return true if this ⋂ other is empty
+	 * @throws NullPointerException if the provided set is null
+	 * @implNote Potentially Faster implementation than
+	 * {@link Set#isDisjoint(Set)} when this set should be iterated (see
+	 * {@link SetCapability#iterateFirst(Set, Set)})
+	 */
+	@Override
+	public boolean isDisjoint(Set<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		int size = list.size();
+		if (!SetCapability.iterateFirst(this, other))
+		{
+			return other.isDisjoint(this);
+		}
+		for (int i = 0; i < size; i++)
+		{
+			if (other.contains(list.get(i)))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Index of an object within the first elements of {@link #list}
+	 * @param o the object to search
+	 * @param to the number of elements of {@link #list} to search in
+	 * @return the index of o in the first elements of {@link #list} or -1 if
+	 * o is not part of these elements
+	 */
+	private int indexOf(Object o, int to)
+	{
+		for (int i = 0; i < to; i++)
+		{
+			if (list.get(i).equals(o)) return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Appends a batch of elements to this set
+	 * @param batch the elements to append which may be reordered and
+	 * overwritten
+	 * @param alreadyDistinct true if elements in the batch are already known
+	 * to be distinct
+	 * @return true if at least one element has been added
+	 * @throws NullPointerException if one element of the batch is null
+	 */
+	@SuppressWarnings("unchecked")
+	private boolean addBatch(Object[] batch, boolean alreadyDistinct) throws NullPointerException
+	{
+		for (Object elt : batch)
+		{
+			if (elt == null) throw new NullPointerException();
+		}
+		int count = distinct(batch, alreadyDistinct, list);
+		list.ensureCapacity(list.size() + count);
+		for (int i = 0; i < count; i++)
+		{
+			list.add((E) batch[i]);
+			hashSum += batch[i].hashCode();
+		}
+		return count > 0;
+	}
+
+	/**
+	 * Iterator over the elements of {@link #list} which keeps
+	 * {@link #hashSum} up to date when elements are removed through the
+	 * iterator
+	 */
+	private class ArrayListSetIterator implements Iterator<E>
+	{
+		/**
+		 * The underlying iterator of {@link ArrayListSet#list}
+		 */
+		private final Iterator<E> it = list.iterator();
+
+		/**
+		 * The last element returned by {@link #next()}
+		 */
+		private E last = null;
+
+		@Override
+		public boolean hasNext()
+		{
+			return it.hasNext();
+		}
+
+		@Override
+		public E next()
+		{
+			last = it.next();
+			return last;
+		}
+
+		/**
+		 * Removes the last element returned by {@link #next()} from the set
+		 * and subtracts its hash code from {@link ArrayListSet#hashSum}
+		 * @throws IllegalStateException if {@link #next()} has not been
+		 * called or {@link #remove()} has already been called after the last
+		 * call to {@link #next()}
+		 */
+		@Override
+		public void remove() throws IllegalStateException
+		{
+			it.remove();
+			hashSum -= last.hashCode();
+			last = null;
+		}
+	}
 }
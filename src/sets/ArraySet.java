@@ -4,7 +4,11 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.Vector;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * A Concrete implementation of {@link Set} based on partial implementation from
@@ -32,11 +36,56 @@ public class ArraySet<E> extends AbstractSet<E>
 	private int elementCount;
 
 	/**
-	 * The amount by which the capacity of the array is automatically
-	 * incremented when its size becomes greater than its capacity.
-	 * @implSpec this capacity increment shall never be null or negative.
+	 * Cached hash codes of the components of this set, parallel to
+	 * {@link #elementData}: elementHashes[i] is elementData[i].hashCode() for
+	 * every i in [0, elementCount[ and this array always has the same length
+	 * as {@link #elementData}.
+	 * Hash codes are compared first during scans so that
+	 * {@link Object#equals(Object)} is only called on matching hash codes.
+	 * @implSpec As for any hash based collection, elements should not be
+	 * modified in a way that changes their hash code while they are part of
+	 * this set.
+	 */
+	private int[] elementHashes;
+
+	/**
+	 * The policy deciding by how much the capacity of the array is
+	 * automatically incremented when its size becomes greater than its
+	 * capacity and whether it is trimmed after removals.
+	 * @implSpec this policy shall never be null.
+	 */
+	private GrowthPolicy growthPolicy;
+
+	/**
+	 * Whether removals preserve the order of remaining elements (true) or
+	 * may move the last element into the removed slot (false).
+	 * @see #removeAtIndex(int)
+	 */
+	private final boolean ordered;
+
+	/**
+	 * The self-organizing lookup strategy of this set
+	 * @see #hotSlots
+	 */
+	private SelfOrganization organization;
+
+	/**
+	 * Indices in {@link #elementData} of the elements recently found by
+	 * lookups, ordered according to {@link #organization}, or null if
+	 * {@link #organization} is {@link SelfOrganization#NONE}.
+	 * Unused slots contain -1. These slots are probed before scanning
+	 * {@link #elementData} and are always verified on use, so a stale slot
+	 * can only cost a miss.
 	 */
-	private int capacityIncrement;
+	private int[] hotSlots;
+
+	/**
+	 * Sum of the hash codes of the components of this set, maintained on
+	 * every addition and removal so that {@link #hashCode()} is O(1).
+	 * @implSpec hashSum is always the sum (with int overflow) of
+	 * elementHashes[0] through elementHashes[elementCount-1].
+	 */
+	private int hashSum;
 
 	/**
 	 * The default capacity if capacity is not provided during construction
@@ -51,6 +100,18 @@ public class ArraySet<E> extends AbstractSet<E>
 	 */
 	private static final int DefaultCapacityIncrement = 10;
 
+	/**
+	 * The default growth policy if growth policy is not provided during
+	 * construction: fixed increment of {@link #DefaultCapacityIncrement}
+	 */
+	private static final GrowthPolicy DefaultGrowthPolicy = GrowthPolicy.fixed(DefaultCapacityIncrement);
+
+	/**
+	 * The number of hot slots used in self-organizing modes: 8 indices fit
+	 * in half a cache line.
+	 */
+	private static final int HotSlotsCount = 8;
+
 	// -------------------------------------------------------------------------
 	// Constructors
 	// -------------------------------------------------------------------------
@@ -62,14 +123,66 @@ public class ArraySet<E> extends AbstractSet<E>
 	 * @throws IllegalArgumentException if either provided initialCapacity or
 	 * capacityIncrement are less than 1.
 	 */
-	@SuppressWarnings("unchecked") // Required to cast Object[] into E[]
 	public ArraySet(int initialCapacity, int capacityIncrement) throws IllegalArgumentException
 	{
-		if (initialCapacity < 1 || capacityIncrement < 1) throw new IllegalArgumentException();
 		// DONE 300 ArraySet#ArraySet(int, int): replace with implementation
+		this(initialCapacity, GrowthPolicy.fixed(capacityIncrement), true);
+	}
+
+	/**
+	 * Valued constructor with ordering mode
+	 * @param initialCapacity the initial capacity of this set
+	 * @param capacityIncrement the capacity increment of this set
+	 * @param ordered true if removals should preserve the order of
+	 * remaining elements, false if removals may move the last element into
+	 * the removed slot so that they are performed in O(1) after lookup.
+	 * @throws IllegalArgumentException if either provided initialCapacity or
+	 * capacityIncrement are less than 1.
+	 * @see #removeAtIndex(int)
+	 */
+	public ArraySet(int initialCapacity, int capacityIncrement, boolean ordered)
+		throws IllegalArgumentException
+	{
+		this(initialCapacity, GrowthPolicy.fixed(capacityIncrement), ordered);
+	}
+
+	/**
+	 * Valued constructor with growth policy
+	 * @param initialCapacity the initial capacity of this set
+	 * @param growthPolicy the growth policy of this set
+	 * @throws IllegalArgumentException if provided initialCapacity is less
+	 * than 1.
+	 * @throws NullPointerException if provided growthPolicy is null
+	 */
+	public ArraySet(int initialCapacity, GrowthPolicy growthPolicy)
+		throws IllegalArgumentException, NullPointerException
+	{
+		this(initialCapacity, growthPolicy, true);
+	}
+
+	/**
+	 * Valued constructor with growth policy and ordering mode
+	 * @param initialCapacity the initial capacity of this set
+	 * @param growthPolicy the growth policy of this set
+	 * @param ordered true if removals should preserve the order of
+	 * remaining elements, false if removals may move the last element into
+	 * the removed slot.
+	 * @throws IllegalArgumentException if provided initialCapacity is less
+	 * than 1.
+	 * @throws NullPointerException if provided growthPolicy is null
+	 */
+	@SuppressWarnings("unchecked") // Required to cast Object[] into E[]
+	public ArraySet(int initialCapacity, GrowthPolicy growthPolicy, boolean ordered)
+		throws IllegalArgumentException, NullPointerException
+	{
+		if (initialCapacity < 1) throw new IllegalArgumentException();
+		if (growthPolicy == null) throw new NullPointerException();
 		elementData = (E[]) new Object[initialCapacity];
+		elementHashes = new int[initialCapacity];
 		elementCount = 0;
-		this.capacityIncrement = capacityIncrement;
+		this.growthPolicy = growthPolicy;
+		this.ordered = ordered;
+		organization = SelfOrganization.NONE;
 	}
 
 	/**
@@ -82,8 +195,11 @@ public class ArraySet<E> extends AbstractSet<E>
 	{
 		// DONE 301 ArraySet#ArraySet(): replace with implementation
 		elementData = (E[]) new Object[DefaultCapacity];
+		elementHashes = new int[DefaultCapacity];
 		elementCount = 0;
-		this.capacityIncrement = DefaultCapacityIncrement;
+		growthPolicy = DefaultGrowthPolicy;
+		ordered = true;
+		organization = SelfOrganization.NONE;
 	}
 
 	/**
@@ -98,8 +214,11 @@ public class ArraySet<E> extends AbstractSet<E>
 		// DONE 302 ArraySet#ArraySet(int): replace with implementation
 		if (initialCapacity < 1) throw new IllegalArgumentException();
 		elementData = (E[]) new Object[initialCapacity];
+		elementHashes = new int[initialCapacity];
 		elementCount = 0;
-		this.capacityIncrement = DefaultCapacityIncrement;
+		growthPolicy = DefaultGrowthPolicy;
+		ordered = true;
+		organization = SelfOrganization.NONE;
 	}
 
 	/**
@@ -111,30 +230,83 @@ public class ArraySet<E> extends AbstractSet<E>
 	 * @param c the collection to copy in this set
 	 * @implSpec If collection c is empty then the expected capacity of this set
 	 * should revert to {@link #DefaultCapacity}
+	 * @implNote The array provided by {@link Collection#toArray()} is directly
+	 * used as {@link #elementData} after removing duplicates in O(n) with
+	 * {@link AbstractSet#distinct(Object[], boolean)} (which is skipped when c
+	 * is already a {@link Set}), so the first occurrence order of elements in c
+	 * is preserved.
 	 */
-	@SuppressWarnings("unchecked")
 	public ArraySet(Collection<? extends E> c)
 	{
 		// DONE 303 ArraySet#ArraySet(Collection): replace with implementation
-		if (c.isEmpty())
+		this(c.toArray(), c instanceof Set);
+	}
+
+	/**
+	 * Bulk constructor adopting an array of elements as {@link #elementData}
+	 * @param content the array of elements of this set which may contain
+	 * null slots and which is reordered and overwritten
+	 * @param alreadyDistinct true if the non null elements of content are
+	 * already known to be distinct, in which case duplicates are not searched
+	 * @implSpec If content is empty then the expected capacity of this set
+	 * should revert to {@link #DefaultCapacity}
+	 * @implNote content is only adopted if it is exactly an Object[] (as
+	 * {@link Collection#toArray()} may return an array of a subtype, such as
+	 * a String[], which couldn't store other elements later), otherwise it is
+	 * copied into a new Object[].
+	 * @see AbstractSet#distinct(Object[], boolean)
+	 */
+	@SuppressWarnings("unchecked")
+	ArraySet(Object[] content, boolean alreadyDistinct)
+	{
+		if (content.getClass() != Object[].class)
+		{
+			content = Arrays.copyOf(content, content.length, Object[].class);
+		}
+		if (content.length == 0)
 		{
 			elementData = (E[]) new Object[DefaultCapacity];
+			elementHashes = new int[DefaultCapacity];
 			elementCount = 0;
 		}
 		else
 		{
-			elementCount = 0;
-			elementData = (E[]) new Object[c.size()];
-			for (E elt : c)
-			{
-				if (elt != null && !this.contains(elt))
-				{
-					elementData[elementCount] = elt;
-					elementCount++;
-				}
-			}
+			elementCount = distinct(content, alreadyDistinct);
+			elementData = (E[]) content;
+			elementHashes = new int[content.length];
+			hashRange(0, elementCount);
 		}
-		capacityIncrement = ArraySet.DefaultCapacityIncrement;
+		growthPolicy = DefaultGrowthPolicy;
+		ordered = true;
+		organization = SelfOrganization.NONE;
+	}
+
+	/**
+	 * Typed constructor.
+	 * Creates an empty set of capacity {@link #DefaultCapacity} whose
+	 * elements are instances of elementsClass.
+	 * @param elementsClass the class of elements of this set
+	 * @throws NullPointerException if provided elementsClass is null
+	 * @see Set#elementsClass()
+	 */
+	public ArraySet(Class<E> elementsClass) throws NullPointerException
+	{
+		this();
+		setElementsClass(elementsClass);
+	}
+
+	/**
+	 * Typed copy constructor from collection.
+	 * @param elementsClass the class of elements of this set
+	 * @param c the collection to copy in this set
+	 * @throws NullPointerException if provided elementsClass is null
+	 * @see #ArraySet(Collection)
+	 * @see Set#elementsClass()
+	 */
+	public ArraySet(Class<E> elementsClass, Collection<? extends E> c) throws NullPointerException
+	{
+		this(c);
+		setElementsClass(elementsClass);
 	}
 
 	// -------------------------------------------------------------------------
@@ -154,19 +326,70 @@ public class ArraySet<E> extends AbstractSet<E>
 	{
 		// DONE 311 ArraySet#add(E): replace with implementation
 		if (e == null) throw new NullPointerException();
-		if (!contains(e))
+		int hash = e.hashCode();
+		if (find(e, hash) < 0)
 		{
 			if (elementCount == elementData.length)
 			{
 				grow();
 			}
 			elementData[elementCount] = e;
+			elementHashes[elementCount] = hash;
 			elementCount++;
+			hashSum += hash;
 			return true;
 		}
 		return false;
 	}
 
+	/**
+	 * Adds to this set all elements in c, regardless of the fact that
+	 * collection c might contain multiple instances of elements.
+	 * @return true if this set has been modified by adding (at least) one
+	 * element from c, false otherwise.
+	 * @throws NullPointerException if the specified collection is null
+	 * @throws NullPointerException if one element in specified collection is
+	 * null, in which case this set is left unmodified.
+	 * @implNote Faster implementation than {@link Set#addAll(Collection)}:
+	 * elements are deduplicated against the current content and the batch
+	 * itself in one pass, {@link #elementData} grows at most once and new
+	 * elements are appended contiguously.
+	 * @see #addAll(Object[], int, int)
+	 */
+	@Override
+	public boolean addAll(Collection<? extends E> c) throws NullPointerException
+	{
+		if (c == null) throw new NullPointerException();
+		if (c == this)
+		{
+			return false;
+		}
+		return addBatch(c.toArray(), c instanceof Set);
+	}
+
+	/**
+	 * Adds to this set all elements of an array range, regardless of the fact
+	 * that this range might contain multiple instances of elements.
+	 * @param array the array containing the elements to add
+	 * @param from the first index of the range to add (inclusive)
+	 * @param to the last index of the range to add (exclusive)
+	 * @return true if this set has been modified by adding (at least) one
+	 * element from the array range, false otherwise.
+	 * @throws NullPointerException if the specified array is null or if one
+	 * element in the range is null, in which case this set is left unmodified
+	 * @throws IndexOutOfBoundsException if from is negative, to is greater
+	 * than the array length or from is greater than to
+	 * @see #addAll(Collection)
+	 */
+	@Override
+	public boolean addAll(E[] array, int from, int to) throws
+		NullPointerException, IndexOutOfBoundsException
+	{
+		if (array == null) throw new NullPointerException();
+		if (from < 0 || to > array.length || from > to) throw new IndexOutOfBoundsException();
+		return addBatch(Arrays.copyOfRange(array, from, to, Object[].class), false);
+	}
+
 	/**
 	 * Clears all elements in this set
 	 * @implNote Faster implementation than {@link Set#clear()} since it
@@ -178,7 +401,10 @@ public class ArraySet<E> extends AbstractSet<E>
 	{
 		// DONE 312 ArraySet#clear(): replace with implementation
 		elementData = (E[]) new Object[DefaultCapacity];
+		elementHashes = new int[DefaultCapacity];
 		elementCount = 0;
+		hashSum = 0;
+		forgetHotSlots();
 	}
 
 	/**
@@ -191,18 +417,16 @@ public class ArraySet<E> extends AbstractSet<E>
 	 * doesn't throw {@link NullPointerException} when provided object is null.
 	 * It just returns false.
 	 * @implNote Faster implementation than {@link Set#contains(Object)}
-	 * since it doesn't need to use the iterator
+	 * since it doesn't need to use the iterator and only calls
+	 * {@link Object#equals(Object)} on elements whose cached hash code
+	 * matches the hash code of o.
 	 */
 	@Override
 	public boolean contains(Object o)
 	{
 		// DONE 313 ArraySet#contains(Object): replace with implementation
 		if (o == null) return false;
-		for (int i = 0; i < elementCount; i++)
-		{
-			if (elementData[i].equals(o)) return true;
-		}
-		return false;
+		return find(o, o.hashCode()) >= 0;
 	}
 
 	/**
@@ -228,6 +452,70 @@ public class ArraySet<E> extends AbstractSet<E>
 		return new ArraySetIterator<E>();
 	}
 
+	/**
+	 * Creates a {@link Spliterator} over the range [0, {@link #elementCount}[
+	 * of {@link #elementData}
+	 * @return a new spliterator reporting {@link Spliterator#DISTINCT},
+	 * {@link Spliterator#NONNULL}, {@link Spliterator#ORDERED},
+	 * {@link Spliterator#SIZED} and {@link Spliterator#SUBSIZED}
+	 * @implNote Faster implementation than {@link Set#spliterator()} since
+	 * the index range is split in halves (instead of batches of elements
+	 * copied from the iterator), so parallel streams scale across cores.
+	 */
+	@Override
+	public Spliterator<E> spliterator()
+	{
+		return Spliterators.spliterator(elementData,
+		                                0,
+		                                elementCount,
+		                                Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.ORDERED);
+	}
+
+	/**
+	 * Performs the given action for each element of this set
+	 * @param action the action to be performed for each element
+	 * @throws NullPointerException if the specified action is null
+	 * @implNote Faster implementation than {@link Set#forEach(Consumer)}
+	 * since it loops over {@link #elementData} without allocating an iterator.
+	 */
+	@Override
+	public void forEach(Consumer<? super E> action) throws NullPointerException
+	{
+		if (action == null) throw new NullPointerException();
+		final E[] data = elementData;
+		final int count = elementCount;
+		for (int i = 0; i < count; i++)
+		{
+			action.accept(data[i]);
+		}
+	}
+
+	/**
+	 * Performs the given action for each element of this set until the
+	 * action returns true for one element
+	 * @param action the action to be performed for each element which
+	 * returns true to stop the iteration
+	 * @return true if the iteration has been stopped by the action
+	 * @throws NullPointerException if the specified action is null
+	 * @implNote Faster implementation than {@link Set#forEachUntil(Predicate)}
+	 * since it loops over {@link #elementData} without allocating an iterator.
+	 */
+	@Override
+	public boolean forEachUntil(Predicate<? super E> action) throws NullPointerException
+	{
+		if (action == null) throw new NullPointerException();
+		final E[] data = elementData;
+		final int count = elementCount;
+		for (int i = 0; i < count; i++)
+		{
+			if (action.test(data[i]))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Removes an element o from the set only if this object is part of the set
 	 * @param o the object to remove from set
@@ -243,18 +531,73 @@ public class ArraySet<E> extends AbstractSet<E>
 	{
 		// DONE 315 ArraySet#remove(Object): replace with implementation
 		if (o == null) throw new NullPointerException();
-		int index = -1;
-		
-		for (int i = 0; i < elementCount; i++)
+		return removeAtIndex(find(o, o.hashCode()));
+	}
+
+	/**
+	 * Removes all elements of collection c from this set.
+	 * After this call returns, this collection will contain no elements in
+	 * common with the specified collection.
+	 * @param c the collection of elements to remove from this set
+	 * @return true if at least one element of this set has been removed,
+	 * false otherwise.
+	 * @throws NullPointerException if the specified collection is null
+	 * @throws ClassCastException if the type of one or more elements in this
+	 * set are incompatible with the specified collection, in which case this
+	 * set is left unmodified
+	 * @implNote Faster implementation than {@link Set#removeAll(Collection)}
+	 * since {@link #elementData} is compacted in a single pass, testing the
+	 * membership of each element of this set only once (instead of shifting
+	 * the remaining elements for each removed element).
+	 */
+	@Override
+	public boolean removeAll(Collection<?> c) throws NullPointerException, ClassCastException
+	{
+		if (c == null) throw new NullPointerException();
+		if (elementCount == 0 || c.isEmpty()) return false;
+		checkElementsType(c);
+		if (c == this)
 		{
-			if (elementData[i].equals(o))
-			{
-				index = i;
-				break;
-			}
+			clear();
+			return true;
 		}
-		
-		return removeAtIndex(index);
+		Collection<?> removed = lookup(c, elementCount);
+		return compact(elt -> !removed.contains(elt));
+	}
+
+	/**
+	 * Retain in this set only the elements contained in collection c.
+	 * @param c the collection containing the elements to retain in this set
+	 * @return true if at least one element from this set has been removed.
+	 * @throws NullPointerException if the specified collection is null
+	 * @implNote Faster implementation than {@link Set#retainAll(Collection)}
+	 * since {@link #elementData} is compacted in a single pass (instead of
+	 * shifting the remaining elements for each removed element).
+	 */
+	@Override
+	public boolean retainAll(Collection<?> c) throws NullPointerException
+	{
+		if (c == null) throw new NullPointerException();
+		if (c == this) return false;
+		Collection<?> retained = lookup(c, elementCount);
+		return compact(elt -> retained.contains(elt));
+	}
+
+	/**
+	 * Removes all of the elements of this set that satisfy the given
+	 * predicate.
+	 * @param filter a predicate which returns true for elements to be removed
+	 * @return true if any elements were removed
+	 * @throws NullPointerException if the specified filter is null
+	 * @implNote Faster implementation than {@link Collection#removeIf(Predicate)}
+	 * since {@link #elementData} is compacted in a single pass (instead of
+	 * shifting the remaining elements for each removed element).
+	 */
+	@Override
+	public boolean removeIf(Predicate<? super E> filter) throws NullPointerException
+	{
+		if (filter == null) throw new NullPointerException();
+		return compact(elt -> !filter.test(elt));
 	}
 
 	/**
@@ -270,6 +613,18 @@ public class ArraySet<E> extends AbstractSet<E>
 		return elementCount;
 	}
 
+	/**
+	 * Checks if this set has a performance capability
+	 * @param capability the capability to check
+	 * @return true for {@link SetCapability#KNOWN_SIZE} and
+	 * {@link SetCapability#KNOWN_HASH}
+	 */
+	@Override
+	public boolean hasCapability(SetCapability capability)
+	{
+		return capability == SetCapability.KNOWN_SIZE || capability == SetCapability.KNOWN_HASH;
+	}
+
 	/**
 	 * Conversion to array of objects
 	 * @return an new Object[] array containing all the elements of this set
@@ -337,42 +692,32 @@ public class ArraySet<E> extends AbstractSet<E>
 	 * clone of the internal data array, not a reference to the original
 	 * internal data array of this ArraySet object.
 	 * @return a new ArraySet<E> whith the same {@link #capacity()},
-	 * {@link #capacityIncrement} and content.
+	 * {@link #growthPolicy}, ordering mode, self organization and content.
 	 */
 	@Override
 	public Object clone()
 	{
 		// DONE 319 ArraySet#clone(): replace with implementation
-		ArraySet<E> newSet = new ArraySet<E>(this.capacity(),this.capacityIncrement);
-		for (int i =0; i < elementCount; i++)
-		{
-			newSet.elementData[i] = this.elementData[i];
-		}
+		ArraySet<E> newSet = sameElementsClass(new ArraySet<E>(this.capacity(), growthPolicy, ordered));
+		System.arraycopy(elementData, 0, newSet.elementData, 0, elementCount);
+		System.arraycopy(elementHashes, 0, newSet.elementHashes, 0, elementCount);
+		newSet.elementCount = elementCount;
+		newSet.hashSum = hashSum;
+		newSet.setSelfOrganization(organization);
 		return newSet;
 	}
 
 	/**
-	 * String representation of this set.
-	 * @return a new String representing the elements of this set with the
-	 * following format: {elt1, elt2, ..., eltn}
+	 * Hashcode of this set: defined as the sum of all elements hashcodes
+	 * @return the hashcode of this set
+	 * @implNote Faster implementation than {@link AbstractSet#hashCode()}
+	 * since the sum is maintained by every addition and removal, so it is
+	 * returned in O(1).
 	 */
 	@Override
-	public String toString()
+	public int hashCode()
 	{
-		StringBuilder builder = new StringBuilder();
-		builder.append('{');
-
-		// DONE 320 ArraySet#toString(): replace with implementation
-		
-		for (int i = 0; i < elementCount - 1; i++)
-		{
-			builder.append(elementData[i].toString());
-			builder.append(", ");
-		}
-		if (elementCount > 1) builder.append(elementData[elementCount - 1].toString());
-
-		builder.append('}');
-		return builder.toString();
+		return hashSum;
 	}
 
 	// -------------------------------------------------------------------------
@@ -393,7 +738,7 @@ public class ArraySet<E> extends AbstractSet<E>
 		// DONE 321 ArraySet#union(Set): replace with implementation
 		// The new set has (at most) the size of both sets
 		if (other == null) throw new NullPointerException();
-		Set<E> result = new ArraySet<E>(other.size()+ this.size());
+		Set<E> result = sameElementsClass(new ArraySet<E>(other.size()+ this.size()));
 		result.addAll(this);
 		result.addAll(other);
 		return result;
@@ -413,7 +758,7 @@ public class ArraySet<E> extends AbstractSet<E>
 		// DONE 322 ArraySet#intersection(Set): replace with implementation
 		// The new set has (at most) the size of this
 		if (other == null) throw new NullPointerException();
-		Set<E> result = new ArraySet<E>(this.size());
+		Set<E> result = sameElementsClass(new ArraySet<E>(this.size()));
 		for (E elt : this)
 		{
 			if (other.contains(elt))
@@ -438,7 +783,7 @@ public class ArraySet<E> extends AbstractSet<E>
 		// DONE 323 ArraySet#difference(Set): replace with implementation
 		// The new set has (at most) the size of the smallest set
 		if (other == null) throw new NullPointerException();
-		Set<E> result = new ArraySet<E>(Math.min(this.size(),other.size()));
+		Set<E> result = sameElementsClass(new ArraySet<E>(Math.min(this.size(),other.size())));
 		for (int i = 0; i < elementCount; i++)
 		{
 			if (!other.contains(elementData[i]))
@@ -449,6 +794,243 @@ public class ArraySet<E> extends AbstractSet<E>
 		return result;
 	}
 
+	/**
+	 * In place union of this set with another set: this = this ⋃ other
+	 * @param other the set to create union with
+	 * @return true if this set has been modified
+	 * @throws NullPointerException if the provided set is null
+	 * @implNote Faster implementation than {@link Set#unionWith(Set)}: the
+	 * elements of other are only searched among the initial elements of this
+	 * set and then appended, reusing the current capacity and growing
+	 * according to {@link #growthPolicy} only when needed.
+	 */
+	@Override
+	public boolean unionWith(Set<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		if (other == this)
+		{
+			return false;
+		}
+		int initialCount = elementCount;
+		for (E elt : other)
+		{
+			if (indexOf(elt, 0, initialCount) < 0)
+			{
+				append(elt);
+			}
+		}
+		return elementCount != initialCount;
+	}
+
+	/**
+	 * In place intersection of this set with another set:
+	 * this = this ⋂ other
+	 * @param other the set to create intersection with
+	 * @return true if this set has been modified
+	 * @throws NullPointerException if the provided set is null
+	 * @implNote Faster implementation than {@link Set#intersectWith(Set)}
+	 * since {@link #elementData} is compacted in a single pass (instead of
+	 * shifting elements for each removed element).
+	 */
+	@Override
+	public boolean intersectWith(Set<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		if (other == this)
+		{
+			return false;
+		}
+		return compact(elt -> other.contains(elt));
+	}
+
+	/**
+	 * In place difference of this set with another set: this = this - other
+	 * @param other the set to create difference with
+	 * @return true if this set has been modified
+	 * @throws NullPointerException if the provided set is null
+	 * @implNote Faster implementation than {@link Set#differenceWith(Set)}
+	 * since {@link #elementData} is compacted in a single pass (instead of
+	 * shifting elements for each removed element).
+	 */
+	@Override
+	public boolean differenceWith(Set<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		if (other == this)
+		{
+			boolean modified = elementCount > 0;
+			clear();
+			return modified;
+		}
+		if (other.isEmpty())
+		{
+			return false;
+		}
+		return compact(elt -> !other.contains(elt));
+	}
+
+	/**
+	 * Symmetric difference of this set with another set: this Δ other
+	 * @param other the other set to compute symmetric difference with
+	 * @return a new {@link ArraySet} containing all elements which are part of
+	 * this set but not part of the other set + the elements of the other set
+	 * which are not part of this set
+	 * @throws NullPointerException if the provided set is null
+	 * @implNote Faster implementation than {@link Set#symmetricDifference(Set)}
+	 * since each operand is traversed only once and elements are directly
+	 * appended to the result without any intermediate set.
+	 */
+	@Override
+	public Set<E> symmetricDifference(Set<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		ArraySet<E> result = sameElementsClass(new ArraySet<E>(Math.max(1, elementCount + other.size()),
+		                                                       growthPolicy));
+		for (int i = 0; i < elementCount; i++)
+		{
+			if (!other.contains(elementData[i]))
+			{
+				result.append(elementData[i]);
+			}
+		}
+		for (E elt : other)
+		{
+			if (indexOf(elt, 0, elementCount) < 0)
+			{
+				result.append(elt);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * In place symmetric difference of this set with another set:
+	 * this = this Δ other
+	 * @param other the other set to compute symmetric difference with
+	 * @return true if this set has been modified
+	 * @throws NullPointerException if the provided set is null
+	 * @implNote Faster implementation than
+	 * {@link Set#symmetricDifferenceWith(Set)}: elements of other which are not
+	 * part of this set are first appended after the current elements, then the
+	 * current elements which are part of other are removed by compacting
+	 * {@link #elementData} in a single pass, as in {@link #compact(Predicate)}.
+	 * If {@code other.contains} throws an exception, the current elements
+	 * which have not been evaluated yet are kept along with the appended
+	 * ones and this set remains consistent.
+	 */
+	@Override
+	public boolean symmetricDifferenceWith(Set<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		if (other == this)
+		{
+			boolean modified = elementCount > 0;
+			clear();
+			return modified;
+		}
+		if (other.isEmpty())
+		{
+			return false;
+		}
+		int initialCount = elementCount;
+		for (E elt : other)
+		{
+			if (indexOf(elt, 0, initialCount) < 0)
+			{
+				append(elt);
+			}
+		}
+		int count = elementCount;
+		int write = 0;
+		int read = 0;
+		try
+		{
+			for (; read < initialCount; read++)
+			{
+				E elt = elementData[read];
+				if (!other.contains(elt))
+				{
+					elementHashes[write] = elementHashes[read];
+					elementData[write++] = elt;
+				}
+				else
+				{
+					hashSum -= elementHashes[read];
+				}
+			}
+		}
+		finally
+		{
+			System.arraycopy(elementData, read, elementData, write, count - read);
+			System.arraycopy(elementHashes, read, elementHashes, write, count - read);
+			write += count - read;
+			Arrays.fill(elementData, write, count, null);
+			elementCount = write;
+			forgetHotSlots();
+			shrink();
+		}
+		return true;
+	}
+
+	/**
+	 * Number of elements of the intersection of this set with another set:
+	 * |this ⋂ other|, without building the intersection
+	 * @param other the other set
+	 * @return the number of elements common to this set and the other set
+	 * @throws NullPointerException if the provided set is null
+	 * @implNote Faster implementation than {@link Set#intersectionSize(Set)}
+	 * when this set should be iterated (see
+	 * {@link SetCapability#iterateFirst(Set, Set)}) since it doesn't need to
+	 * use the iterator
+	 */
+	@Override
+	public int intersectionSize(Set<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		if (!SetCapability.iterateFirst(this, other))
+		{
+			return other.intersectionSize(this);
+		}
+		int count = 0;
+		for (int i = 0; i < elementCount; i++)
+		{
+			if (other.contains(elementData[i]))
+			{
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Checks if this set has no element in common with another set
+	 * @param other the other set
+	 * @return true if this ⋂ other is empty
+	 * @throws NullPointerException if the provided set is null
+	 * @implNote Faster implementation than {@link Set#isDisjoint(Set)}
+	 * when this set should be iterated (see
+	 * {@link SetCapability#iterateFirst(Set, Set)}) since it doesn't need to
+	 * use the iterator
+	 */
+	@Override
+	public boolean isDisjoint(Set<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		if (!SetCapability.iterateFirst(this, other))
+		{
+			return other.isDisjoint(this);
+		}
+		for (int i = 0; i < elementCount; i++)
+		{
+			if (other.contains(elementData[i]))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
 	// -------------------------------------------------------------------------
 	// ArraySet<E> specific methods
 	// -------------------------------------------------------------------------
@@ -464,6 +1046,86 @@ public class ArraySet<E> extends AbstractSet<E>
 		return elementData.length;
 	}
 
+	/**
+	 * Current self-organizing lookup strategy
+	 * @return the self-organizing lookup strategy of this set
+	 */
+	public SelfOrganization selfOrganization()
+	{
+		return organization;
+	}
+
+	/**
+	 * Sets the self-organizing lookup strategy of this set.
+	 * In self-organizing modes, the indices of recently found elements are
+	 * kept in a small table of hot slots probed before scanning the set, so
+	 * that skewed workloads (where a few elements account for most lookups)
+	 * find hot elements without scanning. The iteration order of this set is
+	 * not affected.
+	 * @param organization the new self-organizing lookup strategy
+	 * @throws NullPointerException if provided organization is null
+	 */
+	public void setSelfOrganization(SelfOrganization organization) throws NullPointerException
+	{
+		if (organization == null) throw new NullPointerException();
+		this.organization = organization;
+		if (organization == SelfOrganization.NONE)
+		{
+			hotSlots = null;
+		}
+		else
+		{
+			hotSlots = new int[HotSlotsCount];
+			forgetHotSlots();
+		}
+	}
+
+	/**
+	 * Increases the capacity of this set, if necessary, to ensure that it can
+	 * hold at least the number of elements specified by the minimum capacity
+	 * argument, growing at most once according to {@link #growthPolicy}.
+	 * @param minCapacity the desired minimum capacity
+	 */
+	public void ensureCapacity(int minCapacity)
+	{
+		if (minCapacity > elementData.length)
+		{
+			grow(minCapacity);
+		}
+	}
+
+	/**
+	 * Current growth policy
+	 * @return the policy used to grow (and trim) the internal buffer
+	 */
+	public GrowthPolicy growthPolicy()
+	{
+		return growthPolicy;
+	}
+
+	/**
+	 * Sets a new growth policy which will be used for subsequent capacity
+	 * changes
+	 * @param growthPolicy the new growth policy
+	 * @throws NullPointerException if provided growthPolicy is null
+	 */
+	public void setGrowthPolicy(GrowthPolicy growthPolicy) throws NullPointerException
+	{
+		if (growthPolicy == null) throw new NullPointerException();
+		this.growthPolicy = growthPolicy;
+	}
+
+	/**
+	 * Ordering mode
+	 * @return true if removals preserve the order of remaining elements,
+	 * false if removals may move the last element into the removed slot
+	 * @see #removeAtIndex(int)
+	 */
+	public boolean isOrdered()
+	{
+		return ordered;
+	}
+
 	/**
 	 * Strip the internal array to its minimal size to hold all the elements in
 	 * this set using {@link Arrays#copyOf(Object[], int)} to reallocate
@@ -480,6 +1142,222 @@ public class ArraySet<E> extends AbstractSet<E>
 			throw new IllegalStateException();
 		}
 		elementData = Arrays.copyOf(elementData, elementCount);
+		elementHashes = Arrays.copyOf(elementHashes, elementCount);
+	}
+
+	/**
+	 * Index of an object within a range of {@link #elementData}
+	 * @param o the object to search
+	 * @param from the first index of the range (inclusive)
+	 * @param to the last index of the range (exclusive)
+	 * @return the index of o in the range or -1 if o is not part of the range
+	 */
+	protected int indexOf(Object o, int from, int to)
+	{
+		if (o == null) return -1;
+		return indexOf(o, o.hashCode(), from, to);
+	}
+
+	/**
+	 * Index of an object with a known hash code within a range of
+	 * {@link #elementData}
+	 * @param o the non null object to search
+	 * @param hash the hash code of o
+	 * @param from the first index of the range (inclusive)
+	 * @param to the last index of the range (exclusive)
+	 * @return the index of o in the range or -1 if o is not part of the range
+	 * @implNote The scan only compares the cached {@link #elementHashes}
+	 * (a tight loop over an int[] the JIT can unroll) and only calls
+	 * {@link Object#equals(Object)} on elements with the same hash code.
+	 */
+	private int indexOf(Object o, int hash, int from, int to)
+	{
+		final int[] hashes = elementHashes;
+		for (int i = from; i < to; i++)
+		{
+			if (hashes[i] == hash && o.equals(elementData[i])) return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Computes the cached hash codes of a range of {@link #elementData} which
+	 * has just been filled with new elements and adds them to
+	 * {@link #hashSum}
+	 * @param from the first index of the range (inclusive)
+	 * @param to the last index of the range (exclusive)
+	 */
+	private void hashRange(int from, int to)
+	{
+		for (int i = from; i < to; i++)
+		{
+			int hash = elementData[i].hashCode();
+			elementHashes[i] = hash;
+			hashSum += hash;
+		}
+	}
+
+	/**
+	 * Index of an object with a known hash code in this set, probing
+	 * {@link #hotSlots} first (if any) and then reorganizing them according
+	 * to {@link #organization}.
+	 * @param o the non null object to search
+	 * @param hash the hash code of o
+	 * @return the index of o in {@link #elementData} or -1 if o is not part
+	 * of this set
+	 */
+	private int find(Object o, int hash)
+	{
+		if (hotSlots == null)
+		{
+			return indexOf(o, hash, 0, elementCount);
+		}
+		for (int j = 0; j < hotSlots.length; j++)
+		{
+			int index = hotSlots[j];
+			if (index >= 0 &&
+			    index < elementCount &&
+			    elementHashes[index] == hash &&
+			    o.equals(elementData[index]))
+			{
+				if (j > 0)
+				{
+					if (organization == SelfOrganization.MOVE_TO_FRONT)
+					{
+						System.arraycopy(hotSlots, 0, hotSlots, 1, j);
+						hotSlots[0] = index;
+					}
+					else
+					{
+						hotSlots[j] = hotSlots[j - 1];
+						hotSlots[j - 1] = index;
+					}
+				}
+				return index;
+			}
+		}
+		int index = indexOf(o, hash, 0, elementCount);
+		if (index >= 0)
+		{
+			if (organization == SelfOrganization.MOVE_TO_FRONT)
+			{
+				System.arraycopy(hotSlots, 0, hotSlots, 1, hotSlots.length - 1);
+				hotSlots[0] = index;
+			}
+			else
+			{
+				hotSlots[hotSlots.length - 1] = index;
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Empties {@link #hotSlots} (if any) after elements have been moved
+	 */
+	private void forgetHotSlots()
+	{
+		if (hotSlots != null)
+		{
+			Arrays.fill(hotSlots, -1);
+		}
+	}
+
+	/**
+	 * Appends a batch of elements to this set
+	 * @param batch the elements to append which may be reordered and
+	 * overwritten
+	 * @param alreadyDistinct true if elements in the batch are already known
+	 * to be distinct
+	 * @return true if at least one element has been added
+	 * @throws NullPointerException if one element of the batch is null
+	 * @post {@link #elementData} has grown at most once according to
+	 * {@link #growthPolicy}
+	 * @implNote Small batches are searched in this set with
+	 * {@link #contains(Object)} which only compares cached hash codes, so
+	 * adding a few elements to a large set doesn't index all its elements.
+	 */
+	private boolean addBatch(Object[] batch, boolean alreadyDistinct) throws NullPointerException
+	{
+		for (Object elt : batch)
+		{
+			if (elt == null) throw new NullPointerException();
+		}
+		int count = distinct(batch, alreadyDistinct, this);
+		if (count == 0)
+		{
+			return false;
+		}
+		ensureCapacity(elementCount + count);
+		System.arraycopy(batch, 0, elementData, elementCount, count);
+		hashRange(elementCount, elementCount + count);
+		elementCount += count;
+		return true;
+	}
+
+	/**
+	 * Appends an element which is known not to be part of this set at the end
+	 * of {@link #elementData} without checking for duplicates.
+	 * @param e the element to append
+	 * @implNote if the array buffer is full it needs to {@link #grow()}
+	 */
+	private void append(E e)
+	{
+		if (elementCount == elementData.length)
+		{
+			grow();
+		}
+		int hash = e.hashCode();
+		elementHashes[elementCount] = hash;
+		elementData[elementCount++] = e;
+		hashSum += hash;
+	}
+
+	/**
+	 * Keeps only the elements satisfying a predicate by compacting
+	 * {@link #elementData} in a single pass: each element is evaluated once
+	 * and moved at most once, the order of kept elements is preserved and
+	 * the freed slots at the end of {@link #elementData} are set to null.
+	 * @param keep the predicate elements to keep must satisfy
+	 * @return true if at least one element has been removed
+	 * @implNote If the predicate throws an exception, the elements which
+	 * have not been evaluated yet are kept and this set remains consistent.
+	 */
+	private boolean compact(Predicate<? super E> keep)
+	{
+		int initialCount = elementCount;
+		int write = 0;
+		int read = 0;
+		try
+		{
+			for (; read < initialCount; read++)
+			{
+				E elt = elementData[read];
+				if (keep.test(elt))
+				{
+					elementHashes[write] = elementHashes[read];
+					elementData[write++] = elt;
+				}
+				else
+				{
+					hashSum -= elementHashes[read];
+				}
+			}
+		}
+		finally
+		{
+			if (read < initialCount)
+			{
+				System.arraycopy(elementData, read, elementData, write, initialCount - read);
+				System.arraycopy(elementHashes, read, elementHashes, write, initialCount - read);
+				write += initialCount - read;
+			}
+			Arrays.fill(elementData, write, initialCount, null);
+			elementCount = write;
+			forgetHotSlots();
+			shrink();
+		}
+		return write != initialCount;
 	}
 
 	/**
@@ -488,7 +1366,10 @@ public class ArraySet<E> extends AbstractSet<E>
 	 * @return true if the index was valid and the element at index has been
 	 * removed, false otherwise.
 	 * @implNote This method can be used in either {@link #remove(Object)} or
-	 * {@link ArraySetIterator#remove()}
+	 * {@link ArraySetIterator#remove()}.
+	 * In {@link #ordered} mode all subsequent elements are shifted one step
+	 * left, otherwise the last element is moved into the removed slot so the
+	 * removal costs O(1).
 	 * @see #remove(Object)
 	 * @see ArraySetIterator#remove()
 	 */
@@ -500,45 +1381,94 @@ public class ArraySet<E> extends AbstractSet<E>
 			return false;
 		}
 
-		/*
-		 * If index is valid then move all subsequent objects one step left.
-		 * Note: index remains unchanged
-		 */
-		for (int i = removeIndex; i < (elementCount - 1); i++)
+		int last = elementCount - 1;
+		hashSum -= elementHashes[removeIndex];
+		if (ordered)
+		{
+			/*
+			 * If index is valid then move all subsequent objects one step left.
+			 * Note: index remains unchanged
+			 */
+			System.arraycopy(elementData, removeIndex + 1, elementData, removeIndex, last - removeIndex);
+			System.arraycopy(elementHashes, removeIndex + 1, elementHashes, removeIndex, last - removeIndex);
+		}
+		else
 		{
-			elementData[i] = elementData[i+1];
+			elementData[removeIndex] = elementData[last];
+			elementHashes[removeIndex] = elementHashes[last];
 		}
-		elementData[--elementCount] = null;
+		elementData[last] = null;
+		elementCount = last;
+		if (hotSlots != null)
+		{
+			for (int j = 0; j < hotSlots.length; j++)
+			{
+				int slot = hotSlots[j];
+				if (slot == removeIndex)
+				{
+					hotSlots[j] = -1;
+				}
+				else if (ordered ? slot > removeIndex : slot == last)
+				{
+					hotSlots[j] = ordered ? slot - 1 : removeIndex;
+				}
+			}
+		}
+		shrink();
 		return true;
 	}
 
 	/**
-     * Increases the capacity to ensure that it can hold at least the
-     * number of elements specified by the minimum capacity argument.
-     * @param minCapacity the desired minimum capacity
-	 * @return a new array E[] able to contain minCapacity elements
-	 * (iff minCapacity > current capacity, or current capacity +
-	 * {@link #capacityIncrement} if minCapacity <= current capacity)
+	 * Increases the capacity to ensure that it can hold at least the
+	 * number of elements specified by the minimum capacity argument.
+	 * @param minCapacity the desired minimum capacity
+	 * @return a new array E[] able to contain minCapacity elements (or at
+	 * least one more element than current capacity if minCapacity <= current
+	 * capacity) whose capacity is chosen by {@link #growthPolicy}
 	 * @post {@link #elementData} has been modified
-     */
+	 */
 	protected E[] grow(int minCapacity)
 	{
 		int oldCapacity = elementData.length;
-		int newCapacity = (minCapacity < oldCapacity ? oldCapacity
-		    + capacityIncrement : minCapacity);
+		minCapacity = Math.max(minCapacity, oldCapacity + 1);
+		int newCapacity = Math.max(minCapacity,
+		                           growthPolicy.grownCapacity(oldCapacity, minCapacity));
+		elementHashes = Arrays.copyOf(elementHashes, newCapacity);
 		return elementData = Arrays.copyOf(elementData, newCapacity);
 	}
 
-    /**
-     * Increases the capacity by {@link #capacityIncrement}
-     * @return a new array E[] able to contain {@link #elementCount} +
-     * {@link #capacityIncrement} elements
+	/**
+	 * Increases the capacity according to {@link #growthPolicy}
+	 * @return a new array E[] able to contain at least {@link #elementCount}
+	 * + 1 elements
 	 * @post {@link #elementData} has been modified
-     */
-    protected E[] grow()
-    {
-        return grow(elementCount + capacityIncrement);
-    }
+	 */
+	protected E[] grow()
+	{
+		return grow(elementCount + 1);
+	}
+
+	/**
+	 * Trims {@link #elementData} after removals if {@link #growthPolicy}
+	 * decides so, but never below {@link #DefaultCapacity} (unless capacity
+	 * was already smaller) nor below {@link #elementCount}.
+	 * @see GrowthPolicy#shrunkCapacity(int, int)
+	 */
+	private void shrink()
+	{
+		int capacity = elementData.length;
+		int newCapacity = growthPolicy.shrunkCapacity(capacity, elementCount);
+		if (newCapacity < capacity)
+		{
+			newCapacity = Math.max(newCapacity,
+			                       Math.max(elementCount, Math.min(DefaultCapacity, capacity)));
+			if (newCapacity < capacity)
+			{
+				elementData = Arrays.copyOf(elementData, newCapacity);
+				elementHashes = Arrays.copyOf(elementHashes, newCapacity);
+			}
+		}
+	}
 
     // -------------------------------------------------------------------------
 	// Internal iterator class
@@ -624,6 +1554,10 @@ public class ArraySet<E> extends AbstractSet<E>
 		 * called, or the remove method has already been called after the last
 		 * call to the next method.
 		 * @post {@link #nextCalled} has been reset to false after this call.
+		 * @implNote {@link #index} is decremented before removal so that the
+		 * element moved into the removed slot (either the next one in
+		 * {@link ArraySet#ordered} mode or the last one otherwise) is
+		 * provided by the next call to {@link #next()}.
 		 * @see ArraySet#removeAtIndex(int)
 		 */
 		@Override
@@ -0,0 +1,96 @@
+package sets;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Adapters of {@link ByteBuffer}s as streams so that the stream based
+ * encodings of {@link SetSerializer} and {@link ElementCodec} can read from
+ * and write to buffers (including memory-mapped files).
+ * Streams use the relative get and put operations of their buffer, whose
+ * position is advanced by the bytes read or written.
+ * @author David Roussel and Aiglon Doré
+ */
+final class ByteBufferStreams
+{
+	/**
+	 * No instances
+	 */
+	private ByteBufferStreams()
+	{
+	}
+
+	/**
+	 * Input stream reading the remaining bytes of a buffer
+	 * @param buffer the buffer to read
+	 * @return a new input stream reading buffer from its current position
+	 * until its limit
+	 */
+	static InputStream inputStream(ByteBuffer buffer)
+	{
+		return new InputStream()
+		{
+			@Override
+			public int read()
+			{
+				return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len)
+			{
+				if (len == 0)
+				{
+					return 0;
+				}
+				if (!buffer.hasRemaining())
+				{
+					return -1;
+				}
+				int count = Math.min(len, buffer.remaining());
+				buffer.get(b, off, count);
+				return count;
+			}
+
+			@Override
+			public long skip(long n)
+			{
+				int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+				buffer.position(buffer.position() + count);
+				return count;
+			}
+
+			@Override
+			public int available()
+			{
+				return buffer.remaining();
+			}
+		};
+	}
+
+	/**
+	 * Output stream writing into the remaining bytes of a buffer
+	 * @param buffer the buffer to write
+	 * @return a new output stream writing into buffer from its current
+	 * position and throwing {@link java.nio.BufferOverflowException} when its
+	 * limit is reached
+	 */
+	static OutputStream outputStream(ByteBuffer buffer)
+	{
+		return new OutputStream()
+		{
+			@Override
+			public void write(int b)
+			{
+				buffer.put((byte) b);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len)
+			{
+				buffer.put(b, off, len);
+			}
+		};
+	}
+}
@@ -0,0 +1,167 @@
+package sets;
+
+import java.time.Duration;
+
+/**
+ * Policy deciding when a {@link DurableSet} checkpoints its content in the
+ * background, so that the log replayed when opening it stays short.
+ * A checkpoint is due when:
+ * - the log exceeds {@link #maxLogBytes()} bytes
+ * - or {@link #maxInterval()} has elapsed since the last checkpoint (or since
+ * the set was opened) and the set has been modified meanwhile.
+ * Predefined policies are provided by {@link #Manual},
+ * {@link #logSize(long)}, {@link #interval(Duration)} and
+ * {@link #of(long, Duration)}.
+ * @author David Roussel and Aiglon Doré
+ */
+public final class CheckpointPolicy
+{
+	/**
+	 * Policy never checkpointing in the background: checkpoints are only
+	 * performed by explicit calls to {@link DurableSet#checkpoint()}
+	 */
+	public static final CheckpointPolicy Manual = new CheckpointPolicy(Long.MAX_VALUE, null);
+
+	/**
+	 * Size of the log above which a checkpoint is due
+	 */
+	private final long maxLogBytes;
+
+	/**
+	 * Time between checkpoints of a modified set, or null
+	 */
+	private final Duration maxInterval;
+
+	/**
+	 * Private valued constructor
+	 * @param maxLogBytes the size of the log above which a checkpoint is due
+	 * @param maxInterval the time between checkpoints of a modified set or
+	 * null
+	 */
+	private CheckpointPolicy(long maxLogBytes, Duration maxInterval)
+	{
+		this.maxLogBytes = maxLogBytes;
+		this.maxInterval = maxInterval;
+	}
+
+	// -------------------------------------------------------------------------
+	// Predefined policies
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Log size policy: checkpoints when the log exceeds a size
+	 * @param maxLogBytes the size of the log above which a checkpoint is due
+	 * @return a new log size policy
+	 * @throws IllegalArgumentException if maxLogBytes is not positive
+	 */
+	public static CheckpointPolicy logSize(long maxLogBytes) throws IllegalArgumentException
+	{
+		if (maxLogBytes <= 0) throw new IllegalArgumentException();
+		return new CheckpointPolicy(maxLogBytes, null);
+	}
+
+	/**
+	 * Time policy: checkpoints a modified set periodically
+	 * @param maxInterval the time between checkpoints of a modified set
+	 * @return a new time policy
+	 * @throws IllegalArgumentException if maxInterval is not positive
+	 * @throws NullPointerException if maxInterval is null
+	 */
+	public static CheckpointPolicy interval(Duration maxInterval)
+		throws IllegalArgumentException, NullPointerException
+	{
+		return of(Long.MAX_VALUE, maxInterval);
+	}
+
+	/**
+	 * Combined policy: checkpoints when the log exceeds a size or
+	 * periodically, whichever comes first
+	 * @param maxLogBytes the size of the log above which a checkpoint is due
+	 * @param maxInterval the time between checkpoints of a modified set
+	 * @return a new combined policy
+	 * @throws IllegalArgumentException if maxLogBytes or maxInterval is not
+	 * positive
+	 * @throws NullPointerException if maxInterval is null
+	 */
+	public static CheckpointPolicy of(long maxLogBytes, Duration maxInterval)
+		throws IllegalArgumentException, NullPointerException
+	{
+		if (maxInterval == null) throw new NullPointerException();
+		if (maxLogBytes <= 0 || maxInterval.isNegative() || maxInterval.isZero())
+		{
+			throw new IllegalArgumentException();
+		}
+		return new CheckpointPolicy(maxLogBytes, maxInterval);
+	}
+
+	// -------------------------------------------------------------------------
+	// Accessors
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Size of the log above which a checkpoint is due
+	 * @return the maximum size of the log in bytes or {@link Long#MAX_VALUE}
+	 * if the size of the log doesn't trigger checkpoints
+	 */
+	public long maxLogBytes()
+	{
+		return maxLogBytes;
+	}
+
+	/**
+	 * Time between checkpoints of a modified set
+	 * @return the maximum time between checkpoints or null if time doesn't
+	 * trigger checkpoints
+	 */
+	public Duration maxInterval()
+	{
+		return maxInterval;
+	}
+
+	/**
+	 * Whether this policy ever triggers checkpoints in the background
+	 * @return false for {@link #Manual}, true otherwise
+	 */
+	public boolean isAutomatic()
+	{
+		return maxLogBytes != Long.MAX_VALUE || maxInterval != null;
+	}
+
+	/**
+	 * Whether a checkpoint is due
+	 * @param logBytes the current size of the log
+	 * @param sinceLastCheckpoint the time elapsed since the last checkpoint
+	 * @param modified whether the set has been modified since the last
+	 * checkpoint
+	 * @return true if a checkpoint should be performed
+	 */
+	public boolean isDue(long logBytes, Duration sinceLastCheckpoint, boolean modified)
+	{
+		if (!modified)
+		{
+			return false;
+		}
+		return logBytes > maxLogBytes ||
+			(maxInterval != null && sinceLastCheckpoint.compareTo(maxInterval) >= 0);
+	}
+
+	@Override
+	public String toString()
+	{
+		if (!isAutomatic())
+		{
+			return "manual";
+		}
+		StringBuilder builder = new StringBuilder();
+		if (maxLogBytes != Long.MAX_VALUE)
+		{
+			builder.append("logSize(" + maxLogBytes + ")");
+		}
+		if (maxInterval != null)
+		{
+			builder.append(builder.length() > 0 ? " | " : "");
+			builder.append("interval(" + maxInterval + ")");
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,1729 @@
+package sets;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+/**
+ * Thread safe {@link Set} wrapping an in-memory set whose modifications are
+ * appended to a write-ahead log so that its content survives process
+ * restarts.
+ * - each modification (add, remove or clear) is applied to the wrapped set
+ * and appended as a record to the log before the modifying method returns
+ * - logged records are made durable by group commit: a single caller writes
+ * and syncs the records of all the callers waiting for their modification
+ * to be durable, so that concurrent modifications share the cost of a
+ * single sync
+ * - {@link #checkpoint()} writes a snapshot of the set next to the log and
+ * then removes from the log the records covered by the snapshot, either
+ * when called explicitly or in the background according to a
+ * {@link CheckpointPolicy}
+ * - {@link #open(Set, ElementCodec, Path, CheckpointPolicy)} loads the last
+ * snapshot into an empty set, replays the records of the log which are not
+ * covered by the snapshot and discards the incomplete records at the end of
+ * the log left by a crash.
+ * A log has the following format (big endian):
+ * - magic number {@link #Magic} (4 bytes)
+ * - format version {@link #Version} (1 byte)
+ * - codec name ({@link java.io.DataOutput#writeUTF(String)})
+ * - sequence number of the first record of the log (8 bytes)
+ * - records: for each record, its type (1 byte), the length of its payload
+ * (4 bytes), its payload (the element encoded by the codec for additions
+ * and removals) and the CRC32 checksum of the previous fields (4 bytes).
+ * A snapshot contains the number of records it covers (8 bytes) followed by
+ * the elements of the set written by a {@link SetSerializer}.
+ * @author David Roussel and Aiglon Doré
+ * @param <E> the type of elements in this set
+ */
+public class DurableSet<E> extends AbstractSet<E> implements Closeable
+{
+	/**
+	 * Magic number starting logs: "SLOG" in ASCII
+	 */
+	public static final int Magic = 0x534C4F47;
+
+	/**
+	 * Current version of the format
+	 */
+	public static final byte Version = 1;
+
+	/**
+	 * Type of records adding an element
+	 */
+	private static final byte AddRecord = 1;
+
+	/**
+	 * Type of records removing an element
+	 */
+	private static final byte RemoveRecord = 2;
+
+	/**
+	 * Type of records clearing the set
+	 */
+	private static final byte ClearRecord = 3;
+
+	/**
+	 * The wrapped set
+	 */
+	private final Set<E> set;
+
+	/**
+	 * The codec of elements in records
+	 */
+	private final ElementCodec<E> codec;
+
+	/**
+	 * The path of the log
+	 */
+	private final Path path;
+
+	/**
+	 * The path of the snapshot
+	 */
+	private final Path snapshotPath;
+
+	/**
+	 * The log opened in append mode, which is only written (or replaced) by
+	 * the caller syncing pending records.
+	 * @implNote a {@link FileOutputStream} is used rather than a
+	 * {@link FileChannel} since interrupting a thread writing to a channel
+	 * closes the channel for all threads.
+	 */
+	private FileOutputStream log;
+
+	/**
+	 * Lock guarding the wrapped set, {@link #pending}, {@link #appended},
+	 * {@link #logged} and {@link #closed}
+	 * @implNote No other collection is accessed while holding this lock:
+	 * collections provided to bulk operations are copied first, since they
+	 * may be other durable sets taking their own lock (e.g. a.retainAll(b)
+	 * concurrently with b.retainAll(a) would otherwise deadlock).
+	 */
+	private final Object lock = new Object();
+
+	/**
+	 * Records appended since the last write to the log
+	 */
+	private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+	/**
+	 * Number of records appended to the log (including the records already
+	 * present when the log was opened)
+	 */
+	private long appended;
+
+	/**
+	 * Size of the log including the records taken from {@link #pending} by
+	 * the caller syncing them
+	 */
+	private long logged;
+
+	/**
+	 * Whether this set has been closed
+	 */
+	private boolean closed = false;
+
+	/**
+	 * Lock guarding {@link #durable} and {@link #syncing}
+	 */
+	private final Object syncLock = new Object();
+
+	/**
+	 * Number of records known to be durable
+	 */
+	private long durable;
+
+	/**
+	 * Whether a caller is currently writing and syncing pending records
+	 */
+	private boolean syncing = false;
+
+	/**
+	 * The error which occurred while writing to the log, after which this set
+	 * can't be modified anymore
+	 */
+	private volatile IOException failure = null;
+
+	/**
+	 * Number of records replayed when opening the log
+	 */
+	private final long recoveredRecords;
+
+	/**
+	 * Number of bytes discarded at the end of the log when opening it
+	 */
+	private final long discardedBytes;
+
+	/**
+	 * Time spent replaying the log
+	 */
+	private final Duration recoveryTime;
+
+	/**
+	 * The policy triggering background checkpoints
+	 */
+	private final CheckpointPolicy policy;
+
+	/**
+	 * The thread performing background checkpoints or null if
+	 * {@link #policy} is not automatic
+	 */
+	private final ScheduledExecutorService checkpointer;
+
+	/**
+	 * Whether a size triggered checkpoint has been submitted to
+	 * {@link #checkpointer} and hasn't started yet
+	 */
+	private final AtomicBoolean checkpointSubmitted = new AtomicBoolean(false);
+
+	/**
+	 * Lock serializing checkpoints and guarding {@link #covered},
+	 * {@link #logStart} and {@link #lastCheckpoint}
+	 */
+	private final Object checkpointLock = new Object();
+
+	/**
+	 * Number of records covered by the last snapshot
+	 */
+	private long covered;
+
+	/**
+	 * Sequence number of the first record of the log, which is lower than
+	 * {@link #covered} until the log has been compacted after the last
+	 * snapshot
+	 */
+	private long logStart;
+
+	/**
+	 * Time of the last checkpoint (or of opening) in nanoseconds
+	 */
+	private long lastCheckpoint;
+
+	/**
+	 * Number of checkpoints performed since opening
+	 */
+	private volatile int checkpoints = 0;
+
+	/**
+	 * The error which occurred during the last background checkpoint, or null
+	 */
+	private volatile Exception checkpointFailure = null;
+
+	/**
+	 * Private constructor from a recovered log
+	 * @param set the wrapped set containing the replayed records
+	 * @param codec the codec of elements
+	 * @param path the path of the log
+	 * @param logged the size of the log
+	 * @param records the number of records in the log
+	 * @param logStart the sequence number of the first record of the log
+	 * @param covered the number of records covered by the snapshot
+	 * @param recoveredRecords the number of records replayed
+	 * @param discardedBytes the number of bytes discarded at the end of the
+	 * log
+	 * @param recoveryTime the time spent replaying the log
+	 * @param policy the policy triggering background checkpoints
+	 * @throws IOException if the log can't be opened for writing
+	 */
+	private DurableSet(Set<E> set,
+	                   ElementCodec<E> codec,
+	                   Path path,
+	                   long logged,
+	                   long records,
+	                   long logStart,
+	                   long covered,
+	                   long recoveredRecords,
+	                   long discardedBytes,
+	                   Duration recoveryTime,
+	                   CheckpointPolicy policy)
+		throws IOException
+	{
+		this.set = set;
+		this.codec = codec;
+		this.path = path;
+		this.snapshotPath = snapshotPath(path);
+		this.log = new FileOutputStream(path.toFile(), true);
+		this.logged = logged;
+		this.appended = records;
+		this.durable = records;
+		this.covered = covered;
+		this.logStart = logStart;
+		this.recoveredRecords = recoveredRecords;
+		this.discardedBytes = discardedBytes;
+		this.recoveryTime = recoveryTime;
+		this.policy = policy;
+		this.lastCheckpoint = System.nanoTime();
+		setElementsClass(codec.elementsClass());
+		if (policy.isAutomatic())
+		{
+			checkpointer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "DurableSet checkpointer " + path.getFileName());
+				thread.setDaemon(true);
+				return thread;
+			});
+			Duration interval = policy.maxInterval();
+			if (interval != null)
+			{
+				long nanos = interval.toNanos();
+				checkpointer.scheduleWithFixedDelay(this::backgroundCheckpoint,
+				                                    nanos,
+				                                    nanos,
+				                                    TimeUnit.NANOSECONDS);
+			}
+		}
+		else
+		{
+			checkpointer = null;
+		}
+	}
+
+	// -------------------------------------------------------------------------
+	// Log
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Opens (or creates) a log and replays its records into an empty set,
+	 * without background checkpoints.
+	 * @param <E> the type of elements
+	 * @param set the empty in-memory set to wrap, which should not be used
+	 * directly afterwards
+	 * @param codec the codec of elements, which should be the one used to
+	 * create the log
+	 * @param path the path of the log
+	 * @return a new durable set wrapping set
+	 * @throws IOException if an I/O error occurs
+	 * @throws StreamCorruptedException if the log or the snapshot is
+	 * corrupted or if their codec name doesn't match
+	 * @throws IllegalArgumentException if set is not empty
+	 * @throws NullPointerException if any argument is null
+	 * @see #open(Set, ElementCodec, Path, CheckpointPolicy)
+	 */
+	public static <E> DurableSet<E> open(Set<E> set, ElementCodec<E> codec, Path path)
+		throws IOException, IllegalArgumentException, NullPointerException
+	{
+		return open(set, codec, path, CheckpointPolicy.Manual);
+	}
+
+	/**
+	 * Opens (or creates) a log, loads the last snapshot and replays the
+	 * records of the log it doesn't cover into an empty set.
+	 * Records following the last complete and valid record of the log (such
+	 * as a record partially written when the process crashed) are discarded
+	 * and truncated from the log.
+	 * @param <E> the type of elements
+	 * @param set the empty in-memory set to wrap, which should not be used
+	 * directly afterwards
+	 * @param codec the codec of elements, which should be the one used to
+	 * create the log
+	 * @param path the path of the log
+	 * @param policy the policy triggering background checkpoints
+	 * @return a new durable set wrapping set
+	 * @throws IOException if an I/O error occurs
+	 * @throws StreamCorruptedException if the log or the snapshot is
+	 * corrupted or if their codec name doesn't match
+	 * @throws IllegalArgumentException if set is not empty
+	 * @throws NullPointerException if any argument is null
+	 * @see #snapshotPath()
+	 */
+	public static <E> DurableSet<E> open(Set<E> set, ElementCodec<E> codec, Path path, CheckpointPolicy policy)
+		throws IOException, IllegalArgumentException, NullPointerException
+	{
+		if (set == null || codec == null || path == null || policy == null) throw new NullPointerException();
+		if (!set.isEmpty()) throw new IllegalArgumentException("set to recover into is not empty");
+		long start = System.nanoTime();
+		long covered = 0;
+		Path snapshot = snapshotPath(path);
+		if (Files.exists(snapshot))
+		{
+			try (InputStream file = new BufferedInputStream(Files.newInputStream(snapshot)))
+			{
+				DataInputStream in = new DataInputStream(file);
+				covered = in.readLong();
+				set.addAll(new SetSerializer<E>(codec).read((InputStream) in));
+			}
+			catch (EOFException e)
+			{
+				throw new StreamCorruptedException("truncated snapshot");
+			}
+		}
+		if (!Files.exists(path) || Files.size(path) == 0)
+		{
+			byte[] header = header(codec, covered);
+			try (FileOutputStream out = new FileOutputStream(path.toFile()))
+			{
+				out.write(header);
+				out.getFD().sync();
+			}
+			FileSync.syncDirectory(path);
+			return new DurableSet<E>(set,
+			                         codec,
+			                         path,
+			                         header.length,
+			                         covered,
+			                         covered,
+			                         covered,
+			                         0,
+			                         0,
+			                         Duration.ofNanos(System.nanoTime() - start),
+			                         policy);
+		}
+
+		long fileSize = Files.size(path);
+		long valid;
+		long logStart;
+		long records;
+		long replayed = 0;
+		try (InputStream file = new BufferedInputStream(Files.newInputStream(path)))
+		{
+			CountingInput in = new CountingInput(file);
+			DataInputStream data = new DataInputStream(in);
+			logStart = readHeader(data, codec);
+			records = logStart;
+			if (records > covered)
+			{
+				throw new StreamCorruptedException("log starts after the end of the snapshot");
+			}
+			valid = in.count;
+			byte[] payload;
+			while ((payload = readRecord(data, fileSize - in.count)) != null)
+			{
+				if (records >= covered)
+				{
+					replay(set, codec, payload);
+					replayed++;
+				}
+				valid = in.count;
+				records++;
+			}
+		}
+		if (records < covered)
+		{
+			throw new StreamCorruptedException("log ends before the end of the snapshot");
+		}
+		if (valid < fileSize)
+		{
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE))
+			{
+				channel.truncate(valid);
+				channel.force(true);
+			}
+		}
+		return new DurableSet<E>(set,
+		                         codec,
+		                         path,
+		                         valid,
+		                         records,
+		                         logStart,
+		                         covered,
+		                         replayed,
+		                         fileSize - valid,
+		                         Duration.ofNanos(System.nanoTime() - start),
+		                         policy);
+	}
+
+	/**
+	 * The path of the snapshot of a log
+	 * @param path the path of the log
+	 * @return the path of the snapshot which is the path of the log followed
+	 * by ".snapshot"
+	 */
+	private static Path snapshotPath(Path path)
+	{
+		return path.resolveSibling(path.getFileName() + ".snapshot");
+	}
+
+	/**
+	 * Header of a log
+	 * @param codec the codec of elements
+	 * @param firstSequence the sequence number of the first record
+	 * @return the bytes of the header
+	 */
+	private static byte[] header(ElementCodec<?> codec, long firstSequence)
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		try
+		{
+			out.writeInt(Magic);
+			out.writeByte(Version);
+			out.writeUTF(codec.name());
+			out.writeLong(firstSequence);
+		}
+		catch (IOException e)
+		{
+			// ByteArrayOutputStream doesn't throw
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Reads and checks the header of a log
+	 * @param in the source of the header
+	 * @param codec the expected codec of elements
+	 * @return the sequence number of the first record
+	 * @throws IOException if an I/O error occurs
+	 * @throws StreamCorruptedException if the header doesn't match
+	 */
+	private static long readHeader(DataInputStream in, ElementCodec<?> codec) throws IOException
+	{
+		try
+		{
+			int magic = in.readInt();
+			if (magic != Magic)
+			{
+				throw new StreamCorruptedException("bad magic number " + Integer.toHexString(magic));
+			}
+			byte version = in.readByte();
+			if (version != Version)
+			{
+				throw new StreamCorruptedException("unsupported version " + version);
+			}
+			String name = in.readUTF();
+			if (!name.equals(codec.name()))
+			{
+				throw new StreamCorruptedException("codec " + name + " expected instead of " + codec.name());
+			}
+			return in.readLong();
+		}
+		catch (EOFException e)
+		{
+			throw new StreamCorruptedException("truncated header");
+		}
+	}
+
+	/**
+	 * Reads the next record of a log
+	 * @param in the source of records
+	 * @param remaining the number of bytes remaining in the log
+	 * @return the type of the record followed by its payload, or null if the
+	 * log ends or if the next record is incomplete or invalid
+	 * @throws IOException if an I/O error occurs
+	 */
+	private static byte[] readRecord(DataInputStream in, long remaining) throws IOException
+	{
+		try
+		{
+			byte type = in.readByte();
+			int length = in.readInt();
+			if (type < AddRecord || type > ClearRecord || length < 0 || length > remaining - 9)
+			{
+				return null;
+			}
+			byte[] record = new byte[length + 1];
+			record[0] = type;
+			in.readFully(record, 1, length);
+			int checksum = in.readInt();
+			return checksum == checksum(type, record, 1, length) ? record : null;
+		}
+		catch (EOFException e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * Applies a record to a set
+	 * @param <E> the type of elements
+	 * @param set the set to modify
+	 * @param codec the codec of elements
+	 * @param record the type of the record followed by its payload
+	 * @throws IOException if the payload is malformed
+	 */
+	private static <E> void replay(Set<E> set, ElementCodec<E> codec, byte[] record) throws IOException
+	{
+		if (record[0] == ClearRecord)
+		{
+			set.clear();
+			return;
+		}
+		E elt = codec.read(new DataInputStream(new ByteArrayInputStream(record, 1, record.length - 1)));
+		if (record[0] == AddRecord)
+		{
+			set.add(elt);
+		}
+		else
+		{
+			set.remove(elt);
+		}
+	}
+
+	/**
+	 * Checksum of a record
+	 * @param type the type of the record
+	 * @param payload the array containing the payload of the record
+	 * @param from the index of the payload in the array
+	 * @param length the length of the payload
+	 * @return the CRC32 of the type, length and payload of the record
+	 */
+	private static int checksum(byte type, byte[] payload, int from, int length)
+	{
+		CRC32 crc = new CRC32();
+		crc.update(type);
+		crc.update(length >>> 24);
+		crc.update(length >>> 16);
+		crc.update(length >>> 8);
+		crc.update(length);
+		crc.update(payload, from, length);
+		return (int) crc.getValue();
+	}
+
+	/**
+	 * Encodes the payload of a record adding or removing an element.
+	 * Payloads are encoded before modifying the wrapped set so that an
+	 * element which can't be encoded never becomes part of the set without
+	 * being logged.
+	 * @param o the element of the record
+	 * @return the element encoded by the codec, or null if o is not an
+	 * instance of the class of elements of the codec (in which case it can't
+	 * be part of this set)
+	 * @throws NullPointerException if o is null
+	 * @throws UncheckedIOException if the codec failed to encode o
+	 */
+	private byte[] payload(Object o) throws NullPointerException, UncheckedIOException
+	{
+		if (o == null) throw new NullPointerException();
+		Class<E> type = codec.elementsClass();
+		if (!type.isInstance(o))
+		{
+			return null;
+		}
+		ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+		try
+		{
+			codec.write(type.cast(o), new DataOutputStream(encoded));
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+		return encoded.toByteArray();
+	}
+
+	/**
+	 * Payloads of the records of several elements, encoded before modifying
+	 * the wrapped set so that a bulk operation either fails before modifying
+	 * it or applies all its modifications
+	 * @param elements the elements of the records
+	 * @param additions true if elements may be added to this set, in which
+	 * case they should all be valid elements, false if they are only
+	 * removed, in which case the payloads of null elements or of elements
+	 * which can't be part of this set are left null
+	 * @return the payloads of elements in the same order
+	 * @throws NullPointerException if one element is null and additions is
+	 * true
+	 * @throws ClassCastException if one element is not an instance of the
+	 * class of elements of the codec and additions is true
+	 * @throws UncheckedIOException if the codec failed to encode one element
+	 * @see #payload(Object)
+	 */
+	private byte[][] payloads(Object[] elements, boolean additions)
+		throws NullPointerException, ClassCastException, UncheckedIOException
+	{
+		byte[][] payloads = new byte[elements.length][];
+		for (int i = 0; i < elements.length; i++)
+		{
+			if (elements[i] != null || additions)
+			{
+				payloads[i] = payload(elements[i]);
+				if (payloads[i] == null && additions) throw new ClassCastException();
+			}
+		}
+		return payloads;
+	}
+
+	/**
+	 * Appends a record with an encoded payload to the pending records.
+	 * Should be called with {@link #lock} held.
+	 * @param type the type of the record
+	 * @param payload the payload of the record (empty for
+	 * {@link #ClearRecord}s)
+	 */
+	private void append(byte type, byte[] payload)
+	{
+		DataOutputStream out = new DataOutputStream(pending);
+		try
+		{
+			out.writeByte(type);
+			out.writeInt(payload.length);
+			out.write(payload);
+			out.writeInt(checksum(type, payload, 0, payload.length));
+		}
+		catch (IOException e)
+		{
+			// ByteArrayOutputStream doesn't throw
+			throw new UncheckedIOException(e);
+		}
+		appended++;
+	}
+
+	/**
+	 * Checks this set can be modified.
+	 * Should be called with {@link #lock} held.
+	 * @throws IllegalStateException if this set is closed
+	 * @throws UncheckedIOException if a previous write to the log failed
+	 */
+	private void checkWritable() throws IllegalStateException, UncheckedIOException
+	{
+		if (closed) throw new IllegalStateException("durable set is closed");
+		IOException error = failure;
+		if (error != null) throw new UncheckedIOException("write-ahead log failed", error);
+	}
+
+	/**
+	 * Waits until the first records of the log are durable.
+	 * If no other caller is syncing the log, the calling thread writes and
+	 * syncs all the pending records (including the ones appended by other
+	 * threads), otherwise it waits for the syncing caller to finish and
+	 * checks again.
+	 * @param records the number of records which should be durable
+	 * @throws UncheckedIOException if writing or syncing the log failed
+	 */
+	private void awaitDurable(long records) throws UncheckedIOException
+	{
+		if (lead(records))
+		{
+			try
+			{
+				flushPending();
+			}
+			finally
+			{
+				unlead();
+			}
+			submitCheckpointIfDue();
+		}
+	}
+
+	/**
+	 * Waits until the first records of the log are durable or until no other
+	 * caller is syncing the log, in which case the calling thread becomes the
+	 * syncing caller and should call {@link #unlead()} when done.
+	 * @param records the number of records which should be durable
+	 * @return true if the calling thread is now the syncing caller, false if
+	 * the records are durable
+	 * @throws UncheckedIOException if writing or syncing the log failed
+	 */
+	private boolean lead(long records) throws UncheckedIOException
+	{
+		boolean interrupted = false;
+		try
+		{
+			synchronized (syncLock)
+			{
+				while (true)
+				{
+					IOException error = failure;
+					if (error != null) throw new UncheckedIOException("write-ahead log failed", error);
+					if (durable >= records)
+					{
+						return false;
+					}
+					if (!syncing)
+					{
+						syncing = true;
+						return true;
+					}
+					try
+					{
+						syncLock.wait();
+					}
+					catch (InterruptedException e)
+					{
+						interrupted = true;
+					}
+				}
+			}
+		}
+		finally
+		{
+			if (interrupted)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Lets another caller sync the log and wakes up the callers waiting for
+	 * their records to be durable
+	 */
+	private void unlead()
+	{
+		synchronized (syncLock)
+		{
+			syncing = false;
+			syncLock.notifyAll();
+		}
+	}
+
+	/**
+	 * Writes and syncs all pending records.
+	 * Should only be called by the syncing caller.
+	 * @throws UncheckedIOException if writing or syncing the log failed, in
+	 * which case this set can't be modified anymore
+	 */
+	private void flushPending() throws UncheckedIOException
+	{
+		byte[] batch;
+		long batchRecords;
+		synchronized (lock)
+		{
+			batch = pending.toByteArray();
+			pending.reset();
+			batchRecords = appended;
+			logged += batch.length;
+		}
+		if (batch.length > 0)
+		{
+			try
+			{
+				log.write(batch);
+				log.getFD().sync();
+			}
+			catch (IOException e)
+			{
+				failure = e;
+				throw new UncheckedIOException("write-ahead log failed", e);
+			}
+		}
+		synchronized (syncLock)
+		{
+			durable = batchRecords;
+		}
+	}
+
+	/**
+	 * Makes all the modifications of this set durable
+	 * @throws UncheckedIOException if writing or syncing the log failed
+	 */
+	public void sync() throws UncheckedIOException
+	{
+		long records;
+		synchronized (lock)
+		{
+			records = appended;
+		}
+		awaitDurable(records);
+	}
+
+	/**
+	 * Waits for the background checkpoint in progress (if any), makes all the
+	 * modifications of this set durable and closes its log.
+	 * This set can still be read but not modified once closed.
+	 * @throws IOException if writing, syncing or closing the log failed
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		synchronized (lock)
+		{
+			if (closed) return;
+			closed = true;
+		}
+		if (checkpointer != null)
+		{
+			checkpointer.shutdown();
+			boolean interrupted = false;
+			while (!checkpointer.isTerminated())
+			{
+				try
+				{
+					checkpointer.awaitTermination(1, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException e)
+				{
+					interrupted = true;
+				}
+			}
+			if (interrupted)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+		synchronized (checkpointLock)
+		{
+			try
+			{
+				sync();
+			}
+			catch (UncheckedIOException e)
+			{
+				log.close();
+				throw e.getCause();
+			}
+			log.close();
+		}
+	}
+
+	// -------------------------------------------------------------------------
+	// Checkpoints
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Checkpoints this set:
+	 * - copies the elements of the set (which is the only step blocking
+	 * concurrent modifications)
+	 * - writes a snapshot of the copy next to the log and atomically replaces
+	 * the previous snapshot with it
+	 * - replaces the log with a log containing only the records following
+	 * the snapshot, while concurrent modifications are appended to the
+	 * pending records and made durable in the new log.
+	 * A crash at any step leaves either the previous or the new snapshot with
+	 * a log containing at least all the records following it, since the
+	 * directory is synced after each replacement: the new log can't survive
+	 * a crash which loses the new snapshot.
+	 * If the snapshot is up to date but the log hasn't been compacted (since
+	 * the previous compaction failed), only the log is compacted.
+	 * @return true if a checkpoint has been performed, false if this set
+	 * hasn't been modified since the last checkpoint and the log has already
+	 * been compacted
+	 * @throws IOException if the snapshot or the new log can't be written, in
+	 * which case the previous snapshot or the previous log is kept
+	 * @throws UncheckedIOException if writing or syncing the log failed
+	 * @throws IllegalStateException if this set is closed
+	 */
+	public boolean checkpoint() throws IOException, UncheckedIOException, IllegalStateException
+	{
+		synchronized (checkpointLock)
+		{
+			Object[] elements = null;
+			long records;
+			long offset;
+			synchronized (lock)
+			{
+				checkWritable();
+				records = appended;
+				if (records == covered && logStart == covered)
+				{
+					return false;
+				}
+				if (records != covered)
+				{
+					elements = set.toArray();
+				}
+				offset = logged + pending.size();
+			}
+			if (elements != null)
+			{
+				// the snapshot should never cover records which are not durable
+				awaitDurable(records);
+				writeSnapshot(elements, records);
+				covered = records;
+			}
+			compactLog(records, offset);
+			logStart = records;
+			checkpoints++;
+			lastCheckpoint = System.nanoTime();
+			return true;
+		}
+	}
+
+	/**
+	 * Writes a snapshot and atomically and durably replaces the previous one
+	 * @param elements the elements of the snapshot
+	 * @param records the number of records covered by the snapshot
+	 * @throws IOException if the snapshot can't be written
+	 */
+	private void writeSnapshot(Object[] elements, long records) throws IOException
+	{
+		Path temp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+		try (FileOutputStream file = new FileOutputStream(temp.toFile()))
+		{
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file));
+			out.writeLong(records);
+			new SetSerializer<E>(codec).write(new ArraySet<E>(elements, true), (OutputStream) out);
+			out.flush();
+			file.getFD().sync();
+		}
+		// the snapshot should be durable before the log it covers is compacted
+		FileSync.replace(temp, snapshotPath);
+	}
+
+	/**
+	 * Replaces the log with a log containing only the records following a
+	 * snapshot. The records which are not durable yet are made durable
+	 * first, and the calling thread remains the syncing caller while the
+	 * remaining records are copied so that no record is written to the
+	 * replaced log meanwhile.
+	 * @param first the number of records covered by the snapshot
+	 * @param offset the position of the first record not covered by the
+	 * snapshot in the current log
+	 * @throws IOException if the new log can't be written, in which case the
+	 * current log is kept, or if the new log replaced the current log but
+	 * this replacement may not be durable, in which case this set can't be
+	 * modified anymore
+	 * @throws UncheckedIOException if writing or syncing the log failed
+	 */
+	private void compactLog(long first, long offset) throws IOException, UncheckedIOException
+	{
+		lead(Long.MAX_VALUE);
+		try
+		{
+			flushPending();
+			long end;
+			synchronized (lock)
+			{
+				end = logged;
+			}
+			byte[] header = header(codec, first);
+			Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+			try (FileChannel source = FileChannel.open(path, StandardOpenOption.READ);
+				FileOutputStream target = new FileOutputStream(temp.toFile()))
+			{
+				target.write(header);
+				FileChannel channel = target.getChannel();
+				for (long position = offset; position < end;)
+				{
+					position += source.transferTo(position, end - position, channel);
+				}
+				target.getFD().sync();
+			}
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			/*
+			 * Once moved, the previous log has no name anymore: records should
+			 * only be written to the new log, and only if its replacement is
+			 * durable, otherwise they could be lost with the new log
+			 */
+			FileOutputStream previous = log;
+			try
+			{
+				log = new FileOutputStream(path.toFile(), true);
+				synchronized (lock)
+				{
+					logged = header.length + end - offset;
+				}
+				FileSync.syncDirectory(path);
+			}
+			catch (IOException e)
+			{
+				failure = e;
+				throw e;
+			}
+			finally
+			{
+				previous.close();
+			}
+		}
+		finally
+		{
+			unlead();
+		}
+	}
+
+	/**
+	 * Submits a background checkpoint if the log exceeds the size of the
+	 * policy and no checkpoint has been submitted yet
+	 */
+	private void submitCheckpointIfDue()
+	{
+		if (checkpointer != null &&
+			logSize() > policy.maxLogBytes() &&
+			checkpointSubmitted.compareAndSet(false, true))
+		{
+			try
+			{
+				checkpointer.execute(this::backgroundCheckpoint);
+			}
+			catch (RejectedExecutionException e)
+			{
+				// closing
+				checkpointSubmitted.set(false);
+			}
+		}
+	}
+
+	/**
+	 * Checkpoints this set in the background if the policy says so, and
+	 * records the error of failed checkpoints
+	 * @see #checkpointFailure()
+	 */
+	private void backgroundCheckpoint()
+	{
+		checkpointSubmitted.set(false);
+		try
+		{
+			synchronized (checkpointLock)
+			{
+				long records;
+				synchronized (lock)
+				{
+					if (closed)
+					{
+						return;
+					}
+					records = appended;
+				}
+				if (policy.isDue(logSize(), Duration.ofNanos(System.nanoTime() - lastCheckpoint), records != covered || logStart != covered))
+				{
+					checkpoint();
+				}
+			}
+			checkpointFailure = null;
+		}
+		catch (IOException | RuntimeException e)
+		{
+			checkpointFailure = e;
+		}
+	}
+
+	/**
+	 * The path of the snapshot
+	 * @return the path of the snapshot written by {@link #checkpoint()}, which
+	 * is the path of the log followed by ".snapshot"
+	 */
+	public Path snapshotPath()
+	{
+		return snapshotPath;
+	}
+
+	/**
+	 * The policy triggering background checkpoints
+	 * @return the checkpoint policy of this set
+	 */
+	public CheckpointPolicy policy()
+	{
+		return policy;
+	}
+
+	/**
+	 * Number of checkpoints performed since opening
+	 * @return the number of checkpoints performed either explicitly or in the
+	 * background
+	 */
+	public int checkpoints()
+	{
+		return checkpoints;
+	}
+
+	/**
+	 * Size of the log
+	 * @return the size of the log including the records which are not
+	 * durable yet
+	 */
+	public long logSize()
+	{
+		synchronized (lock)
+		{
+			return logged + pending.size();
+		}
+	}
+
+	/**
+	 * The error which occurred during the last background checkpoint
+	 * @return the error of the last background checkpoint or null if it
+	 * succeeded
+	 */
+	public Exception checkpointFailure()
+	{
+		return checkpointFailure;
+	}
+
+	/**
+	 * The path of the log
+	 * @return the path of the log of this set
+	 */
+	public Path path()
+	{
+		return path;
+	}
+
+	/**
+	 * Number of records replayed when opening the log
+	 * @return the number of records not covered by the snapshot replayed by
+	 * {@link #open(Set, ElementCodec, Path, CheckpointPolicy)}
+	 */
+	public long recoveredRecords()
+	{
+		return recoveredRecords;
+	}
+
+	/**
+	 * Number of bytes discarded at the end of the log when opening it
+	 * @return the number of bytes of incomplete or invalid records truncated
+	 * by {@link #open(Set, ElementCodec, Path, CheckpointPolicy)}
+	 */
+	public long discardedBytes()
+	{
+		return discardedBytes;
+	}
+
+	/**
+	 * Time spent loading the snapshot and replaying the log
+	 * @return the duration of
+	 * {@link #open(Set, ElementCodec, Path, CheckpointPolicy)}
+	 */
+	public Duration recoveryTime()
+	{
+		return recoveryTime;
+	}
+
+	// -------------------------------------------------------------------------
+	// Logged modifications (with lock held)
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Adds an element to the wrapped set and logs it if it has been added
+	 * @param elt the element to add
+	 * @param payload the payload of elt provided by {@link #payload(Object)}
+	 * @return true if the element has been added
+	 * @throws ClassCastException if payload is null since elt is not an
+	 * instance of the class of elements of the codec
+	 */
+	private boolean addLogged(E elt, byte[] payload) throws ClassCastException
+	{
+		if (payload == null) throw new ClassCastException();
+		if (!set.add(elt))
+		{
+			return false;
+		}
+		append(AddRecord, payload);
+		return true;
+	}
+
+	/**
+	 * Removes an element from the wrapped set and logs it if it has been
+	 * removed
+	 * @param o the element to remove
+	 * @param payload the payload of o provided by {@link #payload(Object)}
+	 * @return true if the element has been removed, false if it was not part
+	 * of this set (or if payload is null)
+	 */
+	private boolean removeLogged(Object o, byte[] payload)
+	{
+		if (payload == null || !set.remove(o))
+		{
+			return false;
+		}
+		append(RemoveRecord, payload);
+		return true;
+	}
+
+	// -------------------------------------------------------------------------
+	// Collection<E> overrides
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Adds an element to this set and waits until the addition is durable
+	 * @param e the element to add
+	 * @return true if the element has been added, false otherwise
+	 * @throws NullPointerException if the element to add is null
+	 * @throws IllegalStateException if this set is closed
+	 * @throws UncheckedIOException if writing to the log failed
+	 */
+	@Override
+	public boolean add(E e) throws NullPointerException
+	{
+		byte[] payload = payload(e);
+		boolean modified;
+		long records;
+		synchronized (lock)
+		{
+			checkWritable();
+			modified = addLogged(e, payload);
+			records = appended;
+		}
+		awaitDurable(records);
+		return modified;
+	}
+
+	/**
+	 * Adds all elements of a collection to this set and waits until all
+	 * additions are durable
+	 * @param c the collection of elements to add
+	 * @return true if at least one element has been added
+	 * @throws NullPointerException if c or one of its elements is null, in
+	 * which case this set is left unmodified
+	 * @throws ClassCastException if one element of c is not an instance of
+	 * the class of elements of the codec, in which case this set is left
+	 * unmodified
+	 * @throws IllegalStateException if this set is closed
+	 * @throws UncheckedIOException if writing to the log failed
+	 * @implNote additions are logged with a single sync. All elements are
+	 * encoded before modifying the set so that it is never partially
+	 * modified.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean addAll(Collection<? extends E> c) throws NullPointerException
+	{
+		if (c == null) throw new NullPointerException();
+		Object[] elements = c.toArray();
+		byte[][] payloads = payloads(elements, true);
+		boolean modified = false;
+		long records;
+		synchronized (lock)
+		{
+			checkWritable();
+			for (int i = 0; i < elements.length; i++)
+			{
+				modified |= addLogged((E) elements[i], payloads[i]);
+			}
+			records = appended;
+		}
+		awaitDurable(records);
+		return modified;
+	}
+
+	/**
+	 * Clears this set and waits until clearing is durable
+	 * @throws IllegalStateException if this set is closed
+	 * @throws UncheckedIOException if writing to the log failed
+	 */
+	@Override
+	public void clear()
+	{
+		long records;
+		synchronized (lock)
+		{
+			checkWritable();
+			if (!set.isEmpty())
+			{
+				set.clear();
+				append(ClearRecord, new byte[0]);
+			}
+			records = appended;
+		}
+		awaitDurable(records);
+	}
+
+	/**
+	 * Search for an element in the set.
+	 * @param o the element to search
+	 * @return true if the element is part of the wrapped set
+	 */
+	@Override
+	public boolean contains(Object o)
+	{
+		synchronized (lock)
+		{
+			return set.contains(o);
+		}
+	}
+
+	/**
+	 * Iterator over a copy of the elements of this set, so that iteration is
+	 * not affected by concurrent modifications
+	 * @return a new iterator whose {@link Iterator#remove()} removes the last
+	 * element returned from this set
+	 */
+	@Override
+	public Iterator<E> iterator()
+	{
+		Object[] elements = toArray();
+		return new Iterator<E>()
+		{
+			private int index = 0;
+
+			private boolean removable = false;
+
+			@Override
+			public boolean hasNext()
+			{
+				return index < elements.length;
+			}
+
+			@SuppressWarnings("unchecked")
+			@Override
+			public E next() throws NoSuchElementException
+			{
+				if (index >= elements.length) throw new NoSuchElementException();
+				removable = true;
+				return (E) elements[index++];
+			}
+
+			@Override
+			public void remove() throws IllegalStateException
+			{
+				if (!removable) throw new IllegalStateException();
+				removable = false;
+				DurableSet.this.remove(elements[index - 1]);
+			}
+		};
+	}
+
+	/**
+	 * Removes an element from this set and waits until the removal is durable
+	 * @param o the element to remove
+	 * @return true if the element has been removed, false otherwise
+	 * @throws NullPointerException if the element to remove is null
+	 * @throws IllegalStateException if this set is closed
+	 * @throws UncheckedIOException if writing to the log failed
+	 */
+	@Override
+	public boolean remove(Object o) throws NullPointerException
+	{
+		byte[] payload = payload(o);
+		boolean modified;
+		long records;
+		synchronized (lock)
+		{
+			checkWritable();
+			modified = removeLogged(o, payload);
+			records = appended;
+		}
+		awaitDurable(records);
+		return modified;
+	}
+
+	/**
+	 * Removes all elements of a collection from this set and waits until all
+	 * removals are durable
+	 * @param c the collection of elements to remove
+	 * @return true if at least one element has been removed
+	 * @throws NullPointerException if c is null
+	 * @throws ClassCastException if the type of one or more elements of c is
+	 * incompatible with this set, in which case this set is left unmodified
+	 * @throws IllegalStateException if this set is closed
+	 * @throws UncheckedIOException if writing to the log failed
+	 * @implNote removals are logged with a single sync
+	 */
+	@Override
+	public boolean removeAll(Collection<?> c) throws NullPointerException, ClassCastException
+	{
+		if (c == null) throw new NullPointerException();
+		checkElementsType(c);
+		Object[] elements = c.toArray();
+		byte[][] payloads = payloads(elements, false);
+		boolean modified = false;
+		long records;
+		synchronized (lock)
+		{
+			checkWritable();
+			for (int i = 0; i < elements.length; i++)
+			{
+				modified |= removeLogged(elements[i], payloads[i]);
+			}
+			records = appended;
+		}
+		awaitDurable(records);
+		return modified;
+	}
+
+	/**
+	 * Retains in this set only the elements of a collection and waits until
+	 * all removals are durable
+	 * @param c the collection of elements to retain
+	 * @return true if at least one element has been removed
+	 * @throws NullPointerException if c is null
+	 * @throws IllegalStateException if this set is closed
+	 * @throws UncheckedIOException if writing to the log failed
+	 * @implNote removals are logged with a single sync
+	 */
+	@Override
+	public boolean retainAll(Collection<?> c) throws NullPointerException
+	{
+		if (c == null) throw new NullPointerException();
+		HashSet<Object> retained = new HashSet<Object>(c);
+		boolean modified = false;
+		long records;
+		synchronized (lock)
+		{
+			checkWritable();
+			List<Object> removed = new ArrayList<Object>();
+			for (Object elt : set.toArray())
+			{
+				if (!retained.contains(elt))
+				{
+					removed.add(elt);
+				}
+			}
+			Object[] elements = removed.toArray();
+			byte[][] payloads = payloads(elements, false);
+			for (int i = 0; i < elements.length; i++)
+			{
+				modified |= removeLogged(elements[i], payloads[i]);
+			}
+			records = appended;
+		}
+		awaitDurable(records);
+		return modified;
+	}
+
+	/**
+	 * Number of elements in the set
+	 * @return the number of elements of the wrapped set
+	 */
+	@Override
+	public int size()
+	{
+		synchronized (lock)
+		{
+			return set.size();
+		}
+	}
+
+	/**
+	 * Conversion to array of objects
+	 * @return a new Object[] array containing all the elements of this set
+	 */
+	@Override
+	public Object[] toArray()
+	{
+		synchronized (lock)
+		{
+			return set.toArray();
+		}
+	}
+
+	/**
+	 * Conversion to array of elements of type T
+	 * @return an array of T containing all elements of this set
+	 * @throws NullPointerException if the specified array is null
+	 */
+	@Override
+	public <T> T[] toArray(T[] a) throws NullPointerException
+	{
+		synchronized (lock)
+		{
+			return set.toArray(a);
+		}
+	}
+
+	// -------------------------------------------------------------------------
+	// Object overrides
+	// -------------------------------------------------------------------------
+
+	/**
+	 * A copy of a durable set is a copy of its wrapped set
+	 * @return a new in-memory (and non durable) copy of the wrapped set
+	 */
+	@Override
+	public Object clone()
+	{
+		synchronized (lock)
+		{
+			return set.clone();
+		}
+	}
+
+	/**
+	 * Typed copy of the wrapped set used to compute operations with other
+	 * sets without holding {@link #lock}
+	 * @return a new in-memory copy of the wrapped set
+	 */
+	@SuppressWarnings("unchecked")
+	private Set<E> copy()
+	{
+		return (Set<E>) clone();
+	}
+
+	/**
+	 * Hash code of this set
+	 * @return the hash code of the wrapped set
+	 */
+	@Override
+	public int hashCode()
+	{
+		synchronized (lock)
+		{
+			return set.hashCode();
+		}
+	}
+
+	// -------------------------------------------------------------------------
+	// Set<E> overrides
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Union of this set with another set: this ⋃ other
+	 * @param other the set to create union with
+	 * @return a new in-memory set containing the union of elements of this
+	 * set and other set
+	 * @throws NullPointerException if the provided set is null
+	 */
+	@Override
+	public Set<E> union(Set<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		Set<E> copy = copy();
+		return copy.union(other == this ? copy : other);
+	}
+
+	/**
+	 * Intersection of this set with another set: this ⋂ other
+	 * @param other the set to create intersection with
+	 * @return a new in-memory set containing the intersection of elements of
+	 * this set and the other set
+	 * @throws NullPointerException if the provided set is null
+	 */
+	@Override
+	public Set<E> intersection(Set<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		Set<E> copy = copy();
+		return copy.intersection(other == this ? copy : other);
+	}
+
+	/**
+	 * Difference of this set with another set: this - other
+	 * @param other the set to create difference with
+	 * @return a new in-memory set containing the difference of elements of
+	 * this set and the other set
+	 * @throws NullPointerException if the provided set is null
+	 */
+	@Override
+	public Set<E> difference(Set<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		Set<E> copy = copy();
+		return copy.difference(other == this ? copy : other);
+	}
+
+	/**
+	 * In place difference of this set with another set: this = this - other
+	 * @param other the set to create difference with
+	 * @return true if this set has been modified
+	 * @throws NullPointerException if the provided set is null
+	 * @implNote removals are logged with a single sync
+	 */
+	@Override
+	public boolean differenceWith(Set<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		if (other == this)
+		{
+			boolean modified = !isEmpty();
+			clear();
+			return modified;
+		}
+		return removeAll(other);
+	}
+
+	/**
+	 * In place symmetric difference of this set with another set:
+	 * this = this Δ other
+	 * @param other the other set to compute symmetric difference with
+	 * @return true if this set has been modified
+	 * @throws NullPointerException if the provided set is null
+	 * @implNote modifications are logged with a single sync
+	 */
+	@Override
+	public boolean symmetricDifferenceWith(Set<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		if (other == this)
+		{
+			boolean modified = !isEmpty();
+			clear();
+			return modified;
+		}
+		Object[] elements = other.toArray();
+		byte[][] payloads = payloads(elements, true);
+		long records;
+		synchronized (lock)
+		{
+			checkWritable();
+			for (int i = 0; i < elements.length; i++)
+			{
+				@SuppressWarnings("unchecked")
+				E e = (E) elements[i];
+				if (!removeLogged(e, payloads[i]))
+				{
+					addLogged(e, payloads[i]);
+				}
+			}
+			records = appended;
+		}
+		awaitDurable(records);
+		return elements.length > 0;
+	}
+
+	/**
+	 * Capabilities of the wrapped set
+	 * @param capability the capability to check
+	 * @return true if the wrapped set has this capability
+	 */
+	@Override
+	public boolean hasCapability(SetCapability capability)
+	{
+		return set.hasCapability(capability);
+	}
+
+	// -------------------------------------------------------------------------
+	// Replay
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Input stream counting the bytes read from another stream, used to
+	 * locate the end of the last valid record of a log
+	 */
+	private static class CountingInput extends InputStream
+	{
+		/**
+		 * The source stream
+		 */
+		private final InputStream in;
+
+		/**
+		 * Number of bytes read so far
+		 */
+		private long count = 0;
+
+		/**
+		 * Valued constructor
+		 * @param in the source stream
+		 */
+		public CountingInput(InputStream in)
+		{
+			this.in = in;
+		}
+
+		@Override
+		public int read() throws IOException
+		{
+			int b = in.read();
+			if (b >= 0)
+			{
+				count++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException
+		{
+			int n = in.read(b, off, len);
+			if (n > 0)
+			{
+				count += n;
+			}
+			return n;
+		}
+
+		@Override
+		public int available() throws IOException
+		{
+			return in.available();
+		}
+	}
+}
@@ -0,0 +1,216 @@
+package sets;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Binary encoding of the elements of a {@link Set} used by
+ * {@link SetSerializer}. Custom element types can be serialized by
+ * implementing this interface, and codecs for common element types are
+ * provided by {@link #Integers}, {@link #Longs}, {@link #Strings},
+ * {@link #UUIDs} and {@link #ByteArrays}.
+ * @author David Roussel and Aiglon Doré
+ * @param <E> the type of elements encoded by this codec
+ */
+public interface ElementCodec<E>
+{
+	/**
+	 * Name of this codec which is written in serialized sets so that they
+	 * can't be read with another codec
+	 * @return the name of this codec
+	 */
+	public abstract String name();
+
+	/**
+	 * The class of elements encoded by this codec
+	 * @return the class of elements encoded by this codec
+	 */
+	public abstract Class<E> elementsClass();
+
+	/**
+	 * Writes an element
+	 * @param element the non null element to write
+	 * @param out the destination of the element
+	 * @throws IOException if an I/O error occurs
+	 */
+	public abstract void write(E element, DataOutput out) throws IOException;
+
+	/**
+	 * Reads an element written by {@link #write(Object, DataOutput)}
+	 * @param in the source of the element
+	 * @return the element read
+	 * @throws IOException if an I/O error occurs or if the element is
+	 * malformed
+	 */
+	public abstract E read(DataInput in) throws IOException;
+
+	// -------------------------------------------------------------------------
+	// Predefined codecs
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Codec of {@link Integer} elements as 4 bytes
+	 */
+	public static final ElementCodec<Integer> Integers = new ElementCodec<Integer>()
+	{
+		@Override
+		public String name()
+		{
+			return "int";
+		}
+
+		@Override
+		public Class<Integer> elementsClass()
+		{
+			return Integer.class;
+		}
+
+		@Override
+		public void write(Integer element, DataOutput out) throws IOException
+		{
+			out.writeInt(element.intValue());
+		}
+
+		@Override
+		public Integer read(DataInput in) throws IOException
+		{
+			return Integer.valueOf(in.readInt());
+		}
+	};
+
+	/**
+	 * Codec of {@link Long} elements as 8 bytes
+	 */
+	public static final ElementCodec<Long> Longs = new ElementCodec<Long>()
+	{
+		@Override
+		public String name()
+		{
+			return "long";
+		}
+
+		@Override
+		public Class<Long> elementsClass()
+		{
+			return Long.class;
+		}
+
+		@Override
+		public void write(Long element, DataOutput out) throws IOException
+		{
+			out.writeLong(element.longValue());
+		}
+
+		@Override
+		public Long read(DataInput in) throws IOException
+		{
+			return Long.valueOf(in.readLong());
+		}
+	};
+
+	/**
+	 * Codec of {@link String} elements as their length in bytes followed by
+	 * their UTF-8 bytes (unlike {@link DataOutput#writeUTF(String)}, strings
+	 * are not limited to 65535 bytes)
+	 */
+	public static final ElementCodec<String> Strings = new ElementCodec<String>()
+	{
+		@Override
+		public String name()
+		{
+			return "utf8";
+		}
+
+		@Override
+		public Class<String> elementsClass()
+		{
+			return String.class;
+		}
+
+		@Override
+		public void write(String element, DataOutput out) throws IOException
+		{
+			ByteArrays.write(element.getBytes(StandardCharsets.UTF_8), out);
+		}
+
+		@Override
+		public String read(DataInput in) throws IOException
+		{
+			return new String(ByteArrays.read(in), StandardCharsets.UTF_8);
+		}
+	};
+
+	/**
+	 * Codec of {@link UUID} elements as 16 bytes
+	 */
+	public static final ElementCodec<UUID> UUIDs = new ElementCodec<UUID>()
+	{
+		@Override
+		public String name()
+		{
+			return "uuid";
+		}
+
+		@Override
+		public Class<UUID> elementsClass()
+		{
+			return UUID.class;
+		}
+
+		@Override
+		public void write(UUID element, DataOutput out) throws IOException
+		{
+			out.writeLong(element.getMostSignificantBits());
+			out.writeLong(element.getLeastSignificantBits());
+		}
+
+		@Override
+		public UUID read(DataInput in) throws IOException
+		{
+			long most = in.readLong();
+			return new UUID(most, in.readLong());
+		}
+	};
+
+	/**
+	 * Codec of byte[] elements as their length followed by their bytes.
+	 * @implNote arrays are compared by identity, so sets of byte[] read from
+	 * a stream are never deduplicated by content: they should only be
+	 * written from sets of distinct arrays.
+	 */
+	public static final ElementCodec<byte[]> ByteArrays = new ElementCodec<byte[]>()
+	{
+		@Override
+		public String name()
+		{
+			return "bytes";
+		}
+
+		@Override
+		public Class<byte[]> elementsClass()
+		{
+			return byte[].class;
+		}
+
+		@Override
+		public void write(byte[] element, DataOutput out) throws IOException
+		{
+			out.writeInt(element.length);
+			out.write(element);
+		}
+
+		@Override
+		public byte[] read(DataInput in) throws IOException
+		{
+			int length = in.readInt();
+			if (length < 0) throw new StreamCorruptedException("negative length " + length);
+			byte[] element = new byte[length];
+			in.readFully(element);
+			return element;
+		}
+	};
+}
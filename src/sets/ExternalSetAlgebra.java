@@ -0,0 +1,1003 @@
+package sets;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * External-memory set algebra for sets which don't fit in memory.
+ * - {@link #sort(Iterator)} reads elements by chunks of at most
+ * {@link #runCapacity()} elements, sorts and deduplicates each chunk and
+ * spills it to a temporary file (a run), then merges the runs with k-way
+ * merges of at most {@link #fanIn()} runs into a single {@link SortedRun}
+ * - {@link #stream(Operation, SortedRun, SortedRun)} computes the union,
+ * intersection, difference or symmetric difference of two sorted runs as a
+ * lazy stream by merging them, and {@link #apply(Operation, SortedRun,
+ * SortedRun)} writes this stream into a new sorted run which can be used as
+ * an operand of other operations.
+ * Heap usage is bounded by {@link #runCapacity()} elements while sorting
+ * and by the read buffers of at most {@link #fanIn()} runs while merging.
+ * All temporary files are created in the directory provided at construction
+ * and deleted when this engine is closed.
+ * Engines are not thread safe.
+ * @implNote The comparator should be consistent with equals since elements
+ * comparing to 0 are considered as duplicates.
+ * @author David Roussel and Aiglon Doré
+ * @param <E> the type of elements in sets
+ */
+public class ExternalSetAlgebra<E> implements Closeable
+{
+	/**
+	 * Default maximum number of elements sorted in memory
+	 */
+	public static final int DefaultRunCapacity = 1 << 20;
+
+	/**
+	 * Default maximum number of runs merged at once
+	 */
+	public static final int DefaultFanIn = 64;
+
+	/**
+	 * Size of the buffers used to read and write runs
+	 */
+	private static final int BufferSize = 1 << 16;
+
+	/**
+	 * Set operations computed by merging sorted runs
+	 */
+	public enum Operation
+	{
+		/**
+		 * first ⋃ second
+		 */
+		UNION,
+
+		/**
+		 * first ⋂ second
+		 */
+		INTERSECTION,
+
+		/**
+		 * first - second
+		 */
+		DIFFERENCE,
+
+		/**
+		 * first Δ second
+		 */
+		SYMMETRIC_DIFFERENCE;
+
+		/**
+		 * Whether elements only part of the first operand belong to the
+		 * result
+		 * @return true if elements only part of the first operand belong to
+		 * the result
+		 */
+		private boolean keepsFirstOnly()
+		{
+			return this != INTERSECTION;
+		}
+
+		/**
+		 * Whether elements only part of the second operand belong to the
+		 * result
+		 * @return true if elements only part of the second operand belong to
+		 * the result
+		 */
+		private boolean keepsSecondOnly()
+		{
+			return this == UNION || this == SYMMETRIC_DIFFERENCE;
+		}
+
+		/**
+		 * Whether elements part of both operands belong to the result
+		 * @return true if elements part of both operands belong to the result
+		 */
+		private boolean keepsBoth()
+		{
+			return this == UNION || this == INTERSECTION;
+		}
+	}
+
+	/**
+	 * The codec of elements in runs
+	 */
+	private final ElementCodec<E> codec;
+
+	/**
+	 * The order of elements in runs
+	 */
+	private final Comparator<? super E> comparator;
+
+	/**
+	 * The directory of temporary files
+	 */
+	private final Path directory;
+
+	/**
+	 * Maximum number of elements sorted in memory
+	 */
+	private final int runCapacity;
+
+	/**
+	 * Maximum number of runs merged at once
+	 */
+	private final int fanIn;
+
+	/**
+	 * Runs created by this engine and not deleted yet
+	 */
+	private final List<SortedRun<E>> runs = new ArrayList<>();
+
+	/**
+	 * Number of bytes written to temporary files
+	 */
+	private long spilledBytes = 0;
+
+	/**
+	 * Number of runs spilled by sorting
+	 */
+	private int spilledRuns = 0;
+
+	/**
+	 * Number of merge passes performed by sorting
+	 */
+	private int mergePasses = 0;
+
+	/**
+	 * Valued constructor with {@link #DefaultRunCapacity} and
+	 * {@link #DefaultFanIn}
+	 * @param codec the codec of elements in runs
+	 * @param comparator the order of elements in runs
+	 * @param directory the directory of temporary files
+	 * @throws NullPointerException if any argument is null
+	 */
+	public ExternalSetAlgebra(ElementCodec<E> codec, Comparator<? super E> comparator, Path directory)
+		throws NullPointerException
+	{
+		this(codec, comparator, directory, DefaultRunCapacity, DefaultFanIn);
+	}
+
+	/**
+	 * Valued constructor
+	 * @param codec the codec of elements in runs
+	 * @param comparator the order of elements in runs
+	 * @param directory the directory of temporary files
+	 * @param runCapacity the maximum number of elements sorted in memory
+	 * @param fanIn the maximum number of runs merged at once
+	 * @throws NullPointerException if codec, comparator or directory is null
+	 * @throws IllegalArgumentException if runCapacity is less than 1 or fanIn
+	 * is less than 2
+	 */
+	public ExternalSetAlgebra(ElementCodec<E> codec,
+	                          Comparator<? super E> comparator,
+	                          Path directory,
+	                          int runCapacity,
+	                          int fanIn)
+		throws NullPointerException, IllegalArgumentException
+	{
+		if (codec == null || comparator == null || directory == null) throw new NullPointerException();
+		if (runCapacity < 1 || fanIn < 2) throw new IllegalArgumentException();
+		this.codec = codec;
+		this.comparator = comparator;
+		this.directory = directory;
+		this.runCapacity = runCapacity;
+		this.fanIn = fanIn;
+	}
+
+	/**
+	 * Maximum number of elements sorted in memory
+	 * @return the maximum number of elements of a run spilled by sorting
+	 */
+	public int runCapacity()
+	{
+		return runCapacity;
+	}
+
+	/**
+	 * Maximum number of runs merged at once
+	 * @return the maximum number of runs read at the same time
+	 */
+	public int fanIn()
+	{
+		return fanIn;
+	}
+
+	/**
+	 * Number of bytes written to temporary files
+	 * @return the number of bytes of all runs written by this engine
+	 * (including intermediate and deleted runs)
+	 */
+	public long spilledBytes()
+	{
+		return spilledBytes;
+	}
+
+	/**
+	 * Number of runs spilled by sorting
+	 * @return the number of runs sorted in memory and spilled by
+	 * {@link #sort(Iterator)}
+	 */
+	public int spilledRuns()
+	{
+		return spilledRuns;
+	}
+
+	/**
+	 * Number of merge passes performed by sorting
+	 * @return the number of times all remaining runs have been merged by
+	 * groups of at most {@link #fanIn()} runs by {@link #sort(Iterator)}
+	 */
+	public int mergePasses()
+	{
+		return mergePasses;
+	}
+
+	// -------------------------------------------------------------------------
+	// Sorting
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Sorts and deduplicates elements into a run
+	 * @param elements the elements to sort
+	 * @return a new run containing the distinct elements in ascending order
+	 * @throws IOException if a run can't be written or read
+	 * @throws NullPointerException if elements or one of the elements is null
+	 * @see #sort(Iterator)
+	 */
+	public SortedRun<E> sort(Iterable<? extends E> elements) throws IOException, NullPointerException
+	{
+		if (elements == null) throw new NullPointerException();
+		return sort(elements.iterator());
+	}
+
+	/**
+	 * Sorts and deduplicates elements into a run:
+	 * - elements are read by chunks of at most {@link #runCapacity()}
+	 * elements which are sorted, deduplicated and spilled into runs
+	 * - as long as there are more than {@link #fanIn()} runs, runs are
+	 * merged by groups of {@link #fanIn()} runs (a merge pass)
+	 * - the remaining runs are merged into the resulting run.
+	 * @param elements the elements to sort
+	 * @return a new run containing the distinct elements in ascending order
+	 * @throws IOException if a run can't be written or read
+	 * @throws NullPointerException if elements or one of the elements is null
+	 */
+	public SortedRun<E> sort(Iterator<? extends E> elements) throws IOException, NullPointerException
+	{
+		if (elements == null) throw new NullPointerException();
+		List<SortedRun<E>> sorted = new ArrayList<>();
+		Object[] chunk = new Object[Math.min(runCapacity, 1024)];
+		do
+		{
+			int count = 0;
+			while (count < runCapacity && elements.hasNext())
+			{
+				E elt = elements.next();
+				if (elt == null) throw new NullPointerException();
+				if (count == chunk.length)
+				{
+					chunk = Arrays.copyOf(chunk, (int) Math.min(runCapacity, 2L * chunk.length));
+				}
+				chunk[count++] = elt;
+			}
+			sorted.add(write(sortedChunk(chunk, count)));
+			spilledRuns++;
+			Arrays.fill(chunk, 0, count, null);
+		}
+		while (elements.hasNext());
+
+		while (sorted.size() > 1)
+		{
+			List<SortedRun<E>> merged = new ArrayList<>();
+			for (int from = 0; from < sorted.size(); from += fanIn)
+			{
+				List<SortedRun<E>> group = sorted.subList(from, Math.min(sorted.size(), from + fanIn));
+				if (group.size() == 1)
+				{
+					merged.add(group.get(0));
+					continue;
+				}
+				try (MergeIterator<E> merge = new MergeIterator<E>(group, comparator))
+				{
+					merged.add(write(merge));
+				}
+				for (SortedRun<E> run : group)
+				{
+					run.delete();
+				}
+			}
+			sorted = merged;
+			mergePasses++;
+		}
+		return sorted.get(0);
+	}
+
+	/**
+	 * Sorts and deduplicates a chunk of elements
+	 * @param chunk the array containing the elements
+	 * @param count the number of elements at the beginning of chunk
+	 * @return an iterator over the distinct elements of the chunk in
+	 * ascending order
+	 */
+	@SuppressWarnings("unchecked")
+	private Iterator<E> sortedChunk(Object[] chunk, int count)
+	{
+		Arrays.sort((E[]) chunk, 0, count, comparator);
+		int distinct = 0;
+		for (int i = 0; i < count; i++)
+		{
+			if (distinct == 0 || comparator.compare((E) chunk[distinct - 1], (E) chunk[i]) != 0)
+			{
+				chunk[distinct++] = chunk[i];
+			}
+		}
+		return (Iterator<E>) Arrays.asList(chunk).subList(0, distinct).iterator();
+	}
+
+	// -------------------------------------------------------------------------
+	// Set operations
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Lazy result of a set operation between two runs, computed by merging
+	 * them. The stream should be closed to release the readers of the runs.
+	 * @param operation the operation to compute
+	 * @param first the first operand
+	 * @param second the second operand
+	 * @return a new stream of the distinct elements of the result in
+	 * ascending order
+	 * @throws IOException if a run can't be opened
+	 * @throws NullPointerException if any argument is null
+	 */
+	public Stream<E> stream(Operation operation, SortedRun<E> first, SortedRun<E> second)
+		throws IOException, NullPointerException
+	{
+		OperationIterator<E> iterator = new OperationIterator<E>(operation, first, second, comparator);
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+		                                                                Spliterator.ORDERED |
+		                                                                    Spliterator.DISTINCT |
+		                                                                    Spliterator.NONNULL),
+		                            false)
+		    .onClose(iterator::close);
+	}
+
+	/**
+	 * Result of a set operation between two runs written into a new run
+	 * @param operation the operation to compute
+	 * @param first the first operand
+	 * @param second the second operand
+	 * @return a new run containing the result of the operation
+	 * @throws IOException if a run can't be written or read
+	 * @throws NullPointerException if any argument is null
+	 * @see #stream(Operation, SortedRun, SortedRun)
+	 */
+	public SortedRun<E> apply(Operation operation, SortedRun<E> first, SortedRun<E> second)
+		throws IOException, NullPointerException
+	{
+		try (OperationIterator<E> iterator = new OperationIterator<E>(operation, first, second, comparator))
+		{
+			return write(iterator);
+		}
+	}
+
+	/**
+	 * Union of two runs: first ⋃ second
+	 * @param first the first run
+	 * @param second the second run
+	 * @return a new run containing all elements of first and second
+	 * @throws IOException if a run can't be written or read
+	 * @throws NullPointerException if any argument is null
+	 */
+	public SortedRun<E> union(SortedRun<E> first, SortedRun<E> second) throws IOException, NullPointerException
+	{
+		return apply(Operation.UNION, first, second);
+	}
+
+	/**
+	 * Intersection of two runs: first ⋂ second
+	 * @param first the first run
+	 * @param second the second run
+	 * @return a new run containing all common elements of first and second
+	 * @throws IOException if a run can't be written or read
+	 * @throws NullPointerException if any argument is null
+	 */
+	public SortedRun<E> intersection(SortedRun<E> first, SortedRun<E> second)
+		throws IOException, NullPointerException
+	{
+		return apply(Operation.INTERSECTION, first, second);
+	}
+
+	/**
+	 * Difference of two runs: first - second
+	 * @param first the first run
+	 * @param second the second run
+	 * @return a new run containing the elements of first which are not part
+	 * of second
+	 * @throws IOException if a run can't be written or read
+	 * @throws NullPointerException if any argument is null
+	 */
+	public SortedRun<E> difference(SortedRun<E> first, SortedRun<E> second)
+		throws IOException, NullPointerException
+	{
+		return apply(Operation.DIFFERENCE, first, second);
+	}
+
+	/**
+	 * Symmetric difference of two runs: first Δ second
+	 * @param first the first run
+	 * @param second the second run
+	 * @return a new run containing the elements which are part of only one
+	 * of first and second
+	 * @throws IOException if a run can't be written or read
+	 * @throws NullPointerException if any argument is null
+	 */
+	public SortedRun<E> symmetricDifference(SortedRun<E> first, SortedRun<E> second)
+		throws IOException, NullPointerException
+	{
+		return apply(Operation.SYMMETRIC_DIFFERENCE, first, second);
+	}
+
+	// -------------------------------------------------------------------------
+	// Runs
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Writes elements into a new run
+	 * @param elements the distinct elements in ascending order
+	 * @return a new run containing elements
+	 * @throws IOException if the run can't be written or if reading elements
+	 * failed
+	 */
+	private SortedRun<E> write(Iterator<E> elements) throws IOException
+	{
+		Path path = Files.createTempFile(directory, "run", ".tmp");
+		SortedRun<E> run = new SortedRun<E>(this, path);
+		runs.add(run);
+		try (DataOutputStream out =
+		    new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), BufferSize)))
+		{
+			while (elements.hasNext())
+			{
+				codec.write(elements.next(), out);
+				run.size++;
+			}
+		}
+		catch (UncheckedIOException e)
+		{
+			throw e.getCause();
+		}
+		run.bytes = Files.size(path);
+		spilledBytes += run.bytes;
+		return run;
+	}
+
+	/**
+	 * Deletes all the runs created by this engine which haven't been deleted
+	 * yet
+	 * @throws IOException if a run can't be deleted
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		for (SortedRun<E> run : new ArrayList<>(runs))
+		{
+			run.delete();
+		}
+	}
+
+	/**
+	 * Disk-backed set of distinct elements sorted in ascending order,
+	 * created by an {@link ExternalSetAlgebra} engine and deleted when the
+	 * engine is closed.
+	 * @param <E> the type of elements in this run
+	 */
+	public static final class SortedRun<E> implements Iterable<E>
+	{
+		/**
+		 * The engine which created this run
+		 */
+		private final ExternalSetAlgebra<E> engine;
+
+		/**
+		 * The file of this run
+		 */
+		private final Path path;
+
+		/**
+		 * Number of elements in this run
+		 */
+		private long size = 0;
+
+		/**
+		 * Size of the file of this run
+		 */
+		private long bytes = 0;
+
+		/**
+		 * Valued constructor
+		 * @param engine the engine creating this run
+		 * @param path the file of this run
+		 */
+		private SortedRun(ExternalSetAlgebra<E> engine, Path path)
+		{
+			this.engine = engine;
+			this.path = path;
+		}
+
+		/**
+		 * Number of elements in this run
+		 * @return the number of elements in this run
+		 */
+		public long size()
+		{
+			return size;
+		}
+
+		/**
+		 * Size of the file of this run
+		 * @return the number of bytes of the file of this run
+		 */
+		public long bytes()
+		{
+			return bytes;
+		}
+
+		/**
+		 * The file of this run
+		 * @return the path of the file containing the encoded elements of
+		 * this run
+		 */
+		public Path path()
+		{
+			return path;
+		}
+
+		/**
+		 * Iterator over the elements of this run in ascending order.
+		 * The file is closed once the last element has been read, so
+		 * iterations should be completed, otherwise {@link #stream()} should
+		 * be used.
+		 * @return a new iterator over the elements of this run
+		 * @throws UncheckedIOException if the run can't be read
+		 */
+		@Override
+		public Iterator<E> iterator()
+		{
+			try
+			{
+				return new RunReader<E>(this);
+			}
+			catch (IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		/**
+		 * Stream of the elements of this run in ascending order, which should
+		 * be closed to close the file of this run
+		 * @return a new stream of the elements of this run
+		 * @throws IOException if the run can't be opened
+		 */
+		public Stream<E> stream() throws IOException
+		{
+			RunReader<E> reader = new RunReader<E>(this);
+			return StreamSupport.stream(Spliterators.spliterator(reader,
+			                                                     size,
+			                                                     Spliterator.ORDERED |
+			                                                         Spliterator.DISTINCT |
+			                                                         Spliterator.NONNULL),
+			                            false)
+			    .onClose(reader::close);
+		}
+
+		/**
+		 * Adds all the elements of this run to a set
+		 * @param set the set to fill
+		 * @return true if set has been modified
+		 * @throws NullPointerException if set is null
+		 * @throws UncheckedIOException if the run can't be read
+		 */
+		public boolean addTo(Set<E> set) throws NullPointerException
+		{
+			if (set == null) throw new NullPointerException();
+			boolean modified = false;
+			for (E elt : this)
+			{
+				modified |= set.add(elt);
+			}
+			return modified;
+		}
+
+		/**
+		 * Deletes the file of this run, which can't be read anymore
+		 * @throws IOException if the file can't be deleted
+		 */
+		public void delete() throws IOException
+		{
+			Files.deleteIfExists(path);
+			engine.runs.remove(this);
+		}
+
+		@Override
+		public String toString()
+		{
+			return "SortedRun[" + path.getFileName() + ", " + size + " elements, " + bytes + " bytes]";
+		}
+	}
+
+	// -------------------------------------------------------------------------
+	// Iterators
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Sequential reader of the elements of a run, closed once all elements
+	 * have been read
+	 * @param <F> the type of elements
+	 */
+	private static class RunReader<F> implements Iterator<F>, Closeable
+	{
+		/**
+		 * The codec of elements
+		 */
+		private final ElementCodec<F> codec;
+
+		/**
+		 * The stream of encoded elements
+		 */
+		private final DataInputStream in;
+
+		/**
+		 * Number of elements remaining in the run
+		 */
+		private long remaining;
+
+		/**
+		 * Valued constructor
+		 * @param run the run to read
+		 * @throws IOException if the run can't be opened
+		 */
+		public RunReader(SortedRun<F> run) throws IOException
+		{
+			codec = run.engine.codec;
+			in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run.path), BufferSize));
+			remaining = run.size;
+			if (remaining == 0)
+			{
+				close();
+			}
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			return remaining > 0;
+		}
+
+		@Override
+		public F next() throws NoSuchElementException, UncheckedIOException
+		{
+			if (remaining <= 0) throw new NoSuchElementException();
+			try
+			{
+				F elt = codec.read(in);
+				if (--remaining == 0)
+				{
+					close();
+				}
+				return elt;
+			}
+			catch (IOException e)
+			{
+				close();
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		@Override
+		public void close()
+		{
+			remaining = 0;
+			try
+			{
+				in.close();
+			}
+			catch (IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	/**
+	 * K-way merge of runs into their distinct elements in ascending order
+	 * @param <F> the type of elements
+	 */
+	private static class MergeIterator<F> implements Iterator<F>, Closeable
+	{
+		/**
+		 * The readers of the merged runs
+		 */
+		private final List<RunReader<F>> readers = new ArrayList<>();
+
+		/**
+		 * The next element of each reader which still has elements, ordered
+		 * by element
+		 */
+		private final PriorityQueue<Head<F>> heads;
+
+		/**
+		 * The order of elements
+		 */
+		private final Comparator<? super F> comparator;
+
+		/**
+		 * Valued constructor
+		 * @param runs the runs to merge
+		 * @param comparator the order of elements in runs
+		 * @throws IOException if a run can't be opened
+		 */
+		public MergeIterator(List<SortedRun<F>> runs, Comparator<? super F> comparator) throws IOException
+		{
+			this.comparator = comparator;
+			heads = new PriorityQueue<Head<F>>(runs.size(),
+			                                   (h1, h2) -> comparator.compare(h1.element, h2.element));
+			try
+			{
+				for (SortedRun<F> run : runs)
+				{
+					RunReader<F> reader = new RunReader<F>(run);
+					readers.add(reader);
+					if (reader.hasNext())
+					{
+						heads.add(new Head<F>(reader.next(), reader));
+					}
+				}
+			}
+			catch (IOException | RuntimeException e)
+			{
+				close();
+				throw e;
+			}
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			return !heads.isEmpty();
+		}
+
+		@Override
+		public F next() throws NoSuchElementException
+		{
+			if (heads.isEmpty()) throw new NoSuchElementException();
+			F elt = heads.peek().element;
+			// skips the duplicates of elt in all runs
+			while (!heads.isEmpty() && comparator.compare(heads.peek().element, elt) == 0)
+			{
+				Head<F> head = heads.poll();
+				if (head.reader.hasNext())
+				{
+					head.element = head.reader.next();
+					heads.add(head);
+				}
+			}
+			return elt;
+		}
+
+		@Override
+		public void close()
+		{
+			heads.clear();
+			for (RunReader<F> reader : readers)
+			{
+				reader.close();
+			}
+		}
+
+		/**
+		 * Current element of a reader
+		 * @param <G> the type of elements
+		 */
+		private static class Head<G>
+		{
+			/**
+			 * The current element
+			 */
+			private G element;
+
+			/**
+			 * The reader providing the following elements
+			 */
+			private final RunReader<G> reader;
+
+			/**
+			 * Valued constructor
+			 * @param element the current element
+			 * @param reader the reader providing the following elements
+			 */
+			public Head(G element, RunReader<G> reader)
+			{
+				this.element = element;
+				this.reader = reader;
+			}
+		}
+	}
+
+	/**
+	 * Merge of two runs computing a set operation
+	 * @param <F> the type of elements
+	 */
+	private static class OperationIterator<F> implements Iterator<F>, Closeable
+	{
+		/**
+		 * The operation to compute
+		 */
+		private final Operation operation;
+
+		/**
+		 * The reader of the first operand
+		 */
+		private final RunReader<F> first;
+
+		/**
+		 * The reader of the second operand
+		 */
+		private final RunReader<F> second;
+
+		/**
+		 * The order of elements
+		 */
+		private final Comparator<? super F> comparator;
+
+		/**
+		 * The current element of the first operand or null
+		 */
+		private F firstHead;
+
+		/**
+		 * The current element of the second operand or null
+		 */
+		private F secondHead;
+
+		/**
+		 * The next element of the result or null
+		 */
+		private F next;
+
+		/**
+		 * Valued constructor
+		 * @param operation the operation to compute
+		 * @param first the first operand
+		 * @param second the second operand
+		 * @param comparator the order of elements in runs
+		 * @throws IOException if a run can't be opened
+		 * @throws NullPointerException if operation, first or second is null
+		 */
+		public OperationIterator(Operation operation,
+		                         SortedRun<F> first,
+		                         SortedRun<F> second,
+		                         Comparator<? super F> comparator)
+			throws IOException, NullPointerException
+		{
+			if (operation == null || first == null || second == null) throw new NullPointerException();
+			this.operation = operation;
+			this.comparator = comparator;
+			this.first = new RunReader<F>(first);
+			try
+			{
+				this.second = new RunReader<F>(second);
+			}
+			catch (IOException e)
+			{
+				this.first.close();
+				throw e;
+			}
+			firstHead = this.first.hasNext() ? this.first.next() : null;
+			secondHead = this.second.hasNext() ? this.second.next() : null;
+			advance();
+		}
+
+		/**
+		 * Searches the next element of the result
+		 */
+		private void advance()
+		{
+			next = null;
+			while (next == null && (firstHead != null || secondHead != null))
+			{
+				int comparison;
+				if (secondHead == null)
+				{
+					comparison = -1;
+				}
+				else if (firstHead == null)
+				{
+					comparison = 1;
+				}
+				else
+				{
+					comparison = comparator.compare(firstHead, secondHead);
+				}
+
+				if (comparison < 0)
+				{
+					if (!operation.keepsFirstOnly() && secondHead == null)
+					{
+						break;
+					}
+					if (operation.keepsFirstOnly())
+					{
+						next = firstHead;
+					}
+					firstHead = first.hasNext() ? first.next() : null;
+				}
+				else if (comparison > 0)
+				{
+					if (!operation.keepsSecondOnly() && firstHead == null)
+					{
+						break;
+					}
+					if (operation.keepsSecondOnly())
+					{
+						next = secondHead;
+					}
+					secondHead = second.hasNext() ? second.next() : null;
+				}
+				else
+				{
+					if (operation.keepsBoth())
+					{
+						next = firstHead;
+					}
+					firstHead = first.hasNext() ? first.next() : null;
+					secondHead = second.hasNext() ? second.next() : null;
+				}
+			}
+			if (next == null)
+			{
+				close();
+			}
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			return next != null;
+		}
+
+		@Override
+		public F next() throws NoSuchElementException
+		{
+			if (next == null) throw new NoSuchElementException();
+			F elt = next;
+			advance();
+			return elt;
+		}
+
+		@Override
+		public void close()
+		{
+			first.close();
+			second.close();
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package sets;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Durable file system operations used by the sets stored in files.
+ * Syncing the content of a file doesn't make its directory entry durable:
+ * after creating or renaming a file, its parent directory should also be
+ * synced, otherwise a crash may lose the new entry (or keep an older one)
+ * even though the content of the file itself was synced.
+ * @author David Roussel and Aiglon Doré
+ */
+final class FileSync
+{
+	/**
+	 * File whose directory syncs fail, used by tests to simulate a file
+	 * system failing to sync a directory, or null
+	 * @implNote set by tests through reflection since this class is not
+	 * public
+	 */
+	static volatile Path failingSync = null;
+
+	/**
+	 * No instances
+	 */
+	private FileSync()
+	{
+	}
+
+	/**
+	 * Syncs the directory containing a file so that the creation, renaming
+	 * or replacement of this file is durable
+	 * @param file the file whose directory entry should be durable
+	 * @throws IOException if the directory can't be opened or synced
+	 */
+	static void syncDirectory(Path file) throws IOException
+	{
+		Path directory = file.toAbsolutePath().getParent();
+		if (file.equals(failingSync))
+		{
+			throw new IOException("can't sync " + directory);
+		}
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ))
+		{
+			channel.force(true);
+		}
+	}
+
+	/**
+	 * Atomically replaces a file with a temporary file whose content has
+	 * already been synced and makes the replacement durable
+	 * @param temp the synced temporary file
+	 * @param target the file to replace
+	 * @throws IOException if the file can't be moved or if its directory
+	 * can't be synced
+	 */
+	static void replace(Path temp, Path target) throws IOException
+	{
+		Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		syncDirectory(target);
+	}
+}
@@ -0,0 +1,153 @@
+package sets;
+
+/**
+ * Capacity management policy of array based sets such as {@link ArraySet}.
+ * A growth policy decides:
+ * - the new capacity of the internal array when it needs to grow
+ * ({@link #grownCapacity(int, int)})
+ * - the capacity the internal array can be trimmed to after removals
+ * ({@link #shrunkCapacity(int, int)})
+ * Predefined policies are provided by {@link #fixed(int)},
+ * {@link #geometric(double)} and {@link #cappedGeometric(double, int)}, and
+ * custom policies can be provided as lambdas since
+ * {@link #grownCapacity(int, int)} is the only abstract method.
+ * @author David Roussel and Aiglon Doré
+ */
+@FunctionalInterface
+public interface GrowthPolicy
+{
+	/**
+	 * New capacity of an internal array which needs to grow
+	 * @param oldCapacity the current capacity of the internal array
+	 * @param minCapacity the minimum capacity required
+	 * @return the new capacity which shall be greater than both oldCapacity
+	 * and minCapacity - 1.
+	 */
+	public abstract int grownCapacity(int oldCapacity, int minCapacity);
+
+	/**
+	 * Capacity an internal array could be trimmed to after removals.
+	 * The gap between the capacity triggering a shrink and the resulting
+	 * capacity should leave enough room to avoid alternating grow / shrink
+	 * reallocations around the same size (hysteresis).
+	 * @param capacity the current capacity of the internal array
+	 * @param size the current number of elements in the internal array
+	 * @return the new capacity, or capacity if the internal array should not
+	 * be trimmed
+	 * @implSpec Default implementation never shrinks.
+	 */
+	public default int shrunkCapacity(int capacity, int size)
+	{
+		return capacity;
+	}
+
+	// -------------------------------------------------------------------------
+	// Predefined policies
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Fixed increment policy: capacity grows by a multiple of increment and
+	 * never shrinks.
+	 * @param increment the capacity increment
+	 * @return a new fixed increment policy
+	 * @throws IllegalArgumentException if increment is less than 1
+	 * @implNote Appending n elements one by one costs O(n²/increment) copies
+	 */
+	public static GrowthPolicy fixed(int increment) throws IllegalArgumentException
+	{
+		if (increment < 1) throw new IllegalArgumentException();
+		return new GrowthPolicy()
+		{
+			@Override
+			public int grownCapacity(int oldCapacity, int minCapacity)
+			{
+				int increments = Math.max(1, (minCapacity - oldCapacity + increment - 1) / increment);
+				return saturatedAdd(oldCapacity, increments * (long) increment);
+			}
+
+			@Override
+			public String toString()
+			{
+				return "fixed(" + increment + ")";
+			}
+		};
+	}
+
+	/**
+	 * Geometric policy: capacity is multiplied by factor when growing and
+	 * trimmed after removals when it exceeds size × (2 × factor - 1).
+	 * @param factor the growth factor
+	 * @return a new geometric policy
+	 * @throws IllegalArgumentException if factor is not greater than 1
+	 * @implNote Appending n elements one by one costs O(n) amortized copies
+	 */
+	public static GrowthPolicy geometric(double factor) throws IllegalArgumentException
+	{
+		return cappedGeometric(factor, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Capped geometric policy: capacity is multiplied by factor when growing
+	 * but never grows by more than maxIncrement at once, which bounds the
+	 * unused memory of very large sets.
+	 * @param factor the growth factor
+	 * @param maxIncrement the maximum capacity increment
+	 * @return a new capped geometric policy
+	 * @throws IllegalArgumentException if factor is not greater than 1 or
+	 * maxIncrement is less than 1
+	 */
+	public static GrowthPolicy cappedGeometric(double factor, int maxIncrement)
+		throws IllegalArgumentException
+	{
+		if (!(factor > 1.0) || maxIncrement < 1) throw new IllegalArgumentException();
+		return new GrowthPolicy()
+		{
+			/**
+			 * Capacity increment for a given capacity
+			 * @param capacity the capacity to grow
+			 * @return the increment to add to capacity (at least 1)
+			 */
+			private long increment(int capacity)
+			{
+				long increment = (long) Math.ceil(capacity * (factor - 1.0));
+				return Math.max(1L, Math.min(increment, maxIncrement));
+			}
+
+			@Override
+			public int grownCapacity(int oldCapacity, int minCapacity)
+			{
+				return Math.max(minCapacity, saturatedAdd(oldCapacity, increment(oldCapacity)));
+			}
+
+			@Override
+			public int shrunkCapacity(int capacity, int size)
+			{
+				long increment = increment(size);
+				if (capacity - size > 2 * increment)
+				{
+					return saturatedAdd(size, increment);
+				}
+				return capacity;
+			}
+
+			@Override
+			public String toString()
+			{
+				return maxIncrement == Integer.MAX_VALUE ? "geometric(" + factor + ")"
+				    : "cappedGeometric(" + factor + ", " + maxIncrement + ")";
+			}
+		};
+	}
+
+	/**
+	 * Adds a capacity increment without overflowing
+	 * @param capacity the capacity to increment
+	 * @param increment the increment
+	 * @return capacity + increment or {@link Integer#MAX_VALUE} - 8 (the
+	 * largest safe array size) if the sum is larger.
+	 */
+	private static int saturatedAdd(int capacity, long increment)
+	{
+		return (int) Math.min(capacity + increment, Integer.MAX_VALUE - 8);
+	}
+}
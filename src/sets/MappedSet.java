@@ -0,0 +1,685 @@
+package sets;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only {@link Set} backed by a memory-mapped file prebuilt by
+ * {@link #write(Collection, ElementCodec, Path)}.
+ * Opening a set maps its file without reading any element, and
+ * {@link #contains(Object)} is answered directly against the mapped bytes:
+ * the probed element is encoded with the {@link ElementCodec} of the set and
+ * searched in an open addressing hash table stored in the file, so that
+ * elements are never deserialized (nor rehashed) except when iterating.
+ * Since mapped pages belong to the OS page cache, all the processes mapping
+ * the same file share a single copy of its content.
+ * A file has the following format (big endian):
+ * - magic number {@link #Magic} (4 bytes)
+ * - format version {@link #Version} (1 byte)
+ * - codec name ({@link java.io.DataOutput#writeUTF(String)})
+ * - number of elements (4 bytes)
+ * - number of slots of the hash table, a power of two (4 bytes)
+ * - sum of the hash codes of the elements (4 bytes)
+ * - padding up to a multiple of 8 bytes
+ * - hash table: for each slot, the hash of the encoded element (4 bytes) and
+ * the position of the element in the file, or 0 if the slot is empty (4
+ * bytes)
+ * - elements in insertion order: for each element, the length of its
+ * encoding (4 bytes) followed by the bytes written by the codec
+ * @implNote Elements are searched by their encoding, so the codec must
+ * encode equal elements into equal bytes (which is the case of all
+ * predefined codecs). Since {@link #hashCode()} is stored in the file, the
+ * hash codes of elements should not depend on the JVM that wrote the file
+ * (which is the case of {@link Integer}, {@link Long}, {@link String} and
+ * {@link java.util.UUID} but not of byte[]).
+ * Files are limited to {@link Integer#MAX_VALUE} bytes, the maximum size of
+ * a single {@link java.nio.MappedByteBuffer}.
+ * @author David Roussel and Aiglon Doré
+ * @param <E> the type of elements in this set
+ */
+public class MappedSet<E> extends AbstractSet<E>
+{
+	/**
+	 * Magic number starting set files: "MSET" in ASCII
+	 */
+	public static final int Magic = 0x4D534554;
+
+	/**
+	 * Current version of the format
+	 */
+	public static final byte Version = 1;
+
+	/**
+	 * Size of a slot of the hash table in bytes
+	 */
+	private static final int SlotSize = 8;
+
+	/**
+	 * The mapped content of the file (whose position is never modified so
+	 * that the set can be shared between threads)
+	 */
+	private final ByteBuffer buffer;
+
+	/**
+	 * The codec of elements
+	 */
+	private final ElementCodec<E> codec;
+
+	/**
+	 * Number of elements in this set
+	 */
+	private final int count;
+
+	/**
+	 * Number of slots of the hash table (a power of two)
+	 */
+	private final int tableSize;
+
+	/**
+	 * Position of the hash table in the file
+	 */
+	private final int tableStart;
+
+	/**
+	 * Sum of the hash codes of the elements
+	 */
+	private final int hashSum;
+
+	/**
+	 * Private constructor from an already validated mapped file
+	 * @param buffer the mapped content of the file
+	 * @param codec the codec of elements
+	 * @param count the number of elements
+	 * @param tableSize the number of slots of the hash table
+	 * @param tableStart the position of the hash table
+	 * @param hashSum the sum of the hash codes of the elements
+	 */
+	private MappedSet(ByteBuffer buffer,
+	                  ElementCodec<E> codec,
+	                  int count,
+	                  int tableSize,
+	                  int tableStart,
+	                  int hashSum)
+	{
+		this.buffer = buffer;
+		this.codec = codec;
+		this.count = count;
+		this.tableSize = tableSize;
+		this.tableStart = tableStart;
+		this.hashSum = hashSum;
+		setElementsClass(codec.elementsClass());
+	}
+
+	/**
+	 * The codec of elements
+	 * @return the codec of elements of this set
+	 */
+	public ElementCodec<E> codec()
+	{
+		return codec;
+	}
+
+	// -------------------------------------------------------------------------
+	// Files
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Writes the distinct elements of a collection into a set file.
+	 * The file is first written next to path and then atomically moved to
+	 * path, so that processes which have already mapped a previous version of
+	 * the file keep using it while new processes map the new one. The
+	 * directory of path is synced after the move so that the new file
+	 * survives a crash.
+	 * @param <E> the type of elements
+	 * @param elements the elements to write (only the first occurrence of
+	 * equal elements is written)
+	 * @param codec the codec of elements
+	 * @param path the path of the file to (over)write
+	 * @throws IOException if an I/O error occurs or if the file would exceed
+	 * {@link Integer#MAX_VALUE} bytes
+	 * @throws NullPointerException if any argument or one of the elements is
+	 * null
+	 * @implNote Elements are encoded and streamed one by one to the temporary
+	 * file after the place reserved for the hash table, which is then written
+	 * in place along with the header: only the hash table (8 bytes per slot)
+	 * is kept in memory rather than a copy of the whole file. If writing
+	 * fails, the temporary file is deleted and path is left untouched.
+	 */
+	public static <E> void write(Collection<? extends E> elements, ElementCodec<E> codec, Path path)
+		throws IOException, NullPointerException
+	{
+		if (elements == null || codec == null || path == null) throw new NullPointerException();
+		Object[] content = elements.toArray();
+		for (Object elt : content)
+		{
+			if (elt == null) throw new NullPointerException();
+		}
+		int size = distinct(content, elements instanceof Set);
+
+		long tableSize = 1;
+		while (tableSize < 2L * size)
+		{
+			tableSize <<= 1;
+		}
+
+		ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+		DataOutputStream header = new DataOutputStream(headerBytes);
+		header.writeInt(Magic);
+		header.writeByte(Version);
+		header.writeUTF(codec.name());
+		header.writeInt(size);
+		header.writeInt((int) Math.min(tableSize, Integer.MAX_VALUE));
+		int hashSum = 0;
+		for (int i = 0; i < size; i++)
+		{
+			hashSum += content[i].hashCode();
+		}
+		header.writeInt(hashSum);
+		while (headerBytes.size() % SlotSize != 0)
+		{
+			header.writeByte(0);
+		}
+
+		long dataStart = headerBytes.size() + tableSize * SlotSize;
+		if (dataStart > Integer.MAX_VALUE)
+		{
+			throw new IOException("too many elements for a set file: " + size);
+		}
+		ByteBuffer table = ByteBuffer.allocate((int) (tableSize * SlotSize));
+		int mask = (int) tableSize - 1;
+		ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+
+		Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+		boolean written = false;
+		try (FileChannel channel = FileChannel.open(temp,
+		                                            StandardOpenOption.CREATE,
+		                                            StandardOpenOption.WRITE,
+		                                            StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			/*
+			 * Elements are streamed after the place of the table (which is
+			 * written afterwards) so that only the table is kept in memory
+			 */
+			channel.position(dataStart);
+			DataOutputStream data =
+				new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+			long position = dataStart;
+			for (int i = 0; i < size; i++)
+			{
+				@SuppressWarnings("unchecked")
+				E elt = (E) content[i];
+				encoded.reset();
+				codec.write(elt, new DataOutputStream(encoded));
+				byte[] bytes = encoded.toByteArray();
+				if (position + 4 + bytes.length > Integer.MAX_VALUE)
+				{
+					throw new IOException("set file exceeds " + Integer.MAX_VALUE + " bytes");
+				}
+				int hash = hash(bytes, 0, bytes.length);
+				int slot = hash & mask;
+				while (table.getInt(slot * SlotSize + 4) != 0)
+				{
+					slot = (slot + 1) & mask;
+				}
+				table.putInt(slot * SlotSize, hash);
+				table.putInt(slot * SlotSize + 4, (int) position);
+				data.writeInt(bytes.length);
+				data.write(bytes);
+				position += 4 + bytes.length;
+			}
+			data.flush();
+			writeFully(channel, ByteBuffer.wrap(headerBytes.toByteArray()), 0);
+			writeFully(channel, table, headerBytes.size());
+			channel.force(true);
+			written = true;
+		}
+		finally
+		{
+			if (!written)
+			{
+				Files.deleteIfExists(temp);
+			}
+		}
+		FileSync.replace(temp, path);
+	}
+
+	/**
+	 * Writes all the remaining bytes of a buffer at a given position of a
+	 * file, without modifying the position of the channel
+	 * @param channel the channel of the file
+	 * @param source the bytes to write
+	 * @param position the position in the file of the first byte to write
+	 * @throws IOException if an I/O error occurs
+	 */
+	private static void writeFully(FileChannel channel, ByteBuffer source, long position)
+		throws IOException
+	{
+		while (source.hasRemaining())
+		{
+			position += channel.write(source, position);
+		}
+	}
+
+	/**
+	 * Opens a set file by mapping it in memory. No element is read: only the
+	 * header is checked.
+	 * @param <E> the type of elements
+	 * @param path the path of the file written by
+	 * {@link #write(Collection, ElementCodec, Path)}
+	 * @param codec the codec of elements which should be the one used to
+	 * write the file
+	 * @return a new read-only set typed with the
+	 * {@link ElementCodec#elementsClass()} of the codec
+	 * @throws IOException if an I/O error occurs
+	 * @throws StreamCorruptedException if the magic number, the version or
+	 * the codec name don't match or if the file is truncated
+	 * @throws NullPointerException if path or codec is null
+	 */
+	public static <E> MappedSet<E> open(Path path, ElementCodec<E> codec)
+		throws IOException, NullPointerException
+	{
+		if (path == null || codec == null) throw new NullPointerException();
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			long fileSize = channel.size();
+			if (fileSize > Integer.MAX_VALUE)
+			{
+				throw new StreamCorruptedException("set file exceeds " + Integer.MAX_VALUE + " bytes");
+			}
+			// the mapping remains valid once the channel is closed
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+		}
+		ByteBuffer header = buffer.duplicate();
+		DataInputStream in = new DataInputStream(ByteBufferStreams.inputStream(header));
+		try
+		{
+			int magic = in.readInt();
+			if (magic != Magic)
+			{
+				throw new StreamCorruptedException("bad magic number " + Integer.toHexString(magic));
+			}
+			byte version = in.readByte();
+			if (version != Version)
+			{
+				throw new StreamCorruptedException("unsupported version " + version);
+			}
+			String name = in.readUTF();
+			if (!name.equals(codec.name()))
+			{
+				throw new StreamCorruptedException("codec " + name + " expected instead of " + codec.name());
+			}
+			int count = in.readInt();
+			int tableSize = in.readInt();
+			int hashSum = in.readInt();
+			int tableStart = (header.position() + SlotSize - 1) / SlotSize * SlotSize;
+			if (count < 0 || tableSize <= 0 || Integer.bitCount(tableSize) != 1 || tableSize <= count ||
+				tableStart + (long) tableSize * SlotSize + 4L * count > buffer.capacity())
+			{
+				throw new StreamCorruptedException("inconsistent header");
+			}
+			return new MappedSet<E>(buffer, codec, count, tableSize, tableStart, hashSum);
+		}
+		catch (EOFException e)
+		{
+			throw new StreamCorruptedException("truncated header");
+		}
+	}
+
+	/**
+	 * Hash of encoded elements used to find their slot in the hash table.
+	 * It only depends on the encoded bytes so that it doesn't change between
+	 * JVMs.
+	 * @param bytes the bytes to hash
+	 * @param from the index of the first byte to hash
+	 * @param length the number of bytes to hash
+	 * @return the hash of the bytes
+	 */
+	private static int hash(byte[] bytes, int from, int length)
+	{
+		int h = 1;
+		for (int i = from; i < from + length; i++)
+		{
+			h = 31 * h + bytes[i];
+		}
+		h = (h ^ (h >>> 16)) * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Encodes an element with the codec of this set
+	 * @param elt the element to encode
+	 * @return the bytes of the encoded element
+	 */
+	private byte[] encode(E elt)
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try
+		{
+			codec.write(elt, new DataOutputStream(out));
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+		return out.toByteArray();
+	}
+
+	// -------------------------------------------------------------------------
+	// Collection<E> overrides
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Mapped sets are read-only
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public boolean add(E e) throws UnsupportedOperationException
+	{
+		throw new UnsupportedOperationException("read-only mapped set");
+	}
+
+	/**
+	 * Mapped sets are read-only
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public boolean addAll(Collection<? extends E> c) throws UnsupportedOperationException
+	{
+		throw new UnsupportedOperationException("read-only mapped set");
+	}
+
+	/**
+	 * Mapped sets are read-only
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void clear() throws UnsupportedOperationException
+	{
+		throw new UnsupportedOperationException("read-only mapped set");
+	}
+
+	/**
+	 * Mapped sets are read-only
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public boolean remove(Object o) throws UnsupportedOperationException
+	{
+		throw new UnsupportedOperationException("read-only mapped set");
+	}
+
+	/**
+	 * Mapped sets are read-only
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public boolean removeAll(Collection<?> c) throws UnsupportedOperationException
+	{
+		throw new UnsupportedOperationException("read-only mapped set");
+	}
+
+	/**
+	 * Mapped sets are read-only
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public boolean retainAll(Collection<?> c) throws UnsupportedOperationException
+	{
+		throw new UnsupportedOperationException("read-only mapped set");
+	}
+
+	/**
+	 * Search for an element in the set.
+	 * Faster implementation than {@link Set#contains(Object)}
+	 * @param o the element to search
+	 * @return true if the element is part of the set, false otherwise
+	 * @implNote o is encoded and its encoding is compared to the encoded
+	 * elements of the slots having the same hash until an empty slot is
+	 * found, using only absolute reads of the mapped buffer.
+	 */
+	@Override
+	public boolean contains(Object o)
+	{
+		if (!codec.elementsClass().isInstance(o))
+		{
+			return false;
+		}
+		byte[] bytes = encode(codec.elementsClass().cast(o));
+		int hash = hash(bytes, 0, bytes.length);
+		int mask = tableSize - 1;
+		for (int slot = hash & mask;; slot = (slot + 1) & mask)
+		{
+			int slotStart = tableStart + slot * SlotSize;
+			int position = buffer.getInt(slotStart + 4);
+			if (position == 0)
+			{
+				return false;
+			}
+			if (buffer.getInt(slotStart) == hash && matches(position, bytes))
+			{
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Compares an encoded element of the file with the encoding of an element
+	 * @param position the position of the encoded element in the file
+	 * @param bytes the encoding of the element
+	 * @return true if the encoded element at position is bytes
+	 */
+	private boolean matches(int position, byte[] bytes)
+	{
+		if (buffer.getInt(position) != bytes.length)
+		{
+			return false;
+		}
+		int start = position + 4;
+		for (int i = 0; i < bytes.length; i++)
+		{
+			if (buffer.get(start + i) != bytes[i])
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Iterator over the elements of this set in their insertion order.
+	 * @return a new iterator decoding the elements of the file which doesn't
+	 * support {@link Iterator#remove()}
+	 * @throws UncheckedIOException while iterating if an element is malformed
+	 */
+	@Override
+	public Iterator<E> iterator()
+	{
+		ByteBuffer elements = buffer.duplicate();
+		elements.position(tableStart + tableSize * SlotSize);
+		DataInputStream in = new DataInputStream(ByteBufferStreams.inputStream(elements));
+		return new Iterator<E>()
+		{
+			private int index = 0;
+
+			@Override
+			public boolean hasNext()
+			{
+				return index < count;
+			}
+
+			@Override
+			public E next() throws NoSuchElementException
+			{
+				if (index >= count) throw new NoSuchElementException();
+				try
+				{
+					int length = in.readInt();
+					int end = elements.position() + length;
+					E elt = codec.read(in);
+					if (elements.position() != end)
+					{
+						throw new StreamCorruptedException("element " + index + " has an unexpected length");
+					}
+					index++;
+					return elt;
+				}
+				catch (IOException e)
+				{
+					throw new UncheckedIOException(e);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Number of elements in the set
+	 * Faster implementation than {@link Set#size()}
+	 * @return the number of elements stored in the file
+	 */
+	@Override
+	public int size()
+	{
+		return count;
+	}
+
+	/**
+	 * Mapped sets have a stored size and hash code and hash based lookups
+	 * @param capability the capability to check
+	 * @return true for {@link SetCapability#KNOWN_SIZE},
+	 * {@link SetCapability#FAST_CONTAINS} and {@link SetCapability#KNOWN_HASH}
+	 */
+	@Override
+	public boolean hasCapability(SetCapability capability)
+	{
+		return capability == SetCapability.KNOWN_SIZE ||
+			capability == SetCapability.FAST_CONTAINS ||
+			capability == SetCapability.KNOWN_HASH;
+	}
+
+	/**
+	 * Conversion to array of objects
+	 * @return a new Object[] array containing all the decoded elements of
+	 * this set
+	 */
+	@Override
+	public Object[] toArray()
+	{
+		Object[] result = new Object[count];
+		int i = 0;
+		for (E elt : this)
+		{
+			result[i++] = elt;
+		}
+		return result;
+	}
+
+	/**
+	 * Conversion to array of elements of type T
+	 * @return an array of T containing all decoded elements of this set
+	 * @throws NullPointerException if the specified array is null
+	 * @see ArraySet#toArray(Object[])
+	 */
+	@Override
+	public <T> T[] toArray(T[] a) throws NullPointerException
+	{
+		return new ArraySet<E>(this).toArray(a);
+	}
+
+	// -------------------------------------------------------------------------
+	// Object overrides
+	// -------------------------------------------------------------------------
+
+	/**
+	 * A copy of a mapped set shares the mapped file of this set
+	 * @return a new mapped set over the same mapped file
+	 */
+	@Override
+	public Object clone()
+	{
+		return new MappedSet<E>(buffer, codec, count, tableSize, tableStart, hashSum);
+	}
+
+	/**
+	 * Hash code of this set
+	 * Faster implementation than {@link AbstractSet#hashCode()}
+	 * @return the sum of the hash codes of the elements stored in the file
+	 */
+	@Override
+	public int hashCode()
+	{
+		return hashSum;
+	}
+
+	// -------------------------------------------------------------------------
+	// Set<E> overrides
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Union of this set with another set: this ⋃ other
+	 * @param other the set to create union with
+	 * @return a new {@link ArraySet} containing the union of elements of this
+	 * set and other set
+	 * @throws NullPointerException if the provided set is null
+	 */
+	@Override
+	public Set<E> union(Set<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		Set<E> result = new ArraySet<E>(elementsClass(), this);
+		result.addAll(other);
+		return result;
+	}
+
+	/**
+	 * Intersection of this set with another set: this ⋂ other
+	 * @param other the set to create intersection with
+	 * @return a new {@link ArraySet} containing the intersection of elements
+	 * of this set and the other set
+	 * @throws NullPointerException if the provided set is null
+	 */
+	@Override
+	public Set<E> intersection(Set<E> other) throws NullPointerException
+	{
+		Set<E> result = new ArraySet<E>(elementsClass());
+		Set.intersection(this, other, result);
+		return result;
+	}
+
+	/**
+	 * Difference of this set with another set: this - other
+	 * @param other the set to create difference with
+	 * @return a new {@link ArraySet} containing the difference of elements
+	 * of this set and the other set
+	 * @throws NullPointerException if the provided set is null
+	 */
+	@Override
+	public Set<E> difference(Set<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		Set<E> result = new ArraySet<E>(elementsClass());
+		for (E elt : this)
+		{
+			if (!other.contains(elt))
+			{
+				result.add(elt);
+			}
+		}
+		return result;
+	}
+}
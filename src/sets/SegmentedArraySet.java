@@ -0,0 +1,992 @@
+package sets;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * A Concrete implementation of {@link Set} based on partial implementation from
+ * {@link AbstractSet} using fixed size chunks of elements referenced from a
+ * spine, so that growing this set only allocates a new chunk instead of
+ * copying all elements (as {@link ArraySet} does).
+ * Chunk sizes are powers of two so that the chunk and the offset of an index
+ * are computed with a shift and a mask.
+ * @author David Roussel and Aiglon Doré
+ * @param <E> the type of elements in this set
+ */
+public class SegmentedArraySet<E> extends AbstractSet<E>
+{
+	/**
+	 * The spine of chunks into which the components of this set are stored.
+	 * Element at index i is stored in chunks[i >>> chunkShift][i & chunkMask].
+	 * All chunks contain {@link #chunkSize} slots except the last one which
+	 * may be smaller. Spine slots after {@link #chunkCount} are null.
+	 * Any slots following the last element in the set are null.
+	 */
+	private Object[][] chunks;
+
+	/**
+	 * Cached hash codes of the components of this set, with the same layout
+	 * as {@link #chunks}
+	 * @see ArraySet#contains(Object)
+	 */
+	private int[][] hashChunks;
+
+	/**
+	 * The number of allocated chunks in {@link #chunks}
+	 */
+	private int chunkCount;
+
+	/**
+	 * The number of valid components in this set object
+	 */
+	private int elementCount;
+
+	/**
+	 * Sum of the hash codes of the components of this set, maintained on
+	 * every addition and removal so that {@link #hashCode()} is O(1).
+	 */
+	private int hashSum;
+
+	/**
+	 * log2 of {@link #chunkSize}
+	 */
+	private final int chunkShift;
+
+	/**
+	 * The number of slots in each chunk (a power of two)
+	 */
+	private final int chunkSize;
+
+	/**
+	 * {@link #chunkSize} - 1 used to compute offsets within chunks
+	 */
+	private final int chunkMask;
+
+	/**
+	 * The default number of slots in each chunk
+	 */
+	public static final int DefaultChunkSize = 1024;
+
+	// -------------------------------------------------------------------------
+	// Constructors
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Valued constructor
+	 * @param initialCapacity the initial capacity of this set
+	 * @param chunkSize the number of slots in each chunk
+	 * @throws IllegalArgumentException if provided initialCapacity is less
+	 * than 1 or if chunkSize is not a power of two greater than 1.
+	 */
+	public SegmentedArraySet(int initialCapacity, int chunkSize) throws IllegalArgumentException
+	{
+		if (initialCapacity < 1 || chunkSize < 2 || Integer.bitCount(chunkSize) != 1)
+		{
+			throw new IllegalArgumentException();
+		}
+		this.chunkSize = chunkSize;
+		chunkShift = Integer.numberOfTrailingZeros(chunkSize);
+		chunkMask = chunkSize - 1;
+		allocate(initialCapacity);
+	}
+
+	/**
+	 * Partially valued constructor.
+	 * Creates an empty set with initial capacity and {@link #DefaultChunkSize}
+	 * @param initialCapacity the initial capacity of this set
+	 * @throws IllegalArgumentException if provided initialCapacity is less
+	 * than 1.
+	 */
+	public SegmentedArraySet(int initialCapacity) throws IllegalArgumentException
+	{
+		this(initialCapacity, DefaultChunkSize);
+	}
+
+	/**
+	 * Default constructor.
+	 * Creates an empty set of capacity {@link ArraySet#DefaultCapacity} and
+	 * {@link #DefaultChunkSize}
+	 */
+	public SegmentedArraySet()
+	{
+		this(ArraySet.DefaultCapacity, DefaultChunkSize);
+	}
+
+	/**
+	 * Copy constructor from collection.
+	 * Creates a set able to contain the number of elements contained in c
+	 * with {@link #DefaultChunkSize}.
+	 * All non-duplicates and non-null elements of collection c are copied to
+	 * this set.
+	 * @param c the collection to copy in this set
+	 * @implSpec If collection c is empty then the capacity of this set
+	 * should be {@link ArraySet#DefaultCapacity}
+	 * @implNote duplicates are removed in O(n) with
+	 * {@link AbstractSet#distinct(Object[], boolean)} (which is skipped when c
+	 * is already a {@link Set}), so the first occurrence order of elements in c
+	 * is preserved.
+	 */
+	public SegmentedArraySet(Collection<? extends E> c)
+	{
+		this(ArraySet.DefaultCapacity, DefaultChunkSize);
+		Object[] content = c.toArray();
+		int count = distinct(content, c instanceof Set);
+		if (count > 0)
+		{
+			allocate(count);
+			for (int base = 0; base < count; base += chunkSize)
+			{
+				int length = Math.min(chunkSize, count - base);
+				System.arraycopy(content, base, chunks[base >>> chunkShift], 0, length);
+			}
+			elementCount = count;
+			hashRange(0, count);
+		}
+	}
+
+	/**
+	 * Typed constructor.
+	 * Creates an empty set of capacity {@link ArraySet#DefaultCapacity} and
+	 * {@link #DefaultChunkSize} whose elements are instances of elementsClass.
+	 * @param elementsClass the class of elements of this set
+	 * @throws NullPointerException if provided elementsClass is null
+	 * @see Set#elementsClass()
+	 */
+	public SegmentedArraySet(Class<E> elementsClass) throws NullPointerException
+	{
+		this();
+		setElementsClass(elementsClass);
+	}
+
+	/**
+	 * Typed copy constructor from collection.
+	 * @param elementsClass the class of elements of this set
+	 * @param c the collection to copy in this set
+	 * @throws NullPointerException if provided elementsClass is null
+	 * @see #SegmentedArraySet(Collection)
+	 * @see Set#elementsClass()
+	 */
+	public SegmentedArraySet(Class<E> elementsClass, Collection<? extends E> c)
+		throws NullPointerException
+	{
+		this(c);
+		setElementsClass(elementsClass);
+	}
+
+	// -------------------------------------------------------------------------
+	// Collection<E> overrides
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Adds a new element to the set if and only if the element is not already
+	 * part of this set and the element is not null.
+	 * @param e the element to add
+	 * @return true if the element has been added, false otherwise
+	 * @throws NullPointerException if the object to add is null
+	 * @implNote if the last chunk is full a new chunk is allocated
+	 */
+	@Override
+	public boolean add(E e) throws NullPointerException
+	{
+		if (e == null) throw new NullPointerException();
+		int hash = e.hashCode();
+		if (indexOf(e, hash) >= 0)
+		{
+			return false;
+		}
+		append(e, hash);
+		return true;
+	}
+
+	/**
+	 * Adds to this set all elements in c, regardless of the fact that
+	 * collection c might contain multiple instances of elements.
+	 * @return true if this set has been modified by adding (at least) one
+	 * element from c, false otherwise.
+	 * @throws NullPointerException if the specified collection is null
+	 * @throws NullPointerException if one element in specified collection is
+	 * null, in which case this set is left unmodified.
+	 * @implNote Faster implementation than {@link Set#addAll(Collection)}:
+	 * elements are deduplicated against the current content and the batch
+	 * itself in one pass and new chunks are allocated at most once.
+	 * @see ArraySet#addAll(Collection)
+	 */
+	@Override
+	public boolean addAll(Collection<? extends E> c) throws NullPointerException
+	{
+		if (c == null) throw new NullPointerException();
+		if (c == this) return false;
+		return addBatch(c.toArray(), c instanceof Set);
+	}
+
+	/**
+	 * Adds to this set all elements of an array range, regardless of the fact
+	 * that this range might contain multiple instances of elements.
+	 * @param array the array containing the elements to add
+	 * @param from the first index of the range to add (inclusive)
+	 * @param to the last index of the range to add (exclusive)
+	 * @return true if this set has been modified by adding (at least) one
+	 * element from the array range, false otherwise.
+	 * @throws NullPointerException if the specified array is null or if one
+	 * element in the range is null, in which case this set is left unmodified
+	 * @throws IndexOutOfBoundsException if from is negative, to is greater
+	 * than the array length or from is greater than to
+	 * @see ArraySet#addAll(Object[], int, int)
+	 */
+	@Override
+	public boolean addAll(E[] array, int from, int to) throws
+		NullPointerException, IndexOutOfBoundsException
+	{
+		if (array == null) throw new NullPointerException();
+		if (from < 0 || to > array.length || from > to) throw new IndexOutOfBoundsException();
+		return addBatch(Arrays.copyOfRange(array, from, to, Object[].class), false);
+	}
+
+	/**
+	 * Clears all elements in this set
+	 * @implNote Faster implementation than {@link Set#clear()} since it
+	 * doesn't need to use the iterator
+	 */
+	@Override
+	public void clear()
+	{
+		allocate(Math.min(ArraySet.DefaultCapacity, chunkSize));
+		elementCount = 0;
+		hashSum = 0;
+	}
+
+	/**
+	 * Checks if this set contains object o.
+	 * @param o the object to search in this set
+	 * @return true if object o was found in this set, false if object o wasn't
+	 * found in this set or if object o was null.
+	 * @implNote Faster implementation than {@link Set#contains(Object)}
+	 * since it doesn't need to use the iterator and only calls
+	 * {@link Object#equals(Object)} on elements whose cached hash code
+	 * matches the hash code of o.
+	 */
+	@Override
+	public boolean contains(Object o)
+	{
+		if (o == null) return false;
+		return indexOf(o, o.hashCode()) >= 0;
+	}
+
+	/**
+	 * Check if this set is empty.
+	 * @return true if this set is empty
+	 * @implNote Faster implementation than {@link Set#isEmpty()} since
+	 * it doesn't need to use the iterator
+	 */
+	@Override
+	public boolean isEmpty()
+	{
+		return elementCount == 0;
+	}
+
+	/**
+	 * Creates an new {@link SegmentedArraySetIterator} to iterate over
+	 * {@link #chunks}.
+	 */
+	@Override
+	public Iterator<E> iterator()
+	{
+		return new SegmentedArraySetIterator();
+	}
+
+	/**
+	 * Creates a {@link Spliterator} over the indices of this set
+	 * @return a new {@link AbstractSet.IndexSpliterator} reporting
+	 * {@link Spliterator#DISTINCT}, {@link Spliterator#NONNULL},
+	 * {@link Spliterator#ORDERED}, {@link Spliterator#SIZED} and
+	 * {@link Spliterator#SUBSIZED}
+	 * @implNote Faster implementation than {@link Set#spliterator()} since
+	 * the index range is split in halves, so parallel streams scale across
+	 * cores.
+	 */
+	@Override
+	public Spliterator<E> spliterator()
+	{
+		return new IndexSpliterator<E>(this::elementAt, 0, elementCount);
+	}
+
+	/**
+	 * Performs the given action for each element of this set
+	 * @param action the action to be performed for each element
+	 * @throws NullPointerException if the specified action is null
+	 * @implNote Faster implementation than {@link Set#forEach(Consumer)}
+	 * since it loops over each chunk without allocating an iterator.
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public void forEach(Consumer<? super E> action) throws NullPointerException
+	{
+		if (action == null) throw new NullPointerException();
+		final int count = elementCount;
+		for (int c = 0, base = 0; base < count; c++, base += chunkSize)
+		{
+			final Object[] chunk = chunks[c];
+			final int length = Math.min(chunkSize, count - base);
+			for (int i = 0; i < length; i++)
+			{
+				action.accept((E) chunk[i]);
+			}
+		}
+	}
+
+	/**
+	 * Performs the given action for each element of this set until the
+	 * action returns true for one element
+	 * @param action the action to be performed for each element which
+	 * returns true to stop the iteration
+	 * @return true if the iteration has been stopped by the action
+	 * @throws NullPointerException if the specified action is null
+	 * @implNote Faster implementation than {@link Set#forEachUntil(Predicate)}
+	 * since it loops over each chunk without allocating an iterator.
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean forEachUntil(Predicate<? super E> action) throws NullPointerException
+	{
+		if (action == null) throw new NullPointerException();
+		final int count = elementCount;
+		for (int c = 0, base = 0; base < count; c++, base += chunkSize)
+		{
+			final Object[] chunk = chunks[c];
+			final int length = Math.min(chunkSize, count - base);
+			for (int i = 0; i < length; i++)
+			{
+				if (action.test((E) chunk[i]))
+				{
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes an element o from the set only if this object is part of the set
+	 * @param o the object to remove from set
+	 * @return true if element o was part of this set and removed, false
+	 * otherwise
+	 * @throws NullPointerException if the object to remove is null
+	 * @implNote Faster implementation than {@link Set#remove(Object)}
+	 * since it doesn't need to use iterator.
+	 * @see #removeAtIndex(int)
+	 */
+	@Override
+	public boolean remove(Object o) throws NullPointerException
+	{
+		if (o == null) throw new NullPointerException();
+		return removeAtIndex(indexOf(o, o.hashCode()));
+	}
+
+	/**
+	 * Removes all elements of collection c from this set.
+	 * @param c the collection of elements to remove from this set
+	 * @return true if at least one element of this set has been removed,
+	 * false otherwise.
+	 * @throws NullPointerException if the specified collection is null
+	 * @throws ClassCastException if the type of one or more elements in this
+	 * set are incompatible with the specified collection, in which case this
+	 * set is left unmodified
+	 * @implNote Faster implementation than {@link Set#removeAll(Collection)}
+	 * since chunks are compacted in a single pass.
+	 */
+	@Override
+	public boolean removeAll(Collection<?> c) throws NullPointerException, ClassCastException
+	{
+		if (c == null) throw new NullPointerException();
+		if (elementCount == 0 || c.isEmpty()) return false;
+		checkElementsType(c);
+		if (c == this)
+		{
+			clear();
+			return true;
+		}
+		Collection<?> removed = lookup(c, elementCount);
+		return compact(elt -> !removed.contains(elt));
+	}
+
+	/**
+	 * Retain in this set only the elements contained in collection c.
+	 * @param c the collection containing the elements to retain in this set
+	 * @return true if at least one element from this set has been removed.
+	 * @throws NullPointerException if the specified collection is null
+	 * @implNote Faster implementation than {@link Set#retainAll(Collection)}
+	 * since chunks are compacted in a single pass.
+	 */
+	@Override
+	public boolean retainAll(Collection<?> c) throws NullPointerException
+	{
+		if (c == null) throw new NullPointerException();
+		if (c == this) return false;
+		Collection<?> retained = lookup(c, elementCount);
+		return compact(elt -> retained.contains(elt));
+	}
+
+	/**
+	 * Removes all of the elements of this set that satisfy the given
+	 * predicate.
+	 * @param filter a predicate which returns true for elements to be removed
+	 * @return true if any elements were removed
+	 * @throws NullPointerException if the specified filter is null
+	 * @implNote Faster implementation than {@link Collection#removeIf(Predicate)}
+	 * since chunks are compacted in a single pass.
+	 */
+	@Override
+	public boolean removeIf(Predicate<? super E> filter) throws NullPointerException
+	{
+		if (filter == null) throw new NullPointerException();
+		return compact(elt -> !filter.test(elt));
+	}
+
+	/**
+	 * Number of elements in this set
+	 * @return the current number of elements in this set
+	 * @implNote Faster implementation than {@link Set#size()} since it
+	 * doesn't need to use iterator
+	 */
+	@Override
+	public int size()
+	{
+		return elementCount;
+	}
+
+	/**
+	 * Checks if this set has a performance capability
+	 * @param capability the capability to check
+	 * @return true for {@link SetCapability#KNOWN_SIZE} and
+	 * {@link SetCapability#KNOWN_HASH}
+	 */
+	@Override
+	public boolean hasCapability(SetCapability capability)
+	{
+		return capability == SetCapability.KNOWN_SIZE || capability == SetCapability.KNOWN_HASH;
+	}
+
+	/**
+	 * Conversion to array of objects
+	 * @return an new Object[] array containing all the elements of this set
+	 */
+	@Override
+	public Object[] toArray()
+	{
+		return copyTo(new Object[elementCount]);
+	}
+
+	/**
+	 * Conversion to array of elements.
+	 * Returns an array containing all of the elements in this Set in the
+	 * same order; the runtime type of the returned array is that of the
+	 * specified array. If the Set fits in the specified array, it is
+	 * returned therein. Otherwise, a new array is allocated with the runtime
+	 * type of the specified array and the size of this Set.
+	 * If the Set fits in the specified array with room to spare, the element
+	 * in the array immediately following the end of the Set is set to null.
+	 * @return a new array of T containing all elements of this set
+	 * @throws NullPointerException if the specified array is null
+	 * @see ArraySet#toArray(Object[])
+	 */
+	@Override
+	public <T> T[] toArray(T[] a) throws NullPointerException
+	{
+		if (a.length < elementCount)
+		{
+			a = Arrays.copyOf(a, elementCount);
+		}
+		else if (a.length > elementCount)
+		{
+			a[elementCount] = null;
+		}
+		return copyTo(a);
+	}
+
+	// -------------------------------------------------------------------------
+	// Object overrides
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Returns a clone of this set. The copy will contain clones of the
+	 * internal chunks, not references to the chunks of this set.
+	 * @return a new SegmentedArraySet<E> whith the same {@link #capacity()},
+	 * {@link #chunkSize} and content.
+	 */
+	@Override
+	public Object clone()
+	{
+		SegmentedArraySet<E> newSet = sameElementsClass(new SegmentedArraySet<E>(capacity(), chunkSize));
+		for (int c = 0; c < chunkCount; c++)
+		{
+			int length = Math.min(chunks[c].length, Math.max(0, elementCount - (c << chunkShift)));
+			System.arraycopy(chunks[c], 0, newSet.chunks[c], 0, length);
+			System.arraycopy(hashChunks[c], 0, newSet.hashChunks[c], 0, length);
+		}
+		newSet.elementCount = elementCount;
+		newSet.hashSum = hashSum;
+		return newSet;
+	}
+
+	/**
+	 * Hashcode of this set: defined as the sum of all elements hashcodes
+	 * @return the hashcode of this set
+	 * @implNote Faster implementation than {@link AbstractSet#hashCode()}
+	 * since the sum is maintained by every addition and removal, so it is
+	 * returned in O(1).
+	 */
+	@Override
+	public int hashCode()
+	{
+		return hashSum;
+	}
+
+	// -------------------------------------------------------------------------
+	// Set<E> overrides
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Union of this set with another set: this ⋃ other
+	 * @param other the set to create union with
+	 * @return a new {@link SegmentedArraySet} containing the union of
+	 * elements of this set and other set
+	 * @throws NullPointerException if the provided set is null
+	 * @see Set#union(Set, Set, Set)
+	 */
+	@Override
+	public Set<E> union(Set<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		@SuppressWarnings("unchecked")
+		SegmentedArraySet<E> result = (SegmentedArraySet<E>) clone();
+		result.ensureCapacity(elementCount + other.size());
+		for (E elt : other)
+		{
+			int hash = elt.hashCode();
+			if (indexOf(elt, hash) < 0)
+			{
+				result.append(elt, hash);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Intersection of this set with another set: this ⋂ other
+	 * @param other the set to create intersection with
+	 * @return a new {@link SegmentedArraySet} containing the intersection of
+	 * elements of this set and the other set
+	 * @throws NullPointerException if the provided set is null
+	 * @see Set#intersection(Set, Set, Set)
+	 */
+	@Override
+	public Set<E> intersection(Set<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		return filter(elt -> other.contains(elt));
+	}
+
+	/**
+	 * Difference of this set with another set: this - other
+	 * @param other the set to create difference with
+	 * @return a new {@link SegmentedArraySet} containing the difference of
+	 * elements of this set and the other set
+	 * @throws NullPointerException if the provided set is null
+	 * @see Set#difference(Set, Set, Set)
+	 */
+	@Override
+	public Set<E> difference(Set<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		return filter(elt -> !other.contains(elt));
+	}
+
+	// -------------------------------------------------------------------------
+	// SegmentedArraySet<E> specific methods
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Current capacity
+	 * @return the current capacity of this set (the number of elements all
+	 * chunks can support without allocating a new chunk)
+	 */
+	public int capacity()
+	{
+		return ((chunkCount - 1) << chunkShift) + chunks[chunkCount - 1].length;
+	}
+
+	/**
+	 * Number of slots in each chunk
+	 * @return the number of slots in each chunk
+	 */
+	public int chunkSize()
+	{
+		return chunkSize;
+	}
+
+	/**
+	 * Increases the capacity of this set, if necessary, to ensure that it can
+	 * hold at least the number of elements specified by the minimum capacity
+	 * argument.
+	 * @param minCapacity the desired minimum capacity
+	 * @implNote Only the last chunk may be reallocated (if it is smaller
+	 * than {@link #chunkSize}), other elements are never copied.
+	 */
+	public void ensureCapacity(int minCapacity)
+	{
+		while (capacity() < minCapacity)
+		{
+			int last = chunkCount - 1;
+			int lastLength = chunks[last].length;
+			if (lastLength < chunkSize)
+			{
+				long needed = (long) minCapacity - (last << chunkShift);
+				int newLength = (int) Math.min(chunkSize, Math.max(2L * lastLength, needed));
+				chunks[last] = Arrays.copyOf(chunks[last], newLength);
+				hashChunks[last] = Arrays.copyOf(hashChunks[last], newLength);
+			}
+			else
+			{
+				if (chunkCount == chunks.length)
+				{
+					chunks = Arrays.copyOf(chunks, 2 * chunkCount);
+					hashChunks = Arrays.copyOf(hashChunks, 2 * chunkCount);
+				}
+				chunks[chunkCount] = new Object[chunkSize];
+				hashChunks[chunkCount] = new int[chunkSize];
+				chunkCount++;
+			}
+		}
+	}
+
+	/**
+	 * Strip the internal chunks to the minimal size to hold all the elements
+	 * in this set: unused chunks are released and only the last used chunk is
+	 * reallocated, if and only if this set is not empty, otherwise
+	 * {@link IllegalStateException} is thrown
+	 * @throws IllegalStateException if the set is empty and can't be stripped.
+	 * @post {@link #capacity()} and {@link #size()} should be equal
+	 */
+	public void strip() throws IllegalStateException
+	{
+		if (isEmpty())
+		{
+			throw new IllegalStateException();
+		}
+		int last = (elementCount - 1) >>> chunkShift;
+		chunkCount = last + 1;
+		chunks = Arrays.copyOf(chunks, chunkCount);
+		hashChunks = Arrays.copyOf(hashChunks, chunkCount);
+		int lastLength = elementCount - (last << chunkShift);
+		if (chunks[last].length != lastLength)
+		{
+			chunks[last] = Arrays.copyOf(chunks[last], lastLength);
+			hashChunks[last] = Arrays.copyOf(hashChunks[last], lastLength);
+		}
+	}
+
+	/**
+	 * Allocates a new spine of chunks able to contain capacity elements:
+	 * full chunks followed by a smaller last chunk if needed
+	 * @param capacity the capacity to allocate (at least 1)
+	 * @post previous content has been discarded
+	 */
+	private void allocate(int capacity)
+	{
+		int full = capacity >>> chunkShift;
+		int rest = capacity & chunkMask;
+		chunkCount = full + (rest > 0 ? 1 : 0);
+		chunks = new Object[chunkCount][];
+		hashChunks = new int[chunkCount][];
+		for (int c = 0; c < full; c++)
+		{
+			chunks[c] = new Object[chunkSize];
+			hashChunks[c] = new int[chunkSize];
+		}
+		if (rest > 0)
+		{
+			chunks[full] = new Object[rest];
+			hashChunks[full] = new int[rest];
+		}
+	}
+
+	/**
+	 * Element at index
+	 * @param index the index of the element
+	 * @return the element at index
+	 */
+	@SuppressWarnings("unchecked")
+	private E elementAt(int index)
+	{
+		return (E) chunks[index >>> chunkShift][index & chunkMask];
+	}
+
+	/**
+	 * Stores an element and its hash code at index
+	 * @param index the index where to store the element
+	 * @param e the element to store (or null to clear the slot)
+	 * @param hash the hash code of e
+	 */
+	private void store(int index, Object e, int hash)
+	{
+		int c = index >>> chunkShift;
+		int offset = index & chunkMask;
+		chunks[c][offset] = e;
+		hashChunks[c][offset] = hash;
+	}
+
+	/**
+	 * Index of an object with a known hash code in this set
+	 * @param o the non null object to search
+	 * @param hash the hash code of o
+	 * @return the index of o or -1 if o is not part of this set
+	 * @implNote Each chunk is scanned with its own tight loop over its cached
+	 * hash codes and {@link Object#equals(Object)} is only called on elements
+	 * with the same hash code.
+	 */
+	private int indexOf(Object o, int hash)
+	{
+		for (int c = 0, base = 0; base < elementCount; c++, base += chunkSize)
+		{
+			final Object[] chunk = chunks[c];
+			final int[] hashes = hashChunks[c];
+			final int length = Math.min(chunkSize, elementCount - base);
+			for (int i = 0; i < length; i++)
+			{
+				if (hashes[i] == hash && o.equals(chunk[i])) return base + i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Computes the cached hash codes of a range of new elements and adds them
+	 * to {@link #hashSum}
+	 * @param from the first index of the range (inclusive)
+	 * @param to the last index of the range (exclusive)
+	 */
+	private void hashRange(int from, int to)
+	{
+		for (int i = from; i < to; i++)
+		{
+			int hash = elementAt(i).hashCode();
+			hashChunks[i >>> chunkShift][i & chunkMask] = hash;
+			hashSum += hash;
+		}
+	}
+
+	/**
+	 * Appends an element which is known not to be part of this set
+	 * @param e the element to append
+	 * @param hash the hash code of e
+	 */
+	private void append(E e, int hash)
+	{
+		ensureCapacity(elementCount + 1);
+		store(elementCount++, e, hash);
+		hashSum += hash;
+	}
+
+	/**
+	 * Appends a batch of elements to this set
+	 * @param batch the elements to append which may be reordered and
+	 * overwritten
+	 * @param alreadyDistinct true if elements in the batch are already known
+	 * to be distinct
+	 * @return true if at least one element has been added
+	 * @throws NullPointerException if one element of the batch is null
+	 * @implNote Small batches are searched in this set with
+	 * {@link #indexOf(Object, int)} which scans each chunk over its cached
+	 * hash codes, so adding a few elements to a large set doesn't index all
+	 * its elements.
+	 */
+	private boolean addBatch(Object[] batch, boolean alreadyDistinct) throws NullPointerException
+	{
+		for (Object elt : batch)
+		{
+			if (elt == null) throw new NullPointerException();
+		}
+		int count = distinct(batch, alreadyDistinct, this);
+		if (count == 0)
+		{
+			return false;
+		}
+		ensureCapacity(elementCount + count);
+		for (int i = 0; i < count; i++)
+		{
+			int hash = batch[i].hashCode();
+			store(elementCount++, batch[i], hash);
+			hashSum += hash;
+		}
+		return true;
+	}
+
+	/**
+	 * Copy of all elements of this set into an array large enough
+	 * @param <T> the type of elements in the array
+	 * @param a the array to fill with elements of this set
+	 * @return a
+	 */
+	private <T> T[] copyTo(T[] a)
+	{
+		for (int c = 0, base = 0; base < elementCount; c++, base += chunkSize)
+		{
+			System.arraycopy(chunks[c], 0, a, base, Math.min(chunkSize, elementCount - base));
+		}
+		return a;
+	}
+
+	/**
+	 * New set containing the elements of this set satisfying a predicate
+	 * @param keep the predicate elements of the new set must satisfy
+	 * @return a new set containing the elements of this set satisfying keep
+	 */
+	private SegmentedArraySet<E> filter(Predicate<? super E> keep)
+	{
+		SegmentedArraySet<E> result =
+		    sameElementsClass(new SegmentedArraySet<E>(Math.max(1, Math.min(elementCount, chunkSize)), chunkSize));
+		for (int i = 0; i < elementCount; i++)
+		{
+			E elt = elementAt(i);
+			if (keep.test(elt))
+			{
+				result.append(elt, hashChunks[i >>> chunkShift][i & chunkMask]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Keeps only the elements satisfying a predicate by compacting chunks in
+	 * a single pass: each element is evaluated once and moved at most once,
+	 * the order of kept elements is preserved and the freed slots are set
+	 * to null.
+	 * @param keep the predicate elements to keep must satisfy
+	 * @return true if at least one element has been removed
+	 * @implNote If the predicate throws an exception, the elements which
+	 * have not been evaluated yet are kept and this set remains consistent.
+	 */
+	private boolean compact(Predicate<? super E> keep)
+	{
+		int initialCount = elementCount;
+		int write = 0;
+		int read = 0;
+		try
+		{
+			for (; read < initialCount; read++)
+			{
+				E elt = elementAt(read);
+				int hash = hashChunks[read >>> chunkShift][read & chunkMask];
+				if (keep.test(elt))
+				{
+					store(write++, elt, hash);
+				}
+				else
+				{
+					hashSum -= hash;
+				}
+			}
+		}
+		finally
+		{
+			for (; read < initialCount; read++)
+			{
+				store(write++, elementAt(read), hashChunks[read >>> chunkShift][read & chunkMask]);
+			}
+			for (int i = write; i < initialCount; i++)
+			{
+				store(i, null, 0);
+			}
+			elementCount = write;
+		}
+		return write != initialCount;
+	}
+
+	/**
+	 * Remove element at index index, shifting all subsequent elements one
+	 * step left chunk by chunk.
+	 * @param removeIndex the index of the element to remove
+	 * @return true if the index was valid and the element at index has been
+	 * removed, false otherwise.
+	 * @see #remove(Object)
+	 * @see SegmentedArraySetIterator#remove()
+	 */
+	protected boolean removeAtIndex(int removeIndex)
+	{
+		if ((removeIndex < 0) || (removeIndex >= elementCount))
+		{
+			return false;
+		}
+		int last = elementCount - 1;
+		hashSum -= hashChunks[removeIndex >>> chunkShift][removeIndex & chunkMask];
+		int lastChunk = last >>> chunkShift;
+		int c = removeIndex >>> chunkShift;
+		int offset = removeIndex & chunkMask;
+		for (; c < lastChunk; c++, offset = 0)
+		{
+			System.arraycopy(chunks[c], offset + 1, chunks[c], offset, chunkMask - offset);
+			System.arraycopy(hashChunks[c], offset + 1, hashChunks[c], offset, chunkMask - offset);
+			chunks[c][chunkMask] = chunks[c + 1][0];
+			hashChunks[c][chunkMask] = hashChunks[c + 1][0];
+		}
+		int lastOffset = last & chunkMask;
+		System.arraycopy(chunks[c], offset + 1, chunks[c], offset, lastOffset - offset);
+		System.arraycopy(hashChunks[c], offset + 1, hashChunks[c], offset, lastOffset - offset);
+		chunks[c][lastOffset] = null;
+		elementCount = last;
+		return true;
+	}
+
+	// -------------------------------------------------------------------------
+	// Internal iterator class
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Iterator for the {@link SegmentedArraySet}.
+	 * This iterator only consists in an index indicating the current
+	 * element to provide with {@link #next()} method and a "nextCalled" flag
+	 * indicating next has been called and it is now legal to call remove if
+	 * needed.
+	 * @author David Roussel and Aiglon Doré
+	 */
+	private class SegmentedArraySetIterator implements Iterator<E>
+	{
+		/**
+		 * The current index within {@link SegmentedArraySet#chunks}
+		 */
+		private int index = 0;
+
+		/**
+		 * Flag indicating {@link #next()} has been called and it is now legal
+		 * to call the {@link #remove()} method.
+		 */
+		private boolean nextCalled = false;
+
+		@Override
+		public boolean hasNext()
+		{
+			return index < elementCount;
+		}
+
+		@Override
+		public E next() throws NoSuchElementException
+		{
+			if (index >= elementCount) throw new NoSuchElementException("Index is out of bounds.");
+			nextCalled = true;
+			return elementAt(index++);
+		}
+
+		@Override
+		public void remove() throws IllegalStateException
+		{
+			if (!nextCalled) throw new IllegalStateException("Next has not been called yet");
+			removeAtIndex(--index);
+			nextCalled = false;
+		}
+	}
+}
@@ -0,0 +1,30 @@
+package sets;
+
+/**
+ * Self-organizing lookup strategies for array based sets such as
+ * {@link ArraySet}: recently or frequently found elements are remembered in
+ * a small table of hot slots which is probed before scanning the whole set.
+ * @author David Roussel and Aiglon Doré
+ * @see ArraySet#setSelfOrganization(SelfOrganization)
+ */
+public enum SelfOrganization
+{
+	/**
+	 * No self organization: every lookup scans the set from its first element
+	 */
+	NONE,
+
+	/**
+	 * Move to front: a found element becomes the first hot slot, and elements
+	 * found by a full scan evict the least recently found hot slot.
+	 * Adapts quickly to changing workloads.
+	 */
+	MOVE_TO_FRONT,
+
+	/**
+	 * Transpose: a found element swaps with the hot slot before it, and
+	 * elements found by a full scan only replace the last hot slot.
+	 * Adapts slowly but is robust to occasional lookups of cold elements.
+	 */
+	TRANSPOSE;
+}
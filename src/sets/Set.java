@@ -1,7 +1,16 @@
 package sets;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Interface defining what a set is:
@@ -58,15 +67,45 @@ public interface Set<E> extends Collection<E>
 				throw new NullPointerException();
 			}
 			
-			if (!this.contains(elt))
+			if (this.add(elt))
 			{
-				output = this.add(elt);
+				output = true;
 			}
 		}
 		
 		return output;
 	}
 
+	/**
+	 * Adds to this set all elements of an array range, regardless of the fact
+	 * that this range might contain multiple instances of elements.
+	 * @param array the array containing the elements to add
+	 * @param from the first index of the range to add (inclusive)
+	 * @param to the last index of the range to add (exclusive)
+	 * @return true if this set has been modified by adding (at least) one
+	 * element from the array range, false otherwise.
+	 * @throws NullPointerException if the specified array is null or if one
+	 * element in the range is null
+	 * @throws IndexOutOfBoundsException if from is negative, to is greater
+	 * than the array length or from is greater than to
+	 */
+	public default boolean addAll(E[] array, int from, int to) throws
+		NullPointerException, IndexOutOfBoundsException
+	{
+		if (array == null) throw new NullPointerException();
+		if (from < 0 || to > array.length || from > to) throw new IndexOutOfBoundsException();
+		boolean output = false;
+		for (int i = from; i < to; i++)
+		{
+			if (array[i] == null) throw new NullPointerException();
+			if (this.add(array[i]))
+			{
+				output = true;
+			}
+		}
+		return output;
+	}
+
 	/**
 	 * Clears all elements in this set.
 	 */
@@ -95,14 +134,8 @@ public interface Set<E> extends Collection<E>
 	public default boolean contains(Object o)
 	{
 		// DONE 002 Set#contains(Object): replace with implementation using the iterator
-		for (Iterator<E> it = this.iterator();it.hasNext();)
-		{
-			if (it.next().equals(o))
-			{
-				return true;
-			}
-		}
-		return false;
+		if (o == null) return false;
+		return forEachUntil(elt -> elt.equals(o));
 	}
 
 	/**
@@ -126,10 +159,12 @@ public interface Set<E> extends Collection<E>
 		{
 			throw new NullPointerException();
 		}
+		Class<? extends E> type = elementsType();
+		boolean checked = isOfType(c, type);
 		for (Iterator<?> it = c.iterator();it.hasNext();)
 		{
 			Object elt = it.next();
-			if (elementsType().isInstance(elt))
+			if (checked || type.isInstance(elt))
 			{
 				if (!contains(elt)) return false;
 			}
@@ -190,8 +225,11 @@ public interface Set<E> extends Collection<E>
 	 * have been removed, false otherwise.
 	 * @throws NullPointerException if the specified collection is null
 	 * @throws ClassCastException if the type of one or more elements in this
-	 * set are incompatible with the specified collection
+	 * set are incompatible with the specified collection, in which case this
+	 * set is left unmodified
 	 * @post No elements from c can be found in this set
+	 * @implNote Elements of c are type checked before any removal, unless c
+	 * is a typed set whose elements are known to be compatible with this set.
 	 */
 	@SuppressWarnings("unchecked")
 	@Override
@@ -205,24 +243,27 @@ public interface Set<E> extends Collection<E>
 		}
 		if (this.isEmpty() || c.isEmpty()) return false;
 		Class<? extends E> elementsClass = elementsType();
+		if (!isOfType(c, elementsClass))
+		{
+			for (Object elt : c)
+			{
+				if (elt != null && !elementsClass.isInstance(elt))
+				{
+					throw new ClassCastException();
+				}
+			}
+		}
 		boolean output = false;
 		for (Iterator<?> it = c.iterator(); it.hasNext();)
 		{
 			Object elt = it.next();
 			if (elt != null)
 			{
-				if (elementsClass.isInstance(elt))
+				E obj = (E) elt;
+				if (this.contains(obj))
 				{
-					E obj = (E) elt;
-					if (this.contains(obj))
-					{
-						this.remove(obj);
-						output = true;
-					}
-				}
-				else
-				{
-					throw new ClassCastException();
+					this.remove(obj);
+					output = true;
 				}
 			}
 		}
@@ -264,14 +305,69 @@ public interface Set<E> extends Collection<E>
 	public default int size()
 	{
 		// DONE 008 Set#size(): replace with implementation using the iterator
-		int length = 0;
-		Iterator<E> it = iterator();
-		while (it.hasNext())
+		int[] length = new int[1];
+		forEach(elt -> length[0]++);
+		return length[0];
+	}
+
+	/**
+	 * Performs the given action for each element of this set until all
+	 * elements have been processed or the action throws an exception.
+	 * @param action the action to be performed for each element
+	 * @throws NullPointerException if the specified action is null
+	 * @implNote Implementations should override this method with an internal
+	 * loop which neither allocates an iterator nor calls
+	 * {@link Iterator#hasNext()} and {@link Iterator#next()} for each element.
+	 * The action should not modify this set.
+	 */
+	@Override
+	public default void forEach(Consumer<? super E> action) throws NullPointerException
+	{
+		if (action == null) throw new NullPointerException();
+		for (Iterator<E> it = iterator(); it.hasNext();)
 		{
-			it.next();
-			length++;
+			action.accept(it.next());
 		}
-		return length;
+	}
+
+	/**
+	 * Performs the given action for each element of this set until the
+	 * action returns true for one element (short-circuit) or all elements
+	 * have been processed.
+	 * @param action the action to be performed for each element which
+	 * returns true to stop the iteration
+	 * @return true if the iteration has been stopped by the action, false if
+	 * all elements have been processed
+	 * @throws NullPointerException if the specified action is null
+	 * @implNote Implementations should override this method with an internal
+	 * loop (see {@link #forEach(Consumer)}). The action should not modify
+	 * this set.
+	 */
+	public default boolean forEachUntil(Predicate<? super E> action) throws NullPointerException
+	{
+		if (action == null) throw new NullPointerException();
+		for (Iterator<E> it = iterator(); it.hasNext();)
+		{
+			if (action.test(it.next()))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Creates a {@link Spliterator} over the elements in this set
+	 * @return a new spliterator reporting {@link Spliterator#DISTINCT},
+	 * {@link Spliterator#NONNULL} and {@link Spliterator#SIZED}
+	 * @implNote This default spliterator is based on {@link #iterator()}
+	 * and splits poorly, implementations should provide index based
+	 * spliterators when possible.
+	 */
+	@Override
+	public default Spliterator<E> spliterator()
+	{
+		return Spliterators.spliterator(this, Spliterator.DISTINCT | Spliterator.NONNULL);
 	}
 
 	/**
@@ -329,6 +425,110 @@ public interface Set<E> extends Collection<E>
 	@Override
 	public abstract String toString();
 
+	/**
+	 * Marker written in place of the elements which are not rendered by
+	 * bounded representations
+	 * @see #writeTo(Appendable, int)
+	 */
+	public static final String ElisionMarker = "...";
+
+	/**
+	 * Streams the representation of this set to an appendable destination
+	 * with the same format as {@link #toString()}: {elt1, elt2, ..., eltn}
+	 * @param out the destination of the representation
+	 * @throws IOException if an I/O error occurs while appending to out
+	 * @throws NullPointerException if out is null
+	 * @see #writeTo(Appendable, int)
+	 */
+	public default void writeTo(Appendable out) throws IOException, NullPointerException
+	{
+		writeTo(out, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Streams a bounded representation of this set to an appendable
+	 * destination: at most maxElements elements are written and the others
+	 * are replaced by {@link #ElisionMarker} followed by their number when
+	 * this set has {@link SetCapability#KNOWN_SIZE}, e.g.
+	 * {elt1, elt2, ... (n more)}
+	 * @param out the destination of the representation
+	 * @param maxElements the maximum number of elements to write
+	 * @throws IOException if an I/O error occurs while appending to out
+	 * @throws NullPointerException if out is null
+	 * @throws IllegalArgumentException if maxElements is negative
+	 * @implNote Elements are appended one by one to out, so rendering a large
+	 * set to a stream or a writer never needs contiguous memory for the
+	 * whole representation.
+	 */
+	public default void writeTo(Appendable out, int maxElements) throws
+		IOException, NullPointerException, IllegalArgumentException
+	{
+		if (out == null) throw new NullPointerException();
+		if (maxElements < 0) throw new IllegalArgumentException();
+		out.append('{');
+		int written = 0;
+		Iterator<E> it = iterator();
+		for (; it.hasNext() && written < maxElements; written++)
+		{
+			if (written > 0)
+			{
+				out.append(", ");
+			}
+			out.append(it.next().toString());
+		}
+		if (it.hasNext())
+		{
+			writeElision(out, written, hasCapability(SetCapability.KNOWN_SIZE) ? size() - written : -1);
+		}
+		out.append('}');
+	}
+
+	/**
+	 * Bounded representation of this set
+	 * @param maxElements the maximum number of elements to render
+	 * @return a new String representing at most maxElements elements of
+	 * this set
+	 * @throws IllegalArgumentException if maxElements is negative
+	 * @see #writeTo(Appendable, int)
+	 */
+	public default String toString(int maxElements) throws IllegalArgumentException
+	{
+		StringBuilder builder = new StringBuilder();
+		try
+		{
+			writeTo(builder, maxElements);
+		}
+		catch (IOException e)
+		{
+			// StringBuilder#append never throws IOException
+			throw new UncheckedIOException(e);
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Writes the elision of a bounded representation
+	 * @param out the destination of the representation
+	 * @param written the number of elements already written
+	 * @param remaining the number of elided elements or -1 if unknown
+	 * @throws IOException if an I/O error occurs while appending to out
+	 * @see #writeTo(Appendable, int)
+	 */
+	private static void writeElision(Appendable out, int written, int remaining) throws IOException
+	{
+		if (written > 0)
+		{
+			out.append(", ");
+		}
+		out.append(ElisionMarker);
+		if (remaining >= 0)
+		{
+			out.append(" (");
+			out.append(String.valueOf(remaining));
+			out.append(" more)");
+		}
+	}
+
 	// -------------------------------------------------------------------------
 	// Set<E> specific methods
 	// -------------------------------------------------------------------------
@@ -346,8 +546,20 @@ public interface Set<E> extends Collection<E>
 	{
 		// DONE 009 Set#union(Set, Set, Set): replace with implementation...
 		if (first == null || second == null || result == null) throw new NullPointerException();
-		result.clear();
-		result.addAll(first.union(second));
+		if (result == first)
+		{
+			result.unionWith(second);
+		}
+		else if (result == second)
+		{
+			result.unionWith(first);
+		}
+		else
+		{
+			result.clear();
+			result.unionWith(first);
+			result.unionWith(second);
+		}
 	}
 
 	/**
@@ -366,14 +578,39 @@ public interface Set<E> extends Collection<E>
 	 * @param second the second set
 	 * @param result the resulting set containing all common elements of set1 and set2
 	 * @throws NullPointerException if any of the provided sets are null
+	 * @implNote When result is neither first nor second, only one of the
+	 * sets is iterated while the other one is probed, according to their
+	 * capabilities
+	 * @see SetCapability#iterateFirst(Set, Set)
 	 * @see #intersection(Set)
 	 */
 	public static <E> void intersection(Set<E> first, Set<E> second, Set<E> result) throws NullPointerException
 	{
 		// DONE 010 Set#intersection(Set, Set, Set): replace with implementation...
 		if (first == null || second == null || result == null) throw new NullPointerException();
-		result.clear();
-		result.addAll(first.intersection(second));
+		if (result == first)
+		{
+			result.intersectWith(second);
+		}
+		else if (result == second)
+		{
+			result.intersectWith(first);
+		}
+		else
+		{
+			boolean iterateFirst = SetCapability.iterateFirst(first, second);
+			Set<E> iterated = iterateFirst ? first : second;
+			Set<E> probed = iterateFirst ? second : first;
+			List<E> common = new ArrayList<E>();
+			iterated.forEach(elt -> {
+				if (probed.contains(elt))
+				{
+					common.add(elt);
+				}
+			});
+			result.clear();
+			result.addAll(common);
+		}
 	}
 
 	/**
@@ -400,8 +637,23 @@ public interface Set<E> extends Collection<E>
 	{
 		// DONE 011 Set#difference(Set, Set, Set): replace with implementation...
 		if (first == null || second == null || result == null) throw new NullPointerException();
-		result.clear();
-		result.addAll(first.difference(second));
+		if (result == first)
+		{
+			result.differenceWith(second);
+		}
+		else if (result == second)
+		{
+			// second can't be cleared before first - second is computed
+			Set<E> content = first.difference(second);
+			result.clear();
+			result.unionWith(content);
+		}
+		else
+		{
+			result.clear();
+			result.unionWith(first);
+			result.differenceWith(second);
+		}
 	}
 
 	/**
@@ -429,13 +681,290 @@ public interface Set<E> extends Collection<E>
 	{
 		// DONE 012 Set#symmetricDifference(Set): replace with implementation...
 		if (other == null) throw new NullPointerException();
-		return this.difference(other).union(other.difference(this));
+		Set<E> result = this.difference(other);
+		other.forEach(elt -> {
+			if (!this.contains(elt))
+			{
+				result.add(elt);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * In place union of this set with another set: this = this ⋃ other
+	 * @param other the set to create union with
+	 * @return true if this set has been modified
+	 * @throws NullPointerException if the provided set is null
+	 * @see #union(Set)
+	 */
+	public default boolean unionWith(Set<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		if (other == this)
+		{
+			return false;
+		}
+		return addAll(other);
+	}
+
+	/**
+	 * In place intersection of this set with another set:
+	 * this = this ⋂ other
+	 * @param other the set to create intersection with
+	 * @return true if this set has been modified
+	 * @throws NullPointerException if the provided set is null
+	 * @see #intersection(Set)
+	 */
+	public default boolean intersectWith(Set<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		if (other == this)
+		{
+			return false;
+		}
+		return retainAll(other);
+	}
+
+	/**
+	 * In place difference of this set with another set: this = this - other
+	 * @param other the set to create difference with
+	 * @return true if this set has been modified
+	 * @throws NullPointerException if the provided set is null
+	 * @implNote When this set has {@link SetCapability#FAST_CONTAINS} and the
+	 * other set should be iterated rather than this one, elements of the
+	 * other set are removed one by one from this set, otherwise elements of
+	 * this set found in the other set are removed through the iterator.
+	 * @see #difference(Set)
+	 */
+	public default boolean differenceWith(Set<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		if (other == this)
+		{
+			boolean modified = !isEmpty();
+			clear();
+			return modified;
+		}
+		if (hasCapability(SetCapability.FAST_CONTAINS) && !SetCapability.iterateFirst(this, other))
+		{
+			boolean[] modified = new boolean[1];
+			other.forEach(elt -> modified[0] |= remove(elt));
+			return modified[0];
+		}
+		boolean modified = false;
+		for (Iterator<E> it = iterator(); it.hasNext();)
+		{
+			if (other.contains(it.next()))
+			{
+				it.remove();
+				modified = true;
+			}
+		}
+		return modified;
+	}
+
+	/**
+	 * In place symmetric difference of this set with another set:
+	 * this = this Δ other
+	 * @param other the other set to compute symmetric difference with
+	 * @return true if this set has been modified
+	 * @throws NullPointerException if the provided set is null
+	 * @see #symmetricDifference(Set)
+	 */
+	public default boolean symmetricDifferenceWith(Set<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		if (other == this)
+		{
+			boolean modified = !isEmpty();
+			clear();
+			return modified;
+		}
+		other.forEach(elt -> {
+			if (!this.remove(elt))
+			{
+				this.add(elt);
+			}
+		});
+		return !other.isEmpty();
+	}
+
+	/**
+	 * Number of elements of the intersection of this set with another set:
+	 * |this ⋂ other|, without building the intersection
+	 * @param other the other set
+	 * @return the number of elements common to this set and the other set
+	 * @throws NullPointerException if the provided set is null
+	 * @implSpec iterates over one set and probes the other one according to
+	 * their capabilities (by default the smallest set is iterated)
+	 * @see SetCapability#iterateFirst(Set, Set)
+	 */
+	public default int intersectionSize(Set<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		boolean iterateThis = SetCapability.iterateFirst(this, other);
+		Set<E> iterated = iterateThis ? this : other;
+		Set<E> probed = iterateThis ? other : this;
+		int[] count = new int[1];
+		iterated.forEach(elt -> {
+			if (probed.contains(elt))
+			{
+				count[0]++;
+			}
+		});
+		return count[0];
+	}
+
+	/**
+	 * Number of elements of the union of this set with another set:
+	 * |this ⋃ other|, without building the union
+	 * @param other the other set
+	 * @return the number of elements in this set or in the other set
+	 * @throws NullPointerException if the provided set is null
+	 * @implSpec |this ⋃ other| = |this| + |other| - |this ⋂ other|
+	 */
+	public default int unionSize(Set<E> other) throws NullPointerException
+	{
+		return this.size() + other.size() - intersectionSize(other);
+	}
+
+	/**
+	 * Number of elements of the difference of this set with another set:
+	 * |this - other|, without building the difference
+	 * @param other the other set
+	 * @return the number of elements in this set which are not part of the
+	 * other set
+	 * @throws NullPointerException if the provided set is null
+	 * @implSpec |this - other| = |this| - |this ⋂ other|
+	 */
+	public default int differenceSize(Set<E> other) throws NullPointerException
+	{
+		return this.size() - intersectionSize(other);
+	}
+
+	/**
+	 * Jaccard similarity index of this set with another set:
+	 * |this ⋂ other| / |this ⋃ other|
+	 * @param other the other set
+	 * @return the Jaccard similarity index in [0, 1] of both sets or 1 if both
+	 * sets are empty
+	 * @throws NullPointerException if the provided set is null
+	 */
+	public default double jaccard(Set<E> other) throws NullPointerException
+	{
+		int common = intersectionSize(other);
+		int union = this.size() + other.size() - common;
+		if (union == 0)
+		{
+			return 1.0;
+		}
+		return (double) common / (double) union;
+	}
+
+	/**
+	 * Checks if this set has no element in common with another set
+	 * @param other the other set
+	 * @return true if this ⋂ other is empty
+	 * @throws NullPointerException if the provided set is null
+	 * @implSpec iterates over one set and probes the other one according to
+	 * their capabilities (by default the smallest set is iterated) until a
+	 * common element is found
+	 * @see SetCapability#iterateFirst(Set, Set)
+	 */
+	public default boolean isDisjoint(Set<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		boolean iterateThis = SetCapability.iterateFirst(this, other);
+		Set<E> iterated = iterateThis ? this : other;
+		Set<E> probed = iterateThis ? other : this;
+		return !iterated.forEachUntil(probed::contains);
+	}
+
+	/**
+	 * Checks if this set has at least one element in common with another set
+	 * @param other the other set
+	 * @return true if this ⋂ other is not empty
+	 * @throws NullPointerException if the provided set is null
+	 * @see #isDisjoint(Set)
+	 */
+	public default boolean intersects(Set<E> other) throws NullPointerException
+	{
+		return !isDisjoint(other);
+	}
+
+	/**
+	 * Lazy union of this set with another set: this ⋃ other
+	 * @param other the set to create union with
+	 * @return a read-only view containing the union of elements of this set and
+	 * the other set which is neither copied nor allocated until
+	 * {@link SetView#materialize()} is called
+	 * @throws NullPointerException if the provided set is null
+	 * @see #union(Set)
+	 */
+	public default SetView<E> unionView(Set<E> other) throws NullPointerException
+	{
+		return SetView.union(this, other);
+	}
+
+	/**
+	 * Lazy intersection of this set with another set: this ⋂ other
+	 * @param other the set to create intersection with
+	 * @return a read-only view containing the intersection of elements of
+	 * this set and the other set which is neither copied nor allocated until
+	 * {@link SetView#materialize()} is called
+	 * @throws NullPointerException if the provided set is null
+	 * @see #intersection(Set)
+	 */
+	public default SetView<E> intersectionView(Set<E> other) throws NullPointerException
+	{
+		return SetView.intersection(this, other);
+	}
+
+	/**
+	 * Lazy difference of this set with another set: this - other
+	 * @param other the set to create difference with
+	 * @return a read-only view containing the difference of elements of this
+	 * set and the other set which is neither copied nor allocated until
+	 * {@link SetView#materialize()} is called
+	 * @throws NullPointerException if the provided set is null
+	 * @see #difference(Set)
+	 */
+	public default SetView<E> differenceView(Set<E> other) throws NullPointerException
+	{
+		return SetView.difference(this, other);
+	}
+
+	/**
+	 * Checks if this set has a performance capability
+	 * @param capability the capability to check
+	 * @return true if this set has the provided capability
+	 * @implSpec Default implementation returns false: default methods are
+	 * based on the iterator.
+	 */
+	public default boolean hasCapability(SetCapability capability)
+	{
+		return false;
+	}
+
+	/**
+	 * The explicit class of elements of this set, provided at construction
+	 * by typed sets
+	 * @return the class of elements of this set or null if this set is
+	 * untyped
+	 * @implSpec Default implementation returns null
+	 * @see AbstractSet#setElementsClass(Class)
+	 */
+	public default Class<E> elementsClass()
+	{
+		return null;
 	}
 
 	/**
 	 * Provides the class of elements in this set (if possible)
-	 * @return The {@link Class} signature of elements in this set
-	 * if not empty or null if this set is empty
+	 * @return The {@link Class} signature of elements in this set: its
+	 * {@link #elementsClass()} if this set is typed, otherwise the class of
+	 * its first element if not empty or null if this set is empty
 	 * @implNote Useful in methods requiring to throw {@link ClassCastException}
 	 * such as {@link #containsAll(Collection)} and {@link #removeAll(Collection)}
 	 */
@@ -443,8 +972,45 @@ public interface Set<E> extends Collection<E>
 	public default Class<? extends E> elementsType()
 	{
 		// DONE 013 Set#elementsType(): replace with implementation...
+		Class<E> elementsClass = elementsClass();
+		if (elementsClass != null) return elementsClass;
 		if (isEmpty()) return null;
 		E elt = iterator().next();
 		return (Class<? extends E>) elt.getClass();
 	}
+
+	/**
+	 * Copy of the elements of this set into a new array whose component type
+	 * is the {@link #elementsClass()} of this set
+	 * @return a new E[] array containing all the elements of this set
+	 * @throws IllegalStateException if this set is untyped
+	 * @see #toArray(Object[])
+	 */
+	@SuppressWarnings("unchecked")
+	public default E[] toTypedArray() throws IllegalStateException
+	{
+		Class<E> elementsClass = elementsClass();
+		if (elementsClass == null) throw new IllegalStateException();
+		return toArray((E[]) Array.newInstance(elementsClass, size()));
+	}
+
+	/**
+	 * Checks if the elements of a collection are statically known to be
+	 * instances of a type so that per element type checks can be skipped
+	 * @param c the collection to check
+	 * @param type the type elements of c should be instances of (or null if
+	 * there is no type to check)
+	 * @return true if type is null or c is a typed set whose class of
+	 * elements is a subtype of type, false if elements of c need to be
+	 * checked one by one
+	 */
+	private static boolean isOfType(Collection<?> c, Class<?> type)
+	{
+		if (type == null)
+		{
+			return true;
+		}
+		Class<?> cType = c instanceof Set ? ((Set<?>) c).elementsClass() : null;
+		return cType != null && type.isAssignableFrom(cType);
+	}
 }
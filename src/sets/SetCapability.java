@@ -0,0 +1,60 @@
+package sets;
+
+/**
+ * Performance capabilities a {@link Set} implementation can advertise with
+ * {@link Set#hasCapability(SetCapability)} so that default methods, static
+ * set algebra and views can choose which operand to iterate and which one to
+ * probe, and so that comparisons can choose which shortcuts are cheap.
+ * @author David Roussel and Aiglon Doré
+ */
+public enum SetCapability
+{
+	/**
+	 * {@link Set#size()} is computed in O(1) instead of by iterating over
+	 * all elements
+	 */
+	KNOWN_SIZE,
+
+	/**
+	 * {@link Set#contains(Object)} and {@link Set#remove(Object)} are
+	 * performed in (expected) O(1) instead of by scanning elements, such as
+	 * in hash based sets
+	 */
+	FAST_CONTAINS,
+
+	/**
+	 * {@link Set#hashCode()} is maintained by every modification and
+	 * returned in O(1) instead of by iterating over all elements, so it can
+	 * be compared to reject unequal sets early
+	 */
+	KNOWN_HASH;
+
+	/**
+	 * Decides which of two sets should be iterated while the other one is
+	 * probed with {@link Set#contains(Object)} (e.g. to compute their
+	 * intersection):
+	 * - a set with {@link #FAST_CONTAINS} is probed rather than iterated
+	 * - otherwise the smallest set is iterated, unless both sets have
+	 * {@link #FAST_CONTAINS} and their sizes are not both
+	 * {@link #KNOWN_SIZE}, in which case counting their elements would cost
+	 * as much as probing them.
+	 * @param first the first set
+	 * @param second the second set
+	 * @return true if first should be iterated and second probed, false if
+	 * second should be iterated and first probed
+	 */
+	static boolean iterateFirst(Set<?> first, Set<?> second)
+	{
+		boolean firstFast = first.hasCapability(FAST_CONTAINS);
+		boolean secondFast = second.hasCapability(FAST_CONTAINS);
+		if (firstFast != secondFast)
+		{
+			return secondFast;
+		}
+		if (firstFast && !(first.hasCapability(KNOWN_SIZE) && second.hasCapability(KNOWN_SIZE)))
+		{
+			return true;
+		}
+		return first.size() <= second.size();
+	}
+}
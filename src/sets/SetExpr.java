@@ -0,0 +1,914 @@
+package sets;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Set expression built from operand sets and set operations such as
+ * (A ⋃ B) ⋂ C - (D ⋂ E) which is planned before being evaluated:
+ * - nested unions and intersections are flattened into n-ary operations
+ * (associativity) whose operands can be reordered (commutativity) and
+ * duplicated operands are removed (idempotence)
+ * - intersection operands are ordered by increasing estimated cardinality so
+ * that the smallest operand is the only one iterated over while the other
+ * ones are only probed
+ * - union operands are ordered by decreasing estimated cardinality
+ * - (A - B) - C is rewritten as A - (B ⋃ C)
+ * - sub-expressions occurring several times in the expression are only
+ * evaluated once, unless their operands can already be probed cheaply
+ * The evaluation of the planned expression then fills a single result set
+ * without building any other intermediate set (except for common
+ * sub-expressions).
+ * {@code
+ * 	Set<E> result = SetExpr.of(a).union(b).intersect(c).difference(d).evaluate();
+ * }
+ * @author David Roussel and Aiglon Doré
+ * @param <E> the type of elements in the sets of this expression
+ */
+public abstract class SetExpr<E>
+{
+	/**
+	 * Package private constructor since expression nodes are only provided
+	 * by this class
+	 */
+	SetExpr()
+	{
+	}
+
+	/**
+	 * Maximum size of an operand set which is considered cheap to probe
+	 * even without {@link SetCapability#FAST_CONTAINS}: probing such a set
+	 * costs at most a few cache lines of linear scan, which is about the cost
+	 * of a hashed lookup in an evaluated common sub-expression.
+	 */
+	private static final int SmallOperandThreshold = 16;
+
+	// -------------------------------------------------------------------------
+	// Expression building
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Creates a new expression consisting of a single operand set
+	 * @param <E> the type of elements in the set
+	 * @param set the operand set
+	 * @return a new expression evaluating to the content of set
+	 * @throws NullPointerException if the provided set is null
+	 */
+	public static <E> SetExpr<E> of(Set<E> set) throws NullPointerException
+	{
+		if (set == null) throw new NullPointerException();
+		return new Operand<E>(set);
+	}
+
+	/**
+	 * Union of this expression with another set: this ⋃ other
+	 * @param other the set to create union with
+	 * @return a new expression representing this ⋃ other
+	 * @throws NullPointerException if the provided set is null
+	 */
+	public SetExpr<E> union(Set<E> other) throws NullPointerException
+	{
+		return union(of(other));
+	}
+
+	/**
+	 * Union of this expression with another expression: this ⋃ other
+	 * @param other the expression to create union with
+	 * @return a new expression representing this ⋃ other
+	 * @throws NullPointerException if the provided expression is null
+	 */
+	public SetExpr<E> union(SetExpr<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		return new Union<E>(pair(this, other));
+	}
+
+	/**
+	 * Intersection of this expression with another set: this ⋂ other
+	 * @param other the set to create intersection with
+	 * @return a new expression representing this ⋂ other
+	 * @throws NullPointerException if the provided set is null
+	 */
+	public SetExpr<E> intersect(Set<E> other) throws NullPointerException
+	{
+		return intersect(of(other));
+	}
+
+	/**
+	 * Intersection of this expression with another expression: this ⋂ other
+	 * @param other the expression to create intersection with
+	 * @return a new expression representing this ⋂ other
+	 * @throws NullPointerException if the provided expression is null
+	 */
+	public SetExpr<E> intersect(SetExpr<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		return new Intersection<E>(pair(this, other));
+	}
+
+	/**
+	 * Difference of this expression with another set: this - other
+	 * @param other the set to create difference with
+	 * @return a new expression representing this - other
+	 * @throws NullPointerException if the provided set is null
+	 */
+	public SetExpr<E> difference(Set<E> other) throws NullPointerException
+	{
+		return difference(of(other));
+	}
+
+	/**
+	 * Difference of this expression with another expression: this - other
+	 * @param other the expression to create difference with
+	 * @return a new expression representing this - other
+	 * @throws NullPointerException if the provided expression is null
+	 */
+	public SetExpr<E> difference(SetExpr<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		return new Difference<E>(this, other);
+	}
+
+	// -------------------------------------------------------------------------
+	// Planning & evaluation
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Estimated number of elements in the result of this expression based on
+	 * the current sizes of the operand sets.
+	 * @return an upper bound of the number of elements in the result of this
+	 * expression
+	 */
+	public abstract int estimatedSize();
+
+	/**
+	 * Planned (reordered and rewritten) version of this expression
+	 * @return a new expression equivalent to this one which is the one
+	 * actually evaluated by {@link #evaluate()}
+	 */
+	public SetExpr<E> optimize()
+	{
+		return normalize(new Plan<E>());
+	}
+
+	/**
+	 * Evaluates this expression into a new set
+	 * @return a new {@link ArraySet} containing the result of this expression
+	 */
+	public Set<E> evaluate()
+	{
+		Plan<E> plan = new Plan<E>();
+		SetExpr<E> planned = normalize(plan);
+		return plan.execute(planned);
+	}
+
+	/**
+	 * Evaluates this expression into a result set
+	 * @param result the set to fill with the result of this expression (after
+	 * being cleared). This set may also be one of the operands of this
+	 * expression.
+	 * @throws NullPointerException if the provided result set is null
+	 */
+	public void evaluate(Set<E> result) throws NullPointerException
+	{
+		if (result == null) throw new NullPointerException();
+		Plan<E> plan = new Plan<E>();
+		SetExpr<E> planned = normalize(plan);
+		/*
+		 * result may also be an operand so it can't be cleared before
+		 * evaluation
+		 */
+		Set<E> content = plan.execute(planned);
+		result.clear();
+		result.addAll(content);
+	}
+
+	// -------------------------------------------------------------------------
+	// Nodes internal operations
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Planning of this node: rewrite of this node and its children
+	 * @param plan the current plan
+	 * @return the rewritten node
+	 */
+	abstract SetExpr<E> normalize(Plan<E> plan);
+
+	/**
+	 * Canonical key of this node: two nodes with the same key evaluate to the
+	 * same set
+	 * @param plan the current plan providing operands identifiers
+	 * @return the canonical key of this node
+	 */
+	abstract String key(Plan<E> plan);
+
+	/**
+	 * Checks if the result of this node contains object o
+	 * @param o the object to search
+	 * @param plan the current plan
+	 * @return true if the result of this node contains o
+	 */
+	abstract boolean probe(Object o, Plan<E> plan);
+
+	/**
+	 * Provides each element of the result of this node exactly once to the
+	 * provided sink
+	 * @param sink the consumer of this node's elements
+	 * @param plan the current plan
+	 */
+	abstract void enumerate(Consumer<? super E> sink, Plan<E> plan);
+
+	/**
+	 * Children of this node (if any)
+	 * @return the children of this node
+	 */
+	abstract List<SetExpr<E>> children();
+
+	/**
+	 * Checks if the result of this node can be probed cheaply without being
+	 * evaluated, i.e. if each probe only costs a bounded number of cheap
+	 * probes into operand sets
+	 * @param plan the current plan
+	 * @return true if all the operand sets probed by this node either have
+	 * {@link SetCapability#FAST_CONTAINS} or are small, or are part of common
+	 * sub-expressions which are evaluated anyway
+	 */
+	boolean cheapProbe(Plan<E> plan)
+	{
+		for (SetExpr<E> child : children())
+		{
+			if (!plan.cheapProbe(child))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks if the result of this node contains object o using the
+	 * evaluated result of this node if it is a common sub-expression.
+	 * @param o the object to search
+	 * @param plan the current plan
+	 * @return true if the result of this node contains o
+	 */
+	final boolean contains(Object o, Plan<E> plan)
+	{
+		Collection<E> shared = plan.shared(this);
+		if (shared != null)
+		{
+			return shared.contains(o);
+		}
+		return probe(o, plan);
+	}
+
+	/**
+	 * Provides each element of the result of this node exactly once to the
+	 * provided sink using the evaluated result of this node if it is a common
+	 * sub-expression.
+	 * @param sink the consumer of this node's elements
+	 * @param plan the current plan
+	 */
+	final void forEach(Consumer<? super E> sink, Plan<E> plan)
+	{
+		Collection<E> shared = plan.shared(this);
+		if (shared != null)
+		{
+			for (E elt : shared)
+			{
+				sink.accept(elt);
+			}
+		}
+		else
+		{
+			enumerate(sink, plan);
+		}
+	}
+
+	/**
+	 * Creates a list containing two expressions
+	 * @param <E> the type of elements in the sets of the expressions
+	 * @param first the first expression
+	 * @param second the second expression
+	 * @return a new list containing first and second
+	 */
+	private static <E> List<SetExpr<E>> pair(SetExpr<E> first, SetExpr<E> second)
+	{
+		List<SetExpr<E>> list = new ArrayList<SetExpr<E>>(2);
+		list.add(first);
+		list.add(second);
+		return list;
+	}
+
+	// -------------------------------------------------------------------------
+	// Plan
+	// -------------------------------------------------------------------------
+
+	/**
+	 * State of the planning and evaluation of an expression: identifiers of
+	 * operand sets, canonical keys of nodes, occurrences of each node and
+	 * evaluated common sub-expressions.
+	 * @param <E> the type of elements in the sets of the expression
+	 */
+	static class Plan<E>
+	{
+		/**
+		 * Identifiers of operand sets (by identity)
+		 */
+		final Map<Set<?>, Integer> ids = new IdentityHashMap<Set<?>, Integer>();
+
+		/**
+		 * Canonical keys of already visited nodes
+		 */
+		private final Map<SetExpr<E>, String> keys = new IdentityHashMap<SetExpr<E>, String>();
+
+		/**
+		 * Number of occurrences of each canonical key in the planned expression
+		 */
+		private final Map<String, Integer> occurrences = new HashMap<String, Integer>();
+
+		/**
+		 * Evaluated common sub-expressions
+		 */
+		private final Map<String, Collection<E>> evaluated = new HashMap<String, Collection<E>>();
+
+		/**
+		 * Cheapness of the own probes of each canonical key
+		 * @see SetExpr#cheapProbe(Plan)
+		 */
+		private final Map<String, Boolean> cheapProbes = new HashMap<String, Boolean>();
+
+		/**
+		 * Identifier of an operand set
+		 * @param set the operand set
+		 * @return the unique identifier of this set within this plan
+		 */
+		int id(Set<?> set)
+		{
+			Integer id = ids.get(set);
+			if (id == null)
+			{
+				id = Integer.valueOf(ids.size());
+				ids.put(set, id);
+			}
+			return id.intValue();
+		}
+
+		/**
+		 * Canonical key of a node
+		 * @param node the node
+		 * @return the canonical key of this node (computed only once)
+		 */
+		String key(SetExpr<E> node)
+		{
+			String key = keys.get(node);
+			if (key == null)
+			{
+				key = node.key(this);
+				keys.put(node, key);
+			}
+			return key;
+		}
+
+		/**
+		 * Checks if a node can be probed cheaply: either because it is an
+		 * evaluated common sub-expression or because its own probes are cheap
+		 * @param node the node
+		 * @return true if probing this node is cheap
+		 */
+		boolean cheapProbe(SetExpr<E> node)
+		{
+			return ownCheapProbe(node) || memoized(node);
+		}
+
+		/**
+		 * Checks if the own probes of a node are cheap (computed only once)
+		 * @param node the node
+		 * @return true if probing this node without evaluating it is cheap
+		 * @see SetExpr#cheapProbe(Plan)
+		 */
+		private boolean ownCheapProbe(SetExpr<E> node)
+		{
+			String key = key(node);
+			Boolean cheap = cheapProbes.get(key);
+			if (cheap == null)
+			{
+				cheap = Boolean.valueOf(node.cheapProbe(this));
+				cheapProbes.put(key, cheap);
+			}
+			return cheap.booleanValue();
+		}
+
+		/**
+		 * Checks if a node is a common sub-expression which should be
+		 * evaluated only once
+		 * @param node the node
+		 * @return true if the node occurs several times in the planned
+		 * expression and can't be probed cheaply through its operands
+		 */
+		private boolean memoized(SetExpr<E> node)
+		{
+			if (node instanceof Operand)
+			{
+				return false;
+			}
+			Integer count = occurrences.get(key(node));
+			if (count == null || count.intValue() < 2)
+			{
+				return false;
+			}
+			return !ownCheapProbe(node);
+		}
+
+		/**
+		 * Evaluated result of a node if this node is a common sub-expression
+		 * @param node the node
+		 * @return the evaluated result of the node if it occurs several times
+		 * in the planned expression and can't be probed cheaply, or null
+		 * otherwise
+		 * @implNote The planner assumes a probe into an evaluated common
+		 * sub-expression costs a single hashed lookup: results are therefore
+		 * evaluated into a {@link LinkedHashSet} (which also keeps the
+		 * enumeration order) rather than into an {@link ArraySet} whose
+		 * probes are linear scans. Nodes whose operands are all cheap to
+		 * probe ({@link SetCapability#FAST_CONTAINS} or at most
+		 * {@link SetExpr#SmallOperandThreshold} elements) are not evaluated
+		 * since probing them directly costs about as much as a hashed lookup
+		 * without the memory of an evaluated copy.
+		 */
+		Collection<E> shared(SetExpr<E> node)
+		{
+			if (!memoized(node))
+			{
+				return null;
+			}
+			String key = key(node);
+			Collection<E> result = evaluated.get(key);
+			if (result == null)
+			{
+				LinkedHashSet<E> content = new LinkedHashSet<E>();
+				node.enumerate(content::add, this);
+				result = content;
+				evaluated.put(key, result);
+			}
+			return result;
+		}
+
+		/**
+		 * Evaluates a planned expression into a new set
+		 * @param planned the planned expression
+		 * @return a new {@link ArraySet} containing all elements of the
+		 * expression
+		 * @implNote As nodes provide each element exactly once, elements are
+		 * buffered and bulk loaded without searching for duplicates, instead
+		 * of being added one by one with a linear scan each.
+		 */
+		ArraySet<E> execute(SetExpr<E> planned)
+		{
+			count(planned);
+			List<E> content = new ArrayList<E>();
+			planned.forEach(content::add, this);
+			return new ArraySet<E>(content.toArray(), true);
+		}
+
+		/**
+		 * Counts the occurrences of each node in an expression
+		 * @param node the root of the expression
+		 */
+		private void count(SetExpr<E> node)
+		{
+			String key = key(node);
+			Integer count = occurrences.get(key);
+			occurrences.put(key, Integer.valueOf(count == null ? 1 : count.intValue() + 1));
+			if (count == null)
+			{
+				for (SetExpr<E> child : node.children())
+				{
+					count(child);
+				}
+			}
+		}
+	}
+
+	// -------------------------------------------------------------------------
+	// Nodes
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Leaf node: an operand set
+	 * @param <E> the type of elements in the set
+	 */
+	private static class Operand<E> extends SetExpr<E>
+	{
+		/**
+		 * The operand set
+		 */
+		private final Set<E> set;
+
+		/**
+		 * Constructor
+		 * @param set the operand set
+		 */
+		public Operand(Set<E> set)
+		{
+			this.set = set;
+		}
+
+		@Override
+		public int estimatedSize()
+		{
+			return set.size();
+		}
+
+		@Override
+		SetExpr<E> normalize(Plan<E> plan)
+		{
+			plan.id(set);
+			return this;
+		}
+
+		@Override
+		String key(Plan<E> plan)
+		{
+			return "#" + plan.id(set);
+		}
+
+		@Override
+		boolean probe(Object o, Plan<E> plan)
+		{
+			return set.contains(o);
+		}
+
+		@Override
+		void enumerate(Consumer<? super E> sink, Plan<E> plan)
+		{
+			for (E elt : set)
+			{
+				sink.accept(elt);
+			}
+		}
+
+		@Override
+		List<SetExpr<E>> children()
+		{
+			return Collections.emptyList();
+		}
+
+		@Override
+		boolean cheapProbe(Plan<E> plan)
+		{
+			return set.hasCapability(SetCapability.FAST_CONTAINS) || set.size() <= SmallOperandThreshold;
+		}
+
+		@Override
+		public String toString()
+		{
+			return set.getClass().getSimpleName() + "[" + set.size() + "]";
+		}
+	}
+
+	/**
+	 * N-ary commutative and associative operation node
+	 * @param <E> the type of elements in the sets
+	 */
+	private static abstract class NaryOperation<E> extends SetExpr<E>
+	{
+		/**
+		 * The operands of this operation
+		 */
+		protected final List<SetExpr<E>> operands;
+
+		/**
+		 * Constructor
+		 * @param operands the operands of this operation
+		 */
+		protected NaryOperation(List<SetExpr<E>> operands)
+		{
+			this.operands = operands;
+		}
+
+		/**
+		 * Creates a new node of the same operation
+		 * @param newOperands the operands of the new node
+		 * @return a new node of the same operation
+		 */
+		protected abstract NaryOperation<E> create(List<SetExpr<E>> newOperands);
+
+		/**
+		 * Ordering of operands for evaluation
+		 * @return the comparator of operands
+		 */
+		protected abstract Comparator<SetExpr<E>> order();
+
+		/**
+		 * Operation symbol
+		 * @return the symbol of this operation
+		 */
+		protected abstract String symbol();
+
+		@Override
+		SetExpr<E> normalize(Plan<E> plan)
+		{
+			List<SetExpr<E>> flat = new ArrayList<SetExpr<E>>();
+			java.util.Set<String> seen = new java.util.HashSet<String>();
+			for (SetExpr<E> operand : operands)
+			{
+				SetExpr<E> normalized = operand.normalize(plan);
+				if (normalized.getClass() == getClass())
+				{
+					// Associativity: operands are already normalized
+					for (SetExpr<E> nested : ((NaryOperation<E>) normalized).operands)
+					{
+						if (seen.add(plan.key(nested)))
+						{
+							flat.add(nested);
+						}
+					}
+				}
+				else if (seen.add(plan.key(normalized)))
+				{
+					flat.add(normalized);
+				}
+			}
+			if (flat.size() == 1)
+			{
+				return flat.get(0);
+			}
+			Collections.sort(flat, order());
+			return create(flat);
+		}
+
+		@Override
+		String key(Plan<E> plan)
+		{
+			// Commutativity: the key doesn't depend on operands order
+			List<String> operandKeys = new ArrayList<String>(operands.size());
+			for (SetExpr<E> operand : operands)
+			{
+				operandKeys.add(plan.key(operand));
+			}
+			Collections.sort(operandKeys);
+			return symbol() + operandKeys;
+		}
+
+		@Override
+		List<SetExpr<E>> children()
+		{
+			return operands;
+		}
+
+		@Override
+		public String toString()
+		{
+			StringBuilder builder = new StringBuilder();
+			builder.append('(');
+			for (int i = 0; i < operands.size(); i++)
+			{
+				if (i > 0)
+				{
+					builder.append(' ');
+					builder.append(symbol());
+					builder.append(' ');
+				}
+				builder.append(operands.get(i));
+			}
+			builder.append(')');
+			return builder.toString();
+		}
+	}
+
+	/**
+	 * Union node: evaluated by enumerating each operand and skipping the
+	 * elements already provided by previous operands.
+	 * @param <E> the type of elements in the sets
+	 */
+	private static class Union<E> extends NaryOperation<E>
+	{
+		/**
+		 * Constructor
+		 * @param operands the operands of this union
+		 */
+		public Union(List<SetExpr<E>> operands)
+		{
+			super(operands);
+		}
+
+		@Override
+		protected NaryOperation<E> create(List<SetExpr<E>> newOperands)
+		{
+			return new Union<E>(newOperands);
+		}
+
+		@Override
+		protected Comparator<SetExpr<E>> order()
+		{
+			// Largest operands first: they are enumerated without any probe
+			return (a, b) -> Integer.compare(b.estimatedSize(), a.estimatedSize());
+		}
+
+		@Override
+		protected String symbol()
+		{
+			return "⋃";
+		}
+
+		@Override
+		public int estimatedSize()
+		{
+			long sum = 0;
+			for (SetExpr<E> operand : operands)
+			{
+				sum += operand.estimatedSize();
+			}
+			return (int) Math.min(sum, Integer.MAX_VALUE);
+		}
+
+		@Override
+		boolean probe(Object o, Plan<E> plan)
+		{
+			for (SetExpr<E> operand : operands)
+			{
+				if (operand.contains(o, plan)) return true;
+			}
+			return false;
+		}
+
+		@Override
+		void enumerate(Consumer<? super E> sink, Plan<E> plan)
+		{
+			for (int i = 0; i < operands.size(); i++)
+			{
+				final int current = i;
+				operands.get(i).forEach(elt -> {
+					for (int j = 0; j < current; j++)
+					{
+						if (operands.get(j).contains(elt, plan)) return;
+					}
+					sink.accept(elt);
+				}, plan);
+			}
+		}
+	}
+
+	/**
+	 * Intersection node: evaluated by enumerating the smallest operand and
+	 * probing the other ones by increasing cardinality.
+	 * @param <E> the type of elements in the sets
+	 */
+	private static class Intersection<E> extends NaryOperation<E>
+	{
+		/**
+		 * Constructor
+		 * @param operands the operands of this intersection
+		 */
+		public Intersection(List<SetExpr<E>> operands)
+		{
+			super(operands);
+		}
+
+		@Override
+		protected NaryOperation<E> create(List<SetExpr<E>> newOperands)
+		{
+			return new Intersection<E>(newOperands);
+		}
+
+		@Override
+		protected Comparator<SetExpr<E>> order()
+		{
+			// Smallest operands first: the first one is enumerated
+			return (a, b) -> Integer.compare(a.estimatedSize(), b.estimatedSize());
+		}
+
+		@Override
+		protected String symbol()
+		{
+			return "⋂";
+		}
+
+		@Override
+		public int estimatedSize()
+		{
+			int min = Integer.MAX_VALUE;
+			for (SetExpr<E> operand : operands)
+			{
+				min = Math.min(min, operand.estimatedSize());
+			}
+			return min;
+		}
+
+		@Override
+		boolean probe(Object o, Plan<E> plan)
+		{
+			for (SetExpr<E> operand : operands)
+			{
+				if (!operand.contains(o, plan)) return false;
+			}
+			return true;
+		}
+
+		@Override
+		void enumerate(Consumer<? super E> sink, Plan<E> plan)
+		{
+			operands.get(0).forEach(elt -> {
+				for (int i = 1; i < operands.size(); i++)
+				{
+					if (!operands.get(i).contains(elt, plan)) return;
+				}
+				sink.accept(elt);
+			}, plan);
+		}
+	}
+
+	/**
+	 * Difference node: evaluated by enumerating the left operand and probing
+	 * the right operand.
+	 * @param <E> the type of elements in the sets
+	 */
+	private static class Difference<E> extends SetExpr<E>
+	{
+		/**
+		 * The left operand
+		 */
+		private final SetExpr<E> left;
+
+		/**
+		 * The right operand
+		 */
+		private final SetExpr<E> right;
+
+		/**
+		 * Constructor
+		 * @param left the left operand
+		 * @param right the right operand
+		 */
+		public Difference(SetExpr<E> left, SetExpr<E> right)
+		{
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		public int estimatedSize()
+		{
+			return left.estimatedSize();
+		}
+
+		@Override
+		SetExpr<E> normalize(Plan<E> plan)
+		{
+			SetExpr<E> normalizedLeft = left.normalize(plan);
+			SetExpr<E> normalizedRight = right.normalize(plan);
+			if (normalizedLeft instanceof Difference)
+			{
+				// (A - B) - C = A - (B ⋃ C)
+				Difference<E> nested = (Difference<E>) normalizedLeft;
+				return new Difference<E>(nested.left,
+				                         new Union<E>(pair(nested.right, normalizedRight)).normalize(plan));
+			}
+			return new Difference<E>(normalizedLeft, normalizedRight);
+		}
+
+		@Override
+		String key(Plan<E> plan)
+		{
+			return "-[" + plan.key(left) + ", " + plan.key(right) + "]";
+		}
+
+		@Override
+		boolean probe(Object o, Plan<E> plan)
+		{
+			return left.contains(o, plan) && !right.contains(o, plan);
+		}
+
+		@Override
+		void enumerate(Consumer<? super E> sink, Plan<E> plan)
+		{
+			left.forEach(elt -> {
+				if (!right.contains(elt, plan))
+				{
+					sink.accept(elt);
+				}
+			}, plan);
+		}
+
+		@Override
+		List<SetExpr<E>> children()
+		{
+			return pair(left, right);
+		}
+
+		@Override
+		public String toString()
+		{
+			return "(" + left + " - " + right + ")";
+		}
+	}
+}
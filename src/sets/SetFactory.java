@@ -18,7 +18,8 @@ public class SetFactory<E>
 	 * @param setType type of set to create: either
 	 * {@link sets.ArraySet} or
 	 * ...
-	 * @param content the optional content to add to the created set.
+	 * @param content the optional content to add to the created set (bulk
+	 * loaded through the copy constructor of the required type of set).
 	 * @return a new set of the required type and content
 	 * @throws SecurityException if the security manager doesn't allow access to
 	 * the required constructor
@@ -68,4 +69,53 @@ public class SetFactory<E>
 
 		return (Set<E>) instance;
 	}
+
+	/**
+	 * Factory to create a new typed set based on required type, the class of
+	 * its elements and an optional content
+	 * @param <E> The type of content for the created set
+	 * @param setType type of set to create (which shall provide typed
+	 * constructors with a {@link Class} first argument)
+	 * @param elementsClass the class of elements of the created set
+	 * @param content the optional content to add to the created set
+	 * @return a new set of the required type, elements class and content
+	 * @throws SecurityException if the security manager doesn't allow access to
+	 * the required constructor
+	 * @throws NoSuchMethodException if the required constructor doesn't exit
+	 * @throws IllegalArgumentException if the number of arguments provided to
+	 * the constructor is wrong
+	 * @throws InstantiationException if the required class is abstract
+	 * @throws IllegalAccessException if the required constructor is
+	 * inaccessible
+	 * @throws InvocationTargetException if the invoked constructor raises an
+	 * exception
+	 * @see Set#elementsClass()
+	 */
+	@SuppressWarnings("unchecked")	// because of (Set<E>) instance cast
+	public static <E> Set<E> getSet(Class<? extends Set<E>> setType,
+	                                Class<E> elementsClass,
+	                                Collection<? extends E> content) throws
+		SecurityException,
+	    NoSuchMethodException,
+	    IllegalArgumentException,
+	    InstantiationException,
+	    IllegalAccessException,
+	    InvocationTargetException
+	{
+		Constructor<? extends Set<E>> constructor = null;
+		Object instance = null;
+
+		if (content == null)
+		{
+			constructor = setType.getConstructor(Class.class);
+			instance = constructor.newInstance(elementsClass);
+		}
+		else
+		{
+			constructor = setType.getConstructor(Class.class, Collection.class);
+			instance = constructor.newInstance(elementsClass, content);
+		}
+
+		return (Set<E>) instance;
+	}
 }
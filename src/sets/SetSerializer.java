@@ -0,0 +1,306 @@
+package sets;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact binary serialization of sets (or collections) whose elements are
+ * encoded by an {@link ElementCodec}.
+ * A serialized set has the following format (big endian):
+ * - magic number {@link #Magic} (4 bytes)
+ * - format version {@link #Version} (1 byte)
+ * - flags (1 byte): {@link #DistinctFlag} if elements are known to be
+ * distinct
+ * - codec name ({@link DataOutput#writeUTF(String)})
+ * - number of elements (4 bytes)
+ * - elements encoded by the codec
+ * - CRC32 checksum of all previous bytes (4 bytes)
+ * Sets are streamed element by element in both directions, and read sets are
+ * bulk loaded into {@link ArraySet}s without searching duplicates when the
+ * stream is flagged as distinct.
+ * @author David Roussel and Aiglon Doré
+ * @param <E> the type of elements in serialized sets
+ */
+public class SetSerializer<E>
+{
+	/**
+	 * Magic number starting serialized sets: "SETS" in ASCII
+	 */
+	public static final int Magic = 0x53455453;
+
+	/**
+	 * Current version of the format
+	 */
+	public static final byte Version = 1;
+
+	/**
+	 * Flag indicating the serialized elements are distinct
+	 */
+	public static final byte DistinctFlag = 0x01;
+
+	/**
+	 * Maximum capacity allocated before reading elements so that a corrupted
+	 * number of elements doesn't allocate a huge array before the stream
+	 * runs out of elements
+	 */
+	private static final int MaxInitialCapacity = 1 << 16;
+
+	/**
+	 * Size of the buffer used when writing to streams and channels
+	 */
+	private static final int BufferSize = 8192;
+
+	/**
+	 * The codec of elements
+	 */
+	private final ElementCodec<E> codec;
+
+	/**
+	 * Valued constructor
+	 * @param codec the codec of elements
+	 * @throws NullPointerException if the provided codec is null
+	 */
+	public SetSerializer(ElementCodec<E> codec) throws NullPointerException
+	{
+		if (codec == null) throw new NullPointerException();
+		this.codec = codec;
+	}
+
+	/**
+	 * The codec of elements
+	 * @return the codec of elements of this serializer
+	 */
+	public ElementCodec<E> codec()
+	{
+		return codec;
+	}
+
+	// -------------------------------------------------------------------------
+	// Writing
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Writes a collection of elements to an output stream (which is neither
+	 * flushed nor closed)
+	 * @param elements the elements to write which are flagged as distinct
+	 * if elements is a {@link Set}
+	 * @param out the destination of the serialized elements
+	 * @throws IOException if an I/O error occurs
+	 * @throws NullPointerException if elements, out or one of the elements
+	 * is null
+	 */
+	public void write(Collection<? extends E> elements, OutputStream out)
+		throws IOException, NullPointerException
+	{
+		if (elements == null || out == null) throw new NullPointerException();
+		CRC32 checksum = new CRC32();
+		DataOutputStream data =
+		    new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(out, checksum), BufferSize));
+		data.writeInt(Magic);
+		data.writeByte(Version);
+		data.writeByte(elements instanceof Set ? DistinctFlag : 0);
+		data.writeUTF(codec.name());
+		int count = elements.size();
+		data.writeInt(count);
+		int written = 0;
+		for (E elt : elements)
+		{
+			if (elt == null) throw new NullPointerException();
+			codec.write(elt, data);
+			written++;
+		}
+		if (written != count)
+		{
+			throw new IOException("collection modified while being written");
+		}
+		data.flush();
+		new DataOutputStream(out).writeInt((int) checksum.getValue());
+	}
+
+	/**
+	 * Writes a collection of elements to a data output
+	 * @param elements the elements to write
+	 * @param out the destination of the serialized elements
+	 * @throws IOException if an I/O error occurs
+	 * @throws NullPointerException if elements, out or one of the elements
+	 * is null
+	 * @see #write(Collection, OutputStream)
+	 */
+	public void write(Collection<? extends E> elements, DataOutput out)
+		throws IOException, NullPointerException
+	{
+		if (out == null) throw new NullPointerException();
+		write(elements, new OutputStream()
+		{
+			@Override
+			public void write(int b) throws IOException
+			{
+				out.write(b);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException
+			{
+				out.write(b, off, len);
+			}
+		});
+	}
+
+	/**
+	 * Writes a collection of elements to a channel
+	 * @param elements the elements to write
+	 * @param channel the destination of the serialized elements
+	 * @throws IOException if an I/O error occurs
+	 * @throws NullPointerException if elements, channel or one of the
+	 * elements is null
+	 * @see #write(Collection, OutputStream)
+	 */
+	public void write(Collection<? extends E> elements, WritableByteChannel channel)
+		throws IOException, NullPointerException
+	{
+		if (channel == null) throw new NullPointerException();
+		write(elements, Channels.newOutputStream(channel));
+	}
+
+	/**
+	 * Writes a collection of elements to a buffer
+	 * @param elements the elements to write
+	 * @param buffer the destination of the serialized elements whose
+	 * position is advanced past the serialized elements
+	 * @throws IOException if an I/O error occurs
+	 * @throws NullPointerException if elements, buffer or one of the
+	 * elements is null
+	 * @throws java.nio.BufferOverflowException if the serialized elements
+	 * don't fit in the remaining bytes of buffer
+	 * @see #write(Collection, OutputStream)
+	 */
+	public void write(Collection<? extends E> elements, ByteBuffer buffer)
+		throws IOException, NullPointerException
+	{
+		if (buffer == null) throw new NullPointerException();
+		write(elements, ByteBufferStreams.outputStream(buffer));
+	}
+
+	// -------------------------------------------------------------------------
+	// Reading
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Reads a set from an input stream. Exactly the bytes of the serialized
+	 * set are consumed from in, so several sets (or other data) can be read
+	 * in sequence from the same stream.
+	 * @param in the source of the serialized set
+	 * @return a new {@link ArraySet} typed with the
+	 * {@link ElementCodec#elementsClass()} of the codec and containing the
+	 * elements read
+	 * @throws IOException if an I/O error occurs
+	 * @throws EOFException if in ends before the end of the serialized set
+	 * @throws StreamCorruptedException if the magic number, the version, the
+	 * codec name or the checksum don't match
+	 * @throws NullPointerException if in is null
+	 */
+	public ArraySet<E> read(InputStream in) throws IOException, NullPointerException
+	{
+		if (in == null) throw new NullPointerException();
+		CRC32 checksum = new CRC32();
+		DataInputStream data = new DataInputStream(new CheckedInputStream(in, checksum));
+		int magic = data.readInt();
+		if (magic != Magic)
+		{
+			throw new StreamCorruptedException("bad magic number " + Integer.toHexString(magic));
+		}
+		byte version = data.readByte();
+		if (version != Version)
+		{
+			throw new StreamCorruptedException("unsupported version " + version);
+		}
+		boolean distinct = (data.readByte() & DistinctFlag) != 0;
+		String name = data.readUTF();
+		if (!name.equals(codec.name()))
+		{
+			throw new StreamCorruptedException("codec " + name + " expected instead of " + codec.name());
+		}
+		int count = data.readInt();
+		if (count < 0)
+		{
+			throw new StreamCorruptedException("negative number of elements " + count);
+		}
+		Object[] content = new Object[Math.min(count, MaxInitialCapacity)];
+		for (int i = 0; i < count; i++)
+		{
+			if (i == content.length)
+			{
+				content = Arrays.copyOf(content, (int) Math.min(count, 2L * content.length));
+			}
+			content[i] = codec.read(data);
+		}
+		int expected = (int) checksum.getValue();
+		int actual = new DataInputStream(in).readInt();
+		if (actual != expected)
+		{
+			throw new StreamCorruptedException("checksum mismatch");
+		}
+		ArraySet<E> result = new ArraySet<E>(content, distinct);
+		result.setElementsClass(codec.elementsClass());
+		return result;
+	}
+
+	/**
+	 * Reads a set from a data input
+	 * @param in the source of the serialized set
+	 * @return a new {@link ArraySet} containing the elements read
+	 * @throws IOException if an I/O error occurs
+	 * @throws NullPointerException if in is null
+	 * @see #read(InputStream)
+	 */
+	public ArraySet<E> read(DataInput in) throws IOException, NullPointerException
+	{
+		if (in == null) throw new NullPointerException();
+		return read(new InputStream()
+		{
+			@Override
+			public int read() throws IOException
+			{
+				try
+				{
+					return in.readUnsignedByte();
+				}
+				catch (EOFException e)
+				{
+					return -1;
+				}
+			}
+		});
+	}
+
+	/**
+	 * Reads a set from a buffer
+	 * @param buffer the source of the serialized set whose position is
+	 * advanced past the serialized set
+	 * @return a new {@link ArraySet} containing the elements read
+	 * @throws IOException if an I/O error occurs
+	 * @throws NullPointerException if buffer is null
+	 * @see #read(InputStream)
+	 */
+	public ArraySet<E> read(ByteBuffer buffer) throws IOException, NullPointerException
+	{
+		if (buffer == null) throw new NullPointerException();
+		return read(ByteBufferStreams.inputStream(buffer));
+	}
+}
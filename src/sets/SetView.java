@@ -0,0 +1,495 @@
+package sets;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * Read-only and non-materializing {@link Set} representing the result of a
+ * set operation between two operand sets.
+ * - {@link #contains(Object)} is delegated to the operands
+ * - iteration is computed on the fly from the operands' iterators
+ * - {@link #materialize()} explicitly builds a concrete set containing the
+ * current content of this view.
+ * Views are live: any modification of the operands is reflected in the view.
+ * @author David Roussel and Aiglon Doré
+ * @param <E> the type of elements in this set
+ */
+public abstract class SetView<E> extends AbstractSet<E>
+{
+	/**
+	 * The first operand of this view
+	 */
+	protected final Set<E> first;
+
+	/**
+	 * The second operand of this view
+	 */
+	protected final Set<E> second;
+
+	/**
+	 * Valued constructor
+	 * @param first the first operand of this view
+	 * @param second the second operand of this view
+	 * @throws NullPointerException if any of the provided sets are null
+	 */
+	protected SetView(Set<E> first, Set<E> second) throws NullPointerException
+	{
+		if (first == null || second == null) throw new NullPointerException();
+		this.first = first;
+		this.second = second;
+	}
+
+	// -------------------------------------------------------------------------
+	// Views factories
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Lazy union view of two sets: first ⋃ second
+	 * @param <E> the type of elements in all sets
+	 * @param first the first set
+	 * @param second the second set
+	 * @return a read-only view containing all elements of first and second
+	 * @throws NullPointerException if any of the provided sets are null
+	 */
+	public static <E> SetView<E> union(Set<E> first, Set<E> second) throws NullPointerException
+	{
+		return new UnionView<E>(first, second);
+	}
+
+	/**
+	 * Lazy intersection view of two sets: first ⋂ second
+	 * @param <E> the type of elements in all sets
+	 * @param first the first set
+	 * @param second the second set
+	 * @return a read-only view containing all common elements of first and
+	 * second
+	 * @throws NullPointerException if any of the provided sets are null
+	 */
+	public static <E> SetView<E> intersection(Set<E> first, Set<E> second) throws NullPointerException
+	{
+		return new IntersectionView<E>(first, second);
+	}
+
+	/**
+	 * Lazy difference view of two sets: first - second
+	 * @param <E> the type of elements in all sets
+	 * @param first the first set
+	 * @param second the second set
+	 * @return a read-only view containing all elements of first which are not
+	 * part of second
+	 * @throws NullPointerException if any of the provided sets are null
+	 */
+	public static <E> SetView<E> difference(Set<E> first, Set<E> second) throws NullPointerException
+	{
+		return new DifferenceView<E>(first, second);
+	}
+
+	// -------------------------------------------------------------------------
+	// SetView<E> specific methods
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Builds a concrete set containing the current content of this view
+	 * @return a new {@link ArraySet} containing all elements of this view
+	 * @implNote As the iterator of a view provides distinct elements, they are
+	 * collected in an array adopted by the new set without searching for
+	 * duplicates, which is O(n) instead of O(n²) with successive calls to
+	 * {@link ArraySet#add(Object)}, and sizes the new set to the actual
+	 * number of elements of this view.
+	 */
+	public ArraySet<E> materialize()
+	{
+		List<E> content = new ArrayList<E>();
+		for (Iterator<E> it = iterator(); it.hasNext();)
+		{
+			content.add(it.next());
+		}
+		return new ArraySet<E>(content.toArray(), true);
+	}
+
+	// -------------------------------------------------------------------------
+	// Collection<E> overrides
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Views are read-only
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public boolean add(E e) throws UnsupportedOperationException
+	{
+		throw new UnsupportedOperationException("read-only set view");
+	}
+
+	/**
+	 * Views are read-only
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public boolean addAll(Collection<? extends E> c) throws UnsupportedOperationException
+	{
+		throw new UnsupportedOperationException("read-only set view");
+	}
+
+	/**
+	 * Views are read-only
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void clear() throws UnsupportedOperationException
+	{
+		throw new UnsupportedOperationException("read-only set view");
+	}
+
+	/**
+	 * Views are read-only
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public boolean remove(Object o) throws UnsupportedOperationException
+	{
+		throw new UnsupportedOperationException("read-only set view");
+	}
+
+	/**
+	 * Views are read-only
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public boolean removeAll(Collection<?> c) throws UnsupportedOperationException
+	{
+		throw new UnsupportedOperationException("read-only set view");
+	}
+
+	/**
+	 * Views are read-only
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public boolean retainAll(Collection<?> c) throws UnsupportedOperationException
+	{
+		throw new UnsupportedOperationException("read-only set view");
+	}
+
+	/**
+	 * Creates a {@link Spliterator} over the elements of this view
+	 * @return a new spliterator reporting {@link Spliterator#DISTINCT} and
+	 * {@link Spliterator#NONNULL} but not {@link Spliterator#SIZED} since the
+	 * size of a view is only known after a full iteration
+	 */
+	@Override
+	public Spliterator<E> spliterator()
+	{
+		return Spliterators.spliteratorUnknownSize(iterator(),
+		                                           Spliterator.DISTINCT | Spliterator.NONNULL);
+	}
+
+	/**
+	 * Conversion to array of objects
+	 * @return a new Object[] array containing all the elements of this view
+	 */
+	@Override
+	public Object[] toArray()
+	{
+		return materialize().toArray();
+	}
+
+	/**
+	 * Conversion to array of elements of type T
+	 * @return an array of T containing all elements of this view
+	 * @throws NullPointerException if the specified array is null
+	 * @see ArraySet#toArray(Object[])
+	 */
+	@Override
+	public <T> T[] toArray(T[] a) throws NullPointerException
+	{
+		return materialize().toArray(a);
+	}
+
+	// -------------------------------------------------------------------------
+	// Object overrides
+	// -------------------------------------------------------------------------
+
+	/**
+	 * A copy of a view is its materialization
+	 * @return a new {@link ArraySet} containing all elements of this view
+	 * @see #materialize()
+	 */
+	@Override
+	public Object clone()
+	{
+		return materialize();
+	}
+
+	// -------------------------------------------------------------------------
+	// Set<E> overrides
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Union of this view with another set: this ⋃ other
+	 * @param other the set to create union with
+	 * @return a new {@link ArraySet} containing the union of elements of this
+	 * view and other set
+	 * @throws NullPointerException if the provided set is null
+	 */
+	@Override
+	public Set<E> union(Set<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		Set<E> result = materialize();
+		result.addAll(other);
+		return result;
+	}
+
+	/**
+	 * Intersection of this view with another set: this ⋂ other
+	 * @param other the set to create intersection with
+	 * @return a new {@link ArraySet} containing the intersection of elements
+	 * of this view and the other set
+	 * @throws NullPointerException if the provided set is null
+	 */
+	@Override
+	public Set<E> intersection(Set<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		return new IntersectionView<E>(this, other).materialize();
+	}
+
+	/**
+	 * Difference of this view with another set: this - other
+	 * @param other the set to create difference with
+	 * @return a new {@link ArraySet} containing the difference of elements
+	 * of this view and the other set
+	 * @throws NullPointerException if the provided set is null
+	 */
+	@Override
+	public Set<E> difference(Set<E> other) throws NullPointerException
+	{
+		if (other == null) throw new NullPointerException();
+		return new DifferenceView<E>(this, other).materialize();
+	}
+
+	// -------------------------------------------------------------------------
+	// Views implementations
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Lazy union view: first ⋃ second.
+	 * Iterates over all elements of first then over the elements of second
+	 * which are not part of first.
+	 * @param <E> the type of elements in this set
+	 */
+	private static class UnionView<E> extends SetView<E>
+	{
+		/**
+		 * Valued constructor
+		 * @param first the first operand of this view
+		 * @param second the second operand of this view
+		 */
+		public UnionView(Set<E> first, Set<E> second)
+		{
+			super(first, second);
+		}
+
+		@Override
+		public boolean contains(Object o)
+		{
+			if (o == null) return false;
+			return first.contains(o) || second.contains(o);
+		}
+
+		@Override
+		public Iterator<E> iterator()
+		{
+			return new ConcatIterator<E>(first.iterator(),
+			                             new FilterIterator<E>(second, first, false));
+		}
+	}
+
+	/**
+	 * Lazy intersection view: first ⋂ second.
+	 * Iterates over the smallest operand and probes the other one.
+	 * @param <E> the type of elements in this set
+	 */
+	private static class IntersectionView<E> extends SetView<E>
+	{
+		/**
+		 * Valued constructor
+		 * @param first the first operand of this view
+		 * @param second the second operand of this view
+		 */
+		public IntersectionView(Set<E> first, Set<E> second)
+		{
+			super(first, second);
+		}
+
+		@Override
+		public boolean contains(Object o)
+		{
+			if (o == null) return false;
+			return first.contains(o) && second.contains(o);
+		}
+
+		@Override
+		public Iterator<E> iterator()
+		{
+			if (!SetCapability.iterateFirst(first, second))
+			{
+				return new FilterIterator<E>(second, first, true);
+			}
+			return new FilterIterator<E>(first, second, true);
+		}
+	}
+
+	/**
+	 * Lazy difference view: first - second.
+	 * Iterates over first and skips elements found in second.
+	 * @param <E> the type of elements in this set
+	 */
+	private static class DifferenceView<E> extends SetView<E>
+	{
+		/**
+		 * Valued constructor
+		 * @param first the first operand of this view
+		 * @param second the second operand of this view
+		 */
+		public DifferenceView(Set<E> first, Set<E> second)
+		{
+			super(first, second);
+		}
+
+		@Override
+		public boolean contains(Object o)
+		{
+			if (o == null) return false;
+			return first.contains(o) && !second.contains(o);
+		}
+
+		@Override
+		public Iterator<E> iterator()
+		{
+			return new FilterIterator<E>(first, second, false);
+		}
+	}
+
+	// -------------------------------------------------------------------------
+	// Internal iterator classes
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Read-only iterator over the elements of a source set which are (or are
+	 * not) part of a probe set.
+	 * @param <F> The type of element to iterate over
+	 */
+	private static class FilterIterator<F> implements Iterator<F>
+	{
+		/**
+		 * Iterator over the source set
+		 */
+		private final Iterator<F> source;
+
+		/**
+		 * The set to probe each element of the source with
+		 */
+		private final Set<F> probe;
+
+		/**
+		 * Whether elements should be part of {@link #probe} (true) or not
+		 * (false) to be provided by this iterator
+		 */
+		private final boolean retain;
+
+		/**
+		 * The next element to provide or null if it has not been searched yet
+		 */
+		private F nextElement;
+
+		/**
+		 * Constructor
+		 * @param source the set to iterate over
+		 * @param probe the set to probe each element of the source with
+		 * @param retain whether elements should be part of probe (true) or not
+		 * (false) to be provided by this iterator
+		 */
+		public FilterIterator(Set<F> source, Set<F> probe, boolean retain)
+		{
+			this.source = source.iterator();
+			this.probe = probe;
+			this.retain = retain;
+			nextElement = null;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			while (nextElement == null && source.hasNext())
+			{
+				F elt = source.next();
+				if (probe.contains(elt) == retain)
+				{
+					nextElement = elt;
+				}
+			}
+			return nextElement != null;
+		}
+
+		@Override
+		public F next() throws NoSuchElementException
+		{
+			if (!hasNext()) throw new NoSuchElementException();
+			F elt = nextElement;
+			nextElement = null;
+			return elt;
+		}
+	}
+
+	/**
+	 * Read-only iterator over the elements of a first iterator followed by
+	 * the elements of a second iterator
+	 * @param <F> The type of element to iterate over
+	 */
+	private static class ConcatIterator<F> implements Iterator<F>
+	{
+		/**
+		 * The first iterator to exhaust
+		 */
+		private final Iterator<F> head;
+
+		/**
+		 * The iterator to use when {@link #head} is exhausted
+		 */
+		private final Iterator<F> tail;
+
+		/**
+		 * Constructor
+		 * @param head the first iterator to exhaust
+		 * @param tail the iterator to use when head is exhausted
+		 */
+		public ConcatIterator(Iterator<F> head, Iterator<F> tail)
+		{
+			this.head = head;
+			this.tail = tail;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			return head.hasNext() || tail.hasNext();
+		}
+
+		@Override
+		public F next() throws NoSuchElementException
+		{
+			if (head.hasNext())
+			{
+				return head.next();
+			}
+			return tail.next();
+		}
+	}
+}
@@ -9,7 +9,33 @@
  * 		- {@link sets.AbstractSet#toString()}
  * - {@link sets.ArraySet}: A concrete implementation of {@link sets.Set} using
  * an internal array to store elements.
+ * - {@link sets.GrowthPolicy}: The capacity management policy (fixed
+ * increment, geometric, capped geometric or custom) of {@link sets.ArraySet}.
+ * - {@link sets.SelfOrganization}: The self-organizing lookup strategies
+ * (move to front or transpose) of {@link sets.ArraySet} for skewed workloads.
+ * - {@link sets.SegmentedArraySet}: A concrete implementation of
+ * {@link sets.Set} using fixed size chunks of elements so that growing never
+ * copies the elements already stored.
  * - {@link sets.ArrayListSet}: A concrete implementation of {@link sets.Set} using
  * an internal {@link java.util.ArrayList} to store elements.
+ * - {@link sets.SetCapability}: The performance capabilities (known size,
+ * fast contains, known hash) advertised by sets so that default methods and
+ * set algebra choose which operand to iterate and which one to probe.
+ * - {@link sets.SetSerializer}: A compact, versioned and checksummed binary
+ * format for sets whose elements are encoded by an {@link sets.ElementCodec}.
+ * - {@link sets.MappedSet}: A read-only {@link sets.Set} backed by a
+ * memory-mapped file whose hash table is searched without deserializing
+ * elements.
+ * - {@link sets.DurableSet}: A thread safe {@link sets.Set} wrapping an
+ * in-memory set whose modifications are group committed to a write-ahead log
+ * replayed on open, and which is checkpointed into a snapshot according to a
+ * {@link sets.CheckpointPolicy} to keep the log short.
+ * - {@link sets.ExternalSetAlgebra}: An external-memory engine sorting sets
+ * larger than the heap into disk-backed sorted runs (spilled and merged with
+ * k-way merges) and computing set operations by merging runs.
+ * - {@link sets.SetView}: A read-only and non-materializing {@link sets.Set}
+ * representing the union, intersection or difference of two sets.
+ * - {@link sets.SetExpr}: A set expression which is planned (reordered and
+ * rewritten) before being evaluated with as few intermediate sets as possible.
  */
 package sets;
@@ -1,6 +1,7 @@
 package tests;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
@@ -9,6 +10,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
 import org.junit.jupiter.api.AfterAll;
@@ -19,6 +21,8 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import sets.ArraySet;
+import sets.GrowthPolicy;
+import sets.SelfOrganization;
 
 /**
  * Test class for {@link ArraySet}
@@ -619,4 +623,521 @@ class ArraySetTest
 		             testName + " unexpected capacity");
 
 	}
+
+	/**
+	 * Test method for {@link sets.ArraySet#intersectWith(sets.Set)},
+	 * {@link sets.ArraySet#differenceWith(sets.Set)} and
+	 * {@link sets.ArraySet#unionWith(sets.Set)} capacity management.
+	 * @implNote Dependencies:
+	 * - {@link ArraySet#size()}
+	 * - {@link ArraySet#capacity()}
+	 */
+	@Test
+	@DisplayName("in place operations capacity")
+	final void testInPlaceOperationsCapacity()
+	{
+		String testName = new String("in place operations capacity");
+		System.out.println(testName);
+
+		int requiredCapacity = elements1.length;
+		int requiredIncrement = 3;
+		set = new ArraySet<>(requiredCapacity, requiredIncrement);
+		set.addAll(Arrays.asList(elements1));
+		ArraySet<String> other = new ArraySet<>(Arrays.asList(elements2));
+
+		/*
+		 * Removing elements reuses the current capacity
+		 */
+		set.intersectWith(other);
+		assertEquals(requiredCapacity,
+		             set.capacity(),
+		             testName + " unexpected capacity after intersectWith");
+		set.differenceWith(other);
+		assertEquals(0,
+		             set.size(),
+		             testName + " unexpected size after differenceWith");
+		assertEquals(requiredCapacity,
+		             set.capacity(),
+		             testName + " unexpected capacity after differenceWith");
+
+		/*
+		 * Adding elements grows by capacity increment
+		 */
+		set.unionWith(other);
+		assertEquals(requiredCapacity,
+		             set.capacity(),
+		             testName + " unexpected capacity after unionWith");
+		set.unionWith(new ArraySet<>(Arrays.asList(elements3[0])));
+		assertEquals(requiredCapacity + requiredIncrement,
+		             set.capacity(),
+		             testName + " unexpected capacity after growing unionWith");
+	}
+
+	/**
+	 * Test method for {@link sets.ArraySet#ArraySet(java.util.Collection)}
+	 * with a large collection containing many duplicates.
+	 * @implNote Dependencies:
+	 * - {@link ArraySet#size()}
+	 * - {@link ArraySet#capacity()}
+	 * - {@link ArraySet#iterator()}
+	 */
+	@Test
+	@DisplayName("ArraySet<E>(large Collection<E>)")
+	final void testArraySetLargeCollection()
+	{
+		String testName = new String("ArraySet(large Collection)");
+		System.out.println(testName);
+
+		int nbDistinct = 10000;
+		List<String> largeList = new ArrayList<>();
+		for (int i = 0; i < nbDistinct; i++)
+		{
+			largeList.add(String.valueOf(i));
+			largeList.add(String.valueOf(i / 2));
+		}
+
+		set = new ArraySet<>(largeList);
+		assertEquals(nbDistinct,
+		             set.size(),
+		             testName + " unexpected size");
+		assertEquals(largeList.size(),
+		             set.capacity(),
+		             testName + " unexpected capacity");
+
+		/*
+		 * First occurrence order is preserved
+		 */
+		int expected = 0;
+		for (String elt : set)
+		{
+			assertEquals(String.valueOf(expected++),
+			             elt,
+			             testName + " unexpected order");
+		}
+
+		@SuppressWarnings("unchecked")
+		ArraySet<String> cloned = (ArraySet<String>) set.clone();
+		assertEquals(set.size(),
+		             cloned.size(),
+		             testName + " unexpected clone size");
+		assertEquals(set,
+		             cloned,
+		             testName + " clone has not same content");
+
+		/*
+		 * Collection whose toArray() provides an array of a subtype
+		 */
+		List<String> typedList = new ArrayList<String>(Arrays.asList("a", "b"))
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public Object[] toArray()
+			{
+				return toArray(new String[size()]);
+			}
+		};
+		ArraySet<Object> objects = new ArraySet<>(typedList);
+		assertTrue(objects.add(Integer.valueOf(1)), testName + " add in set built from String[] failed");
+		assertEquals(3, objects.size(), testName + " unexpected size of set built from String[]");
+	}
+
+	/**
+	 * Test method for {@link sets.ArraySet#removeAll(java.util.Collection)},
+	 * {@link sets.ArraySet#retainAll(java.util.Collection)} and
+	 * {@link sets.ArraySet#removeIf(java.util.function.Predicate)} compaction.
+	 * @implNote Dependencies:
+	 * - {@link ArraySet#size()}
+	 * - {@link ArraySet#capacity()}
+	 * - {@link ArraySet#iterator()}
+	 */
+	@Test
+	@DisplayName("removeAll(Collection), retainAll(Collection), removeIf(Predicate)")
+	final void testBulkRemovals()
+	{
+		String testName = new String("bulk removals");
+		System.out.println(testName);
+
+		int nbElements = 2000;
+		List<String> content = new ArrayList<>();
+		List<String> odds = new ArrayList<>();
+		for (int i = 0; i < nbElements; i++)
+		{
+			content.add(String.valueOf(i));
+			if (i % 2 == 1)
+			{
+				odds.add(String.valueOf(i));
+			}
+		}
+		set = new ArraySet<>(content);
+		int capacity = set.capacity();
+
+		/*
+		 * Remaining elements keep their order and capacity is unchanged
+		 */
+		assertTrue(set.removeAll(odds), testName + " removeAll failed");
+		assertEquals(nbElements / 2,
+		             set.size(),
+		             testName + " unexpected size after removeAll");
+		assertEquals(capacity,
+		             set.capacity(),
+		             testName + " unexpected capacity after removeAll");
+		int expected = 0;
+		for (String elt : set)
+		{
+			assertEquals(String.valueOf(expected),
+			             elt,
+			             testName + " unexpected order after removeAll");
+			expected += 2;
+		}
+
+		assertTrue(set.removeIf(elt -> Integer.parseInt(elt) % 4 == 0),
+		           testName + " removeIf failed");
+		assertEquals(nbElements / 4,
+		             set.size(),
+		             testName + " unexpected size after removeIf");
+		assertTrue(set.retainAll(Arrays.asList("2", "6", "7")),
+		           testName + " retainAll failed");
+		assertEquals(Arrays.asList("2", "6"),
+		             Arrays.asList(set.toArray()),
+		             testName + " unexpected content after retainAll");
+
+		/*
+		 * A throwing predicate leaves the set consistent
+		 */
+		assertThrows(IllegalStateException.class,
+		             () -> {
+		            	 set.removeIf(elt -> {
+		            		 if (elt.equals("6")) throw new IllegalStateException();
+		            		 return true;
+		            	 });
+		             },
+		             testName + " removeIf didn't propagate exception");
+		assertEquals(Arrays.asList("6"),
+		             Arrays.asList(set.toArray()),
+		             testName + " unexpected content after throwing removeIf");
+
+		/*
+		 * A throwing contains in symmetricDifferenceWith leaves the set
+		 * consistent: elements which have not been evaluated yet are kept
+		 */
+		set = new ArraySet<>(Arrays.asList("1", "2", "3"));
+		ArraySet<String> other = new ArraySet<>(Arrays.asList("2", "4"))
+		{
+			@Override
+			public boolean contains(Object o)
+			{
+				if ("3".equals(o)) throw new IllegalStateException();
+				return super.contains(o);
+			}
+		};
+		assertThrows(IllegalStateException.class,
+		             () -> {
+		            	 set.symmetricDifferenceWith(other);
+		             },
+		             testName + " symmetricDifferenceWith didn't propagate exception");
+		assertEquals(Arrays.asList("1", "3", "4"),
+		             Arrays.asList(set.toArray()),
+		             testName + " unexpected content after throwing symmetricDifferenceWith");
+		ArraySet<String> expectedSet = new ArraySet<>(Arrays.asList("1", "3", "4"));
+		assertEquals(expectedSet.hashCode(),
+		             set.hashCode(),
+		             testName + " unexpected hash code after throwing symmetricDifferenceWith");
+		assertTrue(set.contains("4") && !set.contains("2"),
+		           testName + " unexpected lookups after throwing symmetricDifferenceWith");
+	}
+
+	/**
+	 * Test method for {@link sets.ArraySet#ArraySet(int, int, boolean)} in
+	 * unordered mode: removals move the last element into the removed slot.
+	 * @implNote Dependencies:
+	 * - {@link ArraySet#add(Object)}
+	 * - {@link ArraySet#remove(Object)}
+	 * - {@link ArraySet#iterator()}
+	 * - {@link ArraySet#capacity()}
+	 */
+	@Test
+	@DisplayName("ArraySet(int, int, false) unordered removals")
+	final void testUnorderedRemovals()
+	{
+		String testName = new String("ArraySet(int, int, false)");
+		System.out.println(testName);
+
+		set = new ArraySet<>(4, 4, false);
+		assertFalse(set.isOrdered(), testName + " unexpected ordering mode");
+		assertTrue(new ArraySet<String>().isOrdered(),
+		           testName + " default ordering mode should be ordered");
+		for (int i = 0; i < 6; i++)
+		{
+			set.add(String.valueOf(i));
+		}
+		assertEquals(8, set.capacity(), testName + " unexpected capacity");
+
+		/*
+		 * Last element moves into the removed slot
+		 */
+		assertTrue(set.remove("1"), testName + " remove failed");
+		assertEquals(Arrays.asList("0", "5", "2", "3", "4"),
+		             Arrays.asList(set.toArray()),
+		             testName + " unexpected content after remove");
+		assertTrue(set.remove("4"), testName + " remove last failed");
+		assertEquals(Arrays.asList("0", "5", "2", "3"),
+		             Arrays.asList(set.toArray()),
+		             testName + " unexpected content after remove last");
+
+		/*
+		 * Iterator removal still visits every element exactly once
+		 */
+		List<String> visited = new ArrayList<>();
+		for (Iterator<String> it = set.iterator(); it.hasNext();)
+		{
+			String elt = it.next();
+			visited.add(elt);
+			if (!elt.equals("2"))
+			{
+				it.remove();
+			}
+		}
+		visited.sort(null);
+		assertEquals(Arrays.asList("0", "2", "3", "5"),
+		             visited,
+		             testName + " iterator didn't visit all elements");
+		assertEquals(Arrays.asList("2"),
+		             Arrays.asList(set.toArray()),
+		             testName + " unexpected content after iterator removals");
+
+		/*
+		 * Ordering mode is kept by clone
+		 */
+		@SuppressWarnings("unchecked")
+		ArraySet<String> cloned = (ArraySet<String>) set.clone();
+		assertFalse(cloned.isOrdered(), testName + " clone lost ordering mode");
+		assertEquals(set.capacity(), cloned.capacity(), testName + " unexpected clone capacity");
+	}
+
+	/**
+	 * Test method for {@link sets.ArraySet#ArraySet(int, GrowthPolicy)},
+	 * {@link sets.ArraySet#ensureCapacity(int)} and shrinking after removals
+	 * with {@link GrowthPolicy#geometric(double)},
+	 * {@link GrowthPolicy#cappedGeometric(double, int)} and custom policies.
+	 * @implNote Dependencies:
+	 * - {@link ArraySet#add(Object)}
+	 * - {@link ArraySet#remove(Object)}
+	 * - {@link ArraySet#capacity()}
+	 */
+	@Test
+	@DisplayName("ArraySet(int, GrowthPolicy), ensureCapacity(int)")
+	final void testGrowthPolicies()
+	{
+		String testName = new String("ArraySet(int, GrowthPolicy)");
+		System.out.println(testName);
+
+		assertThrows(IllegalArgumentException.class,
+		             () -> {
+		            	 GrowthPolicy.geometric(1.0);
+		             },
+		             testName + " geometric(1.0) didn't throw");
+		assertThrows(NullPointerException.class,
+		             () -> {
+		            	 set = new ArraySet<>(4, (GrowthPolicy) null);
+		             },
+		             testName + " null policy didn't throw");
+
+		/*
+		 * Geometric growth: 4 -> 8 -> 16 -> 32 ...
+		 */
+		set = new ArraySet<>(4, GrowthPolicy.geometric(2.0));
+		int nbElements = 100;
+		for (int i = 0; i < nbElements; i++)
+		{
+			set.add(String.valueOf(i));
+		}
+		assertEquals(128, set.capacity(), testName + " unexpected geometric capacity");
+
+		/*
+		 * Geometric shrink with hysteresis: capacity is trimmed to 2 × size
+		 * when it exceeds 3 × size
+		 */
+		for (int i = 0; i < 57; i++)
+		{
+			set.remove(String.valueOf(i));
+		}
+		assertEquals(128, set.capacity(), testName + " premature shrink");
+		set.remove(String.valueOf(57));
+		assertEquals(84, set.capacity(), testName + " unexpected shrunk capacity");
+		for (int i = 58; i < nbElements; i++)
+		{
+			set.remove(String.valueOf(i));
+		}
+		assertEquals(ArraySet.DefaultCapacity,
+		             set.capacity(),
+		             testName + " capacity shrunk below default capacity");
+
+		/*
+		 * Capped geometric growth
+		 */
+		set = new ArraySet<>(100, GrowthPolicy.cappedGeometric(2.0, 50));
+		set.ensureCapacity(101);
+		assertEquals(150, set.capacity(), testName + " unexpected capped capacity");
+		set.ensureCapacity(10);
+		assertEquals(150, set.capacity(), testName + " ensureCapacity shouldn't shrink");
+		set.ensureCapacity(1000);
+		assertEquals(1000, set.capacity(), testName + " unexpected ensured capacity");
+
+		/*
+		 * Custom policy and default fixed policy which never shrinks
+		 */
+		set = new ArraySet<>(3, (oldCapacity, minCapacity) -> minCapacity);
+		for (int i = 0; i < 5; i++)
+		{
+			set.add(String.valueOf(i));
+		}
+		assertEquals(5, set.capacity(), testName + " unexpected custom capacity");
+		set = new ArraySet<>(10, 5);
+		set.ensureCapacity(11);
+		assertEquals(15, set.capacity(), testName + " unexpected fixed capacity");
+		set.add("0");
+		set.remove("0");
+		assertEquals(15, set.capacity(), testName + " fixed policy shouldn't shrink");
+	}
+
+	/**
+	 * Test method for {@link sets.ArraySet#contains(Object)} (which compares
+	 * cached hash codes before calling equals) against a plain scan calling
+	 * equals on every element, with composite keys sharing a long prefix:
+	 * both lookups should always agree.
+	 * @implNote Dependencies:
+	 * - {@link ArraySet#ArraySet(java.util.Collection)}
+	 * - {@link ArraySet#toArray()}
+	 */
+	@Test
+	@DisplayName("contains(Object) vs equals scan")
+	final void testContainsEqualsScan()
+	{
+		String testName = new String("contains(Object) vs equals scan");
+		System.out.println(testName);
+
+		int nbElements = 1000;
+		int nbProbes = 2000;
+		String prefix = "customer/region-042/account-";
+		List<String> content = new ArrayList<>();
+		for (int i = 0; i < nbElements; i++)
+		{
+			content.add(prefix + (i * 2));
+		}
+		set = new ArraySet<>(content);
+		Object[] elements = set.toArray();
+		String[] probes = new String[nbProbes];
+		for (int i = 0; i < nbProbes; i++)
+		{
+			// Half of the probes are part of the set, the other half are not
+			probes[i] = new String(prefix + i);
+		}
+
+		for (int i = 0; i < nbProbes; i++)
+		{
+			boolean hashed = set.contains(probes[i]);
+			boolean scanned = false;
+			for (Object elt : elements)
+			{
+				if (elt.equals(probes[i]))
+				{
+					scanned = true;
+					break;
+				}
+			}
+			assertEquals(scanned,
+			             hashed,
+			             testName + " contains(" + probes[i] + ") differs from equals scan");
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link sets.ArraySet#setSelfOrganization(SelfOrganization)} with a
+	 * skewed lookup workload: lookups results and iteration order should not
+	 * be affected, including after removals.
+	 * @implNote Dependencies:
+	 * - {@link ArraySet#contains(Object)}
+	 * - {@link ArraySet#remove(Object)}
+	 * - {@link ArraySet#toArray()}
+	 */
+	@Test
+	@DisplayName("setSelfOrganization(SelfOrganization)")
+	final void testSelfOrganization()
+	{
+		String testName = new String("setSelfOrganization(SelfOrganization)");
+		System.out.println(testName);
+
+		int nbElements = 1000;
+		int nbLookups = 20000;
+		List<String> content = new ArrayList<>();
+		for (int i = 0; i < nbElements; i++)
+		{
+			content.add("key-" + i);
+		}
+		/*
+		 * Skewed workload: hot elements are at the end of the set
+		 */
+		String[] lookups = new String[nbLookups];
+		boolean[] expected = new boolean[nbLookups];
+		for (int i = 0; i < nbLookups; i++)
+		{
+			lookups[i] = "key-" + (i % 10 == 0 ? i % (2 * nbElements) : nbElements - 1 - (i % 4));
+			expected[i] = content.contains(lookups[i]);
+		}
+
+		for (SelfOrganization organization : SelfOrganization.values())
+		{
+			for (boolean ordered : new boolean[] {true, false})
+			{
+				set = new ArraySet<>(nbElements, 10, ordered);
+				set.addAll(content);
+				set.setSelfOrganization(organization);
+				assertEquals(organization,
+				             set.selfOrganization(),
+				             testName + " unexpected organization");
+
+				boolean[] found = new boolean[nbLookups];
+				long start = System.nanoTime();
+				for (int i = 0; i < nbLookups; i++)
+				{
+					found[i] = set.contains(lookups[i]);
+				}
+				long duration = System.nanoTime() - start;
+				for (int i = 0; i < nbLookups; i++)
+				{
+					assertEquals(expected[i],
+					             found[i],
+					             testName + " " + organization + " contains(" + lookups[i] + ") failed");
+				}
+				if (ordered)
+				{
+					System.out.println("\t" + testName + " " + organization + " = "
+					    + (duration / (double) nbLookups) + " ns");
+				}
+				assertEquals(content,
+				             Arrays.asList(set.toArray()),
+				             testName + " " + organization + " iteration order changed");
+
+				/*
+				 * Removals move elements referenced by hot slots
+				 */
+				assertTrue(set.remove("key-0"), testName + " remove failed");
+				assertTrue(set.remove("key-" + (nbElements - 2)), testName + " remove failed");
+				assertTrue(set.contains("key-" + (nbElements - 1)), testName + " contains after remove failed");
+				assertTrue(set.contains("key-" + (nbElements - 3)), testName + " contains after remove failed");
+				assertFalse(set.contains("key-" + (nbElements - 2)), testName + " removed element found");
+				set.removeIf(elt -> elt.endsWith("1"));
+				assertFalse(set.contains("key-" + (nbElements - 9)), testName + " removed element found");
+				assertTrue(set.contains("key-" + (nbElements - 3)), testName + " contains after removeIf failed");
+			}
+		}
+
+		assertThrows(NullPointerException.class,
+		             () -> {
+		            	 set.setSelfOrganization(null);
+		             },
+		             testName + " null organization didn't throw");
+	}
 }
@@ -0,0 +1,645 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import sets.ArrayListSet;
+import sets.ArraySet;
+import sets.CheckpointPolicy;
+import sets.DurableSet;
+import sets.ElementCodec;
+import sets.Set;
+
+/**
+ * Test class for {@link DurableSet}
+ * @author davidroussel
+ */
+@DisplayName("DurableSet<E> tests")
+class DurableSetTest
+{
+	/**
+	 * Temporary directory containing logs
+	 */
+	@TempDir
+	Path directory;
+
+	/**
+	 * Setup before all tests
+	 */
+	@BeforeAll
+	static void setUpBeforeClass()
+	{
+		System.out.println("-------------------------------------------------");
+		System.out.println("DurableSet tests");
+		System.out.println("-------------------------------------------------");
+	}
+
+	/**
+	 * Tear down after all tests
+	 */
+	@AfterAll
+	static void tearDownAfterClass()
+	{
+		System.out.println("-------------------------------------------------");
+		System.out.println("DurableSet test end");
+		System.out.println("-------------------------------------------------");
+	}
+
+	/**
+	 * Test method for modifications replayed by
+	 * {@link DurableSet#open(Set, ElementCodec, Path)}
+	 * @throws IOException if the log can't be written or read
+	 */
+	@Test
+	@DisplayName("open(Set, ElementCodec, Path) replays modifications")
+	final void testReplay() throws IOException
+	{
+		String testName = new String("open(Set, ElementCodec, Path) replays modifications");
+		System.out.println(testName);
+
+		Path path = directory.resolve("strings.log");
+		Set<String> expected;
+		try (DurableSet<String> set = DurableSet.open(new ArraySet<>(), ElementCodec.Strings, path))
+		{
+			assertEquals(0, set.recoveredRecords(), testName + " unexpected records in new log");
+			assertTrue(set.add("a"), testName + " a not added");
+			assertFalse(set.add("a"), testName + " a added twice");
+			set.addAll(Arrays.asList("b", "c", "d", "e"));
+			assertTrue(set.remove("b"), testName + " b not removed");
+			set.clear();
+			set.addAll(Arrays.asList("f", "g", "h"));
+			set.removeAll(Arrays.asList("g", "z"));
+			set.retainAll(Arrays.asList("f", "h", "i"));
+			Iterator<String> it = set.iterator();
+			it.next();
+			it.remove();
+			set.symmetricDifferenceWith(new ArraySet<>(Arrays.asList("h", "j")));
+			expected = new ArraySet<>(set);
+			assertEquals(String.class, set.elementsClass(), testName + " set is not typed");
+		}
+
+		try (DurableSet<String> set = DurableSet.open(new ArrayListSet<>(), ElementCodec.Strings, path))
+		{
+			assertEquals(expected, set, testName + " unexpected replayed content");
+			assertEquals(14, set.recoveredRecords(), testName + " unexpected number of replayed records");
+			assertEquals(0, set.discardedBytes(), testName + " unexpected discarded bytes");
+			assertNotNull(set.recoveryTime(), testName + " no recovery time");
+			set.add("k");
+			expected.add("k");
+		}
+		try (DurableSet<String> set = DurableSet.open(new ArraySet<>(), ElementCodec.Strings, path))
+		{
+			assertEquals(expected, set, testName + " unexpected content after reopening");
+		}
+
+		assertThrows(IllegalArgumentException.class,
+		             () -> {
+		            	 DurableSet.open(new ArraySet<>(Arrays.asList("x")), ElementCodec.Strings, path);
+		             },
+		             testName + " non empty set didn't throw");
+		assertThrows(StreamCorruptedException.class,
+		             () -> {
+		            	 DurableSet.open(new ArraySet<>(), ElementCodec.Integers, path);
+		             },
+		             testName + " codec mismatch not detected");
+	}
+
+	/**
+	 * Test method for the recovery of a log whose last record is incomplete
+	 * @throws IOException if the log can't be written or read
+	 */
+	@Test
+	@DisplayName("recovery of a torn log")
+	final void testTornLog() throws IOException
+	{
+		String testName = new String("recovery of a torn log");
+		System.out.println(testName);
+
+		Path path = directory.resolve("ints.log");
+		try (DurableSet<Integer> set = DurableSet.open(new ArraySet<>(), ElementCodec.Integers, path))
+		{
+			set.addAll(Arrays.asList(1, 2, 3));
+		}
+		long complete = Files.size(path);
+		try (DurableSet<Integer> set = DurableSet.open(new ArraySet<>(), ElementCodec.Integers, path))
+		{
+			set.add(4);
+		}
+		// last record of 13 bytes partially written
+		byte[] bytes = Files.readAllBytes(path);
+		Files.write(path, Arrays.copyOf(bytes, bytes.length - 5), StandardOpenOption.TRUNCATE_EXISTING);
+
+		try (DurableSet<Integer> set = DurableSet.open(new ArraySet<>(), ElementCodec.Integers, path))
+		{
+			assertEquals(new ArraySet<>(Arrays.asList(1, 2, 3)), set, testName + " unexpected recovered content");
+			assertEquals(3, set.recoveredRecords(), testName + " unexpected number of replayed records");
+			assertEquals(8, set.discardedBytes(), testName + " unexpected discarded bytes");
+			assertEquals(complete, Files.size(path), testName + " log not truncated");
+			set.add(5);
+		}
+
+		// corrupted checksum of the last record
+		bytes = Files.readAllBytes(path);
+		bytes[bytes.length - 1] ^= 0x01;
+		Files.write(path, bytes, StandardOpenOption.TRUNCATE_EXISTING);
+		try (DurableSet<Integer> set = DurableSet.open(new ArraySet<>(), ElementCodec.Integers, path))
+		{
+			assertEquals(new ArraySet<>(Arrays.asList(1, 2, 3)), set, testName + " corrupted record replayed");
+			assertEquals(13, set.discardedBytes(), testName + " unexpected discarded bytes");
+		}
+	}
+
+	/**
+	 * Test method for concurrent modifications sharing group commits
+	 * @throws Exception if the log can't be written or read or if a thread
+	 * failed
+	 */
+	@Test
+	@DisplayName("concurrent modifications")
+	final void testConcurrentModifications() throws Exception
+	{
+		String testName = new String("concurrent modifications");
+		System.out.println(testName);
+
+		Path path = directory.resolve("concurrent.log");
+		int threads = 8;
+		int perThread = 50;
+		List<Throwable> errors = new ArrayList<>();
+		try (DurableSet<Integer> set = DurableSet.open(new ArraySet<>(), ElementCodec.Integers, path))
+		{
+			List<Thread> workers = new ArrayList<>();
+			for (int t = 0; t < threads; t++)
+			{
+				int base = t * perThread;
+				Thread worker = new Thread(() -> {
+					for (int i = 0; i < perThread; i++)
+					{
+						set.add(base + i);
+					}
+				});
+				worker.setUncaughtExceptionHandler((thread, e) -> {
+					synchronized (errors)
+					{
+						errors.add(e);
+					}
+				});
+				workers.add(worker);
+				worker.start();
+			}
+			for (Thread worker : workers)
+			{
+				worker.join();
+			}
+			assertTrue(errors.isEmpty(), testName + " unexpected errors " + errors);
+			assertEquals(threads * perThread, set.size(), testName + " unexpected size");
+		}
+
+		try (DurableSet<Integer> set = DurableSet.open(new ArraySet<>(), ElementCodec.Integers, path))
+		{
+			assertEquals(threads * perThread, set.size(), testName + " unexpected replayed size");
+			for (int i = 0; i < threads * perThread; i++)
+			{
+				assertTrue(set.contains(i), testName + " missing " + i);
+			}
+		}
+	}
+
+	/**
+	 * Codec of strings failing to encode "bad"
+	 */
+	private static final ElementCodec<String> FailingStrings = new ElementCodec<String>()
+	{
+		@Override
+		public String name()
+		{
+			return ElementCodec.Strings.name();
+		}
+
+		@Override
+		public Class<String> elementsClass()
+		{
+			return String.class;
+		}
+
+		@Override
+		public void write(String element, DataOutput out) throws IOException
+		{
+			if (element.equals("bad"))
+			{
+				throw new IOException("can't encode " + element);
+			}
+			ElementCodec.Strings.write(element, out);
+		}
+
+		@Override
+		public String read(DataInput in) throws IOException
+		{
+			return ElementCodec.Strings.read(in);
+		}
+	};
+
+	/**
+	 * Test method for modifications failing before being logged, which should
+	 * leave the set unmodified
+	 * @throws IOException if the log can't be written or read
+	 */
+	@Test
+	@DisplayName("failed modifications")
+	final void testFailedModifications() throws IOException
+	{
+		String testName = new String("failed modifications");
+		System.out.println(testName);
+
+		Path path = directory.resolve("failing.log");
+		Set<String> expected = new ArraySet<>(Arrays.asList("a", "b"));
+		try (DurableSet<String> set = DurableSet.open(new ArraySet<>(), FailingStrings, path))
+		{
+			set.addAll(expected);
+			long logSize = set.logSize();
+			assertThrows(UncheckedIOException.class, () -> set.add("bad"), testName + " unencodable add didn't throw");
+			assertThrows(NullPointerException.class,
+			             () -> set.addAll(Arrays.asList("c", "d", null)),
+			             testName + " addAll with null didn't throw");
+			assertThrows(UncheckedIOException.class,
+			             () -> set.addAll(Arrays.asList("c", "bad")),
+			             testName + " unencodable addAll didn't throw");
+			assertThrows(UncheckedIOException.class,
+			             () -> set.symmetricDifferenceWith(new ArraySet<>(Arrays.asList("a", "bad"))),
+			             testName + " unencodable symmetricDifferenceWith didn't throw");
+			assertEquals(expected, set, testName + " set modified by failed modifications");
+			assertEquals(logSize, set.logSize(), testName + " failed modifications logged");
+			assertEquals(logSize, Files.size(path), testName + " records not durable");
+		}
+		try (DurableSet<String> set = DurableSet.open(new ArraySet<>(), FailingStrings, path))
+		{
+			assertEquals(expected, set, testName + " unexpected replayed content");
+		}
+	}
+
+	/**
+	 * Starts a thread performing bulk operations of a durable set with another
+	 * one
+	 * @param set the set to modify
+	 * @param other the other set provided to the operations
+	 * @param iterations the number of iterations
+	 * @param errors the list collecting errors thrown by the thread
+	 * @return the started thread
+	 */
+	private static Thread crossWorker(DurableSet<Integer> set,
+	                                  DurableSet<Integer> other,
+	                                  int iterations,
+	                                  List<Throwable> errors)
+	{
+		Thread worker = new Thread(() -> {
+			for (int i = 0; i < iterations; i++)
+			{
+				set.symmetricDifferenceWith(other);
+				set.retainAll(other);
+				set.addAll(other);
+				set.removeAll(other);
+				set.add(i);
+				set.union(other);
+			}
+		});
+		worker.setDaemon(true);
+		worker.setUncaughtExceptionHandler((thread, e) -> {
+			synchronized (errors)
+			{
+				errors.add(e);
+			}
+		});
+		worker.start();
+		return worker;
+	}
+
+	/**
+	 * Test method for concurrent bulk operations between two durable sets in
+	 * both directions, which should not deadlock
+	 * @throws Exception if the logs can't be written or read or if a thread
+	 * failed
+	 */
+	@Test
+	@DisplayName("concurrent operations between durable sets")
+	final void testCrossOperations() throws Exception
+	{
+		String testName = new String("concurrent operations between durable sets");
+		System.out.println(testName);
+
+		int iterations = 100;
+		List<Throwable> errors = new ArrayList<>();
+		DurableSet<Integer> first = DurableSet.open(new ArraySet<>(), ElementCodec.Integers, directory.resolve("first.log"));
+		DurableSet<Integer> second = DurableSet.open(new ArraySet<>(), ElementCodec.Integers, directory.resolve("second.log"));
+		first.addAll(Arrays.asList(1, 2, 3, 4));
+		second.addAll(Arrays.asList(3, 4, 5, 6));
+		List<Thread> workers = Arrays.asList(crossWorker(first, second, iterations, errors),
+		                                     crossWorker(second, first, iterations, errors));
+		for (Thread worker : workers)
+		{
+			worker.join(60000);
+			// sets are not closed on deadlock since closing would block
+			assertFalse(worker.isAlive(), testName + " deadlock");
+		}
+		first.close();
+		second.close();
+		assertTrue(errors.isEmpty(), testName + " unexpected errors " + errors);
+	}
+
+	/**
+	 * Test method for {@link DurableSet#checkpoint()}
+	 * @throws IOException if the log or the snapshot can't be written or read
+	 */
+	@Test
+	@DisplayName("checkpoint()")
+	final void testCheckpoint() throws IOException
+	{
+		String testName = new String("checkpoint()");
+		System.out.println(testName);
+
+		Path path = directory.resolve("checkpointed.log");
+		Set<Integer> expected = new ArraySet<>();
+		byte[] uncompacted;
+		try (DurableSet<Integer> set = DurableSet.open(new ArraySet<>(), ElementCodec.Integers, path))
+		{
+			long emptySize = set.logSize();
+			for (int i = 0; i < 100; i++)
+			{
+				set.add(i);
+			}
+			set.removeAll(Arrays.asList(10, 20, 30));
+			uncompacted = Files.readAllBytes(path);
+			assertTrue(set.checkpoint(), testName + " no checkpoint performed");
+			assertFalse(set.checkpoint(), testName + " checkpoint of an unmodified set");
+			assertEquals(1, set.checkpoints(), testName + " unexpected number of checkpoints");
+			assertTrue(Files.exists(set.snapshotPath()), testName + " no snapshot");
+			assertEquals(emptySize, set.logSize(), testName + " log not compacted");
+			assertEquals(emptySize, Files.size(path), testName + " log file not compacted");
+			set.add(100);
+			set.remove(0);
+			expected.addAll(set);
+		}
+
+		try (DurableSet<Integer> set = DurableSet.open(new ArraySet<>(), ElementCodec.Integers, path))
+		{
+			assertEquals(expected, set, testName + " unexpected content after checkpoint");
+			assertEquals(2, set.recoveredRecords(), testName + " covered records replayed");
+		}
+
+		// crash after the snapshot has been written but before the log has
+		// been compacted
+		Files.write(path, uncompacted);
+		try (DurableSet<Integer> set = DurableSet.open(new ArraySet<>(), ElementCodec.Integers, path))
+		{
+			expected.remove(100);
+			expected.add(0);
+			assertEquals(expected, set, testName + " unexpected content with uncompacted log");
+			assertEquals(0, set.recoveredRecords(), testName + " covered records replayed");
+			long uncompactedSize = set.logSize();
+			assertTrue(set.checkpoint(), testName + " uncompacted log not compacted");
+			assertTrue(set.logSize() < uncompactedSize, testName + " log not compacted");
+		}
+
+		assertThrows(IllegalStateException.class,
+		             () -> {
+		            	 DurableSet<Integer> set = DurableSet.open(new ArraySet<>(), ElementCodec.Integers, path);
+		            	 set.close();
+		            	 set.checkpoint();
+		             },
+		             testName + " closed set checkpointed");
+	}
+
+	/**
+	 * Test method for {@link DurableSet#checkpoint()} when compacting the log
+	 * fails, either before replacing the log (in which case compaction
+	 * should be retried by the next checkpoint) or when syncing the
+	 * replacement of the log (in which case the set should refuse
+	 * modifications which could be lost)
+	 * @throws Exception if the log or the snapshot can't be written or read
+	 * or if the simulated failure can't be set
+	 */
+	@Test
+	@DisplayName("checkpoint() with failed compaction")
+	final void testFailedCompaction() throws Exception
+	{
+		String testName = new String("checkpoint() with failed compaction");
+		System.out.println(testName);
+
+		Path path = directory.resolve("compacted.log");
+		Path temp = directory.resolve("compacted.log.tmp");
+		Set<Integer> expected = new ArraySet<>(Arrays.asList(1, 2, 3));
+		try (DurableSet<Integer> set = DurableSet.open(new ArraySet<>(), ElementCodec.Integers, path))
+		{
+			long emptySize = set.logSize();
+			set.addAll(expected);
+			// the new log can't be written over a directory
+			Files.createDirectory(temp);
+			assertThrows(IOException.class, set::checkpoint, testName + " failed compaction didn't throw");
+			assertTrue(Files.exists(set.snapshotPath()), testName + " no snapshot");
+			assertTrue(set.logSize() > emptySize, testName + " log compacted");
+			Files.delete(temp);
+			assertTrue(set.checkpoint(), testName + " compaction not retried");
+			assertEquals(emptySize, set.logSize(), testName + " log not compacted");
+			assertFalse(set.checkpoint(), testName + " checkpoint of a compacted log");
+			set.add(4);
+		}
+
+		Field failingSync = Class.forName("sets.FileSync").getDeclaredField("failingSync");
+		failingSync.setAccessible(true);
+		DurableSet<Integer> set = DurableSet.open(new ArraySet<>(), ElementCodec.Integers, path);
+		set.add(5);
+		expected.addAll(Arrays.asList(4, 5));
+		failingSync.set(null, path);
+		try
+		{
+			assertThrows(IOException.class, set::checkpoint, testName + " failed directory sync didn't throw");
+		}
+		finally
+		{
+			failingSync.set(null, null);
+		}
+		assertThrows(UncheckedIOException.class, () -> set.add(6), testName + " modification after failed sync");
+		assertEquals(expected, set, testName + " unexpected content after failed sync");
+		assertThrows(IOException.class, set::close, testName + " close after failed sync didn't throw");
+
+		try (DurableSet<Integer> reopened = DurableSet.open(new ArraySet<>(), ElementCodec.Integers, path))
+		{
+			assertEquals(expected, reopened, testName + " unexpected content after reopening");
+		}
+	}
+
+	/**
+	 * Test method for {@link DurableSet#checkpoint()} concurrent with
+	 * modifications
+	 * @throws Exception if the log or the snapshot can't be written or read
+	 * or if a thread failed
+	 */
+	@Test
+	@DisplayName("checkpoint() concurrent with modifications")
+	final void testConcurrentCheckpoints() throws Exception
+	{
+		String testName = new String("checkpoint() concurrent with modifications");
+		System.out.println(testName);
+
+		Path path = directory.resolve("concurrent-checkpoints.log");
+		int threads = 4;
+		int perThread = 200;
+		List<Throwable> errors = new ArrayList<>();
+		try (DurableSet<Integer> set = DurableSet.open(new ArraySet<>(), ElementCodec.Integers, path))
+		{
+			List<Thread> workers = new ArrayList<>();
+			for (int t = 0; t < threads; t++)
+			{
+				int base = t * perThread;
+				Thread worker = new Thread(() -> {
+					for (int i = 0; i < perThread; i++)
+					{
+						set.add(base + i);
+						if (i % 3 == 0)
+						{
+							set.remove(base + i);
+						}
+					}
+				});
+				worker.setUncaughtExceptionHandler((thread, e) -> {
+					synchronized (errors)
+					{
+						errors.add(e);
+					}
+				});
+				workers.add(worker);
+				worker.start();
+			}
+			for (Thread worker : workers)
+			{
+				while (worker.isAlive())
+				{
+					set.checkpoint();
+					worker.join(1);
+				}
+			}
+			assertTrue(errors.isEmpty(), testName + " unexpected errors " + errors);
+		}
+
+		try (DurableSet<Integer> set = DurableSet.open(new ArraySet<>(), ElementCodec.Integers, path))
+		{
+			for (int i = 0; i < threads * perThread; i++)
+			{
+				assertEquals((i % perThread) % 3 != 0, set.contains(i), testName + " unexpected membership of " + i);
+			}
+		}
+	}
+
+	/**
+	 * Test method for background checkpoints triggered by a
+	 * {@link CheckpointPolicy}
+	 * @throws Exception if the log or the snapshot can't be written or read
+	 * or if waiting is interrupted
+	 */
+	@Test
+	@DisplayName("background checkpoints")
+	final void testBackgroundCheckpoints() throws Exception
+	{
+		String testName = new String("background checkpoints");
+		System.out.println(testName);
+
+		assertThrows(IllegalArgumentException.class,
+		             () -> CheckpointPolicy.logSize(0),
+		             testName + " non positive log size didn't throw");
+		assertThrows(IllegalArgumentException.class,
+		             () -> CheckpointPolicy.interval(Duration.ZERO),
+		             testName + " zero interval didn't throw");
+		assertFalse(CheckpointPolicy.Manual.isAutomatic(), testName + " manual policy is automatic");
+
+		Path bySize = directory.resolve("size.log");
+		Set<Integer> expected = new ArraySet<>();
+		try (DurableSet<Integer> set =
+		    DurableSet.open(new ArraySet<>(), ElementCodec.Integers, bySize, CheckpointPolicy.logSize(256)))
+		{
+			for (int i = 0; i < 200; i++)
+			{
+				set.add(i);
+				expected.add(i);
+			}
+			waitForCheckpoint(set);
+			assertTrue(set.checkpoints() > 0, testName + " log size didn't trigger a checkpoint");
+			assertEquals(null, set.checkpointFailure(), testName + " unexpected checkpoint failure");
+		}
+		try (DurableSet<Integer> set = DurableSet.open(new ArraySet<>(), ElementCodec.Integers, bySize))
+		{
+			assertEquals(expected, set, testName + " unexpected content after size triggered checkpoints");
+			assertTrue(set.recoveredRecords() < 200, testName + " log not compacted");
+		}
+
+		Path byTime = directory.resolve("time.log");
+		try (DurableSet<Integer> set = DurableSet.open(new ArraySet<>(),
+		                                               ElementCodec.Integers,
+		                                               byTime,
+		                                               CheckpointPolicy.interval(Duration.ofMillis(20))))
+		{
+			set.addAll(Arrays.asList(1, 2, 3));
+			waitForCheckpoint(set);
+			assertEquals(1, set.checkpoints(), testName + " time didn't trigger a checkpoint");
+		}
+		try (DurableSet<Integer> set = DurableSet.open(new ArraySet<>(), ElementCodec.Integers, byTime))
+		{
+			assertEquals(new ArraySet<>(Arrays.asList(1, 2, 3)), set, testName + " unexpected content");
+			assertEquals(0, set.recoveredRecords(), testName + " covered records replayed");
+		}
+	}
+
+	/**
+	 * Waits (at most 10 s) for a background checkpoint
+	 * @param set the set to wait for
+	 * @throws InterruptedException if waiting is interrupted
+	 */
+	private static void waitForCheckpoint(DurableSet<?> set) throws InterruptedException
+	{
+		for (int i = 0; i < 1000 && set.checkpoints() == 0; i++)
+		{
+			Thread.sleep(10);
+		}
+	}
+
+	/**
+	 * Test method for {@link DurableSet#close()}
+	 * @throws IOException if the log can't be written or read
+	 */
+	@Test
+	@DisplayName("close()")
+	final void testClose() throws IOException
+	{
+		String testName = new String("close()");
+		System.out.println(testName);
+
+		DurableSet<Integer> set = DurableSet.open(new ArraySet<>(), ElementCodec.Integers, directory.resolve("closed.log"));
+		set.add(1);
+		set.close();
+		set.close();
+		assertTrue(set.contains(1), testName + " closed set can't be read");
+		assertThrows(IllegalStateException.class, () -> set.add(2), testName + " closed set modified");
+		assertThrows(IllegalStateException.class, () -> set.remove(1), testName + " closed set modified");
+	}
+}
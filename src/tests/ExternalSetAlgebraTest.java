@@ -0,0 +1,243 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import sets.ArraySet;
+import sets.ElementCodec;
+import sets.ExternalSetAlgebra;
+import sets.ExternalSetAlgebra.Operation;
+import sets.ExternalSetAlgebra.SortedRun;
+import sets.Set;
+
+/**
+ * Test class for {@link ExternalSetAlgebra}
+ * @author davidroussel
+ */
+@DisplayName("ExternalSetAlgebra<E> tests")
+class ExternalSetAlgebraTest
+{
+	/**
+	 * Temporary directory containing runs
+	 */
+	@TempDir
+	Path directory;
+
+	/**
+	 * Setup before all tests
+	 */
+	@BeforeAll
+	static void setUpBeforeClass()
+	{
+		System.out.println("-------------------------------------------------");
+		System.out.println("ExternalSetAlgebra tests");
+		System.out.println("-------------------------------------------------");
+	}
+
+	/**
+	 * Tear down after all tests
+	 */
+	@AfterAll
+	static void tearDownAfterClass()
+	{
+		System.out.println("-------------------------------------------------");
+		System.out.println("ExternalSetAlgebra test end");
+		System.out.println("-------------------------------------------------");
+	}
+
+	/**
+	 * Random strings with duplicates
+	 * @param random the random generator
+	 * @param count the number of strings
+	 * @param bound the bound of the values in strings
+	 * @return a new list of count strings
+	 */
+	private static List<String> randomStrings(Random random, int count, int bound)
+	{
+		List<String> strings = new ArrayList<>();
+		for (int i = 0; i < count; i++)
+		{
+			strings.add("s" + random.nextInt(bound));
+		}
+		return strings;
+	}
+
+	/**
+	 * Elements of a run
+	 * @param <E> the type of elements
+	 * @param run the run to read
+	 * @return a new list containing the elements of run in their order
+	 */
+	private static <E> List<E> content(SortedRun<E> run)
+	{
+		List<E> elements = new ArrayList<>();
+		run.forEach(elements::add);
+		return elements;
+	}
+
+	/**
+	 * Test method for {@link ExternalSetAlgebra#sort(Iterable)}
+	 * @throws IOException if runs can't be written or read
+	 */
+	@Test
+	@DisplayName("sort(Iterable)")
+	final void testSort() throws IOException
+	{
+		String testName = new String("sort(Iterable)");
+		System.out.println(testName);
+
+		List<String> strings = randomStrings(new Random(42), 1000, 400);
+		try (ExternalSetAlgebra<String> engine =
+		    new ExternalSetAlgebra<>(ElementCodec.Strings, Comparator.naturalOrder(), directory, 50, 4))
+		{
+			SortedRun<String> run = engine.sort(strings);
+			List<String> expected = new ArrayList<>(new TreeSet<>(strings));
+			assertEquals(expected, content(run), testName + " unexpected sorted content");
+			assertEquals(expected.size(), run.size(), testName + " unexpected size");
+			assertEquals(20, engine.spilledRuns(), testName + " unexpected number of spilled runs");
+			// 20 runs → 5 runs → 2 runs → 1 run
+			assertEquals(3, engine.mergePasses(), testName + " unexpected number of merge passes");
+			assertTrue(engine.spilledBytes() > run.bytes(), testName + " intermediate runs not accounted");
+			try (Stream<Path> files = Files.list(directory))
+			{
+				assertEquals(1, files.count(), testName + " intermediate runs not deleted");
+			}
+
+			SortedRun<String> empty = engine.sort(new ArrayList<String>());
+			assertEquals(0, empty.size(), testName + " unexpected empty run size");
+			assertFalse(empty.iterator().hasNext(), testName + " unexpected element in empty run");
+
+			assertThrows(NullPointerException.class,
+			             () -> engine.sort(Arrays.asList("a", null)),
+			             testName + " null element didn't throw");
+		}
+		try (Stream<Path> files = Files.list(directory))
+		{
+			assertEquals(0, files.count(), testName + " runs not deleted on close");
+		}
+	}
+
+	/**
+	 * Test method for {@link ExternalSetAlgebra#apply(Operation, SortedRun, SortedRun)}
+	 * compared to in memory set operations
+	 * @throws IOException if runs can't be written or read
+	 */
+	@Test
+	@DisplayName("apply(Operation, SortedRun, SortedRun)")
+	final void testOperations() throws IOException
+	{
+		String testName = new String("apply(Operation, SortedRun, SortedRun)");
+		System.out.println(testName);
+
+		Random random = new Random(7);
+		List<String> firstContent = randomStrings(random, 600, 500);
+		List<String> secondContent = randomStrings(random, 700, 500);
+		Set<String> first = new ArraySet<>(firstContent);
+		Set<String> second = new ArraySet<>(secondContent);
+		try (ExternalSetAlgebra<String> engine =
+		    new ExternalSetAlgebra<>(ElementCodec.Strings, Comparator.naturalOrder(), directory, 64, 3))
+		{
+			SortedRun<String> firstRun = engine.sort(firstContent);
+			SortedRun<String> secondRun = engine.sort(secondContent);
+
+			assertEquals(first.union(second),
+			             new ArraySet<>(content(engine.union(firstRun, secondRun))),
+			             testName + " unexpected union");
+			assertEquals(first.intersection(second),
+			             new ArraySet<>(content(engine.intersection(firstRun, secondRun))),
+			             testName + " unexpected intersection");
+			assertEquals(first.difference(second),
+			             new ArraySet<>(content(engine.difference(firstRun, secondRun))),
+			             testName + " unexpected difference");
+			assertEquals(second.difference(first),
+			             new ArraySet<>(content(engine.difference(secondRun, firstRun))),
+			             testName + " unexpected reverse difference");
+			assertEquals(first.symmetricDifference(second),
+			             new ArraySet<>(content(engine.symmetricDifference(firstRun, secondRun))),
+			             testName + " unexpected symmetric difference");
+
+			SortedRun<String> union = engine.union(firstRun, secondRun);
+			List<String> unionContent = content(union);
+			List<String> sorted = new ArrayList<>(unionContent);
+			sorted.sort(Comparator.naturalOrder());
+			assertEquals(sorted, unionContent, testName + " result not sorted");
+
+			SortedRun<String> empty = engine.sort(new ArrayList<String>());
+			assertEquals(firstRun.size(), engine.union(firstRun, empty).size(), testName + " unexpected union with empty");
+			assertEquals(0, engine.intersection(empty, firstRun).size(), testName + " unexpected intersection with empty");
+			assertEquals(firstRun.size(), engine.difference(firstRun, empty).size(), testName + " unexpected difference with empty");
+			assertEquals(secondRun.size(),
+			             engine.symmetricDifference(empty, secondRun).size(),
+			             testName + " unexpected symmetric difference with empty");
+
+			Set<String> chained = new ArraySet<>();
+			engine.difference(engine.union(firstRun, secondRun), engine.intersection(firstRun, secondRun))
+			    .addTo(chained);
+			assertEquals(first.symmetricDifference(second), chained, testName + " unexpected chained operations");
+		}
+	}
+
+	/**
+	 * Test method for {@link ExternalSetAlgebra#stream(Operation, SortedRun, SortedRun)}
+	 * @throws IOException if runs can't be written or read
+	 */
+	@Test
+	@DisplayName("stream(Operation, SortedRun, SortedRun)")
+	final void testStream() throws IOException
+	{
+		String testName = new String("stream(Operation, SortedRun, SortedRun)");
+		System.out.println(testName);
+
+		try (ExternalSetAlgebra<Integer> engine =
+		    new ExternalSetAlgebra<>(ElementCodec.Integers, Comparator.reverseOrder(), directory, 4, 2))
+		{
+			SortedRun<Integer> first = engine.sort(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 3, 1));
+			SortedRun<Integer> second = engine.sort(Arrays.asList(5, 6, 7, 8, 9, 10, 5));
+			long spilled = engine.spilledBytes();
+			try (Stream<Integer> stream = engine.stream(Operation.UNION, first, second))
+			{
+				assertEquals(Arrays.asList(10, 9, 8, 7, 6, 5, 4, 3, 2, 1),
+				             stream.collect(Collectors.toList()),
+				             testName + " unexpected union stream");
+			}
+			try (Stream<Integer> stream = engine.stream(Operation.SYMMETRIC_DIFFERENCE, first, second))
+			{
+				assertEquals(Arrays.asList(10, 9, 4, 3), stream.limit(4).collect(Collectors.toList()),
+				             testName + " unexpected symmetric difference stream");
+			}
+			try (Stream<Integer> stream = engine.stream(Operation.INTERSECTION, first, second))
+			{
+				assertEquals(4, stream.count(), testName + " unexpected intersection stream");
+			}
+			assertEquals(spilled, engine.spilledBytes(), testName + " streams spilled");
+			try (Stream<Integer> stream = first.stream())
+			{
+				assertEquals(8, stream.count(), testName + " unexpected run stream");
+			}
+		}
+
+		assertThrows(IllegalArgumentException.class,
+		             () -> new ExternalSetAlgebra<>(ElementCodec.Integers, Comparator.naturalOrder(), directory, 4, 1),
+		             testName + " fan-in of 1 didn't throw");
+	}
+}
@@ -0,0 +1,263 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import sets.ArraySet;
+import sets.ElementCodec;
+import sets.MappedSet;
+import sets.Set;
+import sets.SetCapability;
+
+/**
+ * Test class for {@link MappedSet}
+ * @author davidroussel
+ */
+@DisplayName("MappedSet<E> tests")
+class MappedSetTest
+{
+	/**
+	 * Temporary directory containing set files
+	 */
+	@TempDir
+	Path directory;
+
+	/**
+	 * Setup before all tests
+	 */
+	@BeforeAll
+	static void setUpBeforeClass()
+	{
+		System.out.println("-------------------------------------------------");
+		System.out.println("MappedSet tests");
+		System.out.println("-------------------------------------------------");
+	}
+
+	/**
+	 * Tear down after all tests
+	 */
+	@AfterAll
+	static void tearDownAfterClass()
+	{
+		System.out.println("-------------------------------------------------");
+		System.out.println("MappedSet test end");
+		System.out.println("-------------------------------------------------");
+	}
+
+	/**
+	 * Test method for {@link MappedSet#write(java.util.Collection, ElementCodec, Path)}
+	 * and {@link MappedSet#open(Path, ElementCodec)}
+	 * @throws IOException if writing or opening fails
+	 */
+	@Test
+	@DisplayName("write(Collection, ElementCodec, Path), open(Path, ElementCodec)")
+	final void testWriteOpen() throws IOException
+	{
+		String testName = new String("write(Collection, ElementCodec, Path), open(Path, ElementCodec)");
+		System.out.println(testName);
+
+		List<String> content = new ArrayList<>();
+		for (int i = 0; i < 1000; i++)
+		{
+			content.add("element " + i);
+		}
+		content.add("element 3");
+		Path path = directory.resolve("strings.set");
+		MappedSet.write(content, ElementCodec.Strings, path);
+		MappedSet<String> set = MappedSet.open(path, ElementCodec.Strings);
+
+		Set<String> expected = new ArraySet<>(content);
+		assertEquals(1000, set.size(), testName + " unexpected size");
+		assertEquals(expected, set, testName + " unexpected content");
+		assertEquals(set, expected, testName + " unexpected content");
+		assertEquals(expected.hashCode(), set.hashCode(), testName + " unexpected hash code");
+		assertEquals(content.subList(0, 1000),
+		             Arrays.asList(set.toArray()),
+		             testName + " insertion order not preserved");
+		assertEquals(String.class, set.elementsClass(), testName + " set is not typed");
+		assertNotSame(set, set.clone(), testName + " clone is the same set");
+		assertEquals(set, set.clone(), testName + " unexpected clone");
+
+		MappedSet.write(new ArraySet<Integer>(), ElementCodec.Integers, path);
+		MappedSet<Integer> empty = MappedSet.open(path, ElementCodec.Integers);
+		assertTrue(empty.isEmpty(), testName + " unexpected empty set");
+		assertFalse(empty.contains(1), testName + " empty set contains an element");
+		assertFalse(empty.iterator().hasNext(), testName + " empty set has elements");
+
+		assertThrows(NullPointerException.class,
+		             () -> {
+		            	 MappedSet.write(Arrays.asList("a", null), ElementCodec.Strings, path);
+		             },
+		             testName + " null element didn't throw");
+
+		/*
+		 * A failing codec leaves the previous file untouched and no
+		 * temporary file
+		 */
+		ElementCodec<Integer> failing = new ElementCodec<Integer>()
+		{
+			@Override
+			public String name()
+			{
+				return ElementCodec.Integers.name();
+			}
+
+			@Override
+			public Class<Integer> elementsClass()
+			{
+				return Integer.class;
+			}
+
+			@Override
+			public void write(Integer element, DataOutput out) throws IOException
+			{
+				if (element.intValue() == 500) throw new IOException("can't encode " + element);
+				ElementCodec.Integers.write(element, out);
+			}
+
+			@Override
+			public Integer read(DataInput in) throws IOException
+			{
+				return ElementCodec.Integers.read(in);
+			}
+		};
+		List<Integer> numbers = new ArrayList<>();
+		for (int i = 0; i < 1000; i++)
+		{
+			numbers.add(Integer.valueOf(i));
+		}
+		assertThrows(IOException.class,
+		             () -> {
+		            	 MappedSet.write(numbers, failing, path);
+		             },
+		             testName + " failing codec didn't throw");
+		assertFalse(Files.exists(path.resolveSibling(path.getFileName() + ".tmp")),
+		            testName + " temporary file not deleted");
+		assertTrue(MappedSet.open(path, ElementCodec.Integers).isEmpty(),
+		           testName + " previous file modified");
+	}
+
+	/**
+	 * Test method for {@link MappedSet#contains(Object)}
+	 * @throws IOException if writing or opening fails
+	 */
+	@Test
+	@DisplayName("contains(Object)")
+	final void testContains() throws IOException
+	{
+		String testName = new String("contains(Object)");
+		System.out.println(testName);
+
+		List<UUID> present = new ArrayList<>();
+		for (int i = 0; i < 500; i++)
+		{
+			present.add(new UUID(i, i * 31L));
+		}
+		Path path = directory.resolve("uuids.set");
+		MappedSet.write(present, ElementCodec.UUIDs, path);
+		MappedSet<UUID> set = MappedSet.open(path, ElementCodec.UUIDs);
+
+		for (UUID elt : present)
+		{
+			assertTrue(set.contains(elt), testName + " missing " + elt);
+		}
+		for (int i = 500; i < 1000; i++)
+		{
+			assertFalse(set.contains(new UUID(i, i * 31L)), testName + " unexpected element");
+		}
+		assertFalse(set.contains("not an uuid"), testName + " unexpected element of another type");
+		assertFalse(set.contains(null), testName + " unexpected null element");
+		assertTrue(set.containsAll(present.subList(10, 20)), testName + " missing elements");
+	}
+
+	/**
+	 * Test method for read-only operations and set algebra
+	 * @throws IOException if writing or opening fails
+	 */
+	@Test
+	@DisplayName("read-only operations and set algebra")
+	final void testReadOnly() throws IOException
+	{
+		String testName = new String("read-only operations and set algebra");
+		System.out.println(testName);
+
+		Path path = directory.resolve("ints.set");
+		MappedSet.write(Arrays.asList(1, 2, 3, 4), ElementCodec.Integers, path);
+		MappedSet<Integer> set = MappedSet.open(path, ElementCodec.Integers);
+
+		assertThrows(UnsupportedOperationException.class, () -> set.add(5), testName + " add didn't throw");
+		assertThrows(UnsupportedOperationException.class, () -> set.remove(1), testName + " remove didn't throw");
+		assertThrows(UnsupportedOperationException.class, () -> set.clear(), testName + " clear didn't throw");
+		assertThrows(UnsupportedOperationException.class,
+		             () -> set.iterator().remove(),
+		             testName + " iterator remove didn't throw");
+
+		Set<Integer> other = new ArraySet<>(Arrays.asList(3, 4, 5));
+		assertEquals(new ArraySet<>(Arrays.asList(1, 2, 3, 4, 5)), set.union(other), testName + " unexpected union");
+		assertEquals(new ArraySet<>(Arrays.asList(3, 4)), set.intersection(other), testName + " unexpected intersection");
+		assertEquals(new ArraySet<>(Arrays.asList(1, 2)), set.difference(other), testName + " unexpected difference");
+		assertEquals(new ArraySet<>(Arrays.asList(5)), other.difference(set), testName + " unexpected difference");
+
+		assertTrue(set.hasCapability(SetCapability.KNOWN_SIZE), testName + " size not known");
+		assertTrue(set.hasCapability(SetCapability.FAST_CONTAINS), testName + " contains not fast");
+		assertEquals("{1, 2, ... (2 more)}", set.toString(2), testName + " unexpected toString");
+	}
+
+	/**
+	 * Test method for corrupted or mismatching files detection
+	 * @throws IOException if writing or opening fails
+	 */
+	@Test
+	@DisplayName("corrupted files")
+	final void testCorruption() throws IOException
+	{
+		String testName = new String("corrupted files");
+		System.out.println(testName);
+
+		Path path = directory.resolve("corrupted.set");
+		MappedSet.write(Arrays.asList("alpha", "beta"), ElementCodec.Strings, path);
+		byte[] bytes = Files.readAllBytes(path);
+
+		assertThrows(StreamCorruptedException.class,
+		             () -> {
+		            	 MappedSet.open(path, ElementCodec.Integers);
+		             },
+		             testName + " codec mismatch not detected");
+
+		byte[] badMagic = bytes.clone();
+		badMagic[0] = 0;
+		Files.write(path, badMagic);
+		assertThrows(StreamCorruptedException.class,
+		             () -> {
+		            	 MappedSet.open(path, ElementCodec.Strings);
+		             },
+		             testName + " bad magic number not detected");
+
+		Files.write(path, Arrays.copyOf(bytes, 20));
+		assertThrows(StreamCorruptedException.class,
+		             () -> {
+		            	 MappedSet.open(path, ElementCodec.Strings);
+		             },
+		             testName + " truncated file not detected");
+	}
+}
@@ -0,0 +1,256 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import sets.ArraySet;
+import sets.SegmentedArraySet;
+
+/**
+ * Test class for {@link SegmentedArraySet} specific features (common
+ * {@link sets.Set} features are tested in {@link SetTest})
+ * @author davidroussel
+ */
+@DisplayName("SegmentedArraySet<E> tests")
+class SegmentedArraySetTest
+{
+	/**
+	 * The set under test
+	 */
+	private SegmentedArraySet<String> set;
+
+	/**
+	 * Setup before all tests
+	 */
+	@BeforeAll
+	static void setUpBeforeClass()
+	{
+		System.out.println("-------------------------------------------------");
+		System.out.println("SegmentedArraySet tests");
+		System.out.println("-------------------------------------------------");
+	}
+
+	/**
+	 * Tear down after all tests
+	 */
+	@AfterAll
+	static void tearDownAfterClass()
+	{
+		System.out.println("-------------------------------------------------");
+		System.out.println("SegmentedArraySet test end");
+		System.out.println("-------------------------------------------------");
+	}
+
+	/**
+	 * Tear down after each test
+	 */
+	@AfterEach
+	void tearDown()
+	{
+		set = null;
+	}
+
+	/**
+	 * Elements "0" to "n-1"
+	 * @param n the number of elements
+	 * @return a new list containing elements "0" to "n-1"
+	 */
+	private static List<String> range(int n)
+	{
+		List<String> result = new ArrayList<>(n);
+		for (int i = 0; i < n; i++)
+		{
+			result.add(String.valueOf(i));
+		}
+		return result;
+	}
+
+	/**
+	 * Test method for {@link SegmentedArraySet#SegmentedArraySet(int, int)}
+	 * and {@link SegmentedArraySet#SegmentedArraySet()}
+	 */
+	@Test
+	@DisplayName("SegmentedArraySet(int, int)")
+	final void testConstructors()
+	{
+		String testName = new String("SegmentedArraySet(int, int)");
+		System.out.println(testName);
+
+		set = new SegmentedArraySet<>();
+		assertEquals(ArraySet.DefaultCapacity,
+		             set.capacity(),
+		             testName + " unexpected default capacity");
+		assertEquals(SegmentedArraySet.DefaultChunkSize,
+		             set.chunkSize(),
+		             testName + " unexpected default chunk size");
+
+		set = new SegmentedArraySet<>(10, 4);
+		assertEquals(10, set.capacity(), testName + " unexpected capacity");
+		assertEquals(4, set.chunkSize(), testName + " unexpected chunk size");
+
+		set = new SegmentedArraySet<>(new ArrayList<String>());
+		assertEquals(ArraySet.DefaultCapacity,
+		             set.capacity(),
+		             testName + " unexpected capacity from empty collection");
+
+		assertThrows(IllegalArgumentException.class,
+		             () -> {
+		            	 set = new SegmentedArraySet<>(0, 4);
+		             },
+		             testName + " null capacity didn't throw");
+		assertThrows(IllegalArgumentException.class,
+		             () -> {
+		            	 set = new SegmentedArraySet<>(10, 6);
+		             },
+		             testName + " non power of two chunk size didn't throw");
+	}
+
+	/**
+	 * Test method for {@link SegmentedArraySet#add(Object)},
+	 * {@link SegmentedArraySet#ensureCapacity(int)} and
+	 * {@link SegmentedArraySet#strip()}: capacity grows chunk by chunk and
+	 * strip only trims the last chunk.
+	 */
+	@Test
+	@DisplayName("add(E), ensureCapacity(int), strip()")
+	final void testCapacity()
+	{
+		String testName = new String("add(E), ensureCapacity(int), strip()");
+		System.out.println(testName);
+
+		set = new SegmentedArraySet<>(1, 4);
+		int[] expectedCapacities = new int[] {1, 2, 4, 4, 8, 8, 8, 8, 12, 12};
+		List<String> content = range(expectedCapacities.length);
+		for (int i = 0; i < expectedCapacities.length; i++)
+		{
+			assertTrue(set.add(content.get(i)), testName + " add failed");
+			assertEquals(expectedCapacities[i],
+			             set.capacity(),
+			             testName + " unexpected capacity after " + (i + 1) + " adds");
+		}
+		assertEquals(content,
+		             Arrays.asList(set.toArray()),
+		             testName + " unexpected content");
+
+		set.strip();
+		assertEquals(10, set.capacity(), testName + " unexpected stripped capacity");
+		set.add("10");
+		assertEquals(12, set.capacity(), testName + " unexpected capacity after strip");
+		set.ensureCapacity(21);
+		assertEquals(24, set.capacity(), testName + " unexpected ensured capacity");
+		set.ensureCapacity(5);
+		assertEquals(24, set.capacity(), testName + " ensureCapacity shouldn't shrink");
+
+		set.clear();
+		assertThrows(IllegalStateException.class,
+		             () -> {
+		            	 set.strip();
+		             },
+		             testName + " strip on empty set didn't throw");
+	}
+
+	/**
+	 * Test method for {@link SegmentedArraySet#addAll(java.util.Collection)}
+	 * with small batches searched in a set spanning many chunks and with a
+	 * large batch
+	 */
+	@Test
+	@DisplayName("addAll(Collection)")
+	final void testAddAll()
+	{
+		String testName = new String("addAll(Collection)");
+		System.out.println(testName);
+
+		int nbElements = 100;
+		List<String> content = range(nbElements);
+		set = new SegmentedArraySet<>(1, 8);
+		set.addAll(content);
+
+		assertFalse(set.addAll(Arrays.asList("5", "99", "42")),
+		            testName + " addAll of existing elements succeeded");
+		assertTrue(set.addAll(Arrays.asList("7", "100", "101", "100")),
+		           testName + " addAll of small batch failed");
+		content.addAll(Arrays.asList("100", "101"));
+		assertEquals(content,
+		             Arrays.asList(set.toArray()),
+		             testName + " unexpected content after small batch");
+
+		List<String> batch = new ArrayList<>(range(2 * nbElements));
+		batch.addAll(range(2 * nbElements));
+		assertTrue(set.addAll(batch), testName + " addAll of large batch failed");
+		assertEquals(2 * nbElements, set.size(), testName + " unexpected size after large batch");
+		for (String elt : batch)
+		{
+			assertTrue(set.contains(elt), testName + " contains(" + elt + ") failed");
+		}
+	}
+
+	/**
+	 * Test method for {@link SegmentedArraySet#remove(Object)},
+	 * {@link SegmentedArraySet#removeIf(java.util.function.Predicate)} and
+	 * iterator removal across chunk boundaries
+	 */
+	@Test
+	@DisplayName("remove(Object), removeIf(Predicate), Iterator.remove()")
+	final void testRemovals()
+	{
+		String testName = new String("remove(Object), removeIf(Predicate)");
+		System.out.println(testName);
+
+		int nbElements = 50;
+		List<String> content = range(nbElements);
+		set = new SegmentedArraySet<>(1, 8);
+		set.addAll(content);
+
+		/*
+		 * Removal of an element in the first chunk shifts all chunks
+		 */
+		assertTrue(set.remove("3"), testName + " remove failed");
+		content.remove("3");
+		assertEquals(content,
+		             Arrays.asList(set.toArray()),
+		             testName + " unexpected content after remove");
+		assertFalse(set.remove("3"), testName + " remove of absent element succeeded");
+
+		for (Iterator<String> it = set.iterator(); it.hasNext();)
+		{
+			if (it.next().length() == 1)
+			{
+				it.remove();
+			}
+		}
+		content.removeIf(elt -> elt.length() == 1);
+		assertEquals(content,
+		             Arrays.asList(set.toArray()),
+		             testName + " unexpected content after iterator removals");
+
+		assertTrue(set.removeIf(elt -> elt.endsWith("7")), testName + " removeIf failed");
+		content.removeIf(elt -> elt.endsWith("7"));
+		assertEquals(content,
+		             Arrays.asList(set.toArray()),
+		             testName + " unexpected content after removeIf");
+		for (String elt : content)
+		{
+			assertTrue(set.contains(elt), testName + " contains(" + elt + ") failed");
+		}
+		assertFalse(set.contains("17"), testName + " removed element found");
+
+		@SuppressWarnings("unchecked")
+		SegmentedArraySet<String> cloned = (SegmentedArraySet<String>) set.clone();
+		assertEquals(set, cloned, testName + " clone has not same content");
+		assertEquals(set.capacity(), cloned.capacity(), testName + " unexpected clone capacity");
+	}
+}
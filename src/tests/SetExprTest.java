@@ -0,0 +1,263 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import sets.ArrayListSet;
+import sets.ArraySet;
+import sets.Set;
+import sets.SetExpr;
+
+/**
+ * Test class for {@link SetExpr}
+ * @author davidroussel
+ */
+@DisplayName("SetExpr<E> tests")
+class SetExprTest
+{
+	/**
+	 * First operand: "Lorem ipsum dolor sit amet"
+	 */
+	private Set<String> a;
+
+	/**
+	 * Second operand: "dolor amet consectetur adipisicing elit"
+	 */
+	private Set<String> b;
+
+	/**
+	 * Third operand: "ipsum dolor elit sed"
+	 */
+	private Set<String> c;
+
+	/**
+	 * Fourth operand: "dolor"
+	 */
+	private Set<String> d;
+
+	/**
+	 * Setup before all tests
+	 */
+	@BeforeAll
+	static void setUpBeforeClass()
+	{
+		System.out.println("-------------------------------------------------");
+		System.out.println("Set expressions tests");
+		System.out.println("-------------------------------------------------");
+	}
+
+	/**
+	 * Tear down after all tests
+	 */
+	@AfterAll
+	static void tearDownAfterClass()
+	{
+		System.out.println("-------------------------------------------------");
+		System.out.println("Set expressions test end");
+		System.out.println("-------------------------------------------------");
+	}
+
+	/**
+	 * Setup before each test
+	 */
+	@BeforeEach
+	void setUp()
+	{
+		a = new ArraySet<>(Arrays.asList("Lorem", "ipsum", "dolor", "sit", "amet"));
+		b = new ArrayListSet<>(Arrays.asList("dolor", "amet", "consectetur", "adipisicing", "elit"));
+		c = new ArraySet<>(Arrays.asList("ipsum", "dolor", "elit", "sed"));
+		d = new ArrayListSet<>(Arrays.asList("dolor"));
+	}
+
+	/**
+	 * Tear down after each test
+	 */
+	@AfterEach
+	void tearDown()
+	{
+		a = null;
+		b = null;
+		c = null;
+		d = null;
+	}
+
+	/**
+	 * Test method for {@link SetExpr#evaluate()} compared to left to right
+	 * evaluation with {@link Set#union(Set)}, {@link Set#intersection(Set)}
+	 * and {@link Set#difference(Set)}.
+	 */
+	@Test
+	@DisplayName("evaluate()")
+	final void testEvaluate()
+	{
+		String testName = new String("evaluate()");
+		System.out.println(testName);
+
+		// (a ⋃ b) ⋂ c - (b ⋂ d)
+		SetExpr<String> expr = SetExpr.of(a)
+			.union(b)
+			.intersect(c)
+			.difference(SetExpr.of(b).intersect(d));
+		Set<String> expected = a.union(b).intersection(c).difference(b.intersection(d));
+
+		Set<String> result = expr.evaluate();
+		assertNotNull(result, testName + " null result");
+		assertEquals(expected,
+		             result,
+		             testName + " unexpected result " + result + " instead of " + expected);
+		assertEquals(2,
+		             result.size(),
+		             testName + " unexpected result size");
+
+		/*
+		 * Operands are left untouched
+		 */
+		assertEquals(5, a.size(), testName + " operand modified");
+		assertEquals(5, b.size(), testName + " operand modified");
+	}
+
+	/**
+	 * Test method for {@link SetExpr#optimize()}: associative operations are
+	 * flattened, duplicated operands removed and intersection operands sorted
+	 * by increasing size.
+	 */
+	@Test
+	@DisplayName("optimize()")
+	final void testOptimize()
+	{
+		String testName = new String("optimize()");
+		System.out.println(testName);
+
+		SetExpr<String> expr = SetExpr.of(a).intersect(b).intersect(SetExpr.of(d).intersect(a));
+		SetExpr<String> planned = expr.optimize();
+		String plan = planned.toString();
+
+		assertEquals("(ArrayListSet[1] ⋂ ArraySet[5] ⋂ ArrayListSet[5])",
+		             plan,
+		             testName + " unexpected plan " + plan);
+		assertEquals(1,
+		             planned.estimatedSize(),
+		             testName + " unexpected estimated size");
+		assertEquals(expr.evaluate(),
+		             planned.evaluate(),
+		             testName + " planned expression differs from expression");
+
+		/*
+		 * (a - b) - c = a - (b ⋃ c)
+		 */
+		planned = SetExpr.of(a).difference(b).difference(c).optimize();
+		plan = planned.toString();
+		assertEquals("(ArraySet[5] - (ArrayListSet[5] ⋃ ArraySet[4]))",
+		             plan,
+		             testName + " unexpected plan " + plan);
+	}
+
+	/**
+	 * Test method for {@link SetExpr#evaluate(Set)} with common
+	 * sub-expressions and a result set which is also an operand.
+	 */
+	@Test
+	@DisplayName("evaluate(Set)")
+	final void testEvaluateSet()
+	{
+		String testName = new String("evaluate(Set)");
+		System.out.println(testName);
+
+		SetExpr<String> common = SetExpr.of(a).union(c);
+		SetExpr<String> expr = common.intersect(b).union(common.difference(d));
+		Set<String> expected = a.union(c).intersection(b).union(a.union(c).difference(d));
+
+		Set<String> result = new ArraySet<>();
+		result.add("garbage");
+		expr.evaluate(result);
+		assertEquals(expected,
+		             result,
+		             testName + " unexpected result " + result);
+		assertFalse(result.contains("garbage"),
+		            testName + " result wasn't cleared");
+
+		/*
+		 * Result is also an operand
+		 */
+		SetExpr.of(a).intersect(c).evaluate(a);
+		assertEquals(2,
+		             a.size(),
+		             testName + " unexpected in place result " + a);
+		assertTrue(a.contains("ipsum") && a.contains("dolor"),
+		           testName + " unexpected in place result " + a);
+
+		assertThrows(NullPointerException.class,
+		             () -> {
+		            	 SetExpr.of(a).union((Set<String>) null);
+		             },
+		             testName + " union(null) didn't throw");
+		assertThrows(NullPointerException.class,
+		             () -> {
+		            	 expr.evaluate(null);
+		             },
+		             testName + " evaluate(null) didn't throw");
+	}
+
+	/**
+	 * Test method for {@link SetExpr#evaluate()} with a common
+	 * sub-expression of large operands which is evaluated only once: probes
+	 * into this sub-expression should not be forwarded to its operands.
+	 */
+	@Test
+	@DisplayName("evaluate() with common sub-expressions")
+	final void testEvaluateShared()
+	{
+		String testName = new String("evaluate() with common sub-expressions");
+		System.out.println(testName);
+
+		int[] probes = new int[1];
+		Set<String> large = new ArraySet<String>()
+		{
+			@Override
+			public boolean contains(Object o)
+			{
+				probes[0]++;
+				return super.contains(o);
+			}
+		};
+		Set<String> other = new ArraySet<>();
+		Set<String> evens = new ArrayListSet<>();
+		Set<String> thirds = new ArrayListSet<>();
+		for (int i = 0; i < 400; i++)
+		{
+			if (i < 200) large.add(String.valueOf(i));
+			if (i >= 100 && i < 300) other.add(String.valueOf(i));
+			if (i % 2 == 0) evens.add(String.valueOf(i));
+			if (i % 3 == 0) thirds.add(String.valueOf(i));
+		}
+
+		SetExpr<String> common = SetExpr.of(large).union(other);
+		SetExpr<String> expr = common.intersect(evens).union(common.difference(thirds));
+		Set<String> expected = large.union(other).intersection(evens).union(large.union(other).difference(thirds));
+
+		probes[0] = 0;
+		Set<String> result = expr.evaluate();
+		assertEquals(expected,
+		             result,
+		             testName + " unexpected result " + result);
+		/*
+		 * large is only probed while evaluating the common sub-expression
+		 * (for each element of other)
+		 */
+		assertTrue(probes[0] <= other.size(),
+		           testName + " common sub-expression probed through its operands "
+		           + probes[0] + " times");
+	}
+}
@@ -0,0 +1,277 @@
+package tests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StreamCorruptedException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import sets.ArrayListSet;
+import sets.ArraySet;
+import sets.ElementCodec;
+import sets.Set;
+import sets.SetSerializer;
+
+/**
+ * Test class for {@link SetSerializer} and the predefined
+ * {@link ElementCodec}s
+ * @author davidroussel
+ */
+@DisplayName("SetSerializer<E> tests")
+class SetSerializerTest
+{
+	/**
+	 * Setup before all tests
+	 */
+	@BeforeAll
+	static void setUpBeforeClass()
+	{
+		System.out.println("-------------------------------------------------");
+		System.out.println("SetSerializer tests");
+		System.out.println("-------------------------------------------------");
+	}
+
+	/**
+	 * Tear down after all tests
+	 */
+	@AfterAll
+	static void tearDownAfterClass()
+	{
+		System.out.println("-------------------------------------------------");
+		System.out.println("SetSerializer test end");
+		System.out.println("-------------------------------------------------");
+	}
+
+	/**
+	 * Serializes elements into a byte array
+	 * @param <E> the type of elements
+	 * @param serializer the serializer to use
+	 * @param elements the elements to serialize
+	 * @return the serialized elements
+	 * @throws IOException if serialization fails
+	 */
+	private static <E> byte[] serialize(SetSerializer<E> serializer, Collection<E> elements)
+		throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		serializer.write(elements, out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Test method for {@link SetSerializer#write(java.util.Collection, java.io.OutputStream)}
+	 * and {@link SetSerializer#read(java.io.InputStream)} with all predefined
+	 * codecs
+	 * @throws IOException if serialization fails
+	 */
+	@Test
+	@DisplayName("write(Collection, OutputStream), read(InputStream)")
+	final void testRoundTrip() throws IOException
+	{
+		String testName = new String("write(Collection, OutputStream), read(InputStream)");
+		System.out.println(testName);
+
+		Set<Integer> ints = new ArraySet<>(Arrays.asList(3, -1, 42, Integer.MAX_VALUE));
+		ArraySet<Integer> readInts = new SetSerializer<>(ElementCodec.Integers)
+		    .read(new ByteArrayInputStream(serialize(new SetSerializer<>(ElementCodec.Integers), ints)));
+		assertEquals(ints, readInts, testName + " unexpected ints");
+		assertEquals(Arrays.asList(ints.toArray()),
+		             Arrays.asList(readInts.toArray()),
+		             testName + " order not preserved");
+		assertEquals(Integer.class, readInts.elementsClass(), testName + " read set is not typed");
+
+		Set<Long> longs = new ArrayListSet<>(Arrays.asList(Long.MIN_VALUE, 0L, 7L));
+		assertEquals(longs,
+		             new SetSerializer<>(ElementCodec.Longs)
+		                 .read(new ByteArrayInputStream(serialize(new SetSerializer<>(ElementCodec.Longs), longs))),
+		             testName + " unexpected longs");
+
+		StringBuilder large = new StringBuilder();
+		for (int i = 0; i < 20000; i++)
+		{
+			large.append('é');
+		}
+		Set<String> strings = new ArraySet<>(Arrays.asList("", "Hello", "ünïcödé ✓", large.toString()));
+		assertEquals(strings,
+		             new SetSerializer<>(ElementCodec.Strings)
+		                 .read(new ByteArrayInputStream(serialize(new SetSerializer<>(ElementCodec.Strings), strings))),
+		             testName + " unexpected strings");
+
+		Set<UUID> uuids = new ArraySet<>(Arrays.asList(UUID.randomUUID(), UUID.randomUUID()));
+		assertEquals(uuids,
+		             new SetSerializer<>(ElementCodec.UUIDs)
+		                 .read(new ByteArrayInputStream(serialize(new SetSerializer<>(ElementCodec.UUIDs), uuids))),
+		             testName + " unexpected uuids");
+
+		byte[] first = new byte[] {1, 2, 3};
+		byte[] second = new byte[0];
+		Set<byte[]> arrays = new ArraySet<>(Arrays.asList(first, second));
+		Object[] readArrays = new SetSerializer<>(ElementCodec.ByteArrays)
+		    .read(new ByteArrayInputStream(serialize(new SetSerializer<>(ElementCodec.ByteArrays), arrays)))
+		    .toArray();
+		assertEquals(2, readArrays.length, testName + " unexpected number of arrays");
+		assertArrayEquals(first, (byte[]) readArrays[0], testName + " unexpected first array");
+		assertArrayEquals(second, (byte[]) readArrays[1], testName + " unexpected second array");
+
+		Set<Integer> empty = new ArraySet<>();
+		assertTrue(new SetSerializer<>(ElementCodec.Integers)
+		               .read(new ByteArrayInputStream(serialize(new SetSerializer<>(ElementCodec.Integers), empty)))
+		               .isEmpty(),
+		           testName + " unexpected empty set");
+	}
+
+	/**
+	 * Test method for the distinct flag: collections which are not sets are
+	 * deduplicated on read.
+	 * @throws IOException if serialization fails
+	 */
+	@Test
+	@DisplayName("distinct flag")
+	final void testDistinctFlag() throws IOException
+	{
+		String testName = new String("distinct flag");
+		System.out.println(testName);
+
+		SetSerializer<String> serializer = new SetSerializer<>(ElementCodec.Strings);
+		byte[] fromList = serialize(serializer, Arrays.asList("a", "b", "a", "c", "b"));
+		assertEquals(0, fromList[5] & SetSerializer.DistinctFlag, testName + " list flagged as distinct");
+		Set<String> read = serializer.read(new ByteArrayInputStream(fromList));
+		assertEquals(Arrays.asList("a", "b", "c"),
+		             Arrays.asList(read.toArray()),
+		             testName + " list not deduplicated");
+
+		byte[] fromSet = serialize(serializer, new ArraySet<>(Arrays.asList("a", "b", "c")));
+		assertEquals(SetSerializer.DistinctFlag,
+		             fromSet[5] & SetSerializer.DistinctFlag,
+		             testName + " set not flagged as distinct");
+
+		assertThrows(NullPointerException.class,
+		             () -> {
+		            	 serialize(serializer, Arrays.asList("a", null));
+		             },
+		             testName + " null element didn't throw");
+	}
+
+	/**
+	 * Test method for the other sources and destinations: {@link ByteBuffer},
+	 * {@link java.io.DataOutput} / {@link java.io.DataInput} and
+	 * {@link java.nio.channels.WritableByteChannel}, with several sets in
+	 * sequence.
+	 * @throws IOException if serialization fails
+	 */
+	@Test
+	@DisplayName("write / read with ByteBuffer, DataOutput, channels")
+	final void testSourcesAndDestinations() throws IOException
+	{
+		String testName = new String("write / read with ByteBuffer, DataOutput, channels");
+		System.out.println(testName);
+
+		SetSerializer<Integer> serializer = new SetSerializer<>(ElementCodec.Integers);
+		List<Integer> content = new ArrayList<>();
+		for (int i = 0; i < 1000; i++)
+		{
+			content.add(i * 31);
+		}
+		Set<Integer> set = new ArraySet<>(content);
+		Set<Integer> other = new ArraySet<>(Arrays.asList(1, 2));
+
+		ByteBuffer buffer = ByteBuffer.allocate(16384);
+		serializer.write(set, buffer);
+		serializer.write(other, buffer);
+		buffer.flip();
+		assertEquals(set, serializer.read(buffer), testName + " unexpected first set from buffer");
+		assertEquals(other, serializer.read(buffer), testName + " unexpected second set from buffer");
+		assertFalse(buffer.hasRemaining(), testName + " buffer not consumed");
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream data = new DataOutputStream(bytes);
+		serializer.write(set, (DataOutput) data);
+		serializer.write(other, Channels.newChannel(bytes));
+		data.writeInt(-1);
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		assertEquals(set, serializer.read((DataInput) in), testName + " unexpected set from DataInput");
+		assertEquals(other, serializer.read((InputStream) in), testName + " unexpected set from stream");
+		assertEquals(-1, in.readInt(), testName + " trailing data consumed");
+
+		assertThrows(BufferOverflowException.class,
+		             () -> {
+		            	 serializer.write(set, ByteBuffer.allocate(16));
+		             },
+		             testName + " overflowing buffer didn't throw");
+	}
+
+	/**
+	 * Test method for corrupted streams detection
+	 * @throws IOException if serialization fails
+	 */
+	@Test
+	@DisplayName("corrupted streams")
+	final void testCorruption() throws IOException
+	{
+		String testName = new String("corrupted streams");
+		System.out.println(testName);
+
+		SetSerializer<String> serializer = new SetSerializer<>(ElementCodec.Strings);
+		byte[] bytes = serialize(serializer, new ArraySet<>(Arrays.asList("alpha", "beta", "gamma")));
+
+		byte[] flipped = bytes.clone();
+		flipped[bytes.length - 8] ^= 0x01;
+		assertThrows(StreamCorruptedException.class,
+		             () -> {
+		            	 serializer.read(new ByteArrayInputStream(flipped));
+		             },
+		             testName + " corrupted element not detected");
+
+		byte[] badMagic = bytes.clone();
+		badMagic[0] = 0;
+		assertThrows(StreamCorruptedException.class,
+		             () -> {
+		            	 serializer.read(new ByteArrayInputStream(badMagic));
+		             },
+		             testName + " bad magic number not detected");
+
+		byte[] badVersion = bytes.clone();
+		badVersion[4] = 99;
+		assertThrows(StreamCorruptedException.class,
+		             () -> {
+		            	 serializer.read(new ByteArrayInputStream(badVersion));
+		             },
+		             testName + " bad version not detected");
+
+		assertThrows(StreamCorruptedException.class,
+		             () -> {
+		            	 new SetSerializer<>(ElementCodec.Integers).read(new ByteArrayInputStream(bytes));
+		             },
+		             testName + " codec mismatch not detected");
+
+		assertThrows(EOFException.class,
+		             () -> {
+		            	 serializer.read(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 2)));
+		             },
+		             testName + " truncated stream not detected");
+	}
+}
@@ -13,6 +13,8 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
@@ -21,9 +23,13 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.AfterAll;
@@ -38,7 +44,10 @@ import sets.AbstractSet;
 import sets.ArrayListSet;
 import sets.ArraySet;
 import sets.Set;
+import sets.SetCapability;
 import sets.SetFactory;
+import sets.SegmentedArraySet;
+import sets.SetView;
 
 /**
  * Test class for all sets through {@link sets.Set} interface
@@ -202,7 +211,8 @@ class SetTest
 	(Class<? extends Set<String>>[]) new Class<?>[]
 	{
 		ArrayListSet.class,
-		ArraySet.class
+		ArraySet.class,
+		SegmentedArraySet.class
 	};
 
 	/**
@@ -262,6 +272,30 @@ class SetTest
 		return set;
 	}
 
+	/**
+	 * Construct a typed set of String elements
+	 * @param testName the current test name
+	 * @param type the type of set to create
+	 * @param content the content of the set to create (or null)
+	 * @return a new typed set of the required type and content
+	 * @see SetFactory#getSet(Class, Class, Collection)
+	 */
+	private static Set<String> constructTypedSet(String testName,
+	                                             Class<? extends Set<String>> type,
+	                                             Collection<String> content)
+	{
+		Set<String> set = null;
+		try
+		{
+			set = SetFactory.<String> getSet(type, String.class, content);
+		}
+		catch (ReflectiveOperationException | SecurityException | IllegalArgumentException e)
+		{
+			fail(testName + " typed constructor failed: " + e);
+		}
+		return set;
+	}
+
 	/**
 	 * Shuffle elements from the provided elemnts array
 	 * @param elements the array containing elements to shuffle
@@ -871,6 +905,58 @@ class SetTest
 		             testName + " hashcode changed based on elements order");
 	}
 
+	/**
+	 * Test method for {@link sets.Set#hashCode()} after mutations: the
+	 * hashcode of implementations maintaining it incrementally shall remain
+	 * the sum of elements hashcodes.
+	 * @param type the type of set to test provided by {@link #setClassesProvider()}
+	 */
+	@ParameterizedTest
+	@MethodSource("setClassesProvider")
+	@DisplayName("hashcode() after mutations")
+	final void testHashCodeAfterMutations(Class<? extends Set<String>> type)
+	{
+		String baseTestName = "hashcode() after mutations";
+		setUpTest(constructSet(baseTestName, type, listElements), baseTestName);
+		Set<String> other = constructSet(testName, type, Arrays.asList(elements2));
+		Function<Set<String>, Integer> sum = set -> {
+			int[] hash = new int[1];
+			set.forEach(elt -> hash[0] += elt.hashCode());
+			return hash[0];
+		};
+		Map<String, Runnable> mutations = new LinkedHashMap<>();
+		mutations.put("add", () -> testSet.add("hashcode"));
+		mutations.put("remove", () -> testSet.remove(listUniqueElements.get(1)));
+		mutations.put("Iterator.remove", () -> {
+			Iterator<String> it = testSet.iterator();
+			it.next();
+			it.remove();
+		});
+		mutations.put("removeIf", () -> testSet.removeIf(elt -> elt.length() % 2 == 0));
+		mutations.put("addAll", () -> testSet.addAll(listElements));
+		mutations.put("symmetricDifferenceWith", () -> testSet.symmetricDifferenceWith(other));
+		mutations.put("unionWith", () -> testSet.unionWith(other));
+		mutations.put("differenceWith", () -> testSet.differenceWith(other));
+		mutations.put("intersectWith", () -> testSet.intersectWith(other));
+		mutations.put("retainAll", () -> testSet.retainAll(listElements));
+		mutations.put("clear", () -> testSet.clear());
+		for (Map.Entry<String, Runnable> mutation : mutations.entrySet())
+		{
+			mutation.getValue().run();
+			assertEquals(sum.apply(testSet).intValue(),
+			             testSet.hashCode(),
+			             testName + " unexpected hashcode after " + mutation.getKey());
+			@SuppressWarnings("unchecked")
+			Set<String> cloned = (Set<String>) testSet.clone();
+			assertEquals(sum.apply(cloned).intValue(),
+			             cloned.hashCode(),
+			             testName + " unexpected clone hashcode after " + mutation.getKey());
+		}
+		assertEquals(sum.apply(testSet.symmetricDifference(other)).intValue(),
+		             testSet.symmetricDifference(other).hashCode(),
+		             testName + " unexpected symmetric difference hashcode");
+	}
+
 	/**
 	 * Test method for {@link sets.Set#add(java.lang.Object)}.
 	 * @param type the type of set to test provided by {@link #setClassesProvider()}
@@ -988,6 +1074,78 @@ class SetTest
 		             testName + " successfully added collection containing null element");
 	}
 
+	/**
+	 * Test method for {@link sets.Set#addAll(Object[], int, int)}.
+	 * @param type the type of set to test provided by {@link #setClassesProvider()}
+	 * @implNote Dependencies:
+	 * - {@link Set#size()}
+	 * - {@link Set#contains(Object)}
+	 */
+	@ParameterizedTest
+	@MethodSource("setClassesProvider")
+	@DisplayName("addAll(E[], int, int)")
+	final void testAddAllArrayRange(Class<? extends Set<String>> type)
+	{
+		String baseTestName = "addAll(E[], int, int)";
+		setUpTest(constructSet(baseTestName, type, null), baseTestName);
+
+		assertNotNull(testSet,
+		              testName + " non null empty instance failed");
+
+		assertTrue(testSet.addAll(elements, 0, elements1.length),
+		           testName + " addAll on empty set failed");
+		assertEquals(elements1.length,
+		             testSet.size(),
+		             testName + " unexpected size");
+		assertTrue(testSet.addAll(elements, 0, elements.length),
+		           testName + " addAll on filled set failed");
+		assertEquals(unionElements.length,
+		             testSet.size(),
+		             testName + " unexpected size");
+		assertTrue(compareSet2Array(testName, testSet, unionElements),
+		           testName + " comparison with expected elements failed");
+		assertTrue(checkUnique(testName, testSet),
+		           testName + " duplicated elements");
+		assertFalse(testSet.addAll(elements, 3, 3),
+		            testName + " addAll of empty range modified set");
+		assertFalse(testSet.addAll(elements, 0, elements.length),
+		            testName + " addAll of already added elements modified set");
+
+		/*
+		 * Null elements leave the set unmodified
+		 */
+		String[] withNull = new String[] {elements3[0], null};
+		assertThrows(NullPointerException.class,
+		             () -> {
+		            	 testSet.addAll(withNull, 0, withNull.length);
+		             },
+		             testName + " addAll with null element didn't throw");
+		assertThrows(IndexOutOfBoundsException.class,
+		             () -> {
+		            	 testSet.addAll(elements, 2, elements.length + 1);
+		             },
+		             testName + " addAll with out of bounds range didn't throw");
+
+		/*
+		 * Large batches with duplicates
+		 */
+		List<String> batch = new ArrayList<>();
+		int nbDistinct = 5000;
+		for (int i = 0; i < nbDistinct; i++)
+		{
+			batch.add(String.valueOf(i));
+			batch.add(String.valueOf(i / 3));
+		}
+		batch.addAll(listElements);
+		assertTrue(testSet.addAll(batch),
+		           testName + " large addAll failed");
+		assertEquals(unionElements.length + nbDistinct,
+		             testSet.size(),
+		             testName + " unexpected size after large addAll");
+		assertTrue(checkUnique(testName, testSet),
+		           testName + " duplicated elements after large addAll");
+	}
+
 	/**
 	 * Test method for {@link sets.Set#contains(java.lang.Object)}.
 	 * @param type the type of set to test provided by {@link #setClassesProvider()}
@@ -1342,6 +1500,134 @@ class SetTest
 		             	+ "iteration (with remove in different order)");
 	}
 
+	/**
+	 * Test method for {@link sets.Set#spliterator()} and parallel streams.
+	 * @param type the type of set to test provided by {@link #setClassesProvider()}
+	 * @implNote Dependencies:
+	 * - {@link Set#iterator()}
+	 * - {@link Set#size()}
+	 */
+	@ParameterizedTest
+	@MethodSource("setClassesProvider")
+	@DisplayName("spliterator()")
+	final void testSpliterator(Class<? extends Set<String>> type)
+	{
+		String baseTestName = "spliterator()";
+		setUpTest(constructSet(baseTestName, type, null), baseTestName);
+
+		Spliterator<String> split = testSet.spliterator();
+		assertNotNull(split, testName + " null spliterator on empty set");
+		assertEquals(0, split.estimateSize(), testName + " unexpected size on empty set");
+		assertFalse(split.tryAdvance(elt -> fail(testName + " element provided on empty set")),
+		            testName + " tryAdvance succeeded on empty set");
+
+		/*
+		 * Characteristics and balanced splits on a large set
+		 */
+		List<String> content = new ArrayList<>();
+		for (int i = 0; i < 10000; i++)
+		{
+			content.add(String.valueOf(i));
+		}
+		testSet = constructSet(testName, type, content);
+		split = testSet.spliterator();
+		int required = Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.SIZED | Spliterator.SUBSIZED;
+		assertEquals(required,
+		             split.characteristics() & required,
+		             testName + " missing characteristics");
+		assertEquals(content.size(),
+		             split.getExactSizeIfKnown(),
+		             testName + " unexpected exact size");
+		Spliterator<String> prefix = split.trySplit();
+		assertNotNull(prefix, testName + " large spliterator didn't split");
+		assertEquals(content.size() / 2,
+		             prefix.estimateSize(),
+		             testName + " unbalanced split");
+		assertEquals(content.size(),
+		             prefix.estimateSize() + split.estimateSize(),
+		             testName + " split sizes don't add up");
+		List<String> traversed = new ArrayList<>();
+		prefix.forEachRemaining(traversed::add);
+		while (split.tryAdvance(traversed::add))
+		{
+			// traversal through tryAdvance
+		}
+		assertEquals(content,
+		             traversed,
+		             testName + " unexpected traversal");
+
+		/*
+		 * Parallel streams
+		 */
+		assertEquals(content.stream().mapToLong(Long::parseLong).sum(),
+		             testSet.stream().parallel().mapToLong(Long::parseLong).sum(),
+		             testName + " unexpected parallel sum");
+		assertEquals(content,
+		             testSet.stream().parallel().collect(Collectors.toList()),
+		             testName + " unexpected parallel collect order");
+		assertEquals(content.size(),
+		             testSet.stream().parallel().distinct().count(),
+		             testName + " unexpected parallel distinct count");
+	}
+
+	/**
+	 * Test method for {@link sets.Set#forEach(java.util.function.Consumer)}
+	 * and {@link sets.Set#forEachUntil(java.util.function.Predicate)}.
+	 * @param type the type of set to test provided by {@link #setClassesProvider()}
+	 * @implNote Dependencies:
+	 * - {@link Set#iterator()}
+	 */
+	@ParameterizedTest
+	@MethodSource("setClassesProvider")
+	@DisplayName("forEach(Consumer), forEachUntil(Predicate)")
+	final void testForEach(Class<? extends Set<String>> type)
+	{
+		String baseTestName = "forEach(Consumer)";
+		setUpTest(constructSet(baseTestName, type, null), baseTestName);
+
+		testSet.forEach(elt -> fail(testName + " action called on empty set"));
+		assertFalse(testSet.forEachUntil(elt -> true),
+		            testName + " forEachUntil stopped on empty set");
+
+		testSet = constructSet(testName, type, listElements);
+		List<String> visited = new ArrayList<>();
+		testSet.forEach(visited::add);
+		assertEquals(listUniqueElements,
+		             visited,
+		             testName + " unexpected forEach traversal");
+
+		/*
+		 * forEachUntil stops on the first element satisfying the action
+		 */
+		visited.clear();
+		String stop = listUniqueElements.get(2);
+		assertTrue(testSet.forEachUntil(elt -> {
+			           visited.add(elt);
+			           return elt.equals(stop);
+		           }),
+		           testName + " forEachUntil didn't stop");
+		assertEquals(listUniqueElements.subList(0, 3),
+		             visited,
+		             testName + " unexpected forEachUntil traversal");
+		visited.clear();
+		assertFalse(testSet.forEachUntil(elt -> !visited.add(elt)),
+		            testName + " forEachUntil stopped");
+		assertEquals(listUniqueElements,
+		             visited,
+		             testName + " unexpected complete forEachUntil traversal");
+
+		assertThrows(NullPointerException.class,
+		             () -> {
+		            	 testSet.forEach(null);
+		             },
+		             testName + " forEach(null) didn't throw");
+		assertThrows(NullPointerException.class,
+		             () -> {
+		            	 testSet.forEachUntil(null);
+		             },
+		             testName + " forEachUntil(null) didn't throw");
+	}
+
 	/**
 	 * Test method for {@link sets.Set#remove(java.lang.Object)}.
 	 * @param type the type of set to test provided by {@link #setClassesProvider()}
@@ -1807,6 +2093,40 @@ class SetTest
 			assertFalse(testSet.equals(differentSet),
 			           testName + " " + testSetType + ".equals("
 			               + setTypes[i].getSimpleName() + " differentSet) succeeded");
+
+			/*
+			 * Subsets and supersets are not equal
+			 */
+			Set<String> subSet = constructSet(testName, setTypes[i], listUniqueElements.subList(1, listUniqueElements.size()));
+			assertFalse(testSet.equals(subSet),
+			            testName + " " + testSetType + ".equals("
+			                + setTypes[i].getSimpleName() + " subSet) succeeded");
+			assertFalse(subSet.equals(testSet),
+			            testName + " " + setTypes[i].getSimpleName() + ".equals("
+			                + testSetType + " superSet) succeeded");
+		}
+
+		/*
+		 * Equals between large sets of same size differing by one element
+		 */
+		List<String> largeElements = new ArrayList<>();
+		for (int i = 0; i < 100; i++)
+		{
+			largeElements.add("Element" + i);
+		}
+		testSet = constructSet(testName, type, largeElements);
+		Collections.reverse(largeElements);
+		for (int i = 0; i < setTypes.length; i++)
+		{
+			Set<String> sameSet = constructSet(testName, setTypes[i], largeElements);
+			assertTrue(testSet.equals(sameSet),
+			           testName + " " + testSetType + ".equals("
+			               + setTypes[i].getSimpleName() + " large sameSet) failed");
+			sameSet.remove("Element50");
+			sameSet.add("Element100");
+			assertFalse(testSet.equals(sameSet),
+			            testName + " " + testSetType + ".equals("
+			                + setTypes[i].getSimpleName() + " large differentSet) succeeded");
 		}
 	}
 
@@ -1910,6 +2230,83 @@ class SetTest
 		             testName + " unexpected toString output");
 	}
 
+	/**
+	 * Test method for {@link sets.Set#writeTo(Appendable, int)} and
+	 * {@link sets.Set#toString(int)}.
+	 * @param type the type of set to test provided by {@link #setClassesProvider()}
+	 */
+	@ParameterizedTest
+	@MethodSource("setClassesProvider")
+	@DisplayName("writeTo(Appendable, int), toString(int)")
+	final void testWriteTo(Class<? extends Set<String>> type)
+	{
+		String baseTestName = "writeTo(Appendable, int)";
+		setUpTest(constructSet(baseTestName, type, Arrays.asList(elements1[0])), baseTestName);
+
+		assertEquals("{" + elements1[0] + "}",
+		             testSet.toString(),
+		             testName + " unexpected single element toString output");
+
+		testSet = constructSet(testName, type, listElements);
+		StringWriter writer = new StringWriter();
+		assertDoesNotThrow(() -> testSet.writeTo(writer),
+		                   testName + " writeTo threw");
+		assertEquals(testSet.toString(),
+		             writer.toString(),
+		             testName + " writeTo differs from toString");
+		assertEquals(testSet.toString(),
+		             testSet.toString(testSet.size()),
+		             testName + " toString(size) differs from toString");
+
+		int size = testSet.size();
+		String expected = "{" + String.join(", ", listUniqueElements.subList(0, 3)) + ", "
+		    + Set.ElisionMarker + " (" + (size - 3) + " more)}";
+		assertEquals(expected,
+		             testSet.toString(3),
+		             testName + " unexpected bounded output");
+		assertEquals("{" + Set.ElisionMarker + " (" + size + " more)}",
+		             testSet.toString(0),
+		             testName + " unexpected empty bounded output");
+		assertEquals("{" + listUniqueElements.get(0) + ", " + Set.ElisionMarker + "}",
+		             testSet.intersectionView(testSet).toString(1),
+		             testName + " unexpected bounded output of unknown size view");
+
+		assertThrows(IllegalArgumentException.class,
+		             () -> {
+		            	 testSet.toString(-1);
+		             },
+		             testName + " negative bound didn't throw");
+		assertThrows(NullPointerException.class,
+		             () -> {
+		            	 testSet.writeTo(null);
+		             },
+		             testName + " writeTo(null) didn't throw");
+		assertThrows(IOException.class,
+		             () -> {
+		            	 testSet.writeTo(new Appendable()
+		            	 {
+		            		 @Override
+		            		 public Appendable append(CharSequence csq) throws IOException
+		            		 {
+		            			 throw new IOException();
+		            		 }
+
+		            		 @Override
+		            		 public Appendable append(CharSequence csq, int start, int end) throws IOException
+		            		 {
+		            			 throw new IOException();
+		            		 }
+
+		            		 @Override
+		            		 public Appendable append(char c) throws IOException
+		            		 {
+		            			 throw new IOException();
+		            		 }
+		            	 });
+		             },
+		             testName + " I/O error wasn't propagated");
+	}
+
 	/**
 	 * Test method for {@link sets.Set#union(sets.Set, sets.Set, sets.Set)}.
 	 * @param type the type of set to test provided by {@link #setClassesProvider()}
@@ -2327,6 +2724,353 @@ class SetTest
 		}
 	}
 
+	/**
+	 * Test method for {@link sets.Set#unionWith(sets.Set)},
+	 * {@link sets.Set#intersectWith(sets.Set)} and
+	 * {@link sets.Set#differenceWith(sets.Set)} as well as
+	 * {@link Set#union(Set, Set, Set)}, {@link Set#intersection(Set, Set, Set)}
+	 * and {@link Set#difference(Set, Set, Set)} when the result set is one of
+	 * the operands.
+	 * @param type the type of set to test provided by {@link #setClassesProvider()}
+	 * @implNote Dependencies:
+	 * - {@link Set#size()}
+	 */
+	@ParameterizedTest
+	@MethodSource("setClassesProvider")
+	@DisplayName("unionWith(Set), intersectWith(Set), differenceWith(Set)")
+	final void testInPlaceOperations(Class<? extends Set<String>> type)
+	{
+		String baseTestName = "inPlaceOperations(Set)";
+		List<String> listElements1 = new ArrayList<>(Arrays.asList(elements1));
+		List<String> listElements2 = new ArrayList<>(Arrays.asList(elements2));
+		setUpTest(constructSet(baseTestName, type, listElements1), baseTestName);
+
+		assertNotNull(testSet,
+		              testName + " non null empty instance failed");
+
+		for (int i = 0; i < setTypes.length; i++)
+		{
+			Class<? extends Set<String>> currentType = setTypes[i];
+			String currentTypeName = currentType.getSimpleName();
+			String subTestName = testName + "(" + testSetTypeName + ", "
+                + currentTypeName + ")";
+			Set<String> other = constructSet(testName, currentType, listElements2);
+
+			Set<String> set = constructSet(testName, type, listElements1);
+			assertTrue(set.unionWith(other),
+			           subTestName + " unionWith unexpected unmodified set");
+			assertFalse(set.unionWith(other),
+			            subTestName + " unionWith unexpected modified set");
+			assertEquals(unionElements.length,
+			             set.size(),
+			             subTestName + " unionWith wrong result size");
+			assertTrue(compareSet2Array(testName, set, unionElements),
+			           subTestName + " unionWith comparison with expected elements failed");
+
+			set = constructSet(testName, type, listElements1);
+			assertTrue(set.intersectWith(other),
+			           subTestName + " intersectWith unexpected unmodified set");
+			assertEquals(intersectionElements.length,
+			             set.size(),
+			             subTestName + " intersectWith wrong result size");
+			assertTrue(compareSet2Array(testName, set, intersectionElements),
+			           subTestName + " intersectWith comparison with expected elements failed");
+
+			set = constructSet(testName, type, listElements1);
+			assertTrue(set.differenceWith(other),
+			           subTestName + " differenceWith unexpected unmodified set");
+			assertEquals(complementElements1.length,
+			             set.size(),
+			             subTestName + " differenceWith wrong result size");
+			assertTrue(compareSet2Array(testName, set, complementElements1),
+			           subTestName + " differenceWith comparison with expected elements failed");
+			assertTrue(set.differenceWith(set) && set.isEmpty(),
+			           subTestName + " A - A is not empty");
+			assertEquals(elements2.length,
+			             other.size(),
+			             subTestName + " other set has been modified");
+
+			/*
+			 * Static operations with result being one of the operands
+			 */
+			set = constructSet(testName, type, listElements1);
+			Set.union(set, other, set);
+			assertEquals(testSet.union(other),
+			             set,
+			             subTestName + " Set.union(set, other, set) failed");
+			set = constructSet(testName, type, listElements1);
+			Set.intersection(other, set, set);
+			assertEquals(testSet.intersection(other),
+			             set,
+			             subTestName + " Set.intersection(other, set, set) failed");
+			set = constructSet(testName, type, listElements1);
+			Set.difference(set, other, set);
+			assertEquals(testSet.difference(other),
+			             set,
+			             subTestName + " Set.difference(set, other, set) failed");
+			set = constructSet(testName, type, listElements2);
+			Set.difference(testSet, set, set);
+			assertEquals(testSet.difference(other),
+			             set,
+			             subTestName + " Set.difference(testSet, set, set) failed");
+
+			assertThrows(NullPointerException.class,
+			             () -> {
+			            	 testSet.unionWith(null);
+			             },
+			             subTestName + " testSet.unionWith(null) didn't throw");
+			assertThrows(NullPointerException.class,
+			             () -> {
+			            	 testSet.intersectWith(null);
+			             },
+			             subTestName + " testSet.intersectWith(null) didn't throw");
+			assertThrows(NullPointerException.class,
+			             () -> {
+			            	 testSet.differenceWith(null);
+			             },
+			             subTestName + " testSet.differenceWith(null) didn't throw");
+		}
+	}
+
+	/**
+	 * Test method for {@link sets.Set#symmetricDifferenceWith(sets.Set)}.
+	 * @param type the type of set to test provided by {@link #setClassesProvider()}
+	 * @implNote Dependencies:
+	 * - {@link Set#size()}
+	 */
+	@ParameterizedTest
+	@MethodSource("setClassesProvider")
+	@DisplayName("symmetricDifferenceWith(Set)")
+	final void testSymmetricDifferenceWith(Class<? extends Set<String>> type)
+	{
+		String baseTestName = "symmetricDifferenceWith(Set)";
+		List<String> listElements1 = new ArrayList<>(Arrays.asList(elements1));
+		List<String> listElements2 = new ArrayList<>(Arrays.asList(elements2));
+		setUpTest(constructSet(baseTestName, type, listElements1), baseTestName);
+
+		assertNotNull(testSet,
+		              testName + " non null empty instance failed");
+
+		for (int i = 0; i < setTypes.length; i++)
+		{
+			Class<? extends Set<String>> currentType = setTypes[i];
+			String currentTypeName = currentType.getSimpleName();
+			String subTestName = testName + ".symmetricDifferenceWith(" + testSetTypeName + ", "
+                + currentTypeName + ")";
+			Set<String> set = constructSet(testName, type, listElements1);
+			Set<String> other = constructSet(testName, currentType, listElements2);
+
+			assertTrue(set.symmetricDifferenceWith(other),
+			           subTestName + " unexpected unmodified set");
+			assertEquals(diffElements.length,
+			             set.size(),
+			             subTestName + " failed with wrong result size");
+			assertTrue(compareSet2Array(testName, set, diffElements),
+			           subTestName +  " comparison with expected elements failed");
+			assertTrue(checkUnique(testName, set),
+			           subTestName + " duplicated elements");
+			assertEquals(testSet.symmetricDifference(other),
+			             set,
+			             subTestName + " differs from symmetricDifference");
+			assertEquals(elements2.length,
+			             other.size(),
+			             subTestName + " other set has been modified");
+
+			/*
+			 * Δ is an involution: (A Δ B) Δ B = A
+			 */
+			set.symmetricDifferenceWith(other);
+			assertEquals(testSet,
+			             set,
+			             subTestName + " (A Δ B) Δ B differs from A");
+
+			/*
+			 * A Δ A = ∅
+			 */
+			set.symmetricDifferenceWith(set);
+			assertTrue(set.isEmpty(),
+			           subTestName + " A Δ A is not empty");
+
+			assertThrows(NullPointerException.class,
+			             () -> {
+			            	 testSet.symmetricDifferenceWith(null);
+			             },
+			             subTestName + " testSet.symmetricDifferenceWith(null) didn't throw");
+		}
+	}
+
+	/**
+	 * Test method for {@link sets.Set#intersectionSize(sets.Set)},
+	 * {@link sets.Set#unionSize(sets.Set)},
+	 * {@link sets.Set#differenceSize(sets.Set)},
+	 * {@link sets.Set#jaccard(sets.Set)},
+	 * {@link sets.Set#isDisjoint(sets.Set)} and
+	 * {@link sets.Set#intersects(sets.Set)}.
+	 * @param type the type of set to test provided by {@link #setClassesProvider()}
+	 * @implNote Dependencies:
+	 * - {@link Set#size()}
+	 */
+	@ParameterizedTest
+	@MethodSource("setClassesProvider")
+	@DisplayName("intersectionSize(Set), unionSize(Set), differenceSize(Set), jaccard(Set), isDisjoint(Set)")
+	final void testCardinalities(Class<? extends Set<String>> type)
+	{
+		String baseTestName = "cardinalities(Set)";
+		List<String> listElements1 = new ArrayList<>(Arrays.asList(elements1));
+		List<String> listElements2 = new ArrayList<>(Arrays.asList(elements2));
+		List<String> listElements3 = new ArrayList<>(Arrays.asList(elements3));
+		setUpTest(constructSet(baseTestName, type, listElements1), baseTestName);
+
+		assertNotNull(testSet,
+		              testName + " non null empty instance failed");
+
+		for (int i = 0; i < setTypes.length; i++)
+		{
+			Class<? extends Set<String>> currentType = setTypes[i];
+			String currentTypeName = currentType.getSimpleName();
+			String subTestName = testName + "(" + testSetTypeName + ", "
+                + currentTypeName + ")";
+			Set<String> other = constructSet(testName, currentType, listElements2);
+			Set<String> disjoint = constructSet(testName, currentType, listElements3);
+			Set<String> empty = constructSet(testName, currentType, null);
+
+			assertEquals(intersectionElements.length,
+			             testSet.intersectionSize(other),
+			             subTestName + " unexpected intersectionSize");
+			assertEquals(intersectionElements.length,
+			             other.intersectionSize(testSet),
+			             subTestName + " unexpected reversed intersectionSize");
+			assertEquals(unionElements.length,
+			             testSet.unionSize(other),
+			             subTestName + " unexpected unionSize");
+			assertEquals(complementElements1.length,
+			             testSet.differenceSize(other),
+			             subTestName + " unexpected differenceSize");
+			assertEquals((double) intersectionElements.length / unionElements.length,
+			             testSet.jaccard(other),
+			             1e-9,
+			             subTestName + " unexpected jaccard");
+			assertEquals(1.0,
+			             empty.jaccard(constructSet(testName, currentType, null)),
+			             subTestName + " unexpected jaccard of empty sets");
+			assertFalse(testSet.isDisjoint(other),
+			            subTestName + " unexpected isDisjoint");
+			assertTrue(testSet.intersects(other),
+			           subTestName + " unexpected intersects");
+			assertTrue(testSet.isDisjoint(disjoint),
+			           subTestName + " unexpected isDisjoint on disjoint sets");
+			assertTrue(testSet.isDisjoint(empty),
+			           subTestName + " unexpected isDisjoint with empty set");
+			assertEquals(0,
+			             testSet.intersectionSize(disjoint),
+			             subTestName + " unexpected intersectionSize on disjoint sets");
+			assertThrows(NullPointerException.class,
+			             () -> {
+			            	 testSet.intersectionSize(null);
+			             },
+			             subTestName + " testSet.intersectionSize(null) didn't throw");
+			assertThrows(NullPointerException.class,
+			             () -> {
+			            	 testSet.isDisjoint(null);
+			             },
+			             subTestName + " testSet.isDisjoint(null) didn't throw");
+		}
+	}
+
+	/**
+	 * Test method for {@link sets.Set#unionView(sets.Set)},
+	 * {@link sets.Set#intersectionView(sets.Set)} and
+	 * {@link sets.Set#differenceView(sets.Set)}.
+	 * @param type the type of set to test provided by {@link #setClassesProvider()}
+	 * @implNote Dependencies:
+	 * - {@link Set#size()}
+	 */
+	@ParameterizedTest
+	@MethodSource("setClassesProvider")
+	@DisplayName("unionView(Set), intersectionView(Set), differenceView(Set)")
+	final void testViews(Class<? extends Set<String>> type)
+	{
+		String baseTestName = "views(Set)";
+		List<String> listElements1 = new ArrayList<>(Arrays.asList(elements1));
+		List<String> listElements2 = new ArrayList<>(Arrays.asList(elements2));
+		setUpTest(constructSet(baseTestName, type, listElements1), baseTestName);
+
+		assertNotNull(testSet,
+		              testName + " non null empty instance failed");
+
+		for (int i = 0; i < setTypes.length; i++)
+		{
+			Class<? extends Set<String>> currentType = setTypes[i];
+			String currentTypeName = currentType.getSimpleName();
+			String subTestName = testName + "(" + testSetTypeName + ", "
+                + currentTypeName + ")";
+			Set<String> other = constructSet(testName, currentType, listElements2);
+
+			SetView<String> union = testSet.unionView(other);
+			SetView<String> intersection = testSet.intersectionView(other);
+			SetView<String> difference = testSet.differenceView(other);
+
+			assertEquals(unionElements.length,
+			             union.size(),
+			             subTestName + " unionView wrong size");
+			assertTrue(compareSet2Array(testName, union, unionElements),
+			           subTestName + " unionView comparison with expected elements failed");
+			assertTrue(checkUnique(testName, union),
+			           subTestName + " unionView iterates over duplicates");
+			assertEquals(intersectionElements.length,
+			             intersection.size(),
+			             subTestName + " intersectionView wrong size");
+			assertTrue(compareSet2Array(testName, intersection, intersectionElements),
+			           subTestName + " intersectionView comparison with expected elements failed");
+			assertEquals(complementElements1.length,
+			             difference.size(),
+			             subTestName + " differenceView wrong size");
+			assertTrue(compareSet2Array(testName, difference, complementElements1),
+			           subTestName + " differenceView comparison with expected elements failed");
+			assertFalse(difference.contains(intersectionElements[0]),
+			            subTestName + " differenceView contains common element");
+
+			/*
+			 * Views are equal to eager results and materialize to the same content
+			 */
+			assertEquals(testSet.union(other),
+			             union,
+			             subTestName + " unionView differs from union");
+			assertEquals(testSet.intersection(other),
+			             intersection.materialize(),
+			             subTestName + " materialized intersectionView differs from intersection");
+			assertEquals(testSet.difference(other),
+			             difference.materialize(),
+			             subTestName + " materialized differenceView differs from difference");
+			assertEquals(intersection.size(),
+			             intersection.materialize().capacity(),
+			             subTestName + " materialized intersectionView unexpected capacity");
+
+			/*
+			 * Views are live and read-only
+			 */
+			other.add(elements3[0]);
+			assertTrue(union.contains(elements3[0]),
+			           subTestName + " unionView doesn't reflect operand change");
+			other.remove(elements3[0]);
+			assertThrows(UnsupportedOperationException.class,
+			             () -> {
+			            	 union.add(elements3[1]);
+			             },
+			             subTestName + " unionView.add didn't throw");
+			assertThrows(UnsupportedOperationException.class,
+			             () -> {
+			            	 intersection.clear();
+			             },
+			             subTestName + " intersectionView.clear didn't throw");
+			assertThrows(NullPointerException.class,
+			             () -> {
+			            	 testSet.differenceView(null);
+			             },
+			             subTestName + " testSet.differenceView(null) didn't throw");
+		}
+	}
+
 	/**
 	 * Test method for {@link sets.Set#elementsType()}.
 	 * @param type the type of set to test provided by {@link #setClassesProvider()}
@@ -2358,4 +3102,152 @@ class SetTest
 		             eltType,
 		             testName + " unexpected Set content type: " + eltType.getSimpleName());
 	}
+
+	/**
+	 * Test method for {@link sets.Set#elementsClass()} on sets typed with
+	 * {@link SetFactory#getSet(Class, Class, Collection)}.
+	 * @param type the type of set to test provided by {@link #setClassesProvider()}
+	 */
+	@ParameterizedTest
+	@MethodSource("setClassesProvider")
+	@DisplayName("elementsClass()")
+	final void testElementsClass(Class<? extends Set<String>> type)
+	{
+		String baseTestName = "elementsClass()";
+		setUpTest(constructSet(baseTestName, type, null), baseTestName);
+
+		/*
+		 * Untyped empty sets have no elements type but can still be compared
+		 */
+		assertNull(testSet.elementsClass(),
+		           testName + " untyped set has an elements class");
+		List<Object> others = new ArrayList<>(Arrays.asList(elements1));
+		others.add(Integer.valueOf(5));
+		assertFalse(testSet.containsAll(others),
+		            testName + " empty set contains all elements");
+		assertFalse(testSet.removeAll(others),
+		            testName + " empty set has been modified by removeAll");
+
+		/*
+		 * Typed sets know their elements type even when empty
+		 */
+		testSet = constructTypedSet(testName, type, null);
+		assertTrue(testSet.isEmpty(), testName + " typed set is not empty");
+		assertEquals(String.class,
+		             testSet.elementsClass(),
+		             testName + " unexpected elements class");
+		assertEquals(String.class,
+		             testSet.elementsType(),
+		             testName + " unexpected elements type on empty typed set");
+		assertThrows(ClassCastException.class,
+		             () -> {
+		            	 testSet.containsAll(Arrays.asList(Integer.valueOf(5)));
+		             },
+		             testName + " containsAll with Integer didn't throw");
+
+		testSet = constructTypedSet(testName, type, listElements);
+		assertEquals(listUniqueElements.size(),
+		             testSet.size(),
+		             testName + " unexpected typed set size");
+		String[] array = testSet.toTypedArray();
+		assertEquals(String[].class,
+		             array.getClass(),
+		             testName + " unexpected typed array class");
+		assertArrayEquals(listUniqueElements.toArray(),
+		                  array,
+		                  testName + " unexpected typed array content");
+		assertThrows(ClassCastException.class,
+		             () -> {
+		            	 testSet.removeAll(others);
+		             },
+		             testName + " removeAll with Integer didn't throw");
+
+		/*
+		 * Typed sets of String are compared without per element type checks
+		 */
+		Set<String> other = constructTypedSet(testName, type, Arrays.asList(elements1));
+		assertTrue(testSet.containsAll(other),
+		           testName + " typed set doesn't contain typed subset");
+		assertTrue(testSet.removeAll(other),
+		           testName + " typed removeAll failed");
+		assertTrue(testSet.isDisjoint(other),
+		           testName + " typed removeAll left elements");
+
+		/*
+		 * Clones and results of operations keep the elements class
+		 */
+		assertEquals(String.class,
+		             ((Set<?>) testSet.clone()).elementsClass(),
+		             testName + " clone lost elements class");
+		assertEquals(String.class,
+		             testSet.union(other).elementsClass(),
+		             testName + " union lost elements class");
+		assertEquals(String.class,
+		             testSet.intersection(other).elementsClass(),
+		             testName + " intersection lost elements class");
+		assertEquals(String.class,
+		             testSet.difference(other).elementsClass(),
+		             testName + " difference lost elements class");
+		assertEquals(String.class,
+		             testSet.symmetricDifference(other).elementsClass(),
+		             testName + " symmetric difference lost elements class");
+
+		testSet = constructSet(testName, type, listElements);
+		assertThrows(IllegalStateException.class,
+		             () -> {
+		            	 testSet.toTypedArray();
+		             },
+		             testName + " toTypedArray on untyped set didn't throw");
+	}
+
+	/**
+	 * Test method for {@link sets.Set#hasCapability(SetCapability)} and the
+	 * operations dispatching on capabilities.
+	 * @param type the type of set to test provided by {@link #setClassesProvider()}
+	 */
+	@ParameterizedTest
+	@MethodSource("setClassesProvider")
+	@DisplayName("hasCapability(SetCapability)")
+	final void testCapabilities(Class<? extends Set<String>> type)
+	{
+		String baseTestName = "hasCapability(SetCapability)";
+		setUpTest(constructSet(baseTestName, type, listElements), baseTestName);
+
+		assertTrue(testSet.hasCapability(SetCapability.KNOWN_SIZE),
+		           testName + " array based set doesn't have known size");
+		assertFalse(testSet.hasCapability(SetCapability.FAST_CONTAINS),
+		            testName + " array based set has fast contains");
+		assertTrue(testSet.hasCapability(SetCapability.KNOWN_HASH),
+		           testName + " array based set doesn't have known hash");
+		SetView<String> view = testSet.unionView(testSet);
+		assertFalse(view.hasCapability(SetCapability.KNOWN_SIZE),
+		            testName + " view has known size");
+		assertFalse(view.hasCapability(SetCapability.KNOWN_HASH),
+		            testName + " view has known hash");
+		assertEquals(testSet, view, testName + " set differs from view with same content");
+		assertEquals(view, testSet, testName + " view differs from set with same content");
+
+		/*
+		 * Intersection of a small set with a large set in both orders
+		 */
+		Set<String> small = constructSet(testName, type, Arrays.asList(elements1).subList(0, 3));
+		Set<String> expected = testSet.intersection(small);
+		for (Class<? extends Set<String>> resultType : setTypes)
+		{
+			Set<String> result = constructSet(testName, resultType, Arrays.asList(elements3));
+			Set.intersection(testSet, small, result);
+			assertEquals(expected, result, testName + " unexpected large ⋂ small");
+			Set.intersection(small, testSet, result);
+			assertEquals(expected, result, testName + " unexpected small ⋂ large");
+		}
+		assertEquals(expected.size(),
+		             testSet.intersectionSize(small),
+		             testName + " unexpected large ⋂ small size");
+		assertEquals(expected.size(),
+		             small.intersectionSize(testSet),
+		             testName + " unexpected small ⋂ large size");
+		assertEquals(expected.isEmpty(),
+		             view.isDisjoint(small),
+		             testName + " unexpected view disjunction");
+	}
 }
@@ -1,8 +1,19 @@
 /**
  * Package containing all tests for testing {@link sets.Set}s
- * 	- {@link tests.SetTest} will test both classes
+ * 	- {@link tests.SetTest} will test all classes
  * 		- {@link sets.ArraySet}
  * 		- {@link sets.ArrayListSet}
+ * 		- {@link sets.SegmentedArraySet}
  * 	- {@link tests.ArraySetTest} will test specific methods of {@link sets.ArraySet}
+ * 	- {@link tests.SegmentedArraySetTest} will test specific methods of
+ * 	{@link sets.SegmentedArraySet}
+ * 	- {@link tests.SetSerializerTest} will test {@link sets.SetSerializer} and
+ * 	the predefined {@link sets.ElementCodec}s
+ * 	- {@link tests.MappedSetTest} will test {@link sets.MappedSet} files
+ * 	- {@link tests.DurableSetTest} will test {@link sets.DurableSet} logging,
+ * 	recovery and checkpoints
+ * 	- {@link tests.ExternalSetAlgebraTest} will test
+ * 	{@link sets.ExternalSetAlgebra} sorting and set operations
+ * 	- {@link tests.SetExprTest} will test {@link sets.SetExpr} planning and evaluation
  */
 package tests;